@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.io.Serializable;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.OrderUtils;
 import org.springframework.lang.Nullable;
@@ -110,7 +111,7 @@ public class BeanFactoryAspectInstanceFactory implements MetadataAwareAspectInst
 			// Rely on singleton semantics provided by the factory -> no local lock.
 			return null;
 		}
-		else if (this.beanFactory instanceof ConfigurableBeanFactory) {
+		else if (this.beanFactory instanceof ConfigurableBeanFactory && !isConcurrentSingletonCreation()) {
 			// No singleton guarantees from the factory -> let's lock locally but
 			// reuse the factory's singleton lock, just in case a lazy dependency
 			// of our advice bean happens to trigger the singleton lock implicitly...
@@ -121,6 +122,17 @@ public class BeanFactoryAspectInstanceFactory implements MetadataAwareAspectInst
 		}
 	}
 
+	/**
+	 * Determine whether the underlying bean factory creates singletons concurrently,
+	 * in which case the aspect instance must not be obtained within the creation mutex.
+	 * @since 5.2
+	 * @see DefaultSingletonBeanRegistry#setConcurrentSingletonCreation
+	 */
+	boolean isConcurrentSingletonCreation() {
+		return (this.beanFactory instanceof DefaultSingletonBeanRegistry &&
+				((DefaultSingletonBeanRegistry) this.beanFactory).isConcurrentSingletonCreation());
+	}
+
 	/**
 	 * Determine the order for this factory's target aspect, either
 	 * an instance-specific order expressed through implementing the
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,11 @@ import org.springframework.util.Assert;
 /**
  * Decorator to cause a {@link MetadataAwareAspectInstanceFactory} to instantiate only once.
  *
+ * <p>With {@link org.springframework.beans.factory.support.DefaultSingletonBeanRegistry#setConcurrentSingletonCreation
+ * concurrent singleton creation}, a bean factory based target instance gets obtained
+ * outside of the creation mutex: concurrent first calls may instantiate more than once
+ * then, keeping the first instance only.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @since 2.0
@@ -56,6 +61,19 @@ public class LazySingletonAspectInstanceFactoryDecorator implements MetadataAwar
 				aspectInstance = this.maaif.getAspectInstance();
 				this.materialized = aspectInstance;
 			}
+			else if (this.maaif instanceof BeanFactoryAspectInstanceFactory &&
+					((BeanFactoryAspectInstanceFactory) this.maaif).isConcurrentSingletonCreation()) {
+				// Obtain the instance outside of the mutex, since its creation may have to
+				// wait for singleton creation in other threads, and keep the first one only.
+				Object newInstance = this.maaif.getAspectInstance();
+				synchronized (mutex) {
+					aspectInstance = this.materialized;
+					if (aspectInstance == null) {
+						aspectInstance = newInstance;
+						this.materialized = aspectInstance;
+					}
+				}
+			}
 			else {
 				synchronized (mutex) {
 					aspectInstance = this.materialized;
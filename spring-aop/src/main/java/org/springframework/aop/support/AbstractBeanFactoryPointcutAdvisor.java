@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.aopalliance.aop.Advice;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -61,6 +62,9 @@ public abstract class AbstractBeanFactoryPointcutAdvisor extends AbstractPointcu
 	 * of this advisor's advice. This advisor will only ever obtain at most one
 	 * single instance of the advice bean, caching the instance for the lifetime
 	 * of the advisor.
+	 * <p>With {@link DefaultSingletonBeanRegistry#setConcurrentSingletonCreation
+	 * concurrent singleton creation}, concurrent first access to a non-singleton
+	 * advice bean may obtain further instances which get discarded.
 	 * @see #getAdvice()
 	 */
 	public void setAdviceBeanName(@Nullable String adviceBeanName) {
@@ -82,7 +86,7 @@ public abstract class AbstractBeanFactoryPointcutAdvisor extends AbstractPointcu
 	}
 
 	private void resetAdviceMonitor() {
-		if (this.beanFactory instanceof ConfigurableBeanFactory) {
+		if (this.beanFactory instanceof ConfigurableBeanFactory && !isConcurrentSingletonCreation()) {
 			this.adviceMonitor = ((ConfigurableBeanFactory) this.beanFactory).getSingletonMutex();
 		}
 		else {
@@ -90,6 +94,11 @@ public abstract class AbstractBeanFactoryPointcutAdvisor extends AbstractPointcu
 		}
 	}
 
+	private boolean isConcurrentSingletonCreation() {
+		return (this.beanFactory instanceof DefaultSingletonBeanRegistry &&
+				((DefaultSingletonBeanRegistry) this.beanFactory).isConcurrentSingletonCreation());
+	}
+
 	/**
 	 * Specify a particular instance of the target advice directly,
 	 * avoiding lazy resolution in {@link #getAdvice()}.
@@ -117,6 +126,20 @@ public abstract class AbstractBeanFactoryPointcutAdvisor extends AbstractPointcu
 			this.advice = advice;
 			return advice;
 		}
+		else if (isConcurrentSingletonCreation()) {
+			// No singleton guarantees from the factory and no singleton lock either ->
+			// let's obtain the advice outside of our local lock, since its creation may
+			// have to wait for singleton creation in other threads, keeping the first one.
+			Advice newAdvice = this.beanFactory.getBean(this.adviceBeanName, Advice.class);
+			synchronized (this.adviceMonitor) {
+				advice = this.advice;
+				if (advice == null) {
+					advice = newAdvice;
+					this.advice = advice;
+				}
+				return advice;
+			}
+		}
 		else {
 			// No singleton guarantees from the factory -> let's lock locally but
 			// reuse the factory's singleton lock, just in case a lazy dependency
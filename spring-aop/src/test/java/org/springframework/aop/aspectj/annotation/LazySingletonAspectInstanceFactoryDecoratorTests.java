@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj.annotation;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import test.aop.PerTargetAspect;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LazySingletonAspectInstanceFactoryDecorator}.
+ *
+ * @author Agent
+ */
+public class LazySingletonAspectInstanceFactoryDecoratorTests {
+
+	@Test
+	public void prototypeAspectObtainedWithinSingletonMutex() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		assertThat(isAspectObtainedWithinSingletonMutex(beanFactory)).isTrue();
+	}
+
+	@Test
+	public void prototypeAspectObtainedOutsideOfSingletonMutexWithConcurrentSingletonCreation() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		assertThat(isAspectObtainedWithinSingletonMutex(beanFactory)).isFalse();
+	}
+
+	private boolean isAspectObtainedWithinSingletonMutex(DefaultListableBeanFactory beanFactory) {
+		AtomicBoolean holdsMutex = new AtomicBoolean();
+		beanFactory.registerBeanDefinition("aspect", new RootBeanDefinition(
+				PerTargetAspect.class, BeanDefinition.SCOPE_PROTOTYPE, () -> {
+					holdsMutex.set(Thread.holdsLock(beanFactory.getSingletonMutex()));
+					return new PerTargetAspect();
+				}));
+		LazySingletonAspectInstanceFactoryDecorator aspectInstanceFactory =
+				new LazySingletonAspectInstanceFactoryDecorator(new BeanFactoryAspectInstanceFactory(beanFactory, "aspect"));
+
+		Object aspect = aspectInstanceFactory.getAspectInstance();
+		assertThat(aspect).isInstanceOf(PerTargetAspect.class);
+		assertThat(aspectInstanceFactory.getAspectInstance()).isSameAs(aspect);
+		return holdsMutex.get();
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.support;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.aopalliance.aop.Advice;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.tests.aop.interceptor.NopInterceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link DefaultBeanFactoryPointcutAdvisor}.
+ *
+ * @author Agent
+ */
+public class DefaultBeanFactoryPointcutAdvisorTests {
+
+	@Test
+	public void prototypeAdviceObtainedWithinSingletonMutex() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		assertThat(isAdviceObtainedWithinSingletonMutex(beanFactory)).isTrue();
+	}
+
+	@Test
+	public void prototypeAdviceObtainedOutsideOfSingletonMutexWithConcurrentSingletonCreation() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		assertThat(isAdviceObtainedWithinSingletonMutex(beanFactory)).isFalse();
+	}
+
+	private boolean isAdviceObtainedWithinSingletonMutex(DefaultListableBeanFactory beanFactory) {
+		AtomicBoolean holdsMutex = new AtomicBoolean();
+		beanFactory.registerBeanDefinition("advice", new RootBeanDefinition(
+				NopInterceptor.class, BeanDefinition.SCOPE_PROTOTYPE, () -> {
+					holdsMutex.set(Thread.holdsLock(beanFactory.getSingletonMutex()));
+					return new NopInterceptor();
+				}));
+		DefaultBeanFactoryPointcutAdvisor advisor = new DefaultBeanFactoryPointcutAdvisor();
+		advisor.setAdviceBeanName("advice");
+		advisor.setBeanFactory(beanFactory);
+
+		Advice advice = advisor.getAdvice();
+		assertThat(advice).isInstanceOf(NopInterceptor.class);
+		assertThat(advisor.getAdvice()).isSameAs(advice);
+		return holdsMutex.get();
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} lookups of
+ * singleton and prototype beans, by name and by type.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public Object singletonByName(BenchmarkState state) {
+		return state.beanFactory.getBean("service");
+	}
+
+	@Benchmark
+	public Object singletonByType(BenchmarkState state) {
+		return state.beanFactory.getBean(Service.class);
+	}
+
+	@Benchmark
+	public Object prototypeByName(BenchmarkState state) {
+		return state.beanFactory.getBean("prototype");
+	}
+
+	@Benchmark
+	public Object prototypeByType(BenchmarkState state) {
+		return state.beanFactory.getBean(Prototype.class);
+	}
+
+	@Benchmark
+	public Object prototypeWithDependency(BenchmarkState state) {
+		return state.beanFactory.getBean("prototypeWithDependency");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		/**
+		 * Number of additional unrelated beans, which affects by-type lookups.
+		 */
+		@Param({"10", "1000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			this.beanFactory.registerBeanDefinition("service", new RootBeanDefinition(Service.class));
+			RootBeanDefinition prototype = new RootBeanDefinition(Prototype.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+			RootBeanDefinition prototypeWithDependency = new RootBeanDefinition(Prototype.class);
+			prototypeWithDependency.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototypeWithDependency.getPropertyValues().add("service", new RuntimeBeanReference("service"));
+			prototypeWithDependency.setAutowireCandidate(false);
+			this.beanFactory.registerBeanDefinition("prototypeWithDependency", prototypeWithDependency);
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("filler" + i, new RootBeanDefinition(Filler.class));
+			}
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class Service {
+	}
+
+
+	public static class Prototype {
+
+		private Service service;
+
+		public void setService(Service service) {
+			this.service = service;
+		}
+
+		public Service getService() {
+			return this.service;
+		}
+	}
+
+
+	public static class Filler {
+	}
+
+}
@@ -1231,58 +1231,64 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Nullable
 	private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-		synchronized (getSingletonMutex()) {
-			BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
-			if (bw != null) {
-				return (FactoryBean<?>) bw.getWrappedInstance();
-			}
-			Object beanInstance = getSingleton(beanName, false);
-			if (beanInstance instanceof FactoryBean) {
-				return (FactoryBean<?>) beanInstance;
-			}
-			if (isSingletonCurrentlyInCreation(beanName) ||
-					(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
-				return null;
-			}
+		try {
+			return doWithSingletonLock(beanName, () -> {
+				BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
+				if (bw != null) {
+					return (FactoryBean<?>) bw.getWrappedInstance();
+				}
+				Object beanInstance = getSingleton(beanName, false);
+				if (beanInstance instanceof FactoryBean) {
+					return (FactoryBean<?>) beanInstance;
+				}
+				if (isSingletonCurrentlyInCreation(beanName) ||
+						(mbd.getFactoryBeanName() != null && isSingletonCurrentlyInCreation(mbd.getFactoryBeanName()))) {
+					return null;
+				}
 
-			Object instance;
-			try {
-				// Mark this bean as currently in creation, even if just partially.
-				// 将此bean标记为当前正在创建中，即使只是部分创建。
-				beforeSingletonCreation(beanName);
-				// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
-				// 给BeanPostProcessors一个返回代理而不是目标bean实例的机会。
-				instance = resolveBeforeInstantiation(beanName, mbd);
-				if (instance == null) {
-					bw = createBeanInstance(beanName, mbd, null);
-					instance = bw.getWrappedInstance();
+				Object instance;
+				try {
+					// Mark this bean as currently in creation, even if just partially.
+					// 将此bean标记为当前正在创建中，即使只是部分创建。
+					beforeSingletonCreation(beanName);
+					// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
+					// 给BeanPostProcessors一个返回代理而不是目标bean实例的机会。
+					instance = resolveBeforeInstantiation(beanName, mbd);
+					if (instance == null) {
+						bw = createBeanInstance(beanName, mbd, null);
+						instance = bw.getWrappedInstance();
+					}
 				}
-			}
-			catch (UnsatisfiedDependencyException ex) {
-				// Don't swallow, probably misconfiguration...
-				// 不要吞掉错误，可能是配置错误。。。
-				throw ex;
-			}
-			catch (BeanCreationException ex) {
-				// Instantiation failure, maybe too early...
-				// 实例化失败，可能太早了。。
-				if (logger.isDebugEnabled()) {
-					logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
+				catch (UnsatisfiedDependencyException ex) {
+					// Don't swallow, probably misconfiguration...
+					// 不要吞掉错误，可能是配置错误。。。
+					throw ex;
+				}
+				catch (BeanCreationException ex) {
+					// Instantiation failure, maybe too early...
+					// 实例化失败，可能太早了。。
+					if (logger.isDebugEnabled()) {
+						logger.debug("Bean creation exception on singleton FactoryBean type check: " + ex);
+					}
+					onSuppressedException(ex);
+					return null;
+				}
+				finally {
+					// Finished partial creation of this bean.
+					// 已完成此bean的部分创建。
+					afterSingletonCreation(beanName);
 				}
-				onSuppressedException(ex);
-				return null;
-			}
-			finally {
-				// Finished partial creation of this bean.
-				// 已完成此bean的部分创建。
-				afterSingletonCreation(beanName);
-			}
 
-			FactoryBean<?> fb = getFactoryBean(beanName, instance);
-			if (bw != null) {
-				this.factoryBeanInstanceCache.put(beanName, bw);
-			}
-			return fb;
+				FactoryBean<?> fb = getFactoryBean(beanName, instance);
+				if (bw != null) {
+					this.factoryBeanInstanceCache.put(beanName, bw);
+				}
+				return fb;
+			});
+		}
+		catch (BeanCurrentlyInCreationException ex) {
+			// Locked by another thread which waits for the current thread -> no shortcut.
+			return null;
 		}
 	}
 
@@ -2411,7 +2417,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Override
 	protected void removeSingleton(String beanName) {
-		synchronized (getSingletonMutex()) {
+		synchronized (getSingletonCacheMutex()) {
 			super.removeSingleton(beanName);
 			this.factoryBeanInstanceCache.remove(beanName);
 		}
@@ -2423,7 +2429,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	 */
 	@Override
 	protected void clearSingletonCache() {
-		synchronized (getSingletonMutex()) {
+		synchronized (getSingletonCacheMutex()) {
 			super.clearSingletonCache();
 			this.factoryBeanInstanceCache.clear();
 		}
@@ -27,10 +27,13 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,6 +43,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -48,6 +52,8 @@ import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -71,8 +77,10 @@ import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotation;
@@ -163,6 +171,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	//是否允许类饥饿加载，即使对于懒加载的init bean也是如此。
 	private boolean allowEagerClassLoading = true;
 
+	/** Optional Executor for the parallel pre-instantiation of singletons. */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	//依赖项列表和数组的可选OrderComparator。
 	@Nullable
@@ -291,6 +303,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set an {@link Executor} for the parallel pre-instantiation of singletons
+	 * in {@link #preInstantiateSingletons()}.
+	 * <p>By default, all non-lazy singletons are instantiated one after another
+	 * within the calling thread. With a bootstrap executor, each singleton gets
+	 * instantiated on the executor as soon as the singletons that it is known to
+	 * depend on are available: as declared through "depends-on", bean references
+	 * in property values and constructor arguments, or a factory bean, as well
+	 * as dependencies registered before. Any further dependencies, e.g. on
+	 * autowired fields, are created on demand by the thread that needs them.
+	 * <p>{@link SmartInitializingSingleton} callbacks are still invoked within
+	 * the calling thread once all singletons have been instantiated, and the
+	 * first singleton creation failure is rethrown to the caller.
+	 * <p>Note that singletons are still created one at a time within the common
+	 * singleton mutex unless {@link #setConcurrentSingletonCreation concurrent
+	 * singleton creation} has been switched on as well, which is not implied
+	 * by setting a bootstrap executor.
+	 * @since 5.2
+	 * @see #setConcurrentSingletonCreation
+	 */
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the Executor for the parallel pre-instantiation of singletons, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -877,30 +922,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
+		Executor executor = this.bootstrapExecutor;
+		if (executor != null) {
+			List<String> singletonNames = new ArrayList<>(beanNames.size());
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					singletonNames.add(beanName);
 				}
-				else {
-					getBean(beanName);
+			}
+			new SingletonPreInstantiation(singletonNames, executor).instantiateSingletons();
+		}
+		else {
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
 				}
 			}
 		}
@@ -923,6 +960,83 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Instantiate the given non-lazy singleton, or the FactoryBean
+	 * (and eagerly initialized object) in case of a FactoryBean definition.
+	 * @param beanName the name of the bean
+	 * @see #preInstantiateSingletons()
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+			if (bean instanceof FactoryBean) {
+				final FactoryBean<?> factory = (FactoryBean<?>) bean;
+				boolean isEagerInit;
+				if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+					isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+									((SmartFactoryBean<?>) factory)::isEagerInit,
+							getAccessControlContext());
+				}
+				else {
+					isEagerInit = (factory instanceof SmartFactoryBean &&
+							((SmartFactoryBean<?>) factory).isEagerInit());
+				}
+				if (isEagerInit) {
+					getBean(beanName);
+				}
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Determine the names of the beans that the given bean is known to depend on
+	 * before its creation, based on its bean definition and on the dependencies
+	 * registered so far.
+	 * @param beanName the name of the bean
+	 * @return the (canonical) names of the beans that the given bean depends on
+	 * @see #setBootstrapExecutor
+	 */
+	private Set<String> getKnownDependencies(String beanName) {
+		RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+		Set<String> dependencies = new LinkedHashSet<>();
+		String[] dependsOn = mbd.getDependsOn();
+		if (dependsOn != null) {
+			dependencies.addAll(Arrays.asList(dependsOn));
+		}
+		if (mbd.getFactoryBeanName() != null) {
+			dependencies.add(mbd.getFactoryBeanName());
+		}
+		if (mbd.hasPropertyValues()) {
+			for (PropertyValue pv : mbd.getPropertyValues().getPropertyValues()) {
+				addBeanReference(pv.getValue(), dependencies);
+			}
+		}
+		if (mbd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cargs = mbd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				addBeanReference(valueHolder.getValue(), dependencies);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				addBeanReference(valueHolder.getValue(), dependencies);
+			}
+		}
+		dependencies.addAll(Arrays.asList(getDependenciesForBean(beanName)));
+		Set<String> canonicalNames = new LinkedHashSet<>(dependencies.size());
+		for (String dependency : dependencies) {
+			canonicalNames.add(transformedBeanName(dependency));
+		}
+		return canonicalNames;
+	}
+
+	private static void addBeanReference(@Nullable Object value, Set<String> beanNames) {
+		if (value instanceof RuntimeBeanReference && !((RuntimeBeanReference) value).isToParent()) {
+			beanNames.add(((RuntimeBeanReference) value).getBeanName());
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -2067,6 +2181,150 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Parallel pre-instantiation of the given singletons on the bootstrap executor,
+	 * scheduling each singleton once its known dependencies have been instantiated.
+	 * <p>Scheduling happens in a loop on the calling thread only, with executor tasks
+	 * just reporting their completion: a synchronous or caller-runs executor as well
+	 * as a rejecting executor therefore do not lead to nested scheduling calls.
+	 * @see #setBootstrapExecutor
+	 */
+	private class SingletonPreInstantiation {
+
+		private final Executor executor;
+
+		/** Singletons not scheduled yet, in registration order. */
+		private final Set<String> pendingSingletons;
+
+		/** Pending singletons ready for scheduling, in order of readiness. */
+		private final Deque<String> readySingletons = new ArrayDeque<>();
+
+		/** Known dependents: bean name to names of pending singletons that depend on it. */
+		private final Map<String, List<String>> dependents = new HashMap<>();
+
+		/** Number of known dependencies per pending singleton that are not instantiated yet. */
+		private final Map<String, Integer> dependencyCounts = new HashMap<>();
+
+		private int singletonsInProgress;
+
+		@Nullable
+		private Throwable failure;
+
+		public SingletonPreInstantiation(List<String> singletonNames, Executor executor) {
+			this.executor = executor;
+			this.pendingSingletons = new LinkedHashSet<>(singletonNames);
+			for (String beanName : this.pendingSingletons) {
+				int count = 0;
+				for (String dependency : getKnownDependencies(beanName)) {
+					if (!dependency.equals(beanName) && this.pendingSingletons.contains(dependency)) {
+						this.dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(beanName);
+						count++;
+					}
+				}
+				this.dependencyCounts.put(beanName, count);
+				if (count == 0) {
+					this.readySingletons.add(beanName);
+				}
+			}
+		}
+
+		/**
+		 * Instantiate all singletons, blocking until all of them have been
+		 * instantiated or until the first failure has been encountered.
+		 */
+		public void instantiateSingletons() {
+			String beanName;
+			while ((beanName = takeReadySingleton()) != null) {
+				String beanNameToUse = beanName;
+				try {
+					this.executor.execute(() -> {
+						Throwable failure = null;
+						try {
+							preInstantiateSingleton(beanNameToUse);
+						}
+						catch (Throwable ex) {
+							failure = ex;
+						}
+						complete(beanNameToUse, failure);
+					});
+				}
+				catch (Throwable ex) {
+					complete(beanNameToUse, ex);
+				}
+			}
+			Throwable failure = this.failure;
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			if (failure != null) {
+				throw new FatalBeanException("Parallel pre-instantiation of singletons failed", failure);
+			}
+		}
+
+		/**
+		 * Take the next singleton ready for scheduling, waiting for singletons in
+		 * progress to complete if necessary. If there is none ready while no singleton
+		 * is in progress, the remaining singletons depend on each other: In that case,
+		 * proceed with the first one, resolving the circular reference within a single
+		 * thread.
+		 * @return the name of the singleton to schedule, or {@code null} once all
+		 * singletons have been instantiated or a failure has been encountered and
+		 * no singleton is in progress anymore
+		 */
+		@Nullable
+		private synchronized String takeReadySingleton() {
+			while (true) {
+				String beanName = null;
+				if (this.failure == null) {
+					beanName = this.readySingletons.poll();
+					if (beanName == null && this.singletonsInProgress == 0 && !this.pendingSingletons.isEmpty()) {
+						beanName = this.pendingSingletons.iterator().next();
+					}
+				}
+				if (beanName != null) {
+					this.pendingSingletons.remove(beanName);
+					this.singletonsInProgress++;
+					return beanName;
+				}
+				if (this.singletonsInProgress == 0) {
+					return null;
+				}
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new FatalBeanException("Interrupted during parallel pre-instantiation of singletons", ex);
+				}
+			}
+		}
+
+		private synchronized void complete(String beanName, @Nullable Throwable failure) {
+			if (failure != null) {
+				if (this.failure == null) {
+					this.failure = failure;
+				}
+			}
+			else {
+				List<String> dependents = this.dependents.get(beanName);
+				if (dependents != null) {
+					for (String dependent : dependents) {
+						int count = this.dependencyCounts.merge(dependent, -1, Integer::sum);
+						if (count == 0 && this.pendingSingletons.contains(dependent)) {
+							this.readySingletons.add(dependent);
+						}
+					}
+				}
+			}
+			this.singletonsInProgress--;
+			notifyAll();
+		}
+	}
+
+
 	/**
 	 * An {@link org.springframework.core.OrderComparator.OrderSourceProvider} implementation
 	 * that is aware of the bean metadata of the instances to sort.
@@ -25,6 +25,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +34,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -102,14 +105,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** List of suppressed Exceptions, available for associating related causes. */
+	/** List of suppressed Exceptions per creating thread, available for associating related causes. */
 	// 抑制的异常列表，可用于关联相关原因。
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	//指示我们当前是否在destroySingleton内的标志。
-	private boolean singletonsCurrentlyInDestruction = false;
+	private volatile boolean singletonsCurrentlyInDestruction = false;
 
 	/** Disposable bean instances: bean name to disposable instance. */
 	//一次性bean实例：bean名称到一次性实例。
@@ -128,12 +131,59 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	//依赖bean名称之间的映射：bean名称到bean依赖项的bean名称集。
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Whether to create singletons within bean-specific locks rather than the singleton mutex. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Mutex for the singleton caches in case of concurrent singleton creation. */
+	private final Object singletonCacheMutex = new Object();
+
+	/** Creation locks in case of concurrent singleton creation: bean name to lock. */
+	private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(64);
+
+	/** Creation locks that threads are currently waiting for: thread to lock. */
+	private final Map<Thread, SingletonCreationLock> singletonCreationLockWaiters = new HashMap<>(16);
+
+
+	/**
+	 * Set whether to allow for concurrent creation of unrelated singletons.
+	 * <p>Default is "false", creating all singletons within the common singleton
+	 * mutex (see {@link #getSingletonMutex()}). Switch this flag to "true" if many
+	 * threads are expected to trigger the lazy initialization of singletons, e.g.
+	 * through {@code @Lazy} injection points or {@code ObjectProvider.getObject()}:
+	 * Each singleton will then be created within a lock for its bean name, with
+	 * the singleton caches guarded by a dedicated mutex for short updates only.
+	 * <p>Early references to a singleton in creation are only exposed to the
+	 * creating thread in that mode, unless two threads turn out to wait for each
+	 * other's singletons: Such a circular reference gets resolved the same way as
+	 * within a single thread, or rejected if no early reference is available.
+	 * <p>Note that collaborators synchronizing on the singleton mutex do not lock
+	 * out singleton creation in that mode. They must not obtain beans within the
+	 * mutex, since the creation of those beans may wait for another thread which
+	 * in turn waits for the mutex. The framework's own collaborators, such as
+	 * event multicasters and bean factory based advisors, use dedicated monitors
+	 * that are never held while obtaining beans.
+	 * <p>To be set before any singletons have been created.
+	 * @since 5.2
+	 * @see #getSingleton(String, ObjectFactory)
+	 */
+	public void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether to allow for concurrent creation of unrelated singletons.
+	 * @since 5.2
+	 */
+	public boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
 		Assert.notNull(singletonObject, "Singleton object must not be null");
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			Object oldObject = this.singletonObjects.get(beanName);
 			if (oldObject != null) {
 				throw new IllegalStateException("Could not register object [" + singletonObject +
@@ -150,7 +200,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param singletonObject the singleton object
 	 */
 	protected void addSingleton(String beanName, Object singletonObject) {
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			this.singletonObjects.put(beanName, singletonObject);
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
@@ -168,7 +218,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(singletonFactory, "Singleton factory must not be null");
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			if (!this.singletonObjects.containsKey(beanName)) {
 				this.singletonFactories.put(beanName, singletonFactory);
 				this.earlySingletonObjects.remove(beanName);
@@ -214,6 +264,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		//先从一级缓存拿，检查缓存中是否存在实例
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			if (this.concurrentSingletonCreation) {
+				SingletonCreationLock creationLock = this.singletonCreationLocks.get(beanName);
+				if (creationLock != null && creationLock.isLocked() && !creationLock.isHeldByCurrentThread()) {
+					// In creation within another thread: not exposing an early reference to the current thread.
+					return null;
+				}
+				return getEarlySingleton(beanName, allowEarlyReference);
+			}
 			//如果为空，则锁定全局变量并进行处理
 			synchronized (this.singletonObjects) {
 				//再从二级缓存拿，表明此bean正在加载则不处理
@@ -236,6 +294,49 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return singletonObject;
 	}
 
+	/**
+	 * Obtain an early reference to the given singleton in case of concurrent
+	 * singleton creation, to be called from the creating thread or from a thread
+	 * that the creating thread is waiting for.
+	 * @param beanName the name of the bean to look for
+	 * @param allowEarlyReference whether early references should be created or not
+	 * @return the early singleton object, or {@code null} if none available
+	 */
+	@Nullable
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		ObjectFactory<?> singletonFactory;
+		synchronized (this.singletonCacheMutex) {
+			Object singletonObject = this.earlySingletonObjects.get(beanName);
+			if (singletonObject != null || !allowEarlyReference) {
+				return singletonObject;
+			}
+			singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory == null) {
+				return null;
+			}
+		}
+		// Calling the factory outside of the cache mutex, since it may trigger further
+		// singleton creation: The creating thread cannot proceed concurrently here.
+		Object singletonObject = singletonFactory.getObject();
+		synchronized (this.singletonCacheMutex) {
+			if (this.singletonFactories.get(beanName) == singletonFactory) {
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+			else {
+				// Early reference exposed or singleton completed in the meantime...
+				Object existingObject = this.earlySingletonObjects.get(beanName);
+				if (existingObject == null) {
+					existingObject = this.singletonObjects.get(beanName);
+				}
+				if (existingObject != null) {
+					singletonObject = existingObject;
+				}
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -253,69 +354,106 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		//全局变量需要同步
-		synchronized (this.singletonObjects) {
-			//首先检查对应的bean是否已经加载过，因为singleton模式其实就是复用已创建的bean
-			//所以，这一步是必须的。
-			Object singletonObject = this.singletonObjects.get(beanName);
+		if (!this.concurrentSingletonCreation) {
+			//全局变量需要同步
+			synchronized (this.singletonObjects) {
+				return createSingleton(beanName, singletonFactory);
+			}
+		}
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		SingletonCreationLock creationLock = acquireSingletonCreationLock(beanName);
+		if (creationLock == null) {
+			// The creating thread waits for a singleton in creation within the current thread:
+			// resolve the circular reference through an early reference, as within a single thread.
+			singletonObject = getEarlySingleton(beanName, true);
 			if (singletonObject == null) {
-				//如果为空才可以进行singleton的bean的初始化
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				//记录加载状态，也就是通过 this.singletonsCurrentlyInCreation.add(beanName)将当前正要创建的
-				//bean记录在缓存中，这样便可以对循环依赖进行检测
-				//	 * 1.检查缓存是否已经加载过
-				//	 * 2.若没有加载，则记录 beanName的正在加载状态
-				//	 * 3.加载单例前记录加载状态
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					//4.通过调用参数传入的objectFactory 的个体 Object 方法实例化 bean。
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
+				throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+						"within another thread which waits for a bean in creation within the current thread: " +
+						"Is there an unresolvable circular reference?");
+			}
+			return singletonObject;
+		}
+		try {
+			return createSingleton(beanName, singletonFactory);
+		}
+		finally {
+			creationLock.unlock();
+		}
+	}
+
+	/**
+	 * Create and register the given singleton if not registered yet,
+	 * within the lock that guards its creation.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton with
+	 * @return the registered singleton object
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		//首先检查对应的bean是否已经加载过，因为singleton模式其实就是复用已创建的bean
+		//所以，这一步是必须的。
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject == null) {
+			//如果为空才可以进行singleton的bean的初始化
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			//记录加载状态，也就是通过 this.singletonsCurrentlyInCreation.add(beanName)将当前正要创建的
+			//bean记录在缓存中，这样便可以对循环依赖进行检测
+			//	 * 1.检查缓存是否已经加载过
+			//	 * 2.若没有加载，则记录 beanName的正在加载状态
+			//	 * 3.加载单例前记录加载状态
+			beforeSingletonCreation(beanName);
+			boolean newSingleton = false;
+			Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+			boolean recordSuppressedExceptions = (suppressedExceptions == null);
+			if (recordSuppressedExceptions) {
+				suppressedExceptions = new LinkedHashSet<>();
+				this.suppressedExceptions.set(suppressedExceptions);
+			}
+			try {
+				//4.通过调用参数传入的objectFactory 的个体 Object 方法实例化 bean。
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
 					throw ex;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+			}
+			catch (BeanCreationException ex) {
+				if (recordSuppressedExceptions) {
+					for (Exception suppressedException : suppressedExceptions) {
+						ex.addRelatedCause(suppressedException);
 					}
-					//5.加载单例后的处理方法调用。
-					afterSingletonCreation(beanName);
 				}
-				if (newSingleton) {
-					//加入缓存
-					//6.将结果记录至缓存并删除加载 bean 过程中所记录的各种辅助状态
-					addSingleton(beanName, singletonObject);
+				throw ex;
+			}
+			finally {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptions.remove();
 				}
+				//5.加载单例后的处理方法调用。
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				//加入缓存
+				//6.将结果记录至缓存并删除加载 bean 过程中所记录的各种辅助状态
+				addSingleton(beanName, singletonObject);
 			}
-			//7、返回处理结果
-			return singletonObject;
 		}
+		//7、返回处理结果
+		return singletonObject;
 	}
 
 	/**
@@ -324,10 +462,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -338,7 +475,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #getSingletonMutex()
 	 */
 	protected void removeSingleton(String beanName) {
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			this.singletonObjects.remove(beanName);
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
@@ -353,14 +490,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	@Override
 	public String[] getSingletonNames() {
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			return StringUtils.toStringArray(this.registeredSingletons);
 		}
 	}
 
 	@Override
 	public int getSingletonCount() {
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			return this.registeredSingletons.size();
 		}
 	}
@@ -559,7 +696,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (logger.isTraceEnabled()) {
 			logger.trace("Destroying singletons in " + this);
 		}
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			this.singletonsCurrentlyInDestruction = true;
 		}
 
@@ -583,7 +720,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @since 4.3.15
 	 */
 	protected void clearSingletonCache() {
-		synchronized (this.singletonObjects) {
+		synchronized (getSingletonCacheMutex()) {
 			this.singletonObjects.clear();
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
@@ -684,10 +821,124 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * any sort of extended singleton creation phase. In particular, subclasses
 	 * should <i>not</i> have their own mutexes involved in singleton creation,
 	 * to avoid the potential for deadlocks in lazy-init situations.
+	 * <p>In case of concurrent singleton creation, this mutex is not involved
+	 * in singleton creation anymore: Subclasses should rather use
+	 * {@link #doWithSingletonLock} and {@link #getSingletonCacheMutex()} then,
+	 * and external collaborators must not obtain beans while holding this mutex.
+	 * @see #setConcurrentSingletonCreation
 	 */
 	@Override
 	public final Object getSingletonMutex() {
 		return this.singletonObjects;
 	}
 
+	/**
+	 * Expose the mutex that guards the singleton caches to subclasses.
+	 * <p>This is the common singleton mutex by default, or a dedicated mutex in
+	 * case of concurrent singleton creation, to be held for short updates of
+	 * singleton-related caches only (not calling into any bean creation code).
+	 * @since 5.2
+	 * @see #setConcurrentSingletonCreation
+	 */
+	protected final Object getSingletonCacheMutex() {
+		return (this.concurrentSingletonCreation ? this.singletonCacheMutex : this.singletonObjects);
+	}
+
+	/**
+	 * Execute the given action within the lock that guards the creation of the
+	 * given singleton: the common singleton mutex by default, or the lock for
+	 * the given bean name in case of concurrent singleton creation.
+	 * @param beanName the name of the bean
+	 * @param action the action to execute
+	 * @return the result of the action
+	 * @throws BeanCurrentlyInCreationException if the lock for the given bean
+	 * name is held by a thread that waits for a lock held by the current thread
+	 * @since 5.2
+	 * @see #setConcurrentSingletonCreation
+	 */
+	protected <T> T doWithSingletonLock(String beanName, Supplier<T> action) {
+		if (!this.concurrentSingletonCreation) {
+			synchronized (this.singletonObjects) {
+				return action.get();
+			}
+		}
+		SingletonCreationLock creationLock = acquireSingletonCreationLock(beanName);
+		if (creationLock == null) {
+			throw new BeanCurrentlyInCreationException(beanName, "Requested bean is currently in creation " +
+					"within another thread which waits for a bean in creation within the current thread");
+		}
+		try {
+			return action.get();
+		}
+		finally {
+			creationLock.unlock();
+		}
+	}
+
+	/**
+	 * Acquire the creation lock for the given singleton, waiting for another
+	 * thread to release it if necessary.
+	 * @param beanName the name of the bean
+	 * @return the acquired lock, or {@code null} if the lock is held by a thread
+	 * which (directly or indirectly) waits for a lock held by the current thread
+	 */
+	@Nullable
+	private SingletonCreationLock acquireSingletonCreationLock(String beanName) {
+		SingletonCreationLock creationLock =
+				this.singletonCreationLocks.computeIfAbsent(beanName, name -> new SingletonCreationLock());
+		if (creationLock.tryLock()) {
+			return creationLock;
+		}
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonCreationLockWaiters) {
+			if (isWaitingForThread(creationLock, currentThread)) {
+				return null;
+			}
+			this.singletonCreationLockWaiters.put(currentThread, creationLock);
+		}
+		try {
+			creationLock.lock();
+		}
+		finally {
+			synchronized (this.singletonCreationLockWaiters) {
+				this.singletonCreationLockWaiters.remove(currentThread);
+			}
+		}
+		return creationLock;
+	}
+
+	/**
+	 * Determine whether the owner of the given lock waits for the given thread,
+	 * following the chain of lock owners and the locks that they are waiting for.
+	 * <p>To be called within synchronization on the waiter map.
+	 */
+	private boolean isWaitingForThread(SingletonCreationLock creationLock, Thread thread) {
+		SingletonCreationLock lock = creationLock;
+		for (int i = 0; lock != null && i <= this.singletonCreationLockWaiters.size(); i++) {
+			Thread owner = lock.getOwnerThread();
+			if (owner == null) {
+				return false;
+			}
+			if (owner == thread) {
+				return true;
+			}
+			lock = this.singletonCreationLockWaiters.get(owner);
+		}
+		return false;
+	}
+
+
+	/**
+	 * Reentrant lock for the creation of a specific singleton,
+	 * exposing its owner for the detection of threads waiting for each other.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonCreationLock extends ReentrantLock {
+
+		@Nullable
+		public Thread getOwnerThread() {
+			return getOwner();
+		}
+	}
+
 }
@@ -101,7 +101,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
 		//如果是单例模式
 		if (factory.isSingleton() && containsSingleton(beanName)) {
-			synchronized (getSingletonMutex()) {
+			return doWithSingletonLock(beanName, () -> {
 				Object object = this.factoryBeanObjectCache.get(beanName);
 				if (object == null) {
 					object = doGetObjectFromFactoryBean(factory, beanName);
@@ -140,7 +140,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 					}
 				}
 				return object;
-			}
+			});
 		}
 		else {
 			Object object = doGetObjectFromFactoryBean(factory, beanName);
@@ -238,7 +238,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	@Override
 	protected void removeSingleton(String beanName) {
-		synchronized (getSingletonMutex()) {
+		synchronized (getSingletonCacheMutex()) {
 			super.removeSingleton(beanName);
 			this.factoryBeanObjectCache.remove(beanName);
 		}
@@ -249,7 +249,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	@Override
 	protected void clearSingletonCache() {
-		synchronized (getSingletonMutex()) {
+		synchronized (getSingletonCacheMutex()) {
 			super.clearSingletonCache();
 			this.factoryBeanObjectCache.clear();
 		}
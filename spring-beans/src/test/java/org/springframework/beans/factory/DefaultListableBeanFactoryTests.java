@@ -27,6 +27,7 @@ import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -37,6 +38,12 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -87,6 +94,7 @@ import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.lang.Nullable;
 import org.springframework.tests.Assume;
 import org.springframework.tests.EnabledForTestGroups;
@@ -2873,11 +2881,243 @@ class DefaultListableBeanFactoryTests {
 	}
 
 
+	@Test
+	void parallelPreInstantiationWithBootstrapExecutor() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			lbf.setConcurrentSingletonCreation(true);
+			lbf.setBootstrapExecutor(executor);
+			Collection<String> initialized = new ConcurrentLinkedQueue<>();
+			CountDownLatch latch = new CountDownLatch(3);
+			for (int i = 1; i <= 3; i++) {
+				RootBeanDefinition bd = new RootBeanDefinition(BootstrapBean.class);
+				bd.getConstructorArgumentValues().addGenericArgumentValue(initialized);
+				bd.getConstructorArgumentValues().addGenericArgumentValue(latch);
+				lbf.registerBeanDefinition("independent" + i, bd);
+			}
+			RootBeanDefinition bd = new RootBeanDefinition(BootstrapBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(initialized);
+			bd.getPropertyValues().add("dependency", new RuntimeBeanReference("independent1"));
+			bd.setDependsOn("independent2", "independent3");
+			lbf.registerBeanDefinition("dependent", bd);
+			lbf.registerBeanDefinition("smart", new RootBeanDefinition(SmartBootstrapBean.class));
+
+			lbf.preInstantiateSingletons();
+
+			assertThat(initialized).hasSize(4);
+			assertThat(initialized).endsWith("dependent");
+			assertThat(lbf.getBean("dependent", BootstrapBean.class).dependency).isSameAs(lbf.getBean("independent1"));
+			assertThat(lbf.getBean("smart", SmartBootstrapBean.class).instantiatedSingletons).contains(
+					"independent1", "independent2", "independent3", "dependent", "smart");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithSingletonMutex() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			assertThat(lbf.isConcurrentSingletonCreation()).isFalse();
+			Collection<String> initialized = new ConcurrentLinkedQueue<>();
+			for (int i = 1; i <= 10; i++) {
+				RootBeanDefinition bd = new RootBeanDefinition(BootstrapBean.class);
+				bd.getConstructorArgumentValues().addGenericArgumentValue(initialized);
+				if (i > 1) {
+					bd.getPropertyValues().add("dependency", new RuntimeBeanReference("bean" + (i / 2)));
+				}
+				lbf.registerBeanDefinition("bean" + i, bd);
+			}
+
+			lbf.preInstantiateSingletons();
+
+			assertThat(initialized).hasSize(10);
+			for (int i = 2; i <= 10; i++) {
+				assertThat(lbf.getBean("bean" + i, BootstrapBean.class).dependency).isSameAs(lbf.getBean("bean" + (i / 2)));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void bootstrapExecutorDoesNotChangeSingletonCreationMode() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			lbf.setBootstrapExecutor(executor);
+			assertThat(lbf.isConcurrentSingletonCreation()).isFalse();
+			lbf.setBootstrapExecutor(null);
+			assertThat(lbf.isConcurrentSingletonCreation()).isFalse();
+
+			lbf.setConcurrentSingletonCreation(true);
+			lbf.setBootstrapExecutor(executor);
+			lbf.setBootstrapExecutor(null);
+			assertThat(lbf.isConcurrentSingletonCreation()).isTrue();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithCircularReference() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("tb2"));
+			lbf.registerBeanDefinition("tb1", bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("tb1"));
+			lbf.registerBeanDefinition("tb2", bd2);
+
+			lbf.preInstantiateSingletons();
+
+			TestBean tb1 = lbf.getBean("tb1", TestBean.class);
+			TestBean tb2 = lbf.getBean("tb2", TestBean.class);
+			assertThat(tb1.getSpouse()).isSameAs(tb2);
+			assertThat(tb2.getSpouse()).isSameAs(tb1);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithSyncTaskExecutorAndLongDependencyChain() {
+		lbf.setBootstrapExecutor(new SyncTaskExecutor());
+		lbf.registerBeanDefinition("tb0", new RootBeanDefinition(TestBean.class));
+		for (int i = 1; i < 10000; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.setDependsOn("tb" + (i - 1));
+			lbf.registerBeanDefinition("tb" + i, bd);
+		}
+
+		lbf.preInstantiateSingletons();
+
+		for (int i = 0; i < 10000; i++) {
+			assertThat(lbf.containsSingleton("tb" + i)).isTrue();
+		}
+	}
+
+	@Test
+	void parallelPreInstantiationWithRejectingExecutor() {
+		lbf.setBootstrapExecutor(task -> {
+			throw new RejectedExecutionException("Executor shut down");
+		});
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(TestBean.class));
+
+		assertThatExceptionOfType(RejectedExecutionException.class).isThrownBy(
+				lbf::preInstantiateSingletons);
+		assertThat(lbf.containsSingleton("tb1")).isFalse();
+		assertThat(lbf.containsSingleton("tb2")).isFalse();
+	}
+
+	@Test
+	void parallelPreInstantiationWithFailure() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			lbf.setBootstrapExecutor(executor);
+			lbf.registerBeanDefinition("failing", new RootBeanDefinition(FailingBootstrapBean.class));
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.setDependsOn("failing");
+			lbf.registerBeanDefinition("dependent", bd);
+			lbf.registerBeanDefinition("smart", new RootBeanDefinition(SmartBootstrapBean.class));
+
+			assertThatExceptionOfType(BeanCreationException.class).isThrownBy(
+					lbf::preInstantiateSingletons)
+				.satisfies(ex -> assertThat(ex.getBeanName()).isEqualTo("failing"))
+				.withRootCauseInstanceOf(IllegalStateException.class);
+			assertThat(lbf.containsSingleton("dependent")).isFalse();
+			if (lbf.containsSingleton("smart")) {
+				assertThat(lbf.getBean("smart", SmartBootstrapBean.class).instantiatedSingletons).isNull();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+
 	static class A { }
 
 	static class B { }
 
 
+	public static class BootstrapBean implements BeanNameAware, InitializingBean {
+
+		private final Collection<String> initialized;
+
+		@Nullable
+		private final CountDownLatch latch;
+
+		private String beanName;
+
+		public Object dependency;
+
+		public BootstrapBean(Collection<String> initialized) {
+			this(initialized, null);
+		}
+
+		public BootstrapBean(Collection<String> initialized, @Nullable CountDownLatch latch) {
+			this.initialized = initialized;
+			this.latch = latch;
+		}
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws InterruptedException {
+			if (this.latch != null) {
+				// Only passes if the independent beans are initialized concurrently
+				this.latch.countDown();
+				if (!this.latch.await(10, TimeUnit.SECONDS)) {
+					throw new IllegalStateException("Not initialized concurrently");
+				}
+			}
+			this.initialized.add(this.beanName);
+		}
+	}
+
+
+	public static class SmartBootstrapBean implements SmartInitializingSingleton, BeanFactoryAware {
+
+		private DefaultListableBeanFactory beanFactory;
+
+		public String[] instantiatedSingletons;
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = (DefaultListableBeanFactory) beanFactory;
+		}
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			this.instantiatedSingletons = this.beanFactory.getSingletonNames();
+		}
+	}
+
+
+	public static class FailingBootstrapBean implements InitializingBean {
+
+		@Override
+		public void afterPropertiesSet() {
+			throw new IllegalStateException("Initialization failed");
+		}
+	}
+
+
 	public static class NoDependencies {
 
 		private NoDependencies() {
@@ -16,6 +16,11 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.BeansException;
@@ -24,6 +29,7 @@ import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * @author Juergen Hoeller
@@ -101,4 +107,121 @@ public class DefaultSingletonBeanRegistryTests {
 		assertThat(beanRegistry.isDependent("c", "c")).isTrue();
 	}
 
+	@Test
+	public void testConcurrentSingletonCreationOfUnrelatedBeans() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		AtomicReference<Object> singletonA = new AtomicReference<>();
+		Thread thread = new Thread(() -> singletonA.set(beanRegistry.getSingleton("a", () -> {
+			inCreation.countDown();
+			await(proceed);
+			return new TestBean("a");
+		})));
+		thread.start();
+		await(inCreation);
+
+		// Not blocked by the creation of "a" in the other thread
+		TestBean tb = (TestBean) beanRegistry.getSingleton("b", () -> new TestBean("b"));
+		assertThat(beanRegistry.getSingleton("b")).isSameAs(tb);
+		assertThat(beanRegistry.isSingletonCurrentlyInCreation("a")).isTrue();
+		assertThat(beanRegistry.getSingleton("a")).isNull();
+
+		proceed.countDown();
+		thread.join(10000);
+		assertThat(singletonA.get()).isInstanceOf(TestBean.class);
+		assertThat(beanRegistry.getSingleton("a")).isSameAs(singletonA.get());
+		assertThat(beanRegistry.getSingletonNames()).containsExactly("b", "a");
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationOfSameBean() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+
+		AtomicInteger creationCount = new AtomicInteger();
+		CountDownLatch inCreation = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		AtomicReference<Object> singletonA = new AtomicReference<>();
+		Thread thread = new Thread(() -> singletonA.set(beanRegistry.getSingleton("a", () -> {
+			creationCount.incrementAndGet();
+			inCreation.countDown();
+			await(proceed);
+			return new TestBean("a");
+		})));
+		thread.start();
+		await(inCreation);
+
+		Thread waitingThread = new Thread(() -> beanRegistry.getSingleton("a", () -> {
+			creationCount.incrementAndGet();
+			return new TestBean("other");
+		}));
+		waitingThread.start();
+		awaitWaiting(waitingThread);
+
+		proceed.countDown();
+		thread.join(10000);
+		waitingThread.join(10000);
+		assertThat(creationCount.get()).isEqualTo(1);
+		assertThat(beanRegistry.getSingleton("a")).isSameAs(singletonA.get());
+	}
+
+	@Test
+	public void testConcurrentSingletonCreationWithCircularReferenceAcrossThreads() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+
+		TestBean earlyA = new TestBean("a");
+		CountDownLatch bInCreation = new CountDownLatch(1);
+		CountDownLatch requestingB = new CountDownLatch(1);
+		AtomicReference<Object> referenceToB = new AtomicReference<>();
+		Thread thread = new Thread(() -> beanRegistry.getSingleton("a", () -> {
+			beanRegistry.addSingletonFactory("a", () -> earlyA);
+			await(bInCreation);
+			requestingB.countDown();
+			referenceToB.set(beanRegistry.getSingleton("b", () -> new TestBean("other")));
+			return earlyA;
+		}));
+		thread.start();
+
+		AtomicReference<Object> referenceToA = new AtomicReference<>();
+		TestBean tb = (TestBean) beanRegistry.getSingleton("b", () -> {
+			bInCreation.countDown();
+			await(requestingB);
+			awaitWaiting(thread);
+			assertThat(beanRegistry.getSingleton("a")).isNull();
+			referenceToA.set(beanRegistry.getSingleton("a", () -> new TestBean("other")));
+			return new TestBean("b");
+		});
+
+		thread.join(10000);
+		assertThat(referenceToA.get()).isSameAs(earlyA);
+		assertThat(referenceToB.get()).isSameAs(tb);
+		assertThat(beanRegistry.getSingleton("a")).isSameAs(earlyA);
+		assertThat(beanRegistry.getSingleton("b")).isSameAs(tb);
+	}
+
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			fail("Interrupted", ex);
+		}
+	}
+
+	private static void awaitWaiting(Thread thread) {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (thread.getState() != Thread.State.WAITING) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Thread not waiting: " + thread.getState());
+			}
+			Thread.yield();
+		}
+	}
+
 }
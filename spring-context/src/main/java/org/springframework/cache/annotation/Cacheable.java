@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -170,6 +170,8 @@ public @interface Cacheable {
 	 * <li>{@link #unless()} is not supported</li>
 	 * <li>Only one cache may be specified</li>
 	 * <li>No other cache-related operation can be combined</li>
+	 * <li>Reactive return types such as {@code Mono} and {@code Flux} are not
+	 * supported</li>
 	 * </ol>
 	 * This is effectively a hint and the actual cache provider that you are
 	 * using may not support it in a synchronized fashion. Check your provider
@@ -179,4 +181,18 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * The age in milliseconds after which a cached entry is considered stale:
+	 * a stale entry is still returned, while the underlying method gets invoked
+	 * in the background in order to replace it in the cache.
+	 * <p>Only applies if a refresh executor has been configured on the cache
+	 * aspect, and not to {@link #sync() synchronized} invocations. The default
+	 * of {@code -1} falls back to the aspect's default refresh age; {@code 0}
+	 * disables background refreshing for this operation.
+	 * @since 5.2
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setRefreshExecutor
+	 * @see org.springframework.cache.interceptor.CacheAspectSupport#setRefreshAfter
+	 */
+	long refreshAfter() default -1;
+
 }
@@ -0,0 +1,1066 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ConcurrentMap} with a bounded size or weight and optional
+ * expiration, suitable as a store for {@link ConcurrentMapCache}.
+ *
+ * <p>Entries are evicted according to a W-TinyLFU policy: new entries enter a
+ * small LRU admission window, and entries leaving the window only displace
+ * entries of the segmented LRU main space if they have been used more often
+ * according to a compact frequency sketch. This keeps frequently used entries
+ * around even in the presence of scans over rarely used keys.
+ *
+ * <p>Reads are lock-free: accesses are recorded in a lossy buffer and applied
+ * to the eviction policy in batches. Writes update the underlying
+ * {@link ConcurrentHashMap} first and then apply the policy under a lock.
+ * Expired entries are never returned and get removed lazily on access. On
+ * writes, expired entries are also removed from the heads of the access and
+ * write order queues, so that the cost is proportional to the number of
+ * expired entries rather than to the size of the map. Since reads are applied
+ * to the access order lazily, some expired entries may only be removed later
+ * on; until then, they are still included in {@link #size()}.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this map does not allow {@code null}
+ * keys or values. Hit, miss and eviction counts are available through
+ * {@link #getHitCount()}, {@link #getMissCount()} and {@link #getEvictionCount()}.
+ *
+ * @author Agent
+ * @since 5.2
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ */
+public class BoundedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+	private static final int READ_BUFFER_SIZE = 128;
+
+	private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+	private static final int READ_BUFFER_DRAIN_MASK = 31;
+
+	/** Percentage of the maximum weight granted to the admission window. */
+	private static final int WINDOW_PERCENTAGE = 1;
+
+	/** Percentage of the main space granted to the protected segment. */
+	private static final int PROTECTED_PERCENTAGE = 80;
+
+
+	private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>(256);
+
+	private final long maximumWeight;
+
+	@Nullable
+	private final Weigher<? super K, ? super V> weigher;
+
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+	private final AtomicInteger readBufferWriteCount = new AtomicInteger();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	// Eviction policy state, guarded by the eviction lock
+
+	private final AccessQueue<K, V> window = new AccessQueue<>();
+
+	private final AccessQueue<K, V> probation = new AccessQueue<>();
+
+	private final AccessQueue<K, V> protectedSegment = new AccessQueue<>();
+
+	private final WriteQueue<K, V> writeOrder = new WriteQueue<>();
+
+	private final FrequencySketch sketch = new FrequencySketch();
+
+	private final long windowMaximum;
+
+	private final long protectedMaximum;
+
+	private long weightedSize;
+
+	private long windowWeightedSize;
+
+	private long protectedWeightedSize;
+
+
+	/**
+	 * Create a new BoundedConcurrentMap holding at most the given number of entries.
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMap(long maximumSize) {
+		this(maximumSize, null, null, null);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMap with the given settings.
+	 * @param maximumWeight the maximum total weight of all entries, or the maximum
+	 * number of entries if no {@code weigher} is specified; {@link Long#MAX_VALUE}
+	 * for no bound (e.g. if only expiration is desired)
+	 * @param weigher the weigher to use for entries, or {@code null} for a weight
+	 * of 1 per entry
+	 * @param expireAfterWrite the time after which an entry expires once it has
+	 * been created or replaced, or {@code null} for no such expiration
+	 * @param expireAfterAccess the time after which an entry expires once it has
+	 * last been read or written, or {@code null} for no such expiration
+	 */
+	public BoundedConcurrentMap(long maximumWeight, @Nullable Weigher<? super K, ? super V> weigher,
+			@Nullable Duration expireAfterWrite, @Nullable Duration expireAfterAccess) {
+
+		Assert.isTrue(maximumWeight >= 0, "Maximum weight must not be negative");
+		Assert.isTrue(expireAfterWrite == null || !expireAfterWrite.isNegative(),
+				"Expire-after-write duration must not be negative");
+		Assert.isTrue(expireAfterAccess == null || !expireAfterAccess.isNegative(),
+				"Expire-after-access duration must not be negative");
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.expireAfterWriteNanos = (expireAfterWrite != null ? expireAfterWrite.toNanos() : 0);
+		this.expireAfterAccessNanos = (expireAfterAccess != null ? expireAfterAccess.toNanos() : 0);
+		this.windowMaximum = Math.max(1, percentageOf(maximumWeight, WINDOW_PERCENTAGE));
+		this.protectedMaximum = percentageOf(maximumWeight - this.windowMaximum, PROTECTED_PERCENTAGE);
+		if (weigher == null && maximumWeight != Long.MAX_VALUE) {
+			this.sketch.ensureCapacity(maximumWeight);
+		}
+	}
+
+
+	/**
+	 * Return the maximum total weight (or number of entries) for this map.
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Return the number of successful lookups since this map has been created.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups without a (non-expired) entry since this map
+	 * has been created.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted due to size or weight constraints
+	 * or expiration since this map has been created.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+
+	@Override
+	public int size() {
+		return this.data.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.data.isEmpty();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		Node<K, V> node = this.data.get(key);
+		return (node != null && !isExpired(node, currentTime()));
+	}
+
+	@Override
+	@Nullable
+	public V get(Object key) {
+		Node<K, V> node = this.data.get(key);
+		if (node == null) {
+			this.missCount.increment();
+			return null;
+		}
+		long now = currentTime();
+		if (isExpired(node, now)) {
+			this.missCount.increment();
+			removeExpired(node);
+			return null;
+		}
+		this.hitCount.increment();
+		recordRead(node, now);
+		return node.value;
+	}
+
+	@Override
+	@Nullable
+	public V put(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.compute(key, (k, existing) -> {
+			long now = currentTime();
+			if (existing == null || isExpired(existing, now)) {
+				result.removed = existing;
+				result.added = new Node<>(k, value, now);
+				return result.added;
+			}
+			result.oldValue = existing.value;
+			result.updated = existing;
+			existing.update(value, now);
+			return existing;
+		});
+		afterWrite(result);
+		return result.oldValue;
+	}
+
+	@Override
+	@Nullable
+	public V putIfAbsent(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.compute(key, (k, existing) -> {
+			long now = currentTime();
+			if (existing == null || isExpired(existing, now)) {
+				result.removed = existing;
+				result.added = new Node<>(k, value, now);
+				return result.added;
+			}
+			result.oldValue = existing.value;
+			return existing;
+		});
+		afterWrite(result);
+		return result.oldValue;
+	}
+
+	/**
+	 * Atomically compute a value for the given key if there is no (non-expired)
+	 * entry for it yet. As with {@link ConcurrentHashMap}, the mapping function
+	 * is invoked at most once per key while other writers for the same key wait.
+	 */
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Node<K, V> node = this.data.get(key);
+		if (node != null) {
+			long now = currentTime();
+			if (!isExpired(node, now)) {
+				this.hitCount.increment();
+				recordRead(node, now);
+				return node.value;
+			}
+		}
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.compute(key, (k, existing) -> {
+			if (existing != null && !isExpired(existing, currentTime())) {
+				result.oldValue = existing.value;
+				return existing;
+			}
+			result.removed = existing;
+			V value = mappingFunction.apply(k);
+			if (value == null) {
+				return null;
+			}
+			result.added = new Node<>(k, value, currentTime());
+			return result.added;
+		});
+		if (result.oldValue != null) {
+			this.hitCount.increment();
+		}
+		else {
+			this.missCount.increment();
+		}
+		afterWrite(result);
+		return (result.added != null ? result.added.value : result.oldValue);
+	}
+
+	@Override
+	@Nullable
+	public V replace(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.computeIfPresent(key, (k, existing) -> {
+			long now = currentTime();
+			if (isExpired(existing, now)) {
+				result.removed = existing;
+				return null;
+			}
+			result.oldValue = existing.value;
+			result.updated = existing;
+			existing.update(value, now);
+			return existing;
+		});
+		afterWrite(result);
+		return result.oldValue;
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Assert.notNull(newValue, "Value must not be null");
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.computeIfPresent(key, (k, existing) -> {
+			long now = currentTime();
+			if (isExpired(existing, now)) {
+				result.removed = existing;
+				return null;
+			}
+			if (existing.value.equals(oldValue)) {
+				result.updated = existing;
+				existing.update(newValue, now);
+			}
+			return existing;
+		});
+		afterWrite(result);
+		return (result.updated != null);
+	}
+
+	@Override
+	@Nullable
+	public V remove(Object key) {
+		Node<K, V> node = this.data.remove(key);
+		if (node == null) {
+			return null;
+		}
+		node.retire();
+		afterRemoval(node);
+		return (isExpired(node, currentTime()) ? null : node.value);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		Node<K, V> node = this.data.get(key);
+		if (node == null || isExpired(node, currentTime()) || !node.value.equals(value)) {
+			return false;
+		}
+		WriteResult<K, V> result = new WriteResult<>();
+		this.data.computeIfPresent(node.key, (k, existing) -> {
+			if (existing.value.equals(value)) {
+				result.removed = existing;
+				return null;
+			}
+			return existing;
+		});
+		if (result.removed == null) {
+			return false;
+		}
+		result.removed.retire();
+		afterRemoval(result.removed);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			drainReadBuffer();
+			for (Node<K, V> node : this.data.values()) {
+				if (this.data.remove(node.key, node)) {
+					node.retire();
+				}
+				unlink(node);
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new EntrySet();
+	}
+
+
+	/**
+	 * Return the current time in nanoseconds, as used for expiration.
+	 * <p>The default implementation uses {@link System#nanoTime()}.
+	 */
+	protected long currentTime() {
+		return System.nanoTime();
+	}
+
+	private static long percentageOf(long value, int percentage) {
+		return (value < Long.MAX_VALUE / 100 ? value * percentage / 100 : value / 100 * percentage);
+	}
+
+	private boolean isExpired(Node<K, V> node, long now) {
+		return ((this.expireAfterWriteNanos > 0 && now - node.writeTime >= this.expireAfterWriteNanos) ||
+				(this.expireAfterAccessNanos > 0 && now - node.accessTime >= this.expireAfterAccessNanos));
+	}
+
+	private void removeExpired(Node<K, V> node) {
+		if (this.data.remove(node.key, node)) {
+			node.retire();
+			this.evictionCount.increment();
+			afterRemoval(node);
+		}
+	}
+
+	private void recordRead(Node<K, V> node, long now) {
+		if (this.expireAfterAccessNanos > 0) {
+			node.accessTime = now;
+		}
+		int index = this.readBufferWriteCount.getAndIncrement();
+		this.readBuffer.lazySet(index & READ_BUFFER_MASK, node);
+		if ((index & READ_BUFFER_DRAIN_MASK) == 0 && this.evictionLock.tryLock()) {
+			try {
+				drainReadBuffer();
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void afterWrite(WriteResult<K, V> result) {
+		if (result.removed != null) {
+			result.removed.retire();
+		}
+		this.evictionLock.lock();
+		try {
+			drainReadBuffer();
+			if (result.removed != null) {
+				this.evictionCount.increment();
+				unlink(result.removed);
+			}
+			if (result.added != null) {
+				link(result.added);
+			}
+			else if (result.updated != null) {
+				reweigh(result.updated);
+			}
+			evictEntries();
+			expireEntries();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void afterRemoval(Node<K, V> node) {
+		this.evictionLock.lock();
+		try {
+			unlink(node);
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+
+	// Eviction policy: to be called with the eviction lock held
+
+	private void drainReadBuffer() {
+		for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+			Node<K, V> node = this.readBuffer.getAndSet(i, null);
+			if (node != null) {
+				onAccess(node);
+			}
+		}
+	}
+
+	private void link(Node<K, V> node) {
+		if (!node.isAlive()) {
+			return;
+		}
+		if (node.queue != Node.NONE) {
+			reweigh(node);
+			return;
+		}
+		int weight = weigh(node);
+		node.policyWeight = weight;
+		node.queue = Node.WINDOW;
+		this.window.add(node);
+		if (this.expireAfterWriteNanos > 0) {
+			this.writeOrder.add(node);
+		}
+		this.windowWeightedSize += weight;
+		this.weightedSize += weight;
+		if (this.weigher != null || this.maximumWeight == Long.MAX_VALUE) {
+			this.sketch.ensureCapacity(this.data.size());
+		}
+		this.sketch.increment(node.key);
+	}
+
+	private void reweigh(Node<K, V> node) {
+		if (node.queue == Node.NONE) {
+			link(node);
+			return;
+		}
+		int weight = weigh(node);
+		int delta = weight - node.policyWeight;
+		node.policyWeight = weight;
+		this.weightedSize += delta;
+		if (node.queue == Node.WINDOW) {
+			this.windowWeightedSize += delta;
+		}
+		else if (node.queue == Node.PROTECTED) {
+			this.protectedWeightedSize += delta;
+		}
+		if (this.expireAfterWriteNanos > 0) {
+			this.writeOrder.moveToBack(node);
+		}
+		onAccess(node);
+	}
+
+	private void unlink(Node<K, V> node) {
+		switch (node.queue) {
+			case Node.WINDOW:
+				this.window.remove(node);
+				this.windowWeightedSize -= node.policyWeight;
+				break;
+			case Node.PROBATION:
+				this.probation.remove(node);
+				break;
+			case Node.PROTECTED:
+				this.protectedSegment.remove(node);
+				this.protectedWeightedSize -= node.policyWeight;
+				break;
+			default:
+				return;
+		}
+		if (this.expireAfterWriteNanos > 0) {
+			this.writeOrder.remove(node);
+		}
+		this.weightedSize -= node.policyWeight;
+		node.queue = Node.NONE;
+	}
+
+	private void onAccess(Node<K, V> node) {
+		if (node.queue == Node.NONE) {
+			return;
+		}
+		this.sketch.increment(node.key);
+		if (node.queue == Node.WINDOW) {
+			this.window.moveToBack(node);
+		}
+		else if (node.queue == Node.PROBATION) {
+			// Promote to the protected segment, demoting its least recently used entries
+			this.probation.remove(node);
+			this.protectedSegment.add(node);
+			node.queue = Node.PROTECTED;
+			this.protectedWeightedSize += node.policyWeight;
+			while (this.protectedWeightedSize > this.protectedMaximum) {
+				Node<K, V> demoted = this.protectedSegment.peekFirst();
+				if (demoted == null || demoted == node) {
+					break;
+				}
+				this.protectedSegment.remove(demoted);
+				this.protectedWeightedSize -= demoted.policyWeight;
+				this.probation.add(demoted);
+				demoted.queue = Node.PROBATION;
+			}
+		}
+		else {
+			this.protectedSegment.moveToBack(node);
+		}
+	}
+
+	private int weigh(Node<K, V> node) {
+		if (this.weigher == null) {
+			return 1;
+		}
+		int weight = this.weigher.weigh(node.key, node.value);
+		Assert.state(weight >= 0, "Weigher must not return a negative weight");
+		return weight;
+	}
+
+	private void evictEntries() {
+		if (this.windowWeightedSize <= this.windowMaximum && this.weightedSize <= this.maximumWeight) {
+			return;
+		}
+		// Move the overflow of the admission window to the probation segment:
+		// these are the candidates competing with the probation victims below.
+		Node<K, V> candidate = null;
+		Node<K, V> node = this.window.peekFirst();
+		while (this.windowWeightedSize > this.windowMaximum && node != null) {
+			Node<K, V> next = node.next;
+			this.window.remove(node);
+			this.windowWeightedSize -= node.policyWeight;
+			this.probation.add(node);
+			node.queue = Node.PROBATION;
+			if (candidate == null) {
+				candidate = node;
+			}
+			node = next;
+		}
+
+		while (this.weightedSize > this.maximumWeight) {
+			Node<K, V> victim = this.probation.peekFirst();
+			if (victim == null) {
+				victim = this.protectedSegment.peekFirst();
+			}
+			if (victim == null) {
+				victim = this.window.peekFirst();
+			}
+			if (victim == null) {
+				break;
+			}
+			if (candidate != null && candidate != victim && candidate.queue == Node.PROBATION) {
+				if (this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+					evict(victim);
+				}
+				else {
+					Node<K, V> next = candidate.next;
+					evict(candidate);
+					candidate = next;
+				}
+			}
+			else {
+				if (candidate == victim) {
+					candidate = victim.next;
+				}
+				evict(victim);
+			}
+		}
+	}
+
+	private void evict(Node<K, V> node) {
+		if (this.data.remove(node.key, node)) {
+			node.retire();
+			this.evictionCount.increment();
+		}
+		unlink(node);
+	}
+
+	private void expireEntries() {
+		if (this.expireAfterWriteNanos == 0 && this.expireAfterAccessNanos == 0) {
+			return;
+		}
+		long now = currentTime();
+		if (this.expireAfterAccessNanos > 0) {
+			expireEntries(this.window, now);
+			expireEntries(this.probation, now);
+			expireEntries(this.protectedSegment, now);
+		}
+		if (this.expireAfterWriteNanos > 0) {
+			Node<K, V> node = this.writeOrder.peekFirst();
+			while (node != null && isExpired(node, now)) {
+				evict(node);
+				node = this.writeOrder.peekFirst();
+			}
+		}
+	}
+
+	private void expireEntries(AccessQueue<K, V> queue, long now) {
+		// Least recently used first: stop at the first entry still in use
+		Node<K, V> node = queue.peekFirst();
+		while (node != null && isExpired(node, now)) {
+			evict(node);
+			node = queue.peekFirst();
+		}
+	}
+
+
+	/**
+	 * Strategy for determining the weight of an entry, used instead of the
+	 * number of entries when bounding the map.
+	 * @param <K> the type of keys
+	 * @param <V> the type of values
+	 */
+	@FunctionalInterface
+	public interface Weigher<K, V> {
+
+		/**
+		 * Return the weight of the given entry. Weights are determined when an
+		 * entry is added or replaced and must not be negative.
+		 * @param key the key of the entry
+		 * @param value the value of the entry
+		 * @return the weight of the entry
+		 */
+		int weigh(K key, V value);
+	}
+
+
+	/**
+	 * A map entry along with its policy information.
+	 */
+	private static final class Node<K, V> {
+
+		static final int NONE = 0;
+
+		static final int WINDOW = 1;
+
+		static final int PROBATION = 2;
+
+		static final int PROTECTED = 3;
+
+		final K key;
+
+		volatile V value;
+
+		volatile long writeTime;
+
+		volatile long accessTime;
+
+		private volatile boolean alive = true;
+
+		// Guarded by the eviction lock
+
+		@Nullable
+		Node<K, V> prev;
+
+		@Nullable
+		Node<K, V> next;
+
+		int queue = NONE;
+
+		int policyWeight;
+
+		@Nullable
+		Node<K, V> writePrev;
+
+		@Nullable
+		Node<K, V> writeNext;
+
+		Node(K key, V value, long now) {
+			this.key = key;
+			this.value = value;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+
+		void update(V value, long now) {
+			this.value = value;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+
+		boolean isAlive() {
+			return this.alive;
+		}
+
+		void retire() {
+			this.alive = false;
+		}
+	}
+
+
+	/**
+	 * A doubly-linked queue of nodes in access order, least recently used first.
+	 */
+	private static final class AccessQueue<K, V> {
+
+		@Nullable
+		private Node<K, V> first;
+
+		@Nullable
+		private Node<K, V> last;
+
+		@Nullable
+		Node<K, V> peekFirst() {
+			return this.first;
+		}
+
+		void add(Node<K, V> node) {
+			node.prev = this.last;
+			node.next = null;
+			if (this.last == null) {
+				this.first = node;
+			}
+			else {
+				this.last.next = node;
+			}
+			this.last = node;
+		}
+
+		void remove(Node<K, V> node) {
+			if (node.prev == null) {
+				this.first = node.next;
+			}
+			else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				this.last = node.prev;
+			}
+			else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last) {
+				remove(node);
+				add(node);
+			}
+		}
+	}
+
+
+	/**
+	 * A doubly-linked queue of nodes in write order, least recently written first.
+	 */
+	private static final class WriteQueue<K, V> {
+
+		@Nullable
+		private Node<K, V> first;
+
+		@Nullable
+		private Node<K, V> last;
+
+		@Nullable
+		Node<K, V> peekFirst() {
+			return this.first;
+		}
+
+		void add(Node<K, V> node) {
+			node.writePrev = this.last;
+			node.writeNext = null;
+			if (this.last == null) {
+				this.first = node;
+			}
+			else {
+				this.last.writeNext = node;
+			}
+			this.last = node;
+		}
+
+		void remove(Node<K, V> node) {
+			if (node.writePrev == null) {
+				this.first = node.writeNext;
+			}
+			else {
+				node.writePrev.writeNext = node.writeNext;
+			}
+			if (node.writeNext == null) {
+				this.last = node.writePrev;
+			}
+			else {
+				node.writeNext.writePrev = node.writePrev;
+			}
+			node.writePrev = null;
+			node.writeNext = null;
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last) {
+				remove(node);
+				add(node);
+			}
+		}
+	}
+
+
+	/**
+	 * A count-min sketch of 4-bit counters estimating the access frequency of
+	 * keys, halving all counters periodically so that old accesses fade out.
+	 */
+	private static final class FrequencySketch {
+
+		private static final long[] SEEDS = {
+				0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private static final int MAXIMUM_TABLE_SIZE = 1 << 24;
+
+		private long[] table = new long[16];
+
+		private int sampleSize = 160;
+
+		private int size;
+
+		void ensureCapacity(long capacity) {
+			int tableSize = (int) Math.min(MAXIMUM_TABLE_SIZE, Math.max(16, capacity));
+			tableSize = Integer.highestOneBit(tableSize - 1) << 1;
+			if (tableSize > this.table.length) {
+				this.table = new long[tableSize];
+				this.sampleSize = 10 * tableSize;
+				this.size = 0;
+			}
+		}
+
+		void increment(Object key) {
+			int hash = spread(key.hashCode());
+			boolean added = false;
+			for (int i = 0; i < SEEDS.length; i++) {
+				added |= incrementAt(indexOf(hash, i));
+			}
+			if (added && ++this.size >= this.sampleSize) {
+				reset();
+			}
+		}
+
+		int frequency(Object key) {
+			int hash = spread(key.hashCode());
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int index = indexOf(hash, i);
+				int count = (int) ((this.table[index >>> 4] >>> ((index & 15) << 2)) & 0xfL);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		private boolean incrementAt(int index) {
+			int offset = (index & 15) << 2;
+			long mask = 0xfL << offset;
+			int slot = index >>> 4;
+			if ((this.table[slot] & mask) != mask) {
+				this.table[slot] += 1L << offset;
+				return true;
+			}
+			return false;
+		}
+
+		private int indexOf(int hash, int i) {
+			long value = (hash + SEEDS[i]) * SEEDS[i];
+			value += (value >>> 32);
+			// 16 counters per table slot
+			return ((int) value) & ((this.table.length << 4) - 1);
+		}
+
+		private void reset() {
+			for (int i = 0; i < this.table.length; i++) {
+				this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+			}
+			this.size /= 2;
+		}
+
+		private static int spread(int hash) {
+			int h = hash * 0x9e3779b9;
+			return h ^ (h >>> 16);
+		}
+	}
+
+
+	/**
+	 * Holder for the outcome of an atomic write against the underlying map.
+	 */
+	private static final class WriteResult<K, V> {
+
+		@Nullable
+		Node<K, V> added;
+
+		@Nullable
+		Node<K, V> updated;
+
+		@Nullable
+		Node<K, V> removed;
+
+		@Nullable
+		V oldValue;
+	}
+
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return BoundedConcurrentMap.this.size();
+		}
+
+		@Override
+		public boolean contains(@Nullable Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			Node<K, V> node = BoundedConcurrentMap.this.data.get(entry.getKey());
+			return (node != null && !isExpired(node, currentTime()) && node.value.equals(entry.getValue()));
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			return BoundedConcurrentMap.this.remove(entry.getKey(), entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			BoundedConcurrentMap.this.clear();
+		}
+	}
+
+
+	private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+		private final Iterator<Node<K, V>> nodes = BoundedConcurrentMap.this.data.values().iterator();
+
+		private final long now = currentTime();
+
+		@Nullable
+		private Node<K, V> next;
+
+		@Nullable
+		private Node<K, V> last;
+
+		@Override
+		public boolean hasNext() {
+			while (this.next == null && this.nodes.hasNext()) {
+				Node<K, V> node = this.nodes.next();
+				if (!isExpired(node, this.now)) {
+					this.next = node;
+				}
+			}
+			return (this.next != null);
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Node<K, V> node = this.next;
+			this.next = null;
+			this.last = node;
+			return new SimpleImmutableEntry<>(node.key, node.value);
+		}
+
+		@Override
+		public void remove() {
+			Assert.state(this.last != null, "No current entry");
+			BoundedConcurrentMap.this.remove(this.last.key, this.last.value);
+			this.last = null;
+		}
+	}
+
+}
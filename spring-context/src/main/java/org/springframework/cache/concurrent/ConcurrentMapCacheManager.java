@@ -16,6 +16,7 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +37,11 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>Note: This is by no means a sophisticated CacheManager; by default, its
+ * caches are unbounded. A maximum size or weight as well as expiration can be
+ * configured for all caches, backing them with a {@link BoundedConcurrentMap}
+ * instead of a plain {@link ConcurrentHashMap}. For advanced local caching needs,
+ * consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager},
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
@@ -59,6 +63,19 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	@Nullable
 	private SerializationDelegate serialization;
 
+	private long maximumSize = -1;
+
+	private long maximumWeight = -1;
+
+	@Nullable
+	private BoundedConcurrentMap.Weigher<Object, Object> weigher;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
+	@Nullable
+	private Duration expireAfterAccess;
+
 
 	/**
 	 * Construct a dynamic ConcurrentMapCacheManager,
@@ -146,6 +163,79 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries for each cache in this cache manager,
+	 * evicting rarely used entries beyond that size.
+	 * <p>Default is none, i.e. unbounded caches. A maximum size cannot be
+	 * combined with a {@link #setWeigher weigher}; use {@link #setMaximumWeight}
+	 * for weighted bounds instead.
+	 * <p>Note: A change of the maximum size will reset all existing caches,
+	 * if any, to reconfigure them with the new bound.
+	 * @since 5.2
+	 * @see BoundedConcurrentMap
+	 */
+	public void setMaximumSize(long maximumSize) {
+		if (maximumSize != this.maximumSize) {
+			this.maximumSize = maximumSize;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the maximum total weight of the entries of each cache in this cache
+	 * manager, as determined by the {@link #setWeigher weigher}.
+	 * <p>Only applies if a weigher has been specified as well.
+	 * <p>Note: A change of the maximum weight will reset all existing caches,
+	 * if any, to reconfigure them with the new bound.
+	 * @since 5.2
+	 * @see #setWeigher
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		if (maximumWeight != this.maximumWeight) {
+			this.maximumWeight = maximumWeight;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the weigher for cache entries, to be used in combination with
+	 * {@link #setMaximumWeight}. A weigher cannot be combined with a
+	 * {@link #setMaximumSize maximum size}.
+	 * <p>Note: A change of the weigher will reset all existing caches,
+	 * if any, to reconfigure them with the new weigher.
+	 * @since 5.2
+	 */
+	public void setWeigher(@Nullable BoundedConcurrentMap.Weigher<Object, Object> weigher) {
+		if (weigher != this.weigher) {
+			this.weigher = weigher;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the time after which cache entries expire once they have been
+	 * created or replaced.
+	 * <p>Default is none. Note: A change of this setting will reset all existing
+	 * caches, if any, to reconfigure them with the new expiration.
+	 * @since 5.2
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		this.expireAfterWrite = expireAfterWrite;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the time after which cache entries expire once they have last
+	 * been read or written.
+	 * <p>Default is none. Note: A change of this setting will reset all existing
+	 * caches, if any, to reconfigure them with the new expiration.
+	 * @since 5.2
+	 */
+	public void setExpireAfterAccess(@Nullable Duration expireAfterAccess) {
+		this.expireAfterAccess = expireAfterAccess;
+		recreateCaches();
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -190,9 +280,30 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 */
 	protected Cache createConcurrentMapCache(String name) {
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
-		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256),
+		return new ConcurrentMapCache(name, createConcurrentMapStore(name),
 				isAllowNullValues(), actualSerialization);
 
 	}
 
+	/**
+	 * Create the internal store for the specified cache name: a
+	 * {@link BoundedConcurrentMap} if a maximum size or weight or an expiration
+	 * has been configured, or a plain {@link ConcurrentHashMap} otherwise.
+	 * @param name the name of the cache
+	 * @return the ConcurrentMap to use as an internal store
+	 * @throws IllegalStateException if both a maximum size and a weigher
+	 * have been configured
+	 * @since 5.2
+	 */
+	protected ConcurrentMap<Object, Object> createConcurrentMapStore(String name) {
+		Assert.state(this.weigher == null || this.maximumSize < 0,
+				"A maximum size cannot be combined with a weigher: specify a maximum weight instead");
+		long maximum = (this.weigher != null ? this.maximumWeight : this.maximumSize);
+		if (maximum < 0 && this.expireAfterWrite == null && this.expireAfterAccess == null) {
+			return new ConcurrentHashMap<>(256);
+		}
+		return new BoundedConcurrentMap<>((maximum >= 0 ? maximum : Long.MAX_VALUE),
+				this.weigher, this.expireAfterWrite, this.expireAfterAccess);
+	}
+
 }
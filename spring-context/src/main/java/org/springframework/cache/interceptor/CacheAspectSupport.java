@@ -18,18 +18,27 @@ package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -42,13 +51,18 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.ObjectUtils;
@@ -83,6 +97,12 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Mono", CacheAspectSupport.class.getClassLoader());
+
+	private static final Object NOT_REACTIVE = new Object();
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
@@ -100,6 +120,24 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	private boolean singleFlight = false;
+
+	private long singleFlightTimeout = 30000;
+
+	private final Map<Object, InFlightInvocation> inFlightInvocations = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private TaskExecutor refreshExecutor;
+
+	private long refreshAfter = 0;
+
+	private final Map<Object, RefreshTimestamp> refreshTimestamps = new ConcurrentReferenceHashMap<>(256);
+
+	private final Set<Object> refreshesInProgress = ConcurrentHashMap.newKeySet();
+
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler = (reactorPresent ? new ReactiveCachingHandler() : null);
+
 	private boolean initialized = false;
 
 
@@ -194,6 +232,93 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Set whether concurrent cache misses for the same cache entries should be
+	 * coalesced into a single invocation of the underlying method.
+	 * <p>If enabled, a {@code @Cacheable} miss for which an invocation with the
+	 * same method, caches and keys is already in progress waits for that
+	 * invocation and returns its result (or rethrows its exception) instead of
+	 * invoking the method again. In contrast to {@code @Cacheable(sync=true)},
+	 * this does not rely on {@link Cache#get(Object, java.util.concurrent.Callable)}
+	 * and therefore works with any cache provider, with several caches and
+	 * {@code @Cacheable} operations per method, and with {@code unless}
+	 * expressions. Invocations that involve a {@code @CachePut} always proceed,
+	 * as do re-entrant invocations for the same cache entries from the thread
+	 * that is already invoking the method.
+	 * <p>Default is "false".
+	 * @since 5.2
+	 * @see #setSingleFlightTimeout
+	 */
+	public void setSingleFlight(boolean singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	/**
+	 * Return whether concurrent cache misses for the same cache entries are
+	 * coalesced into a single invocation.
+	 * @since 5.2
+	 */
+	public boolean isSingleFlight() {
+		return this.singleFlight;
+	}
+
+	/**
+	 * Set the maximum time that a cache miss waits for an in-flight invocation
+	 * in {@link #setSingleFlight single-flight} mode. If the in-flight invocation
+	 * does not complete in time, the waiting caller invokes the method on its own.
+	 * <p>Default is 30 seconds.
+	 * @since 5.2
+	 */
+	public void setSingleFlightTimeout(Duration singleFlightTimeout) {
+		Assert.isTrue(!singleFlightTimeout.isNegative(), "Single-flight timeout must not be negative");
+		this.singleFlightTimeout = singleFlightTimeout.toMillis();
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} to reload stale {@code @Cacheable} entries with.
+	 * <p>If set, a cache hit for an entry older than its operation's
+	 * {@link CacheableOperation#getRefreshAfter() refresh age} (or the
+	 * {@link #setRefreshAfter default refresh age}) still returns the cached
+	 * value, while the underlying method is invoked through the same
+	 * {@link CacheOperationInvoker} on the given executor in order to replace
+	 * the entry once it completes. At most one such reload is in progress per
+	 * method and set of cache entries; a failed reload leaves the stale entry
+	 * in place. The age of an entry is tracked from its last put through this
+	 * aspect, or from the first observation of its current value if it was put
+	 * or replaced otherwise; evictions through this aspect reset it.
+	 * <p>Note that reloaded entries are put through the cache's regular
+	 * {@code put} operation, so this is typically combined with a cache-level
+	 * expiration which is longer than the refresh age.
+	 * <p>Default is none, not reloading any entries in the background.
+	 * @since 5.2
+	 * @see #setRefreshAfter
+	 */
+	public void setRefreshExecutor(@Nullable TaskExecutor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Return the {@link TaskExecutor} to reload stale {@code @Cacheable} entries with, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public TaskExecutor getRefreshExecutor() {
+		return this.refreshExecutor;
+	}
+
+	/**
+	 * Set the default age after which a {@code @Cacheable} entry gets reloaded
+	 * in the background, for operations which do not specify a refresh age.
+	 * <p>Default is none, only reloading entries for operations with an
+	 * explicit refresh age. Only applies with a {@link #setRefreshExecutor
+	 * refresh executor} set.
+	 * @since 5.2
+	 * @see CacheableOperation#getRefreshAfter()
+	 */
+	public void setRefreshAfter(@Nullable Duration refreshAfter) {
+		this.refreshAfter = (refreshAfter != null ? refreshAfter.toMillis() : 0);
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -371,6 +496,14 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		// Special handling of reactive return types: cache the emitted value(s)
+		if (this.reactiveCachingHandler != null) {
+			Object returnValue = this.reactiveCachingHandler.executeIfReactive(invoker, method, contexts);
+			if (returnValue != NOT_REACTIVE) {
+				return returnValue;
+			}
+		}
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
@@ -407,32 +540,192 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 					CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
 		}
 
-		Object cacheValue;
-		Object returnValue;
+		// Coalesce concurrent misses for the same cache entries, if enabled
+		InFlightInvocation inFlightInvocation = null;
+		if (cacheHit == null && this.singleFlight && !cachePutRequests.isEmpty() && !hasCachePut(contexts)) {
+			Object flightKey = createFlightKey(method, cachePutRequests);
+			InFlightInvocation newInvocation = new InFlightInvocation(flightKey);
+			InFlightInvocation existingInvocation = this.inFlightInvocations.putIfAbsent(flightKey, newInvocation);
+			if (existingInvocation != null) {
+				if (existingInvocation.isOwnedByCurrentThread()) {
+					// Re-entrant invocation for the same entries: waiting would never return
+					if (logger.isTraceEnabled()) {
+						logger.trace("Proceeding with re-entrant invocation of method " + method);
+					}
+				}
+				else {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Waiting for in-flight invocation of method " + method);
+					}
+					cacheHit = existingInvocation.await(this.singleFlightTimeout);
+					if (cacheHit != null) {
+						cachePutRequests.clear();
+					}
+					else if (logger.isDebugEnabled()) {
+						logger.debug("In-flight invocation of method " + method +
+								" did not complete in time: proceeding on its own");
+					}
+				}
+			}
+			else {
+				inFlightInvocation = newInvocation;
+				// Re-check: a previous invocation may have populated the cache in the meantime
+				cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+				if (cacheHit != null) {
+					cachePutRequests.clear();
+				}
+			}
+		}
+
+		try {
+			Object cacheValue;
+			Object returnValue;
+
+			if (cacheHit != null && !hasCachePut(contexts)) {
+				// If there are no put requests, just use the cache hit
+				cacheValue = cacheHit.get();
+				returnValue = wrapCacheValue(method, cacheValue);
+				// Reload stale entries in the background, if enabled
+				if (this.refreshExecutor != null) {
+					refreshIfStale(this.refreshExecutor, invoker, method,
+							contexts.get(CacheableOperation.class), cacheValue);
+				}
+			}
+			else {
+				// Invoke the method if we don't have a cache hit
+				returnValue = invokeOperation(invoker);
+				cacheValue = unwrapReturnValue(returnValue);
+			}
+
+			// Collect any explicit @CachePuts
+			collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
+
+			// Process any collected put requests, either from @CachePut or a @Cacheable miss
+			for (CachePutRequest cachePutRequest : cachePutRequests) {
+				cachePutRequest.apply(cacheValue);
+			}
+
+			// Process any late evictions
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
 
-		if (cacheHit != null && !hasCachePut(contexts)) {
-			// If there are no put requests, just use the cache hit
-			cacheValue = cacheHit.get();
-			returnValue = wrapCacheValue(method, cacheValue);
+			if (inFlightInvocation != null) {
+				inFlightInvocation.complete(cacheValue);
+			}
+			return returnValue;
+		}
+		catch (RuntimeException | Error ex) {
+			if (inFlightInvocation != null) {
+				inFlightInvocation.fail(ex);
+			}
+			throw ex;
 		}
-		else {
-			// Invoke the method if we don't have a cache hit
-			returnValue = invokeOperation(invoker);
-			cacheValue = unwrapReturnValue(returnValue);
+		finally {
+			if (inFlightInvocation != null) {
+				this.inFlightInvocations.remove(inFlightInvocation.flightKey, inFlightInvocation);
+			}
 		}
+	}
 
-		// Collect any explicit @CachePuts
-		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
-
-		// Process any collected put requests, either from @CachePut or a @Cacheable miss
+	private Object createFlightKey(Method method, Collection<CachePutRequest> cachePutRequests) {
+		List<Object> flightKey = new ArrayList<>(cachePutRequests.size() * 2 + 1);
+		flightKey.add(method);
 		for (CachePutRequest cachePutRequest : cachePutRequests) {
-			cachePutRequest.apply(cacheValue);
+			for (Cache cache : cachePutRequest.context.getCaches()) {
+				flightKey.add(cache);
+				flightKey.add(cachePutRequest.key);
+			}
+		}
+		return flightKey;
+	}
+
+	private void refreshIfStale(TaskExecutor executor, CacheOperationInvoker invoker, Method method,
+			Collection<CacheOperationContext> contexts, @Nullable Object cachedValue) {
+
+		List<CachePutRequest> refreshRequests = new ArrayList<>(contexts.size());
+		collectPutRequests(contexts, CacheOperationExpressionEvaluator.NO_RESULT, refreshRequests);
+		long now = System.currentTimeMillis();
+		boolean stale = false;
+		for (CachePutRequest refreshRequest : refreshRequests) {
+			long refreshAfter = getRefreshAfter(refreshRequest.context);
+			if (refreshAfter > 0) {
+				for (Cache cache : refreshRequest.context.getCaches()) {
+					Object timestampKey = Arrays.asList(cache, refreshRequest.key);
+					RefreshTimestamp timestamp = this.refreshTimestamps.get(timestampKey);
+					if (timestamp == null || !timestamp.isFor(cachedValue)) {
+						// First observation, or put or replaced outside of this aspect
+						this.refreshTimestamps.put(timestampKey, new RefreshTimestamp(cachedValue, now));
+					}
+					else if (now - timestamp.time >= refreshAfter) {
+						stale = true;
+					}
+				}
+			}
+		}
+		if (!stale) {
+			return;
+		}
+
+		Object refreshKey = createFlightKey(method, refreshRequests);
+		if (!this.refreshesInProgress.add(refreshKey)) {
+			return;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Reloading stale cache entries for method " + method + " in the background");
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					Object cacheValue = unwrapReturnValue(invokeOperation(invoker));
+					for (CachePutRequest refreshRequest : refreshRequests) {
+						refreshRequest.apply(cacheValue);
+					}
+				}
+				catch (Throwable ex) {
+					Throwable cause = (ex instanceof CacheOperationInvoker.ThrowableWrapper ?
+							((CacheOperationInvoker.ThrowableWrapper) ex).getOriginal() : ex);
+					if (logger.isWarnEnabled()) {
+						logger.warn("Background reload of stale cache entries failed for method " + method, cause);
+					}
+				}
+				finally {
+					this.refreshesInProgress.remove(refreshKey);
+				}
+			});
 		}
+		catch (RuntimeException ex) {
+			// Typically a TaskRejectedException: keep serving the stale entries
+			this.refreshesInProgress.remove(refreshKey);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not schedule background reload for method " + method + ": " + ex);
+			}
+		}
+	}
 
-		// Process any late evictions
-		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+	private long getRefreshAfter(CacheOperationContext context) {
+		CacheOperation operation = context.metadata.operation;
+		if (operation instanceof CacheableOperation) {
+			long refreshAfter = ((CacheableOperation) operation).getRefreshAfter();
+			return (refreshAfter >= 0 ? refreshAfter : this.refreshAfter);
+		}
+		return 0;
+	}
 
-		return returnValue;
+	private void markRefreshed(Cache cache, Object key, @Nullable Object value) {
+		if (this.refreshExecutor != null) {
+			this.refreshTimestamps.put(Arrays.asList(cache, key),
+					new RefreshTimestamp(value, System.currentTimeMillis()));
+		}
+	}
+
+	private void clearRefreshed(Cache cache, @Nullable Object key) {
+		if (this.refreshExecutor != null) {
+			if (key != null) {
+				this.refreshTimestamps.remove(Arrays.asList(cache, key));
+			}
+			else {
+				this.refreshTimestamps.keySet().removeIf(timestampKey -> ((List<?>) timestampKey).get(0) == cache);
+			}
+		}
 	}
 
 	@Nullable
@@ -486,6 +779,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (operation.isCacheWide()) {
 				logInvalidating(context, operation, null);
 				doClear(cache, operation.isBeforeInvocation());
+				clearRefreshed(cache, null);
 			}
 			else {
 				if (key == null) {
@@ -493,6 +787,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				}
 				logInvalidating(context, operation, key);
 				doEvict(cache, key, operation.isBeforeInvocation());
+				clearRefreshed(cache, key);
 			}
 		}
 	}
@@ -818,7 +1113,181 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (this.context.canPutToCache(result)) {
 				for (Cache cache : this.context.getCaches()) {
 					doPut(cache, this.key, result);
+					markRefreshed(cache, this.key, result);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Caching of the values emitted by methods with a reactive return type
+	 * (as supported by the {@link ReactiveAdapterRegistry}), rather than of the
+	 * reactive type instance itself: single-value types cache their resolved
+	 * value, multi-value types a {@link List} of all elements. Empty results are
+	 * not cached. Cache lookups happen on subscription, and concurrent misses for
+	 * the same cache entries share a single subscription to the underlying
+	 * method's result. {@code @Cacheable(sync=true)} is not supported here.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		private final Map<Object, Mono<?>> inFlightResults = new ConcurrentHashMap<>(64);
+
+		public Object executeIfReactive(CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+			ReactiveAdapter adapter = this.registry.getAdapter(method.getReturnType());
+			if (adapter == null || adapter.isNoValue()) {
+				return NOT_REACTIVE;
+			}
+			if (contexts.isSynchronized()) {
+				throw new IllegalStateException(
+						"@Cacheable(sync=true) is not supported for reactive return type on '" + method + "'");
+			}
+			if (adapter.isMultiValue()) {
+				Flux<?> result = execute(invoker, method, contexts, adapter)
+						.flatMapMany(value -> Flux.fromIterable((Iterable<?>) value));
+				return adapter.fromPublisher(result);
+			}
+			return adapter.fromPublisher(execute(invoker, method, contexts, adapter));
+		}
+
+		private Mono<?> execute(CacheOperationInvoker invoker, Method method,
+				CacheOperationContexts contexts, ReactiveAdapter adapter) {
+
+			return Mono.defer(() -> {
+				// Process any early evictions
+				processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+						CacheOperationExpressionEvaluator.NO_RESULT);
+
+				Cache.ValueWrapper cacheHit = findCachedItem(contexts.get(CacheableOperation.class));
+				boolean hasCachePut = hasCachePut(contexts);
+				if (cacheHit != null && !hasCachePut) {
+					Object cacheValue = cacheHit.get();
+					return Mono.justOrEmpty(cacheValue).doOnSuccess(value ->
+							processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue));
+				}
+
+				List<CachePutRequest> cachePutRequests = new LinkedList<>();
+				if (cacheHit == null) {
+					collectPutRequests(contexts.get(CacheableOperation.class),
+							CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+				}
+				Mono<?> result = Mono.defer(() -> invoke(invoker, adapter))
+						.doOnSuccess(value -> {
+							// Collect any explicit @CachePuts
+							collectPutRequests(contexts.get(CachePutOperation.class), value, cachePutRequests);
+							if (value != null) {
+								for (CachePutRequest cachePutRequest : cachePutRequests) {
+									cachePutRequest.apply(value);
+								}
+							}
+							// Process any late evictions
+							processCacheEvicts(contexts.get(CacheEvictOperation.class), false, value);
+						});
+				if (cachePutRequests.isEmpty() || hasCachePut) {
+					return result;
+				}
+				// Share a single subscription among concurrent misses for the same entries
+				Object flightKey = createFlightKey(method, cachePutRequests);
+				return this.inFlightResults.computeIfAbsent(flightKey, key ->
+						result.doFinally(signal -> this.inFlightResults.remove(key)).cache());
+			});
+		}
+
+		private Mono<?> invoke(CacheOperationInvoker invoker, ReactiveAdapter adapter) {
+			Object returnValue;
+			try {
+				returnValue = invokeOperation(invoker);
+			}
+			catch (CacheOperationInvoker.ThrowableWrapper ex) {
+				return Mono.error(ex.getOriginal());
+			}
+			if (adapter.isMultiValue()) {
+				return Flux.from(adapter.toPublisher(returnValue)).collectList().filter(list -> !list.isEmpty());
+			}
+			return Mono.from(adapter.toPublisher(returnValue));
+		}
+	}
+
+
+	/**
+	 * The time at which a cache entry has been written, along with its value
+	 * in order to detect replacements outside of the cache aspect.
+	 */
+	private static final class RefreshTimestamp {
+
+		@Nullable
+		private final Object value;
+
+		private final long time;
+
+		public RefreshTimestamp(@Nullable Object value, long time) {
+			this.value = value;
+			this.time = time;
+		}
+
+		public boolean isFor(@Nullable Object value) {
+			return ObjectUtils.nullSafeEquals(this.value, value);
+		}
+	}
+
+
+	/**
+	 * An invocation that concurrent cache misses for the same cache entries
+	 * wait for, in {@link #setSingleFlight single-flight} mode.
+	 */
+	private static final class InFlightInvocation {
+
+		private final Object flightKey;
+
+		private final Thread owner = Thread.currentThread();
+
+		private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+		public InFlightInvocation(Object flightKey) {
+			this.flightKey = flightKey;
+		}
+
+		public boolean isOwnedByCurrentThread() {
+			return (this.owner == Thread.currentThread());
+		}
+
+		public void complete(@Nullable Object cacheValue) {
+			this.result.complete(cacheValue);
+		}
+
+		public void fail(Throwable ex) {
+			this.result.completeExceptionally(ex);
+		}
+
+		/**
+		 * Wait for the outcome of this invocation.
+		 * @param timeout the maximum time to wait, in milliseconds
+		 * @return the resulting cache value, or {@code null} if interrupted or
+		 * timed out while waiting (in which case the caller should proceed on its own)
+		 */
+		@Nullable
+		public Cache.ValueWrapper await(long timeout) {
+			try {
+				return new SimpleValueWrapper(this.result.get(timeout, TimeUnit.MILLISECONDS));
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			catch (TimeoutException ex) {
+				return null;
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
 				}
+				throw new IllegalStateException(cause);
 			}
 		}
 	}
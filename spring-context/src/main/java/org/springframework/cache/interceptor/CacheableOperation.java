@@ -33,6 +33,8 @@ public class CacheableOperation extends CacheOperation {
 
 	private final boolean sync;
 
+	private final long refreshAfter;
+
 
 	/**
 	 * Create a new {@link CacheableOperation} instance from the given builder.
@@ -42,6 +44,7 @@ public class CacheableOperation extends CacheOperation {
 		super(b);
 		this.unless = b.unless;
 		this.sync = b.sync;
+		this.refreshAfter = b.refreshAfter;
 	}
 
 
@@ -54,6 +57,16 @@ public class CacheableOperation extends CacheOperation {
 		return this.sync;
 	}
 
+	/**
+	 * Return the age in milliseconds after which a cached entry gets reloaded
+	 * in the background, or a negative value to apply the aspect's default.
+	 * @since 5.2
+	 * @see CacheAspectSupport#setRefreshAfter
+	 */
+	public long getRefreshAfter() {
+		return this.refreshAfter;
+	}
+
 
 	/**
 	 * A builder that can be used to create a {@link CacheableOperation}.
@@ -66,6 +79,8 @@ public class CacheableOperation extends CacheOperation {
 
 		private boolean sync;
 
+		private long refreshAfter = -1;
+
 		public void setUnless(String unless) {
 			this.unless = unless;
 		}
@@ -74,6 +89,15 @@ public class CacheableOperation extends CacheOperation {
 			this.sync = sync;
 		}
 
+		/**
+		 * Set the age in milliseconds after which a cached entry gets reloaded
+		 * in the background, or a negative value to apply the aspect's default.
+		 * @since 5.2
+		 */
+		public void setRefreshAfter(long refreshAfter) {
+			this.refreshAfter = refreshAfter;
+		}
+
 		@Override
 		protected StringBuilder getOperationDescription() {
 			StringBuilder sb = super.getOperationDescription();
@@ -83,6 +107,9 @@ public class CacheableOperation extends CacheOperation {
 			sb.append(" | sync='");
 			sb.append(this.sync);
 			sb.append("'");
+			sb.append(" | refreshAfter='");
+			sb.append(this.refreshAfter);
+			sb.append("'");
 			return sb;
 		}
 
@@ -31,6 +31,7 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
@@ -75,6 +76,15 @@ public abstract class AbstractApplicationEventMulticaster
 
 	private Object retrievalMutex = this.defaultRetriever;
 
+	/**
+	 * Whether to obtain listener beans outside of the retrieval mutex,
+	 * in case of concurrent singleton creation in the bean factory.
+	 */
+	private boolean concurrentRetrieval;
+
+	/** Number of modifications of the registered listeners, guarded by the retrieval mutex. */
+	private int listenerModificationCount;
+
 
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
@@ -90,7 +100,15 @@ public abstract class AbstractApplicationEventMulticaster
 		if (this.beanClassLoader == null) {
 			this.beanClassLoader = this.beanFactory.getBeanClassLoader();
 		}
-		this.retrievalMutex = this.beanFactory.getSingletonMutex();
+		if (this.beanFactory instanceof DefaultSingletonBeanRegistry &&
+				((DefaultSingletonBeanRegistry) this.beanFactory).isConcurrentSingletonCreation()) {
+			// The singleton mutex does not guard singleton creation then: keep our own
+			// mutex, never holding it while obtaining listener beans...
+			this.concurrentRetrieval = true;
+		}
+		else {
+			this.retrievalMutex = this.beanFactory.getSingletonMutex();
+		}
 	}
 
 	private ConfigurableBeanFactory getBeanFactory() {
@@ -113,6 +131,7 @@ public abstract class AbstractApplicationEventMulticaster
 				this.defaultRetriever.applicationListeners.remove(singletonTarget);
 			}
 			this.defaultRetriever.applicationListeners.add(listener);
+			this.listenerModificationCount++;
 			this.retrieverCache.clear();
 		}
 	}
@@ -121,6 +140,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void addApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListenerBeans.add(listenerBeanName);
+			this.listenerModificationCount++;
 			this.retrieverCache.clear();
 		}
 	}
@@ -129,6 +149,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.remove(listener);
+			this.listenerModificationCount++;
 			this.retrieverCache.clear();
 		}
 	}
@@ -137,6 +158,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListenerBean(String listenerBeanName) {
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListenerBeans.remove(listenerBeanName);
+			this.listenerModificationCount++;
 			this.retrieverCache.clear();
 		}
 	}
@@ -146,6 +168,7 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.clear();
 			this.defaultRetriever.applicationListenerBeans.clear();
+			this.listenerModificationCount++;
 			this.retrieverCache.clear();
 		}
 	}
@@ -157,6 +180,14 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners() {
+		if (this.concurrentRetrieval) {
+			ListenerRetriever retriever = new ListenerRetriever(false);
+			synchronized (this.retrievalMutex) {
+				retriever.applicationListeners.addAll(this.defaultRetriever.applicationListeners);
+				retriever.applicationListenerBeans.addAll(this.defaultRetriever.applicationListenerBeans);
+			}
+			return retriever.getApplicationListeners();
+		}
 		synchronized (this.retrievalMutex) {
 			return this.defaultRetriever.getApplicationListeners();
 		}
@@ -187,6 +218,12 @@ public abstract class AbstractApplicationEventMulticaster
 		if (this.beanClassLoader == null ||
 				(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
 						(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
+			if (this.concurrentRetrieval) {
+				// Building a ListenerRetriever outside of synchronization, since listener beans
+				// may have to be created: only cached if the registrations did not change meanwhile
+				retriever = new ListenerRetriever(true);
+				return retrieveApplicationListeners(eventType, sourceType, retriever, cacheKey);
+			}
 			// Fully synchronized building and caching of a ListenerRetriever
 			synchronized (this.retrievalMutex) {
 				retriever = this.retrieverCache.get(cacheKey);
@@ -195,14 +232,14 @@ public abstract class AbstractApplicationEventMulticaster
 				}
 				retriever = new ListenerRetriever(true);
 				Collection<ApplicationListener<?>> listeners =
-						retrieveApplicationListeners(eventType, sourceType, retriever);
+						retrieveApplicationListeners(eventType, sourceType, retriever, null);
 				this.retrieverCache.put(cacheKey, retriever);
 				return listeners;
 			}
 		}
 		else {
 			// No ListenerRetriever caching -> no synchronization necessary
-			return retrieveApplicationListeners(eventType, sourceType, null);
+			return retrieveApplicationListeners(eventType, sourceType, null, null);
 		}
 	}
 
@@ -211,17 +248,21 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @param eventType the event type
 	 * @param sourceType the event source type
 	 * @param retriever the ListenerRetriever, if supposed to populate one (for caching purposes)
+	 * @param cacheKey the key to cache the populated ListenerRetriever under, if to be cached
+	 * unless the registered listeners changed in the meantime
 	 * @return the pre-filtered list of application listeners for the given event and source type
 	 */
-	private Collection<ApplicationListener<?>> retrieveApplicationListeners(
-			ResolvableType eventType, @Nullable Class<?> sourceType, @Nullable ListenerRetriever retriever) {
+	private Collection<ApplicationListener<?>> retrieveApplicationListeners(ResolvableType eventType,
+			@Nullable Class<?> sourceType, @Nullable ListenerRetriever retriever, @Nullable ListenerCacheKey cacheKey) {
 
 		List<ApplicationListener<?>> allListeners = new ArrayList<>();
 		Set<ApplicationListener<?>> listeners;
 		Set<String> listenerBeans;
+		int modificationCount;
 		synchronized (this.retrievalMutex) {
 			listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
 			listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			modificationCount = this.listenerModificationCount;
 		}
 
 		// Add programmatically registered listeners, including ones coming
@@ -279,6 +320,13 @@ public abstract class AbstractApplicationEventMulticaster
 			retriever.applicationListeners.clear();
 			retriever.applicationListeners.addAll(allListeners);
 		}
+		if (retriever != null && cacheKey != null) {
+			synchronized (this.retrievalMutex) {
+				if (modificationCount == this.listenerModificationCount) {
+					this.retrieverCache.putIfAbsent(cacheKey, retriever);
+				}
+			}
+		}
 		return allListeners;
 	}
 
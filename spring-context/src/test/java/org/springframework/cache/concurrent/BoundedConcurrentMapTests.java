@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.serializer.support.SerializationDelegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BoundedConcurrentMap}.
+ *
+ * @author Agent
+ */
+public class BoundedConcurrentMapTests {
+
+	@Test
+	public void maximumSize() {
+		BoundedConcurrentMap<Integer, String> map = new BoundedConcurrentMap<>(10);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, "value" + i);
+		}
+		assertThat(map.size()).isEqualTo(10);
+		assertThat(map.getEvictionCount()).isEqualTo(90);
+	}
+
+	@Test
+	public void frequentlyUsedEntriesSurviveScan() {
+		BoundedConcurrentMap<Integer, Integer> map = new BoundedConcurrentMap<>(100);
+		for (int i = 0; i < 50; i++) {
+			map.put(i, i);
+		}
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 50; i++) {
+				assertThat(map.get(i)).isEqualTo(i);
+			}
+		}
+		for (int i = 1000; i < 2000; i++) {
+			map.put(i, i);
+		}
+		int retained = 0;
+		for (int i = 0; i < 50; i++) {
+			if (map.containsKey(i)) {
+				retained++;
+			}
+		}
+		assertThat(map.size()).isEqualTo(100);
+		assertThat(retained).isGreaterThanOrEqualTo(45);
+	}
+
+	@Test
+	public void maximumWeight() {
+		BoundedConcurrentMap<String, String> map =
+				new BoundedConcurrentMap<>(10, (key, value) -> value.length(), null, null);
+		map.put("a", "1234");
+		map.put("b", "1234");
+		assertThat(map.size()).isEqualTo(2);
+		map.put("c", "1234");
+		assertThat(map.size()).isEqualTo(2);
+		map.put("d", "12345678901");
+		assertThat(map.containsKey("d")).isFalse();
+		map.put("a", "1");
+		map.put("b", "1");
+		assertThat(map).containsKeys("a", "b");
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		TestBoundedConcurrentMap<String, String> map =
+				new TestBoundedConcurrentMap<>(Duration.ofSeconds(10), null);
+		map.put("key", "value");
+		map.time = Duration.ofSeconds(5).toNanos();
+		assertThat(map.get("key")).isEqualTo("value");
+		map.time = Duration.ofSeconds(10).toNanos();
+		assertThat(map.get("key")).isNull();
+		assertThat(map.containsKey("key")).isFalse();
+		assertThat(map).isEmpty();
+		assertThat(map.getEvictionCount()).isEqualTo(1);
+
+		assertThat(map.putIfAbsent("key", "value2")).isNull();
+		assertThat(map.get("key")).isEqualTo("value2");
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		TestBoundedConcurrentMap<String, String> map =
+				new TestBoundedConcurrentMap<>(null, Duration.ofSeconds(10));
+		map.put("key1", "value1");
+		map.put("key2", "value2");
+		map.time = Duration.ofSeconds(8).toNanos();
+		assertThat(map.get("key1")).isEqualTo("value1");
+		map.time = Duration.ofSeconds(16).toNanos();
+		assertThat(map.get("key1")).isEqualTo("value1");
+		assertThat(map.get("key2")).isNull();
+	}
+
+	@Test
+	public void expiredEntriesAreSweptOnWrite() {
+		TestBoundedConcurrentMap<Integer, String> map =
+				new TestBoundedConcurrentMap<>(Duration.ofSeconds(10), null);
+		for (int i = 0; i < 10; i++) {
+			map.put(i, "value" + i);
+		}
+		map.time = Duration.ofSeconds(20).toNanos();
+		map.put(100, "value");
+		assertThat(map.size()).isEqualTo(1);
+		assertThat(map.getEvictionCount()).isEqualTo(10);
+	}
+
+	@Test
+	public void recentlyWrittenEntriesAreNotSweptOnWrite() {
+		TestBoundedConcurrentMap<String, String> map =
+				new TestBoundedConcurrentMap<>(Duration.ofSeconds(10), null);
+		map.put("key1", "value1");
+		map.put("key2", "value2");
+		map.time = Duration.ofSeconds(8).toNanos();
+		map.put("key1", "value1x");
+		map.time = Duration.ofSeconds(12).toNanos();
+		map.put("key3", "value3");
+		assertThat(map.size()).isEqualTo(2);
+		assertThat(map.getEvictionCount()).isEqualTo(1);
+		assertThat(map).containsOnlyKeys("key1", "key3");
+	}
+
+	@Test
+	public void recentlyAccessedEntriesAreNotSweptOnWrite() {
+		TestBoundedConcurrentMap<String, String> map =
+				new TestBoundedConcurrentMap<>(null, Duration.ofSeconds(10));
+		map.put("key1", "value1");
+		map.put("key2", "value2");
+		map.put("key3", "value3");
+		map.time = Duration.ofSeconds(8).toNanos();
+		assertThat(map.get("key1")).isEqualTo("value1");
+		map.time = Duration.ofSeconds(12).toNanos();
+		map.put("key4", "value4");
+		assertThat(map.size()).isEqualTo(2);
+		assertThat(map.getEvictionCount()).isEqualTo(2);
+		assertThat(map).containsOnlyKeys("key1", "key4");
+	}
+
+	@Test
+	public void statistics() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(10);
+		AtomicInteger loads = new AtomicInteger();
+		assertThat(map.get("key")).isNull();
+		assertThat(map.computeIfAbsent("key", key -> "value" + loads.incrementAndGet())).isEqualTo("value1");
+		assertThat(map.computeIfAbsent("key", key -> "value" + loads.incrementAndGet())).isEqualTo("value1");
+		assertThat(map.get("key")).isEqualTo("value1");
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(map.getHitCount()).isEqualTo(2);
+		assertThat(map.getMissCount()).isEqualTo(2);
+		assertThat(map.getEvictionCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void concurrentMapOperations() {
+		BoundedConcurrentMap<String, String> map = new BoundedConcurrentMap<>(10);
+		assertThat(map.putIfAbsent("key", "value1")).isNull();
+		assertThat(map.putIfAbsent("key", "value2")).isEqualTo("value1");
+		assertThat(map.replace("key", "value3")).isEqualTo("value1");
+		assertThat(map.replace("key", "value1", "value4")).isFalse();
+		assertThat(map.replace("key", "value3", "value4")).isTrue();
+		assertThat(map.remove("key", "value3")).isFalse();
+		assertThat(map.remove("key", "value4")).isTrue();
+		assertThat(map.replace("key", "value5")).isNull();
+		map.put("key1", "value1");
+		map.put("key2", "value2");
+		assertThat(map.entrySet()).hasSize(2);
+		assertThat(map.keySet()).containsOnly("key1", "key2");
+		map.clear();
+		assertThat(map).isEmpty();
+		map.put("key3", "value3");
+		assertThat(map).containsOnlyKeys("key3");
+	}
+
+	@Test
+	public void concurrentWritesStayBounded() throws Exception {
+		BoundedConcurrentMap<Integer, Integer> map = new BoundedConcurrentMap<>(100);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int offset = t * 10000;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 5000; i++) {
+						map.put(offset + i, i);
+						map.get(offset + i / 2);
+						if (i % 10 == 0) {
+							map.remove(offset + i - 5);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(map.size()).isLessThanOrEqualTo(100);
+		map.put(-1, -1);
+		assertThat(map.size()).isLessThanOrEqualTo(100);
+		assertThat(map.get(-1)).isEqualTo(-1);
+	}
+
+	@Test
+	public void concurrentMapCacheWithStoreByValue() {
+		BoundedConcurrentMap<Object, Object> store = new BoundedConcurrentMap<>(2);
+		ConcurrentMapCache cache = new ConcurrentMapCache("test", store, true,
+				new SerializationDelegate(getClass().getClassLoader()));
+		List<String> content = new ArrayList<>(Arrays.asList("one", "two"));
+		cache.put("key", content);
+		content.clear();
+		assertThat(cache.get("key", List.class)).containsExactly("one", "two");
+		assertThat(cache.get("missing")).isNull();
+		assertThat(cache.get("loaded", () -> "value")).isEqualTo("value");
+		cache.put("other", "value");
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(store.getHitCount()).isEqualTo(1);
+		assertThat(store.getMissCount()).isEqualTo(2);
+	}
+
+
+	private static class TestBoundedConcurrentMap<K, V> extends BoundedConcurrentMap<K, V> {
+
+		volatile long time;
+
+		TestBoundedConcurrentMap(Duration expireAfterWrite, Duration expireAfterAccess) {
+			super(Long.MAX_VALUE, null, expireAfterWrite, expireAfterAccess);
+		}
+
+		@Override
+		protected long currentTime() {
+			return this.time;
+		}
+	}
+
+}
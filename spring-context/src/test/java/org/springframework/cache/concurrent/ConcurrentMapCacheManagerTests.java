@@ -16,12 +16,15 @@
 
 package org.springframework.cache.concurrent;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 
 /**
  * @author Juergen Hoeller
@@ -140,4 +143,37 @@ public class ConcurrentMapCacheManagerTests {
 		assertThat(cache1x.get("key")).isNull();
 	}
 
+	@Test
+	public void testBoundedCaches() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		ConcurrentMapCache cache1 = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1.getNativeCache()).isInstanceOf(ConcurrentHashMap.class);
+
+		cm.setMaximumSize(2);
+		cm.setStoreByValue(true);
+		cm.setBeanClassLoader(getClass().getClassLoader());
+		ConcurrentMapCache cache1x = (ConcurrentMapCache) cm.getCache("c1");
+		assertThat(cache1x.isStoreByValue()).isTrue();
+		assertThat(cache1x.getNativeCache()).isInstanceOf(BoundedConcurrentMap.class);
+		BoundedConcurrentMap<?, ?> store = (BoundedConcurrentMap<?, ?>) cache1x.getNativeCache();
+		assertThat(store.getMaximumWeight()).isEqualTo(2);
+
+		cache1x.put("key1", "value1");
+		cache1x.put("key2", "value2");
+		cache1x.put("key3", "value3");
+		assertThat(store.size()).isEqualTo(2);
+		assertThat(store.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testWeightedCaches() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setWeigher((key, value) -> value.toString().length());
+		cm.setMaximumWeight(10);
+		BoundedConcurrentMap<?, ?> store = (BoundedConcurrentMap<?, ?>) cm.getCache("c1").getNativeCache();
+		assertThat(store.getMaximumWeight()).isEqualTo(10);
+
+		assertThatIllegalStateException().isThrownBy(() -> cm.setMaximumSize(2));
+	}
+
 }
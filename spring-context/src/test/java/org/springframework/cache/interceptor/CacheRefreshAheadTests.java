@@ -0,0 +1,240 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for background reloading of stale {@code @Cacheable} entries.
+ *
+ * @author Agent
+ */
+public class CacheRefreshAheadTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private CacheInterceptor interceptor;
+
+	private RefreshingService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.interceptor = this.context.getBean(CacheInterceptor.class);
+		this.interceptor.setRefreshExecutor(new SyncTaskExecutor());
+		this.service = this.context.getBean(RefreshingService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void freshEntryIsNotReloaded() throws InterruptedException {
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	public void staleEntryIsServedAndReloaded() throws InterruptedException {
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		awaitReload("key", "key-1", 2);
+
+		assertThat(this.cache.get("key").get()).isEqualTo("key-2");
+		assertThat(this.service.get("key")).isEqualTo("key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void defaultRefreshAge() throws InterruptedException {
+		this.interceptor.setRefreshAfter(Duration.ofMillis(50));
+		assertThat(this.service.getWithDefault("key")).isEqualTo("key-1");
+		long deadline = System.currentTimeMillis() + 10000;
+		while (this.service.getInvocations() < 2 && System.currentTimeMillis() < deadline) {
+			assertThat(this.service.getWithDefault("key")).isEqualTo("key-1");
+			Thread.sleep(10);
+		}
+		assertThat(this.service.getWithDefault("key")).isEqualTo("key-2");
+
+		// Once an entry written later on is stale, so is the reloaded entry
+		this.interceptor.setRefreshAfter(null);
+		assertThat(this.service.get("other")).isEqualTo("other-3");
+		awaitReload("other", "other-3", 4);
+		assertThat(this.service.getWithDefault("key")).isEqualTo("key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(4);
+	}
+
+	@Test
+	public void failedReloadKeepsStaleEntry() throws InterruptedException {
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+
+		this.service.setFailing(true);
+		awaitReload("key", "key-1", 2);
+		assertThat(this.cache.get("key").get()).isEqualTo("key-1");
+	}
+
+	@Test
+	public void reloadRunsInBackgroundOnce() throws InterruptedException {
+		this.interceptor.setRefreshExecutor(new SimpleAsyncTaskExecutor("refresh-"));
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+
+		CountDownLatch release = new CountDownLatch(1);
+		this.service.setBlocker(release);
+		awaitReload("key", "key-1", 2);
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!"key-2".equals(this.cache.get("key").get()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.cache.get("key").get()).isEqualTo("key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void evictionResetsEntryAge() throws InterruptedException {
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		awaitReload("key", "key-1", 2);
+
+		// The reloaded entry is stale once an entry written later on is
+		assertThat(this.service.get("other")).isEqualTo("other-3");
+		this.service.evict("key");
+		this.cache.put("key", "key-2");
+		awaitReload("other", "other-3", 4);
+		assertThat(this.service.get("key")).isEqualTo("key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(4);
+	}
+
+	@Test
+	public void putOutsideOfAspectResetsEntryAge() throws InterruptedException {
+		assertThat(this.service.get("key")).isEqualTo("key-1");
+		awaitReload("key", "key-1", 2);
+
+		assertThat(this.service.get("other")).isEqualTo("other-3");
+		this.cache.put("key", "key-external");
+		awaitReload("other", "other-3", 4);
+		assertThat(this.service.get("key")).isEqualTo("key-external");
+		assertThat(this.service.getInvocations()).isEqualTo(4);
+	}
+
+	/**
+	 * Read the given entry until it gets stale and its reload reaches the
+	 * given number of invocations.
+	 */
+	private void awaitReload(String key, String staleValue, int invocations) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (this.service.getInvocations() < invocations && System.currentTimeMillis() < deadline) {
+			assertThat(this.service.get(key)).isEqualTo(staleValue);
+			Thread.sleep(10);
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(invocations);
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		public RefreshingService service() {
+			return new RefreshingService();
+		}
+	}
+
+
+	static class RefreshingService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private volatile boolean failing;
+
+		private volatile CountDownLatch blocker;
+
+		@Cacheable(cacheNames = "test", refreshAfter = 50)
+		public String get(String key) throws InterruptedException {
+			return key + "-" + invoke();
+		}
+
+		@Cacheable("test")
+		public String getWithDefault(String key) throws InterruptedException {
+			return key + "-" + invoke();
+		}
+
+		@CacheEvict("test")
+		public void evict(String key) {
+		}
+
+		public void setFailing(boolean failing) {
+			this.failing = failing;
+		}
+
+		public void setBlocker(CountDownLatch blocker) {
+			this.blocker = blocker;
+		}
+
+		public int getInvocations() {
+			return this.invocations.get();
+		}
+
+		private int invoke() throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			CountDownLatch blocker = this.blocker;
+			if (blocker != null) {
+				blocker.await(10, TimeUnit.SECONDS);
+			}
+			if (this.failing) {
+				throw new IllegalStateException("failure-" + invocation);
+			}
+			return invocation;
+		}
+	}
+
+}
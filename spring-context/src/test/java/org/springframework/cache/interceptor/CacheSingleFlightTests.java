@@ -0,0 +1,268 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for the {@link CacheAspectSupport#setSingleFlight single-flight} mode.
+ *
+ * @author Agent
+ */
+public class CacheSingleFlightTests {
+
+	private static final int CONCURRENCY = 8;
+
+	private AnnotationConfigApplicationContext context;
+
+	private SlowService service;
+
+	private ExecutorService executor;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.context.getBean(CacheInterceptor.class).setSingleFlight(true);
+		this.service = this.context.getBean(SlowService.class);
+		this.executor = Executors.newFixedThreadPool(CONCURRENCY, new CustomizableThreadFactory("single-flight-"));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+		this.context.close();
+	}
+
+
+	@Test
+	public void concurrentMissesInvokeOnce() throws Exception {
+		List<Future<String>> results = submitAll(() -> this.service.get("key"));
+		awaitWaiters();
+		this.service.release();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("value-key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		CacheManager cacheManager = this.context.getBean(CacheManager.class);
+		assertThat(cacheManager.getCache("primary").get("key").get()).isEqualTo("value-key-1");
+		assertThat(cacheManager.getCache("secondary").get("key").get()).isEqualTo("value-key-1");
+	}
+
+	@Test
+	public void concurrentMissesWithUnlessInvokeOnce() throws Exception {
+		List<Future<String>> results = submitAll(() -> this.service.getUncached("key"));
+		awaitWaiters();
+		this.service.release();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("uncached-key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.service.getUncached("key")).isEqualTo("uncached-key-2");
+	}
+
+	@Test
+	public void failureIsSharedWithWaiters() throws Exception {
+		List<Future<String>> results = submitAll(() -> this.service.fail("key"));
+		awaitWaiters();
+		this.service.release();
+
+		for (Future<String> result : results) {
+			assertThatIllegalStateException().isThrownBy(() -> {
+				try {
+					result.get(10, TimeUnit.SECONDS);
+				}
+				catch (ExecutionException ex) {
+					throw ex.getCause();
+				}
+			}).withMessage("failure-key-1");
+		}
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	public void differentKeysAreNotCoalesced() throws Exception {
+		this.service.release();
+		assertThat(this.service.get("key1")).isEqualTo("value-key1-1");
+		assertThat(this.service.get("key2")).isEqualTo("value-key2-2");
+		assertThat(this.service.get("key1")).isEqualTo("value-key1-1");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void reentrantInvocationProceeds() throws Exception {
+		this.service.release();
+		Future<String> result = this.executor.submit(() -> this.service.getReentrant("key", 1));
+		assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("reentrant-key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void waitForInFlightInvocationIsBounded() throws Exception {
+		this.context.getBean(CacheInterceptor.class).setSingleFlightTimeout(Duration.ofMillis(100));
+		Future<String> first = this.executor.submit(() -> this.service.get("key"));
+		assertThat(this.service.awaitEntered()).isTrue();
+		Future<String> second = this.executor.submit(() -> this.service.get("key"));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (this.service.getInvocations() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		this.service.release();
+
+		assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("value-key-1");
+		assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("value-key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+
+	private List<Future<String>> submitAll(Task task) {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CONCURRENCY; i++) {
+			results.add(this.executor.submit(task::call));
+		}
+		return results;
+	}
+
+	private void awaitWaiters() throws InterruptedException {
+		// One invocation blocked in the service, all others waiting for it
+		assertThat(this.service.awaitEntered()).isTrue();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (countWaitingThreads() < CONCURRENCY && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(countWaitingThreads()).isEqualTo(CONCURRENCY);
+	}
+
+	private int countWaitingThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			Thread.State state = thread.getState();
+			if (thread.getName().startsWith("single-flight-") &&
+					(state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	@FunctionalInterface
+	interface Task {
+
+		String call() throws Exception;
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("primary", "secondary");
+		}
+
+		@Bean
+		public SlowService service() {
+			return new SlowService();
+		}
+	}
+
+
+	static class SlowService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Autowired
+		@Lazy
+		private SlowService self;
+
+		@Cacheable({"primary", "secondary"})
+		public String get(String key) throws InterruptedException {
+			return "value-" + key + "-" + invoke();
+		}
+
+		@Cacheable(cacheNames = "primary", unless = "#result.startsWith('uncached')")
+		public String getUncached(String key) throws InterruptedException {
+			return "uncached-" + key + "-" + invoke();
+		}
+
+		@Cacheable(cacheNames = "primary", key = "#key")
+		public String getReentrant(String key, int depth) throws InterruptedException {
+			int invocation = invoke();
+			return (depth > 0 ? this.self.getReentrant(key, depth - 1) : "reentrant-" + key + "-" + invocation);
+		}
+
+		@Cacheable("primary")
+		public String fail(String key) throws InterruptedException {
+			throw new IllegalStateException("failure-" + key + "-" + invoke());
+		}
+
+		public int getInvocations() {
+			return this.invocations.get();
+		}
+
+		public boolean awaitEntered() throws InterruptedException {
+			return this.entered.await(10, TimeUnit.SECONDS);
+		}
+
+		public void release() {
+			this.release.countDown();
+		}
+
+		private int invoke() throws InterruptedException {
+			int invocation = this.invocations.incrementAndGet();
+			this.entered.countDown();
+			this.release.await();
+			return invocation;
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for caching the values emitted by methods with reactive return types.
+ *
+ * @author Agent
+ */
+public class ReactiveCachingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private ReactiveService service;
+
+	private Cache cache;
+
+
+	@BeforeEach
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(ReactiveService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("test");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void monoCachesResolvedValue() {
+		Mono<String> first = this.service.mono("key");
+		assertThat(this.service.getInvocations()).isEqualTo(0);
+
+		assertThat(first.block()).isEqualTo("value-key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("value-key-1");
+		assertThat(this.service.getSubscriptions()).isEqualTo(1);
+
+		assertThat(this.service.mono("key").block()).isEqualTo("value-key-1");
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.service.getSubscriptions()).isEqualTo(1);
+	}
+
+	@Test
+	public void emptyMonoIsNotCached() {
+		assertThat(this.service.empty("key").block()).isNull();
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.empty("key").block()).isNull();
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedMonoIsNotCached() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.fail("key").block());
+		assertThat(this.cache.get("key")).isNull();
+		assertThatIllegalStateException().isThrownBy(() -> this.service.fail("key").block());
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void fluxCachesCollectedElements() {
+		assertThat(this.service.flux("key").collectList().block()).containsExactly("key-1", "key-2");
+		assertThat(this.cache.get("key").get()).isEqualTo(Arrays.asList("key-1", "key-2"));
+
+		assertThat(this.service.flux("key").collectList().block()).containsExactly("key-1", "key-2");
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	public void emptyFluxIsNotCached() {
+		assertThat(this.service.emptyFlux("key").collectList().block()).isEmpty();
+		assertThat(this.cache.get("key")).isNull();
+		assertThat(this.service.emptyFlux("key").collectList().block()).isEmpty();
+		assertThat(this.service.getInvocations()).isEqualTo(2);
+	}
+
+	@Test
+	public void syncIsRejected() {
+		assertThatIllegalStateException().isThrownBy(() -> this.service.sync("key"))
+				.withMessageContaining("sync=true");
+		assertThat(this.service.getInvocations()).isEqualTo(0);
+	}
+
+	@Test
+	public void completableFutureCachesResolvedValue() throws Exception {
+		assertThat(this.service.future("key").get(10, TimeUnit.SECONDS)).isEqualTo("future-key-1");
+		assertThat(this.cache.get("key").get()).isEqualTo("future-key-1");
+		assertThat(this.service.future("key").get(10, TimeUnit.SECONDS)).isEqualTo("future-key-1");
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+	}
+
+	@Test
+	public void concurrentSubscriptionsOnMissAreCoalesced() {
+		MonoProcessor<String> source = MonoProcessor.create();
+		this.service.setSource(source);
+
+		Mono<String> first = this.service.delayed("key").cache();
+		Mono<String> second = this.service.delayed("key").cache();
+		first.subscribe();
+		second.subscribe();
+		source.onNext("delayed");
+
+		assertThat(first.block(Duration.ofSeconds(10))).isEqualTo("delayed");
+		assertThat(second.block(Duration.ofSeconds(10))).isEqualTo("delayed");
+		assertThat(this.service.getInvocations()).isEqualTo(1);
+		assertThat(this.service.getSubscriptions()).isEqualTo(1);
+		assertThat(this.cache.get("key").get()).isEqualTo("delayed");
+	}
+
+	@Test
+	public void evictionOnSubscription() {
+		this.cache.put("key", "cached");
+		Mono<Void> evict = this.service.evict("key");
+		assertThat(this.cache.get("key")).isNotNull();
+		evict.block();
+		assertThat(this.cache.get("key")).isNull();
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("test");
+		}
+
+		@Bean
+		public ReactiveService service() {
+			return new ReactiveService();
+		}
+	}
+
+
+	static class ReactiveService {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final AtomicInteger subscriptions = new AtomicInteger();
+
+		private volatile Mono<String> source = Mono.empty();
+
+		@Cacheable("test")
+		public Mono<String> mono(String key) {
+			int invocation = this.invocations.incrementAndGet();
+			return Mono.fromSupplier(() -> "value-" + key + "-" + invocation)
+					.doOnSubscribe(subscription -> this.subscriptions.incrementAndGet());
+		}
+
+		@Cacheable("test")
+		public Mono<String> empty(String key) {
+			this.invocations.incrementAndGet();
+			return Mono.empty();
+		}
+
+		@Cacheable("test")
+		public Mono<String> fail(String key) {
+			this.invocations.incrementAndGet();
+			return Mono.error(new IllegalStateException(key));
+		}
+
+		@Cacheable("test")
+		public Flux<String> flux(String key) {
+			this.invocations.incrementAndGet();
+			return Flux.just(key + "-1", key + "-2");
+		}
+
+		@Cacheable("test")
+		public Flux<String> emptyFlux(String key) {
+			this.invocations.incrementAndGet();
+			return Flux.empty();
+		}
+
+		@Cacheable(cacheNames = "test", sync = true)
+		public Mono<String> sync(String key) {
+			this.invocations.incrementAndGet();
+			return Mono.just(key);
+		}
+
+		@Cacheable("test")
+		public CompletableFuture<String> future(String key) {
+			int invocation = this.invocations.incrementAndGet();
+			return CompletableFuture.supplyAsync(() -> "future-" + key + "-" + invocation);
+		}
+
+		@Cacheable("test")
+		public Mono<String> delayed(String key) {
+			this.invocations.incrementAndGet();
+			return this.source.doOnSubscribe(subscription -> this.subscriptions.incrementAndGet());
+		}
+
+		@CacheEvict("test")
+		public Mono<Void> evict(String key) {
+			return Mono.empty();
+		}
+
+		public void setSource(Mono<String> source) {
+			this.source = source;
+		}
+
+		public int getInvocations() {
+			return this.invocations.get();
+		}
+
+		public int getSubscriptions() {
+			return this.subscriptions.get();
+		}
+	}
+
+}
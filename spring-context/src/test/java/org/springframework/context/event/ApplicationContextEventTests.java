@@ -20,13 +20,18 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -515,6 +520,99 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		context.close();
 	}
 
+	@Test
+	public void listenerRetrievalDuringConcurrentSingletonCreation() throws Exception {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.getDefaultListableBeanFactory().setConcurrentSingletonCreation(true);
+		context.refresh();
+
+		CountDownLatch inCreation = new CountDownLatch(1);
+		AtomicReference<Thread> publisher = new AtomicReference<>();
+		context.registerBean("listener", MyOrderedListener3.class, () -> {
+			inCreation.countDown();
+			// Let the publisher wait for this listener before completing its creation,
+			// which registers the listener with the multicaster
+			awaitWaiting(publisher);
+			return new MyOrderedListener3();
+		});
+		context.getBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+				ApplicationEventMulticaster.class).addApplicationListenerBean("listener");
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread creator = new Thread(() -> runCapturingFailure(() -> context.getBean("listener"), failure));
+		creator.setDaemon(true);
+		creator.start();
+		assertThat(inCreation.await(10, TimeUnit.SECONDS)).isTrue();
+
+		MyEvent event = new MyEvent(this);
+		Thread publisherThread = new Thread(() -> runCapturingFailure(() -> context.publishEvent(event), failure));
+		publisherThread.setDaemon(true);
+		publisher.set(publisherThread);
+		publisherThread.start();
+
+		creator.join(10000);
+		publisherThread.join(10000);
+		assertThat(creator.isAlive()).as("creating thread deadlocked").isFalse();
+		assertThat(publisherThread.isAlive()).as("publishing thread deadlocked").isFalse();
+		assertThat(failure.get()).isNull();
+		assertThat(context.getBean("listener", MyOrderedListener3.class).seenEvents).contains(event);
+
+		context.close();
+	}
+
+	@Test
+	public void prototypeListenerObtainedWithinSingletonMutex() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		assertThat(isListenerObtainedWithinSingletonMutex(context)).isTrue();
+	}
+
+	@Test
+	public void prototypeListenerObtainedOutsideOfSingletonMutexWithConcurrentSingletonCreation() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.getDefaultListableBeanFactory().setConcurrentSingletonCreation(true);
+		assertThat(isListenerObtainedWithinSingletonMutex(context)).isFalse();
+	}
+
+	private boolean isListenerObtainedWithinSingletonMutex(GenericApplicationContext context) {
+		Object singletonMutex = context.getDefaultListableBeanFactory().getSingletonMutex();
+		AtomicBoolean holdsMutex = new AtomicBoolean();
+		context.registerBeanDefinition("listener", new RootBeanDefinition(
+				MyOrderedListener3.class, BeanDefinition.SCOPE_PROTOTYPE, () -> {
+					holdsMutex.set(Thread.holdsLock(singletonMutex));
+					return new MyOrderedListener3();
+				}));
+		context.refresh();
+		context.publishEvent(new MyEvent(this));
+		context.close();
+		return holdsMutex.get();
+	}
+
+	private static void awaitWaiting(AtomicReference<Thread> threadReference) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (System.currentTimeMillis() < deadline) {
+			Thread thread = threadReference.get();
+			if (thread != null && thread.getState() == Thread.State.WAITING) {
+				return;
+			}
+			try {
+				Thread.sleep(10);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private static void runCapturingFailure(Runnable action, AtomicReference<Throwable> failure) {
+		try {
+			action.run();
+		}
+		catch (Throwable ex) {
+			failure.set(ex);
+		}
+	}
+
 
 	@SuppressWarnings("serial")
 	public static class MyEvent extends ApplicationEvent {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the creation and resolution of {@link ResolvableType}
+ * instances from classes and method parameters.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public Object forClass(BenchmarkState state) {
+		return ResolvableType.forClass(state.type);
+	}
+
+	@Benchmark
+	public Object forClassAsGenericInterface(BenchmarkState state) {
+		return ResolvableType.forClass(state.type).as(Repository.class).resolveGeneric(0);
+	}
+
+	@Benchmark
+	public Object forClassWithImplementation(BenchmarkState state) {
+		return ResolvableType.forClass(Repository.class, state.type).resolveGeneric(1);
+	}
+
+	@Benchmark
+	public Object forMethodParameter(BenchmarkState state) {
+		return ResolvableType.forMethodParameter(state.parameter).resolve();
+	}
+
+	@Benchmark
+	public Object forMethodParameterNestedGeneric(BenchmarkState state) {
+		return ResolvableType.forMethodParameter(state.parameter).getGeneric(1, 0).resolve();
+	}
+
+	@Benchmark
+	public Object forMethodReturnType(BenchmarkState state) {
+		return ResolvableType.forMethodReturnType(state.method, state.type).resolveGeneric(0);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Class<?> type;
+
+		public Method method;
+
+		public MethodParameter parameter;
+
+		@Setup
+		public void setup() throws NoSuchMethodException {
+			this.type = PersonRepository.class;
+			this.method = PersonRepository.class.getMethod("findAll", Map.class);
+			this.parameter = new MethodParameter(this.method, 0);
+		}
+	}
+
+
+	interface Repository<T, ID> {
+
+		List<T> findAll(Map<ID, List<String>> criteria);
+	}
+
+
+	static class Person {
+	}
+
+
+	static class PersonRepository implements Repository<Person, Long> {
+
+		@Override
+		public List<Person> findAll(Map<Long, List<String>> criteria) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for {@link AnnotationUtils}, {@link AnnotatedElementUtils} and
+ * {@link MergedAnnotations} lookups of direct, meta-present and inherited
+ * annotations on classes and methods, including lookups of absent annotations.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MergedAnnotationsBenchmark {
+
+	@Benchmark
+	public Object findAnnotationOnClass(BenchmarkState state) {
+		return AnnotationUtils.findAnnotation(state.type, Component.class);
+	}
+
+	@Benchmark
+	public Object findMergedAnnotationOnClass(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.type, Component.class);
+	}
+
+	@Benchmark
+	public Object findMergedAnnotationOnInheritedMethod(BenchmarkState state) {
+		return AnnotatedElementUtils.findMergedAnnotation(state.method, Mapping.class);
+	}
+
+	@Benchmark
+	public boolean hasAnnotationMissing(BenchmarkState state) {
+		return AnnotatedElementUtils.hasAnnotation(state.type, Missing.class);
+	}
+
+	@Benchmark
+	public boolean mergedAnnotationsDirect(BenchmarkState state) {
+		return MergedAnnotations.from(state.type).isDirectlyPresent(Controller.class);
+	}
+
+	@Benchmark
+	public Object mergedAnnotationsMetaAttribute(BenchmarkState state) {
+		return MergedAnnotations.from(state.type, SearchStrategy.TYPE_HIERARCHY)
+				.get(Component.class).getValue("value").orElse(null);
+	}
+
+	@Benchmark
+	public boolean mergedAnnotationsMissing(BenchmarkState state) {
+		return MergedAnnotations.from(state.method, SearchStrategy.TYPE_HIERARCHY).isPresent(Missing.class);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Class<?> type;
+
+		public Method method;
+
+		@Setup
+		public void setup() throws NoSuchMethodException {
+			this.type = AnnotatedController.class;
+			this.method = AnnotatedController.class.getMethod("handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Component {
+
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Component
+	@interface Controller {
+
+		@AliasFor(annotation = Component.class)
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Mapping {
+
+		String[] path() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Mapping
+	@interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] path() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Missing {
+	}
+
+
+	interface ControllerApi {
+
+		@GetMapping(path = "/handle")
+		void handle();
+	}
+
+
+	@Controller("annotatedController")
+	static class AnnotatedController implements ControllerApi {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
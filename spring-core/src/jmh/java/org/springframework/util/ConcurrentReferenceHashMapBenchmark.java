@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks comparing {@link ConcurrentReferenceHashMap} with a plain
+ * {@link ConcurrentHashMap} for concurrent reads and cache-style
+ * {@code computeIfAbsent} access, as used by the framework's metadata caches.
+ *
+ * <p>Typically run with {@code ./gradlew :spring-core:jmh -PjmhInclude=ConcurrentReferenceHashMapBenchmark}.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentReferenceHashMapBenchmark {
+
+	@Benchmark
+	public void concurrentReferenceHashMapGet(BenchmarkState state, Blackhole bh) {
+		for (String key : state.keys) {
+			bh.consume(state.referenceMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void concurrentHashMapGet(BenchmarkState state, Blackhole bh) {
+		for (String key : state.keys) {
+			bh.consume(state.concurrentMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void concurrentReferenceHashMapComputeIfAbsent(BenchmarkState state, Blackhole bh) {
+		for (String key : state.keys) {
+			bh.consume(state.referenceMap.computeIfAbsent(key, String::toUpperCase));
+		}
+	}
+
+	@Benchmark
+	public void concurrentHashMapComputeIfAbsent(BenchmarkState state, Blackhole bh) {
+		for (String key : state.keys) {
+			bh.consume(state.concurrentMap.computeIfAbsent(key, String::toUpperCase));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"64", "4096"})
+		public int capacity;
+
+		public List<String> keys;
+
+		public Map<String, String> referenceMap;
+
+		public Map<String, String> concurrentMap;
+
+		@Setup
+		public void setup() {
+			Random random = new Random(42);
+			this.keys = new ArrayList<>(this.capacity);
+			this.referenceMap = new ConcurrentReferenceHashMap<>();
+			this.concurrentMap = new ConcurrentHashMap<>();
+			for (int i = 0; i < this.capacity; i++) {
+				String key = "key" + random.nextInt();
+				this.keys.add(key);
+				this.referenceMap.put(key, key.toUpperCase());
+				this.concurrentMap.put(key, key.toUpperCase());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link StringUtils#replace} and
+ * {@link StringUtils#tokenizeToStringArray}, with and without matches.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StringUtilsBenchmark {
+
+	@Benchmark
+	public String replace(BenchmarkState state) {
+		return StringUtils.replace(state.text, "${name}", "value");
+	}
+
+	@Benchmark
+	public String replaceNoMatch(BenchmarkState state) {
+		return StringUtils.replace(state.text, "${missing}", "value");
+	}
+
+	@Benchmark
+	public String[] tokenizePath(BenchmarkState state) {
+		return StringUtils.tokenizeToStringArray(state.path, "/");
+	}
+
+	@Benchmark
+	public String[] tokenizeList(BenchmarkState state) {
+		return StringUtils.tokenizeToStringArray(state.list, ",; \t\n");
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		/**
+		 * Number of repetitions of the sample content in each input.
+		 */
+		@Param({"1", "20"})
+		public int size;
+
+		public String text;
+
+		public String path;
+
+		public String list;
+
+		@Setup
+		public void setup() {
+			StringBuilder text = new StringBuilder();
+			StringBuilder path = new StringBuilder();
+			StringBuilder list = new StringBuilder();
+			for (int i = 0; i < this.size; i++) {
+				text.append("The ${name} property is set to ${name} in section ").append(i).append(". ");
+				path.append("/segment").append(i).append("/resources");
+				list.append("classpath:config").append(i).append(".xml, ");
+			}
+			this.text = text.toString();
+			this.path = path.toString();
+			this.list = list.toString();
+		}
+	}
+
+}
@@ -16,7 +16,6 @@
 
 package org.springframework.core.codec;
 
-import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -89,19 +88,31 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 	public Flux<String> decode(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
+		return super.decode(split(input, mimeType), elementType, mimeType, hints);
+	}
+
+	/**
+	 * Split the given data buffer stream at the configured delimiters, without
+	 * decoding the resulting lines to {@code String}: e.g. to pass lines on as
+	 * bytes. Delimiters are stripped, if so configured.
+	 * <p>The returned buffers are slices of the input buffers where possible,
+	 * and must be {@linkplain DataBufferUtils#release released} by the caller.
+	 * @param input the data buffer stream to split
+	 * @param mimeType the MIME type, to encode the delimiters with its charset
+	 * @return a stream with one data buffer per line
+	 * @since 5.2
+	 */
+	public Flux<DataBuffer> split(Publisher<DataBuffer> input, @Nullable MimeType mimeType) {
 		byte[][] delimiterBytes = getDelimiterBytes(mimeType);
 
-		Flux<DataBuffer> inputFlux = Flux.defer(() -> {
+		return Flux.defer(() -> {
 			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delimiterBytes);
 			return Flux.from(input)
 					.concatMapIterable(buffer -> endFrameAfterDelimiter(buffer, matcher))
 					.bufferUntil(buffer -> buffer instanceof EndFrameBuffer)
 					.map(buffers -> joinAndStrip(buffers, this.stripDelimiter))
 					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
-
 		});
-
-		return super.decode(inputFlux, elementType, mimeType, hints);
 	}
 
 	private byte[][] getDelimiterBytes(@Nullable MimeType mimeType) {
@@ -119,9 +130,8 @@ public final class StringDecoder extends AbstractDataBufferDecoder<String> {
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Charset charset = getCharset(mimeType);
-		CharBuffer charBuffer = charset.decode(dataBuffer.asByteBuffer());
+		String value = dataBuffer.toString(charset);
 		DataBufferUtils.release(dataBuffer);
-		String value = charBuffer.toString();
 		LogFormatUtils.traceDebug(logger, traceOn -> {
 			String formatted = LogFormatUtils.formatValue(value, !traceOn);
 			return Hints.getLogPrefix(hints) + "Decoded " + formatted;
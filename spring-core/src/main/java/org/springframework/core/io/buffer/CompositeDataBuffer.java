@@ -0,0 +1,660 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that presents the readable bytes of several component
+ * buffers as one logical buffer, without copying them. Returned from
+ * {@link DefaultDataBufferFactory#compose(List)}, as the counterpart of the
+ * {@code CompositeByteBuf} that {@link NettyDataBufferFactory} joins into.
+ *
+ * <p>The composite takes over ownership of its components: they are
+ * {@linkplain DataBufferUtils#release released} once the composite, and all
+ * of its retained slices, have been released. Expanding the capacity adds a
+ * further component from the factory.
+ *
+ * <p>Note that {@link #asByteBuffer(int, int)} can only share data for a range
+ * within a single component; a range that spans components is returned as a
+ * copy. {@link #asByteBuffers()} exposes the readable bytes as a sequence of
+ * shared byte buffers instead, e.g. for gathering writes.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see DefaultDataBufferFactory#compose(List)
+ */
+public class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final int CAPACITY_THRESHOLD = 1024 * 1024 * 4;
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	/** The buffers to release, for the composite itself; {@code null} for slices */
+	@Nullable
+	private final List<DataBuffer> components;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	/** The composite that a slice shares its components and reference count with */
+	@Nullable
+	private final CompositeDataBuffer parent;
+
+	private ByteBuffer[] views;
+
+	private int[] offsets;
+
+	private int viewCount;
+
+	private int lastViewIndex;
+
+	private int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+
+	/**
+	 * Create a composite over the readable bytes of the given buffers.
+	 * @param dataBufferFactory the factory to expand the composite with
+	 * @param dataBuffers the component buffers to take ownership of
+	 */
+	CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notNull(dataBuffers, "DataBuffer List must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.components = new ArrayList<>(dataBuffers);
+		this.parent = null;
+		this.views = new ByteBuffer[Math.max(dataBuffers.size(), 4)];
+		this.offsets = new int[this.views.length];
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer instanceof CompositeDataBuffer) {
+				for (ByteBuffer view : ((CompositeDataBuffer) dataBuffer).asByteBuffers()) {
+					addView(view);
+				}
+			}
+			else {
+				addView(dataBuffer.asByteBuffer());
+			}
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private CompositeDataBuffer(CompositeDataBuffer parent, ByteBuffer[] views) {
+		this.dataBufferFactory = parent.dataBufferFactory;
+		this.components = null;
+		this.parent = (parent.parent != null ? parent.parent : parent);
+		this.views = new ByteBuffer[Math.max(views.length, 1)];
+		this.offsets = new int[this.views.length];
+		for (ByteBuffer view : views) {
+			addView(view);
+		}
+		this.writePosition = this.capacity;
+	}
+
+	private void addView(ByteBuffer view) {
+		if (this.viewCount == this.views.length) {
+			this.views = Arrays.copyOf(this.views, this.viewCount * 2);
+			this.offsets = Arrays.copyOf(this.offsets, this.viewCount * 2);
+		}
+		this.views[this.viewCount] = view;
+		this.offsets[this.viewCount] = this.capacity;
+		this.viewCount++;
+		this.capacity += view.remaining();
+	}
+
+
+	/**
+	 * Return the number of component byte buffers that this composite consists of.
+	 */
+	public int getComponentCount() {
+		return this.viewCount;
+	}
+
+	/**
+	 * Expose the readable bytes of this buffer as a sequence of {@link ByteBuffer
+	 * ByteBuffers}, one per component, without copying. Data between this
+	 * {@code DataBuffer} and the returned byte buffers is shared; though changes in
+	 * their positions will not be reflected in the reading nor writing position of
+	 * this data buffer.
+	 * @return the readable bytes of this data buffer as byte buffers
+	 */
+	public ByteBuffer[] asByteBuffers() {
+		int length = readableByteCount();
+		if (length == 0) {
+			return new ByteBuffer[0];
+		}
+		int first = viewIndex(this.readPosition);
+		int last = viewIndex(this.writePosition - 1);
+		ByteBuffer[] result = new ByteBuffer[last - first + 1];
+		for (int i = first; i <= last; i++) {
+			int start = Math.max(this.readPosition - this.offsets[i], 0);
+			int end = Math.min(this.writePosition - this.offsets[i], this.views[i].remaining());
+			result[i - first] = view(i, start, end - start);
+		}
+		return result;
+	}
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int i = viewIndex(fromIndex); i < this.viewCount; i++) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			int end = Math.min(view.remaining(), this.writePosition - offset);
+			for (int j = Math.max(fromIndex - offset, 0); j < end; j++) {
+				if (predicate.test(view.get(j))) {
+					return offset + j;
+				}
+			}
+			if (offset + end >= this.writePosition) {
+				break;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int i = viewIndex(index); i >= 0; i--) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			for (int j = Math.min(index - offset, view.remaining() - 1); j >= 0; j--) {
+				if (predicate.test(view.get(j))) {
+					return offset + j;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return this.capacity - this.writePosition;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public int capacity() {
+		return this.capacity;
+	}
+
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		if (newCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		}
+		if (this.components == null) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+		if (newCapacity > this.capacity) {
+			int length = newCapacity - this.capacity;
+			DataBuffer component = this.dataBufferFactory.allocateBuffer(length);
+			this.components.add(component);
+			addView(component.asByteBuffer(0, length));
+		}
+		else if (newCapacity < this.capacity) {
+			int last = viewIndex(newCapacity - 1);
+			this.views[last] = view(last, 0, newCapacity - this.offsets[last]);
+			Arrays.fill(this.views, last + 1, this.viewCount, null);
+			this.viewCount = last + 1;
+			this.lastViewIndex = 0;
+			this.capacity = newCapacity;
+			if (this.readPosition > newCapacity) {
+				this.readPosition = newCapacity;
+			}
+			if (this.writePosition > newCapacity) {
+				this.writePosition = newCapacity;
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer ensureCapacity(int length) {
+		int missing = length - writableByteCount();
+		if (missing > 0) {
+			capacity(this.capacity + Math.max(missing, Math.min(this.capacity, CAPACITY_THRESHOLD)));
+		}
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = viewIndex(index);
+		return this.views[i].get(index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		int i = viewIndex(this.readPosition);
+		byte b = this.views[i].get(this.readPosition - this.offsets[i]);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		getBytes(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int i = viewIndex(this.writePosition);
+		this.views[i].put(this.writePosition - this.offsets[i], b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "Byte array must not be null");
+		ensureCapacity(length);
+		write(ByteBuffer.wrap(source, offset, length));
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			List<ByteBuffer> byteBuffers = new ArrayList<>(buffers.length);
+			for (DataBuffer buffer : buffers) {
+				if (buffer instanceof CompositeDataBuffer) {
+					Collections.addAll(byteBuffers, ((CompositeDataBuffer) buffer).asByteBuffers());
+				}
+				else {
+					byteBuffers.add(buffer.asByteBuffer());
+				}
+			}
+			write(byteBuffers.toArray(new ByteBuffer[0]));
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			int capacity = Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum();
+			ensureCapacity(capacity);
+			Arrays.stream(buffers).forEach(this::write);
+		}
+		return this;
+	}
+
+	private void write(ByteBuffer source) {
+		int length = source.remaining();
+		int index = this.writePosition;
+		for (int i = viewIndex(index); source.hasRemaining(); i++) {
+			int start = index - this.offsets[i];
+			int count = Math.min(source.remaining(), this.views[i].remaining() - start);
+			ByteBuffer chunk = source.duplicate();
+			((Buffer) chunk).limit(chunk.position() + count);
+			view(i, start, count).put(chunk);
+			((Buffer) source).position(source.position() + count);
+			index += count;
+		}
+		this.writePosition += length;
+	}
+
+	@Override
+	public CompositeDataBuffer write(CharSequence charSequence, Charset charset) {
+		Assert.notNull(charSequence, "CharSequence must not be null");
+		Assert.notNull(charset, "Charset must not be null");
+		if (charSequence.length() != 0) {
+			// Encode upfront: the writable range may span components
+			ByteBuffer encoded = charset.encode(CharBuffer.wrap(charSequence));
+			ensureCapacity(encoded.remaining());
+			write(encoded);
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return new CompositeDataBuffer(this, new ByteBuffer[0]);
+		}
+		int first = viewIndex(index);
+		int last = viewIndex(index + length - 1);
+		ByteBuffer[] views = new ByteBuffer[last - first + 1];
+		for (int i = first; i <= last; i++) {
+			int start = Math.max(index - this.offsets[i], 0);
+			int end = Math.min(index + length - this.offsets[i], this.views[i].remaining());
+			views[i - first] = view(i, start, end - start);
+		}
+		return new CompositeDataBuffer(this, views);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return ByteBuffer.allocate(0);
+		}
+		int i = viewIndex(index);
+		int start = index - this.offsets[i];
+		if (start + length <= this.views[i].remaining()) {
+			return view(i, start, length);
+		}
+		// Spans components: no way to share data...
+		byte[] bytes = new byte[length];
+		getBytes(index, bytes, 0, length);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public String toString(int index, int length, Charset charset) {
+		checkIndex(index, length);
+		Assert.notNull(charset, "Charset must not be null");
+		if (length == 0) {
+			return "";
+		}
+		int i = viewIndex(index);
+		int start = index - this.offsets[i];
+		ByteBuffer view = this.views[i];
+		if (view.hasArray() && start + length <= view.remaining()) {
+			return new String(view.array(), view.arrayOffset() + view.position() + start, length, charset);
+		}
+		byte[] bytes = new byte[length];
+		getBytes(index, bytes, 0, length);
+		return new String(bytes, charset);
+	}
+
+
+	@Override
+	public boolean isAllocated() {
+		if (this.parent != null) {
+			return this.parent.isAllocated();
+		}
+		return this.refCount.get() > 0;
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		if (this.parent != null) {
+			this.parent.retain();
+		}
+		else {
+			this.refCount.incrementAndGet();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		if (this.parent != null) {
+			return this.parent.release();
+		}
+		int refCount = this.refCount.decrementAndGet();
+		Assert.state(refCount >= 0, "Buffer has already been released");
+		if (refCount == 0 && this.components != null) {
+			this.components.forEach(DataBufferUtils::release);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public PooledDataBuffer touch(Object hint) {
+		if (this.parent != null) {
+			this.parent.touch(hint);
+		}
+		else if (this.components != null) {
+			this.components.forEach(component -> DataBufferUtils.touch(component, hint));
+		}
+		return this;
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				this.readPosition, this.writePosition, this.capacity, this.viewCount);
+	}
+
+
+	/**
+	 * Return the index of the view that contains the given index.
+	 */
+	private int viewIndex(int index) {
+		int last = this.lastViewIndex;
+		if (last < this.viewCount && index >= this.offsets[last] &&
+				index - this.offsets[last] < this.views[last].remaining()) {
+			return last;
+		}
+		int low = 0;
+		int high = this.viewCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		this.lastViewIndex = low;
+		return low;
+	}
+
+	/**
+	 * Return a shared byte buffer for the given range of a view.
+	 */
+	private ByteBuffer view(int viewIndex, int start, int length) {
+		ByteBuffer duplicate = this.views[viewIndex].duplicate();
+		Buffer buffer = duplicate;
+		buffer.position(buffer.position() + start);
+		buffer.limit(buffer.position() + length);
+		return duplicate.slice();
+	}
+
+	private void getBytes(int index, byte[] destination, int offset, int length) {
+		for (int i = viewIndex(index); length > 0; i++) {
+			int start = index - this.offsets[i];
+			int count = Math.min(length, this.views[i].remaining() - start);
+			view(i, start, count).get(destination, offset, count);
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index <= this.capacity - length, "index %d and length %d must be <= %d",
+				index, length, this.capacity);
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		public CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return (available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(CompositeDataBuffer.this);
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) throws IOException {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
@@ -20,11 +20,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
@@ -32,9 +37,12 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -50,6 +58,8 @@ import reactor.core.publisher.SynchronousSink;
 import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Utility class for working with {@link DataBuffer DataBuffers}.
@@ -229,6 +239,101 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Map the given file {@code Path} into memory, and expose its content as
+	 * a {@code Flux} of read-only {@code DataBuffer}s, starting at the given
+	 * position. In contrast to {@link #read(Path, DataBufferFactory, int, OpenOption...)},
+	 * the content is not copied into allocated buffers: each emitted buffer is
+	 * a {@linkplain DataBufferFactory#wrap(ByteBuffer) wrapped} slice of a
+	 * {@link java.nio.MappedByteBuffer}.
+	 * <p>The emitted buffers are {@link PooledDataBuffer PooledDataBuffers}
+	 * that need to be {@linkplain #release(DataBuffer) released}. A mapped file
+	 * region is unmapped once it is garbage collected, i.e. once neither the
+	 * returned buffers nor any of their slices or {@link DataBuffer#asByteBuffer()
+	 * ByteBuffer views} are referenced anymore.
+	 * <p>This is mainly intended for large files; small files are usually
+	 * better read via {@link #read(Path, DataBufferFactory, int, OpenOption...)}.
+	 * @param path the path to map into memory
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to wrap the mapped content with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers sliced from the mapped file
+	 * @since 5.2
+	 * @see #readMapped(Path, long, DataBufferFactory, int, boolean)
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, DataBufferFactory bufferFactory, int bufferSize) {
+
+		return readMapped(path, position, bufferFactory, bufferSize, false);
+	}
+
+	/**
+	 * Variant of {@link #readMapped(Path, long, DataBufferFactory, int)} with
+	 * the option to unmap file regions explicitly rather than through garbage
+	 * collection.
+	 * <p>With explicit unmapping, a mapped file region is unmapped once the
+	 * returned {@code Flux} is done with it and all of the buffers sliced from
+	 * it have been released. {@link DataBuffer#slice Slices} share the reference
+	 * count of their buffer, while {@link DataBuffer#retainedSlice retained
+	 * slices} hold a reference of their own. As a consequence, neither buffers
+	 * nor their slices or {@link DataBuffer#asByteBuffer() ByteBuffer views} may
+	 * be accessed after they have been released: the memory of an unmapped
+	 * region is no longer accessible, and access results in a JVM crash rather
+	 * than an exception. Explicit unmapping is therefore only to be switched on
+	 * for consumers known to release buffers after their last access.
+	 * @param path the path to map into memory
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to wrap the mapped content with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @param unmapOnRelease whether to unmap file regions as soon as all of
+	 * their buffers have been released, rather than on garbage collection
+	 * @return a Flux of data buffers sliced from the mapped file
+	 * @since 5.2
+	 */
+	public static Flux<DataBuffer> readMapped(Path path, long position, DataBufferFactory bufferFactory,
+			int bufferSize, boolean unmapOnRelease) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(bufferSize > 0, "'bufferSize' must be > 0");
+
+		return Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+				channel -> Flux.generate(
+						() -> new MappedFileGenerator(channel, position, bufferFactory, bufferSize, unmapOnRelease),
+						MappedFileGenerator::generate,
+						MappedFileGenerator::dispose),
+				DataBufferUtils::closeChannel);
+	}
+
+	/**
+	 * Map the given {@code Resource} into memory if it is a file, and expose
+	 * its content as a {@code Flux} of read-only {@code DataBuffer}s starting
+	 * at the given position, as described in
+	 * {@link #readMapped(Path, long, DataBufferFactory, int)}.
+	 * <p>If the resource is not a file, this method falls back on
+	 * {@link #read(Resource, long, DataBufferFactory, int)}.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given resource
+	 * @since 5.2
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Resource resource, long position, DataBufferFactory bufferFactory, int bufferSize) {
+
+		try {
+			if (resource.isFile()) {
+				return readMapped(resource.getFile().toPath(), position, bufferFactory, bufferSize);
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to read(Resource...), below
+		}
+		return read(resource, position, bufferFactory, bufferSize);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -500,6 +605,25 @@ public abstract class DataBufferUtils {
 		return false;
 	}
 
+	/**
+	 * Associate the given hint with the data buffer, if it is a
+	 * {@link PooledDataBuffer}, for leak tracking purposes.
+	 * @param dataBuffer the data buffer to touch
+	 * @param hint the hint to record, e.g. the component handling the buffer
+	 * @return the same data buffer
+	 * @since 5.2
+	 * @see PooledDataBuffer#touch(Object)
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends DataBuffer> T touch(T dataBuffer, Object hint) {
+		if (dataBuffer instanceof PooledDataBuffer) {
+			return (T) ((PooledDataBuffer) dataBuffer).touch(hint);
+		}
+		else {
+			return dataBuffer;
+		}
+	}
+
 	/**
 	 * Return a consumer that calls {@link #release(DataBuffer)} on all
 	 * passed data buffers.
@@ -519,6 +643,10 @@ public abstract class DataBufferUtils {
 	 * {@linkplain #release(DataBuffer) released}.
 	 * <p>Note that the given data buffers do <strong>not</strong> have to be
 	 * released. They will be released as part of the returned composite.
+	 * <p>Buffers from a {@link DefaultDataBufferFactory} are
+	 * {@linkplain DefaultDataBufferFactory#compose(List) composed} without
+	 * copying, as of 5.2: {@link DataBuffer#asByteBuffer()} on the returned
+	 * buffer returns a copy if the data spans several of the given buffers.
 	 * @param dataBuffers the data buffers that are to be composed
 	 * @return a buffer that is composed from the {@code dataBuffers} argument
 	 * @since 5.0.3
@@ -534,10 +662,16 @@ public abstract class DataBufferUtils {
 		return Flux.from(dataBuffers)
 				.collectList()
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(list -> touch(join(list), "DataBufferUtils.join"))
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	private static DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		DataBufferFactory bufferFactory = dataBuffers.get(0).factory();
+		return (bufferFactory instanceof DefaultDataBufferFactory ?
+				((DefaultDataBufferFactory) bufferFactory).compose(dataBuffers) : bufferFactory.join(dataBuffers));
+	}
+
 	/**
 	 * Return a {@link Matcher} for the given delimiter.
 	 * The matcher can be used to find the delimiters in data buffers.
@@ -562,9 +696,10 @@ public abstract class DataBufferUtils {
 			return matcher(delimiters[0]);
 		}
 		else {
-			Matcher[] matchers = new Matcher[delimiters.length];
+			KnuthMorrisPrattMatcher[] matchers = new KnuthMorrisPrattMatcher[delimiters.length];
 			for (int i = 0; i < delimiters.length; i++) {
-				matchers[i] = matcher(delimiters[i]);
+				Assert.isTrue(delimiters[i].length > 0, "Delimiter must not be empty");
+				matchers[i] = new KnuthMorrisPrattMatcher(delimiters[i]);
 			}
 			return new CompositeMatcher(matchers);
 		}
@@ -733,6 +868,214 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileGenerator {
+
+		private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+		private final FileChannel channel;
+
+		private final DataBufferFactory dataBufferFactory;
+
+		private final int bufferSize;
+
+		private final boolean unmapOnRelease;
+
+		private long position;
+
+		@Nullable
+		private MappedRegion region;
+
+		public MappedFileGenerator(FileChannel channel, long position,
+				DataBufferFactory dataBufferFactory, int bufferSize, boolean unmapOnRelease) {
+
+			this.channel = channel;
+			this.position = position;
+			this.dataBufferFactory = dataBufferFactory;
+			this.bufferSize = bufferSize;
+			this.unmapOnRelease = unmapOnRelease;
+		}
+
+		public MappedFileGenerator generate(SynchronousSink<DataBuffer> sink) {
+			try {
+				MappedRegion region = this.region;
+				if (region == null || !region.hasRemaining()) {
+					dispose();
+					long remaining = this.channel.size() - this.position;
+					if (remaining <= 0) {
+						sink.complete();
+						return this;
+					}
+					MappedByteBuffer mappedBuffer = this.channel.map(
+							FileChannel.MapMode.READ_ONLY, this.position, Math.min(remaining, MAX_REGION_SIZE));
+					region = new MappedRegion(mappedBuffer, this.unmapOnRelease);
+					this.region = region;
+				}
+				ByteBuffer slice = region.slice(this.bufferSize);
+				this.position += slice.remaining();
+				sink.next(new MappedDataBuffer(this.dataBufferFactory.wrap(slice), region));
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+			return this;
+		}
+
+		public void dispose() {
+			MappedRegion region = this.region;
+			if (region != null) {
+				this.region = null;
+				region.release();
+			}
+		}
+	}
+
+
+	/**
+	 * A mapped file region, unmapped once the generator and all buffers
+	 * sliced from it have released their reference, if explicit unmapping
+	 * is switched on, or else on garbage collection.
+	 */
+	private static class MappedRegion {
+
+		@Nullable
+		private static final Consumer<ByteBuffer> UNMAPPER = initUnmapper();
+
+		private final MappedByteBuffer mappedBuffer;
+
+		private final ByteBuffer remaining;
+
+		private final boolean unmapOnRelease;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		public MappedRegion(MappedByteBuffer mappedBuffer, boolean unmapOnRelease) {
+			this.mappedBuffer = mappedBuffer;
+			this.remaining = mappedBuffer.asReadOnlyBuffer();
+			this.unmapOnRelease = unmapOnRelease;
+		}
+
+		public boolean hasRemaining() {
+			return this.remaining.hasRemaining();
+		}
+
+		public ByteBuffer slice(int maxSize) {
+			ByteBuffer slice = this.remaining.slice();
+			slice.limit(Math.min(maxSize, slice.remaining()));
+			this.remaining.position(this.remaining.position() + slice.remaining());
+			retain();
+			return slice;
+		}
+
+		public void retain() {
+			this.refCount.incrementAndGet();
+		}
+
+		public void release() {
+			if (this.refCount.decrementAndGet() == 0 && this.unmapOnRelease && UNMAPPER != null) {
+				try {
+					UNMAPPER.accept(this.mappedBuffer);
+				}
+				catch (Throwable ex) {
+					// ignore - leave it up to garbage collection
+				}
+			}
+		}
+
+		@Nullable
+		private static Consumer<ByteBuffer> initUnmapper() {
+			try {
+				// JDK 9+
+				Class<?> unsafeClass = ClassUtils.forName("sun.misc.Unsafe", null);
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				ReflectionUtils.makeAccessible(theUnsafe);
+				Object unsafe = theUnsafe.get(null);
+				return buffer -> ReflectionUtils.invokeMethod(invokeCleaner, unsafe, buffer);
+			}
+			catch (Throwable ex) {
+				// fall through
+			}
+			try {
+				// JDK 8
+				Method cleaner = ClassUtils.forName("sun.nio.ch.DirectBuffer", null).getMethod("cleaner");
+				Method clean = ClassUtils.forName("sun.misc.Cleaner", null).getMethod("clean");
+				return buffer -> {
+					Object bufferCleaner = ReflectionUtils.invokeMethod(cleaner, buffer);
+					if (bufferCleaner != null) {
+						ReflectionUtils.invokeMethod(clean, bufferCleaner);
+					}
+				};
+			}
+			catch (Throwable ex) {
+				return null;
+			}
+		}
+	}
+
+
+	/**
+	 * Read-only buffer over a slice of a {@link MappedRegion}. Slices share
+	 * the reference count of their buffer, as with Netty's derived buffers.
+	 */
+	private static class MappedDataBuffer extends DataBufferWrapper implements PooledDataBuffer {
+
+		private final MappedRegion region;
+
+		/** The buffer to release along with the region: this buffer's delegate, or the parent's. */
+		private final DataBuffer wrappedBuffer;
+
+		private final AtomicInteger refCount;
+
+		public MappedDataBuffer(DataBuffer delegate, MappedRegion region) {
+			super(delegate);
+			this.region = region;
+			this.wrappedBuffer = delegate;
+			this.refCount = new AtomicInteger(1);
+		}
+
+		private MappedDataBuffer(DataBuffer delegate, MappedDataBuffer parent) {
+			super(delegate);
+			this.region = parent.region;
+			this.wrappedBuffer = parent.wrappedBuffer;
+			this.refCount = parent.refCount;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.refCount.get() > 0;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.refCount.incrementAndGet();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount = this.refCount.decrementAndGet();
+			Assert.state(refCount >= 0, "Buffer has already been released");
+			if (refCount == 0) {
+				DataBufferUtils.release(this.wrappedBuffer);
+				this.region.release();
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public DataBuffer slice(int index, int length) {
+			return new MappedDataBuffer(dataBuffer().slice(index, length), this);
+		}
+
+		@Override
+		public DataBuffer retainedSlice(int index, int length) {
+			this.region.retain();
+			return new MappedDataBuffer(dataBuffer().retainedSlice(index, length), this.region);
+		}
+	}
+
+
 	private static class WritableByteChannelSubscriber extends BaseSubscriber<DataBuffer> {
 
 		private final FluxSink<DataBuffer> sink;
@@ -752,9 +1095,14 @@ public abstract class DataBufferUtils {
 		@Override
 		protected void hookOnNext(DataBuffer dataBuffer) {
 			try {
-				ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
-				while (byteBuffer.hasRemaining()) {
-					this.channel.write(byteBuffer);
+				if (dataBuffer instanceof CompositeDataBuffer) {
+					// Write the components one by one, rather than a copy of them
+					for (ByteBuffer byteBuffer : ((CompositeDataBuffer) dataBuffer).asByteBuffers()) {
+						write(byteBuffer);
+					}
+				}
+				else {
+					write(dataBuffer.asByteBuffer());
 				}
 				this.sink.next(dataBuffer);
 				request(1);
@@ -765,6 +1113,12 @@ public abstract class DataBufferUtils {
 			}
 		}
 
+		private void write(ByteBuffer byteBuffer) throws IOException {
+			while (byteBuffer.hasRemaining()) {
+				this.channel.write(byteBuffer);
+			}
+		}
+
 		@Override
 		protected void hookOnError(Throwable throwable) {
 			this.sink.error(throwable);
@@ -868,11 +1222,110 @@ public abstract class DataBufferUtils {
 	}
 
 
+	/**
+	 * Base class for {@link Matcher} implementations that process one byte at a
+	 * time, but skip ahead to the next candidate start byte while not within a
+	 * partial match. The skipping scans 8 bytes at a time ("SWAR": SIMD within a
+	 * register) over {@link ByteBuffer} windows of the data buffer.
+	 */
+	private abstract static class AbstractScanningMatcher implements Matcher {
+
+		private static final int WINDOW_SIZE = 8192;
+
+		private static final long ONES = 0x0101010101010101L;
+
+		private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+		private final byte[] startBytes;
+
+		private final long[] startPatterns;
+
+		protected AbstractScanningMatcher(byte[] startBytes) {
+			this.startBytes = startBytes;
+			this.startPatterns = new long[startBytes.length];
+			for (int i = 0; i < startBytes.length; i++) {
+				this.startPatterns[i] = (startBytes[i] & 0xFFL) * ONES;
+			}
+		}
+
+		@Override
+		public int match(DataBuffer dataBuffer) {
+			int index = dataBuffer.readPosition();
+			int end = dataBuffer.writePosition();
+			while (index < end) {
+				// Windows keep the cost of a copy, for a buffer that cannot share its data, bounded
+				int length = Math.min(end - index, WINDOW_SIZE);
+				ByteBuffer window = dataBuffer.asByteBuffer(index, length).order(ByteOrder.LITTLE_ENDIAN);
+				int i = 0;
+				while (i < length) {
+					if (!isPartialMatch()) {
+						i = indexOfStartByte(window, i, length);
+						if (i == -1) {
+							break;
+						}
+					}
+					if (matchByte(window.get(i))) {
+						reset();
+						return index + i;
+					}
+					i++;
+				}
+				index += length;
+			}
+			return -1;
+		}
+
+		private int indexOfStartByte(ByteBuffer window, int from, int to) {
+			int i = from;
+			for (; i <= to - 8; i += 8) {
+				long word = window.getLong(i);
+				long found = 0;
+				for (long pattern : this.startPatterns) {
+					found |= zeroBytes(word ^ pattern);
+				}
+				if (found != 0) {
+					return i + (Long.numberOfTrailingZeros(found) >>> 3);
+				}
+			}
+			for (; i < to; i++) {
+				byte b = window.get(i);
+				for (byte startByte : this.startBytes) {
+					if (b == startByte) {
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Set the high bit of every byte in the given word that is zero, and no others.
+		 */
+		private static long zeroBytes(long word) {
+			long tmp = (word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS;
+			return ~(tmp | word | LOW_SEVEN_BITS);
+		}
+
+		/**
+		 * Whether the bytes processed so far end with the start of a delimiter,
+		 * i.e. whether the next byte needs to be processed even if it is not a
+		 * start byte.
+		 */
+		protected abstract boolean isPartialMatch();
+
+		/**
+		 * Process the next byte.
+		 * @return {@code true} if the byte completes a delimiter
+		 */
+		protected abstract boolean matchByte(byte b);
+	}
+
+
 	/**
 	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
 	 * @see <a href="https://www.nayuki.io/page/knuth-morris-pratt-string-matching">Knuth-Morris-Pratt string matching</a>
 	 */
-	private static class KnuthMorrisPrattMatcher implements Matcher {
+	private static class KnuthMorrisPrattMatcher extends AbstractScanningMatcher {
 
 		private final byte[] delimiter;
 
@@ -881,6 +1334,7 @@ public abstract class DataBufferUtils {
 		private int matches = 0;
 
 		public KnuthMorrisPrattMatcher(byte[] delimiter) {
+			super(new byte[] {delimiter[0]});
 			this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
 			this.table = longestSuffixPrefixTable(delimiter);
 		}
@@ -902,23 +1356,20 @@ public abstract class DataBufferUtils {
 		}
 
 		@Override
-		public int match(DataBuffer dataBuffer) {
-			for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-				byte b = dataBuffer.getByte(i);
-
-				while (this.matches > 0 && b != this.delimiter[this.matches]) {
-					this.matches = this.table[this.matches - 1];
-				}
+		protected boolean isPartialMatch() {
+			return (this.matches > 0);
+		}
 
-				if (b == this.delimiter[this.matches]) {
-					this.matches++;
-					if (this.matches == this.delimiter.length) {
-						reset();
-						return i;
-					}
-				}
+		@Override
+		protected boolean matchByte(byte b) {
+			while (this.matches > 0 && b != this.delimiter[this.matches]) {
+				this.matches = this.table[this.matches - 1];
 			}
-			return -1;
+			if (b == this.delimiter[this.matches]) {
+				this.matches++;
+				return (this.matches == this.delimiter.length);
+			}
+			return false;
 		}
 
 		@Override
@@ -934,54 +1385,73 @@ public abstract class DataBufferUtils {
 
 
 	/**
-	 * Implementation of {@link Matcher} that wraps several other matchers.
+	 * Implementation of {@link Matcher} that matches several delimiters in a
+	 * single pass. The first delimiter to complete wins, and the longest one if
+	 * several complete at the same byte (e.g. {@code \r\n} over {@code \n}).
 	 */
-	private static class CompositeMatcher implements Matcher {
+	private static class CompositeMatcher extends AbstractScanningMatcher {
 
 		private static final byte[] NO_DELIMITER = new byte[0];
 
-		private final Matcher[] matchers;
+		private final KnuthMorrisPrattMatcher[] matchers;
 
-		byte[] longestDelimiter = NO_DELIMITER;
+		private byte[] longestDelimiter = NO_DELIMITER;
 
-		public CompositeMatcher(Matcher[] matchers) {
-			this.matchers = matchers;
+		public CompositeMatcher(KnuthMorrisPrattMatcher[] matchers) {
+			super(startBytes(matchers));
+			this.matchers = matchers.clone();
+			Arrays.sort(this.matchers, (m1, m2) -> m2.delimiter.length - m1.delimiter.length);
+		}
+
+		private static byte[] startBytes(KnuthMorrisPrattMatcher[] matchers) {
+			Set<Byte> startBytes = new LinkedHashSet<>();
+			for (KnuthMorrisPrattMatcher matcher : matchers) {
+				startBytes.add(matcher.delimiter[0]);
+			}
+			byte[] result = new byte[startBytes.size()];
+			int i = 0;
+			for (Byte startByte : startBytes) {
+				result[i++] = startByte;
+			}
+			return result;
 		}
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
 			this.longestDelimiter = NO_DELIMITER;
-			int bestEndIdx = Integer.MAX_VALUE;
-
+			return super.match(dataBuffer);
+		}
 
-			for (Matcher matcher : this.matchers) {
-				int endIdx = matcher.match(dataBuffer);
-				if (endIdx != -1 &&
-						endIdx <= bestEndIdx &&
-						matcher.delimiter().length > this.longestDelimiter.length) {
-					bestEndIdx = endIdx;
-					this.longestDelimiter = matcher.delimiter();
+		@Override
+		protected boolean isPartialMatch() {
+			for (KnuthMorrisPrattMatcher matcher : this.matchers) {
+				if (matcher.isPartialMatch()) {
+					return true;
 				}
 			}
-			if (bestEndIdx == Integer.MAX_VALUE) {
-				this.longestDelimiter = NO_DELIMITER;
-				return -1;
-			}
-			else {
-				reset();
-				return bestEndIdx;
+			return false;
+		}
+
+		@Override
+		protected boolean matchByte(byte b) {
+			for (KnuthMorrisPrattMatcher matcher : this.matchers) {
+				if (matcher.matchByte(b)) {
+					this.longestDelimiter = matcher.delimiter;
+					return true;
+				}
 			}
+			return false;
 		}
 
 		@Override
 		public byte[] delimiter() {
 			Assert.state(this.longestDelimiter != NO_DELIMITER, "Illegal state!");
-			return this.longestDelimiter;
+			return Arrays.copyOf(this.longestDelimiter, this.longestDelimiter.length);
 		}
 
 		@Override
 		public void reset() {
-			for (Matcher matcher : this.matchers) {
+			for (KnuthMorrisPrattMatcher matcher : this.matchers) {
 				matcher.reset();
 			}
 		}
@@ -61,7 +61,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -368,12 +368,12 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	@Override
 	public InputStream asInputStream() {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(false);
 	}
 
 	@Override
 	public InputStream asInputStream(boolean releaseOnClose) {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(releaseOnClose);
 	}
 
 	@Override
@@ -477,6 +477,14 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	private class DefaultDataBufferInputStream extends InputStream {
 
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		public DefaultDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
 		@Override
 		public int available() {
 			return readableByteCount();
@@ -499,6 +507,15 @@ public class DefaultDataBuffer implements DataBuffer {
 				return -1;
 			}
 		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				// Only effective for pooled subclasses
+				DataBufferUtils.release(DefaultDataBuffer.this);
+			}
+		}
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -104,6 +104,7 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	 * {@inheritDoc}
 	 * <p>This implementation creates a single {@link DefaultDataBuffer}
 	 * to contain the data in {@code dataBuffers}.
+	 * @see #compose(List)
 	 */
 	@Override
 	public DefaultDataBuffer join(List<? extends DataBuffer> dataBuffers) {
@@ -115,6 +116,27 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 		return result;
 	}
 
+	/**
+	 * Compose the given data buffers into a single buffer without copying their
+	 * data, as an alternative to {@link #join(List)}: a single given buffer is
+	 * returned as-is, and several buffers as a {@link CompositeDataBuffer} that
+	 * takes over ownership of them.
+	 * <p>Note that {@link DataBuffer#asByteBuffer()} on the returned buffer
+	 * returns a copy rather than a shared view of the data if the readable
+	 * bytes span several of the given buffers.
+	 * @param dataBuffers the data buffers to be composed
+	 * @return a buffer that presents the data of the given buffers as one
+	 * @since 5.2
+	 * @see DataBufferUtils#join(org.reactivestreams.Publisher)
+	 */
+	public DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		return new CompositeDataBuffer(this, dataBuffers);
+	}
+
 
 	@Override
 	public String toString() {
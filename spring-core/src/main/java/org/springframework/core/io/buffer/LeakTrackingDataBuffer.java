@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * {@code DataBuffer} created by {@link LeakTrackingDataBufferFactory}.
+ * Slices share the tracker, and therefore the reference count, of their
+ * parent buffer.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+class LeakTrackingDataBuffer extends DataBufferWrapper implements PooledDataBuffer {
+
+	private final LeakTrackingDataBufferFactory factory;
+
+	private final LeakTrackingDataBufferFactory.Tracker tracker;
+
+	/** Keeps the tracked parent buffer reachable as long as a slice is */
+	@Nullable
+	private final LeakTrackingDataBuffer parent;
+
+
+	LeakTrackingDataBuffer(DataBuffer delegate, LeakTrackingDataBufferFactory factory, boolean sampled) {
+		super(delegate);
+		this.factory = factory;
+		this.tracker = new LeakTrackingDataBufferFactory.Tracker(this, delegate, factory, sampled);
+		this.parent = null;
+	}
+
+	private LeakTrackingDataBuffer(DataBuffer slice, LeakTrackingDataBuffer parent) {
+		super(slice);
+		this.factory = parent.factory;
+		this.tracker = parent.tracker;
+		this.parent = (parent.parent != null ? parent.parent : parent);
+	}
+
+
+	LeakTrackingDataBufferFactory.Tracker tracker() {
+		return this.tracker;
+	}
+
+	@Override
+	public LeakTrackingDataBufferFactory factory() {
+		return this.factory;
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return this.tracker.isAllocated();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		this.tracker.retain();
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return this.tracker.release();
+	}
+
+	@Override
+	public PooledDataBuffer touch(Object hint) {
+		this.tracker.touch(hint);
+		DataBufferUtils.touch(dataBuffer(), hint);
+		return this;
+	}
+
+
+	// Return this buffer from fluent methods, rather than the delegate
+
+	@Override
+	public DataBuffer capacity(int capacity) {
+		dataBuffer().capacity(capacity);
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int capacity) {
+		dataBuffer().ensureCapacity(capacity);
+		return this;
+	}
+
+	@Override
+	public DataBuffer readPosition(int readPosition) {
+		dataBuffer().readPosition(readPosition);
+		return this;
+	}
+
+	@Override
+	public DataBuffer writePosition(int writePosition) {
+		dataBuffer().writePosition(writePosition);
+		return this;
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination) {
+		dataBuffer().read(destination);
+		return this;
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination, int offset, int length) {
+		dataBuffer().read(destination, offset, length);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte b) {
+		dataBuffer().write(b);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source) {
+		dataBuffer().write(source);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source, int offset, int length) {
+		dataBuffer().write(source, offset, length);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(DataBuffer... buffers) {
+		dataBuffer().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(ByteBuffer... buffers) {
+		dataBuffer().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(CharSequence charSequence, Charset charset) {
+		dataBuffer().write(charSequence, charset);
+		return this;
+	}
+
+	@Override
+	public DataBuffer slice(int index, int length) {
+		return new LeakTrackingDataBuffer(dataBuffer().slice(index, length), this);
+	}
+
+	@Override
+	public DataBuffer retainedSlice(int index, int length) {
+		DataBuffer slice = slice(index, length);
+		retain();
+		return slice;
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		InputStream inputStream = dataBuffer().asInputStream(false);
+		if (!releaseOnClose) {
+			return inputStream;
+		}
+		return new FilterInputStream(inputStream) {
+			private boolean closed;
+			@Override
+			public void close() throws IOException {
+				super.close();
+				if (!this.closed) {
+					this.closed = true;
+					release();
+				}
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "LeakTrackingDataBuffer (" + dataBuffer() + ")";
+	}
+
+}
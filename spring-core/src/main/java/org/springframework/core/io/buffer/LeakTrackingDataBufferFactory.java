@@ -0,0 +1,342 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Decorator for a {@link DataBufferFactory} that tracks the buffers it creates,
+ * in order to find buffers that are never {@linkplain DataBufferUtils#release
+ * released}: e.g. in custom {@code Decoder} or {@code Encoder} implementations.
+ *
+ * <p>All buffers created by this factory are {@link PooledDataBuffer PooledDataBuffers},
+ * including those of a non-pooling delegate such as {@link DefaultDataBufferFactory},
+ * so that missing releases show up independent of the actual buffer type.
+ * A buffer that is garbage collected without having been released is
+ * reported as a leak through the log category of this class, at error level.
+ *
+ * <p>For every n-th allocation, as per the configured sampling interval, the
+ * allocation site is recorded along with the most recent sites at which the
+ * buffer was {@linkplain DataBufferUtils#touch touched}, and included in the
+ * leak report. The framework's codec pipeline touches buffers as they pass
+ * through encoders, decoders and {@link DataBufferUtils#join}.
+ *
+ * <p>This is an instrumentation mode, meant for tests and troubleshooting
+ * rather than regular production use. With Reactor Netty, consider Netty's
+ * own {@code ResourceLeakDetector} instead since buffers handed to Netty are
+ * released on the Netty side.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see DataBufferUtils#touch(DataBuffer, Object)
+ */
+public class LeakTrackingDataBufferFactory implements DataBufferFactory {
+
+	/**
+	 * The default sampling interval for recording allocation and touch sites.
+	 */
+	public static final int DEFAULT_SAMPLING_INTERVAL = 128;
+
+	private static final int MAX_TOUCH_RECORDS = 8;
+
+	private static final Log logger = LogFactory.getLog(LeakTrackingDataBufferFactory.class);
+
+
+	private final DataBufferFactory delegate;
+
+	private final int samplingInterval;
+
+	private final AtomicLong allocationCount = new AtomicLong();
+
+	private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+
+	private final ReferenceQueue<LeakTrackingDataBuffer> referenceQueue = new ReferenceQueue<>();
+
+	private final LongAdder outstandingBytes = new LongAdder();
+
+	private final LongAdder leakCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code LeakTrackingDataBufferFactory} for the given delegate,
+	 * with the {@linkplain #DEFAULT_SAMPLING_INTERVAL default sampling interval}.
+	 * @param delegate the factory to create the actual buffers with
+	 */
+	public LeakTrackingDataBufferFactory(DataBufferFactory delegate) {
+		this(delegate, DEFAULT_SAMPLING_INTERVAL);
+	}
+
+	/**
+	 * Create a new {@code LeakTrackingDataBufferFactory} for the given delegate.
+	 * @param delegate the factory to create the actual buffers with
+	 * @param samplingInterval record allocation and touch sites for every n-th
+	 * buffer: 1 for every buffer, 0 for none
+	 */
+	public LeakTrackingDataBufferFactory(DataBufferFactory delegate, int samplingInterval) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		Assert.isTrue(samplingInterval >= 0, "'samplingInterval' must not be negative");
+		this.delegate = delegate;
+		this.samplingInterval = samplingInterval;
+	}
+
+
+	/**
+	 * Return the factory that creates the actual buffers.
+	 */
+	public DataBufferFactory getDelegate() {
+		return this.delegate;
+	}
+
+	@Override
+	public DataBuffer allocateBuffer() {
+		return track(this.delegate.allocateBuffer());
+	}
+
+	@Override
+	public DataBuffer allocateBuffer(int initialCapacity) {
+		return track(this.delegate.allocateBuffer(initialCapacity));
+	}
+
+	@Override
+	public DataBuffer wrap(ByteBuffer byteBuffer) {
+		return track(this.delegate.wrap(byteBuffer));
+	}
+
+	@Override
+	public DataBuffer wrap(byte[] bytes) {
+		return track(this.delegate.wrap(bytes));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>As with the delegate, the given buffers are released: each of them
+	 * through its own tracker, which it may share with retained slices that
+	 * remain valid. The delegate buffers are retained for the joined buffer.
+	 */
+	@Override
+	public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		List<DataBuffer> delegateBuffers = new ArrayList<>(dataBuffers.size());
+		List<LeakTrackingDataBuffer> trackedBuffers = new ArrayList<>(dataBuffers.size());
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer instanceof LeakTrackingDataBuffer) {
+				LeakTrackingDataBuffer trackedBuffer = (LeakTrackingDataBuffer) dataBuffer;
+				// The delegate consumes a reference of its own, e.g. for a composite
+				dataBuffer = DataBufferUtils.retain(trackedBuffer.dataBuffer());
+				trackedBuffers.add(trackedBuffer);
+			}
+			delegateBuffers.add(dataBuffer);
+		}
+		DataBuffer joined = this.delegate.join(delegateBuffers);
+		trackedBuffers.forEach(LeakTrackingDataBuffer::release);
+		return track(joined);
+	}
+
+	private DataBuffer track(DataBuffer dataBuffer) {
+		reportLeaks();
+		long count = this.allocationCount.incrementAndGet();
+		boolean sampled = (this.samplingInterval > 0 && count % this.samplingInterval == 0);
+		LeakTrackingDataBuffer trackedBuffer = new LeakTrackingDataBuffer(dataBuffer, this, sampled);
+		Tracker tracker = trackedBuffer.tracker();
+		this.trackers.add(tracker);
+		this.outstandingBytes.add(tracker.capacity);
+		return trackedBuffer;
+	}
+
+
+	/**
+	 * Report buffers that have been garbage collected without having been
+	 * released. This is done on every allocation, and may be called explicitly
+	 * in addition, e.g. after a test.
+	 * @return the number of leaks found in this call
+	 */
+	public int reportLeaks() {
+		int leaks = 0;
+		Tracker tracker;
+		while ((tracker = (Tracker) this.referenceQueue.poll()) != null) {
+			if (tracker.close()) {
+				leaks++;
+				this.leakCount.increment();
+				if (logger.isErrorEnabled()) {
+					logger.error(tracker.describeLeak(), tracker.getAllocationRecord());
+				}
+			}
+		}
+		return leaks;
+	}
+
+	/**
+	 * Return the number of buffers that have been created and not released yet.
+	 */
+	public int getOutstandingBufferCount() {
+		return this.trackers.size();
+	}
+
+	/**
+	 * Return the sum of the capacities, at allocation time, of the buffers that
+	 * have been created and not released yet.
+	 */
+	public long getOutstandingBytes() {
+		return this.outstandingBytes.sum();
+	}
+
+	/**
+	 * Return the number of buffers reported as leaked so far.
+	 * @see #reportLeaks()
+	 */
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+
+	@Override
+	public String toString() {
+		return "LeakTrackingDataBufferFactory (" + this.delegate + ")";
+	}
+
+
+	/**
+	 * Tracks a buffer and its slices, which share the reference count.
+	 * Enqueued once the buffer has become unreachable.
+	 */
+	static final class Tracker extends WeakReference<LeakTrackingDataBuffer> {
+
+		private final DataBuffer delegate;
+
+		private final LeakTrackingDataBufferFactory factory;
+
+		private final int capacity;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		@Nullable
+		private final Record allocationRecord;
+
+		@Nullable
+		private final Deque<Record> touchRecords;
+
+		Tracker(LeakTrackingDataBuffer buffer, DataBuffer delegate,
+				LeakTrackingDataBufferFactory factory, boolean sampled) {
+
+			super(buffer, factory.referenceQueue);
+			this.delegate = delegate;
+			this.factory = factory;
+			this.capacity = delegate.capacity();
+			this.allocationRecord = (sampled ? new Record("Allocated from " + factory.delegate) : null);
+			this.touchRecords = (sampled ? new ArrayDeque<>(MAX_TOUCH_RECORDS) : null);
+		}
+
+		boolean isAllocated() {
+			return this.refCount.get() > 0;
+		}
+
+		void retain() {
+			this.refCount.incrementAndGet();
+		}
+
+		boolean release() {
+			int refCount = this.refCount.decrementAndGet();
+			Assert.state(refCount >= 0, "Buffer has already been released");
+			if (refCount == 0) {
+				close();
+				DataBufferUtils.release(this.delegate);
+				return true;
+			}
+			return false;
+		}
+
+		void touch(Object hint) {
+			Deque<Record> touchRecords = this.touchRecords;
+			if (touchRecords != null) {
+				synchronized (touchRecords) {
+					if (touchRecords.size() == MAX_TOUCH_RECORDS) {
+						touchRecords.removeFirst();
+					}
+					touchRecords.addLast(new Record("Touched: " + hint));
+				}
+			}
+		}
+
+		/**
+		 * Stop tracking, e.g. on release.
+		 * @return {@code true} if the buffer had still been tracked
+		 */
+		boolean close() {
+			if (this.factory.trackers.remove(this)) {
+				clear();
+				this.refCount.set(0);
+				this.factory.outstandingBytes.add(-this.capacity);
+				return true;
+			}
+			return false;
+		}
+
+		String describeLeak() {
+			StringBuilder message = new StringBuilder("DataBuffer of capacity ")
+					.append(this.capacity).append(" was not released before it was garbage collected. ");
+			if (this.allocationRecord != null) {
+				message.append("Recorded allocation and touch sites follow.");
+			}
+			else {
+				message.append("Use a sampling interval of 1 to record allocation and touch sites.");
+			}
+			return message.toString();
+		}
+
+		@Nullable
+		Record getAllocationRecord() {
+			Record allocationRecord = this.allocationRecord;
+			Deque<Record> touchRecords = this.touchRecords;
+			if (allocationRecord != null && touchRecords != null) {
+				synchronized (touchRecords) {
+					touchRecords.forEach(allocationRecord::addSuppressed);
+					touchRecords.clear();
+				}
+			}
+			return allocationRecord;
+		}
+	}
+
+
+	/**
+	 * Recorded allocation or touch site.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Record extends Throwable {
+
+		Record(String description) {
+			super(description);
+		}
+	}
+
+}
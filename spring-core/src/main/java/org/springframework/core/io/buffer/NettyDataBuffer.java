@@ -320,6 +320,12 @@ public class NettyDataBuffer implements PooledDataBuffer {
 		return this.byteBuf.release();
 	}
 
+	@Override
+	public PooledDataBuffer touch(Object hint) {
+		this.byteBuf.touch(hint);
+		return this;
+	}
+
 
 	@Override
 	public boolean equals(@Nullable Object other) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,4 +46,18 @@ public interface PooledDataBuffer extends DataBuffer {
 	 */
 	boolean release();
 
+	/**
+	 * Associate the given hint with this buffer, for leak tracking purposes:
+	 * e.g. the component that the buffer is currently being passed through.
+	 * <p>The default implementation does nothing.
+	 * @param hint the hint to record, typically a component or description
+	 * @return this buffer
+	 * @since 5.2
+	 * @see DataBufferUtils#touch(DataBuffer, Object)
+	 * @see LeakTrackingDataBufferFactory
+	 */
+	default PooledDataBuffer touch(Object hint) {
+		return this;
+	}
+
 }
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Pooling variant of {@link DefaultDataBufferFactory}, for use with runtimes
+ * that do not provide buffer pooling on their own, e.g. Undertow, Jetty or
+ * Servlet containers in general, through the {@code setDataBufferFactory}
+ * method of the corresponding {@code HttpHandler} adapter.
+ *
+ * <p>Allocated buffers are {@link PooledDataBuffer PooledDataBuffers} that
+ * return their memory to the pool once {@linkplain DataBufferUtils#release
+ * released}. Capacities are rounded up to power-of-two size classes, from
+ * 256 bytes up to a configurable maximum, each with a shared arena as well as
+ * a small per-thread cache for the smaller size classes. Larger buffers are
+ * allocated on demand and left to garbage collection once released.
+ *
+ * <p>The factory exposes metrics for the memory used by outstanding buffers
+ * and for the pool hit rate. A steadily growing {@linkplain #getUsedMemory()
+ * used memory} value usually indicates buffers that are not being released.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers: 64K.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default maximum amount of memory kept in the shared arenas: 16M.
+	 */
+	public static final long DEFAULT_MAX_POOL_SIZE = 16 * 1024 * 1024;
+
+	private static final int MIN_CAPACITY_SHIFT = 8;
+
+	private static final int THREAD_CACHE_MAX_CAPACITY = 8 * 1024;
+
+	private static final int THREAD_CACHE_SIZE = 8;
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final long maxPoolSize;
+
+	private final Queue<ByteBuffer>[] arenas;
+
+	private final ThreadLocal<ThreadCache> threadCache;
+
+	private final AtomicLong pooledMemory = new AtomicLong();
+
+	private final LongAdder usedMemory = new LongAdder();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings,
+	 * pooling heap buffers.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled rather than heap buffers.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_MAX_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers, rounded
+	 * up to the next power of two; larger buffers are not pooled
+	 * @param maxPoolSize the maximum amount of memory, in bytes, to be kept in
+	 * the shared arenas for released buffers
+	 */
+	@SuppressWarnings("unchecked")
+	public PooledDataBufferFactory(boolean preferDirect, int maxPooledCapacity, long maxPoolSize) {
+		super(preferDirect);
+		Assert.isTrue(maxPooledCapacity >= (1 << MIN_CAPACITY_SHIFT),
+				"'maxPooledCapacity' must be at least " + (1 << MIN_CAPACITY_SHIFT));
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' must not exceed 1G");
+		Assert.isTrue(maxPoolSize >= 0, "'maxPoolSize' must not be negative");
+		this.preferDirect = preferDirect;
+		this.maxPooledCapacity = capacityOf(sizeClassIndex(maxPooledCapacity));
+		this.maxPoolSize = maxPoolSize;
+		this.arenas = new Queue[sizeClassIndex(this.maxPooledCapacity) + 1];
+		for (int i = 0; i < this.arenas.length; i++) {
+			this.arenas[i] = new ConcurrentLinkedQueue<>();
+		}
+		int threadCacheSize = Math.min(this.arenas.length, sizeClassIndex(THREAD_CACHE_MAX_CAPACITY) + 1);
+		this.threadCache = ThreadLocal.withInitial(() -> new ThreadCache(threadCacheSize));
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		if (initialCapacity > this.maxPooledCapacity) {
+			this.missCount.increment();
+			this.usedMemory.add(initialCapacity);
+			return new PooledByteBufferDataBuffer(this, allocateByteBuffer(initialCapacity), -1, initialCapacity);
+		}
+
+		int index = sizeClassIndex(initialCapacity);
+		ByteBuffer byteBuffer = this.threadCache.get().poll(index);
+		if (byteBuffer == null) {
+			byteBuffer = this.arenas[index].poll();
+			if (byteBuffer != null) {
+				this.pooledMemory.addAndGet(-byteBuffer.capacity());
+			}
+		}
+		if (byteBuffer != null) {
+			this.hitCount.increment();
+			byteBuffer.clear();
+		}
+		else {
+			this.missCount.increment();
+			byteBuffer = allocateByteBuffer(capacityOf(index));
+		}
+		this.usedMemory.add(byteBuffer.capacity());
+		return new PooledByteBufferDataBuffer(this, byteBuffer, index, initialCapacity);
+	}
+
+	private ByteBuffer allocateByteBuffer(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	/**
+	 * Return a released buffer to the pool, if it belongs to a size class.
+	 */
+	private void recycle(ByteBuffer byteBuffer, int index) {
+		this.usedMemory.add(-byteBuffer.capacity());
+		if (index < 0) {
+			return;
+		}
+		if (this.threadCache.get().offer(index, byteBuffer)) {
+			return;
+		}
+		int capacity = byteBuffer.capacity();
+		if (this.pooledMemory.addAndGet(capacity) <= this.maxPoolSize) {
+			this.arenas[index].offer(byteBuffer);
+		}
+		else {
+			this.pooledMemory.addAndGet(-capacity);
+		}
+	}
+
+
+	/**
+	 * Return the memory currently held by allocated and not yet released
+	 * buffers, in bytes, according to the capacity of their size class.
+	 */
+	public long getUsedMemory() {
+		return this.usedMemory.sum();
+	}
+
+	/**
+	 * Return the memory currently kept in the shared arenas for reuse, in bytes.
+	 * <p>This does not include buffers in per-thread caches.
+	 */
+	public long getPooledMemory() {
+		return this.pooledMemory.get();
+	}
+
+	/**
+	 * Return the number of allocations served from the pool.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of allocations that required new memory.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the ratio of allocations served from the pool, between 0 and 1.
+	 * @see #getHitCount()
+	 * @see #getMissCount()
+	 */
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return (total > 0 ? (double) hits / total : 0);
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ", maxPoolSize=" + this.maxPoolSize + ")";
+	}
+
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= (1 << MIN_CAPACITY_SHIFT)) {
+			return 0;
+		}
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_CAPACITY_SHIFT;
+	}
+
+	private static int capacityOf(int sizeClassIndex) {
+		return 1 << (sizeClassIndex + MIN_CAPACITY_SHIFT);
+	}
+
+
+	/**
+	 * Per-thread cache for buffers of the smaller size classes.
+	 */
+	private static class ThreadCache {
+
+		private final ArrayDeque<ByteBuffer>[] queues;
+
+		@SuppressWarnings("unchecked")
+		public ThreadCache(int size) {
+			this.queues = new ArrayDeque[size];
+			for (int i = 0; i < size; i++) {
+				this.queues[i] = new ArrayDeque<>(THREAD_CACHE_SIZE);
+			}
+		}
+
+		@Nullable
+		public ByteBuffer poll(int index) {
+			return (index < this.queues.length ? this.queues[index].poll() : null);
+		}
+
+		public boolean offer(int index, ByteBuffer byteBuffer) {
+			if (index < this.queues.length && this.queues[index].size() < THREAD_CACHE_SIZE) {
+				this.queues[index].offer(byteBuffer);
+				return true;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Reference-counted {@link DefaultDataBuffer} over a pooled {@code ByteBuffer}.
+	 */
+	private static class PooledByteBufferDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDataBufferFactory factory;
+
+		private final ByteBuffer pooledBuffer;
+
+		private final int sizeClassIndex;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		PooledByteBufferDataBuffer(
+				PooledDataBufferFactory factory, ByteBuffer pooledBuffer, int sizeClassIndex, int capacity) {
+
+			super(factory, (ByteBuffer) pooledBuffer.duplicate().clear().limit(capacity));
+			this.factory = factory;
+			this.pooledBuffer = pooledBuffer;
+			this.sizeClassIndex = sizeClassIndex;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.refCount.get() > 0;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.refCount.incrementAndGet();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount = this.refCount.decrementAndGet();
+			Assert.state(refCount >= 0, "Buffer has already been released");
+			if (refCount == 0) {
+				// The buffer may have been expanded already: in any case, the
+				// original memory is no longer in use by this DataBuffer.
+				this.factory.recycle(this.pooledBuffer, this.sizeClassIndex);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this, asByteBuffer(index, length));
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledByteBufferDataBuffer}, sharing the memory as well
+	 * as the reference count of its parent buffer.
+	 */
+	private static class PooledSlice extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledByteBufferDataBuffer parent;
+
+		PooledSlice(PooledByteBufferDataBuffer parent, ByteBuffer slice) {
+			super(parent.factory, slice);
+			this.parent = parent;
+			writePosition(slice.remaining());
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		public DefaultDataBuffer slice(int index, int length) {
+			return new PooledSlice(this.parent, asByteBuffer(index, length));
+		}
+	}
+
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of {@link CachingMetadataReaderFactory} that keeps the class metadata
+ * it reads in a binary index file, so that subsequent runs can obtain the
+ * metadata of unchanged classes without parsing their class files again.
+ *
+ * <p>Each index entry is keyed by the URL of the class file and records its
+ * {@linkplain Resource#lastModified() last-modified timestamp} and
+ * {@linkplain Resource#contentLength() content length}: if either differs
+ * from the current resource, the entry is considered stale and the class
+ * file gets parsed again. Resources that do not expose this information are
+ * never indexed.
+ *
+ * <p>The index file is loaded lazily on first access and written back on
+ * {@link #clearCache()} (which is called at the end of configuration class
+ * processing and component scanning) or on an explicit {@link #writeIndex()},
+ * in both cases only if new entries were added. A missing, unreadable or
+ * incompatible index file is simply rebuilt.
+ *
+ * <p>Typically configured through
+ * {@code ConfigurationClassPostProcessor.setMetadataReaderFactory} and
+ * {@code ClassPathScanningCandidateComponentProvider.setMetadataReaderFactory}.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see SimpleAnnotationMetadataCodec
+ */
+public class PersistentMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	private static final int INDEX_MAGIC = 0x53504d49;
+
+	private static final int INDEX_VERSION = 1;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final File indexFile;
+
+	private final Map<String, IndexEntry> index = new ConcurrentHashMap<>(256);
+
+	private volatile boolean indexLoaded;
+
+	private volatile boolean indexModified;
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the default class loader.
+	 * @param indexFile the file to load the index from and to write it to
+	 */
+	public PersistentMetadataReaderFactory(File indexFile) {
+		super();
+		Assert.notNull(indexFile, "Index file must not be null");
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ClassLoader}.
+	 * @param indexFile the file to load the index from and to write it to
+	 * @param classLoader the ClassLoader to use
+	 */
+	public PersistentMetadataReaderFactory(File indexFile, @Nullable ClassLoader classLoader) {
+		super(classLoader);
+		Assert.notNull(indexFile, "Index file must not be null");
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ResourceLoader}.
+	 * @param indexFile the file to load the index from and to write it to
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 */
+	public PersistentMetadataReaderFactory(File indexFile, @Nullable ResourceLoader resourceLoader) {
+		super(resourceLoader);
+		Assert.notNull(indexFile, "Index file must not be null");
+		this.indexFile = indexFile;
+	}
+
+
+	/**
+	 * Return the file that the index is loaded from and written to.
+	 */
+	public final File getIndexFile() {
+		return this.indexFile;
+	}
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		String key;
+		long lastModified;
+		long contentLength;
+		try {
+			key = resource.getURL().toString();
+			lastModified = resource.lastModified();
+			contentLength = resource.contentLength();
+		}
+		catch (IOException ex) {
+			// No stable identity or change information -> not indexable
+			return super.getMetadataReader(resource);
+		}
+
+		loadIndexIfNecessary();
+		IndexEntry entry = this.index.get(key);
+		if (entry != null && entry.matches(lastModified, contentLength)) {
+			AnnotationMetadata metadata = entry.getMetadata(getResourceLoader().getClassLoader());
+			if (metadata != null) {
+				return new SimpleMetadataReader(resource, metadata);
+			}
+		}
+
+		MetadataReader metadataReader = super.getMetadataReader(resource);
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		if (metadata instanceof SimpleAnnotationMetadata) {
+			byte[] content = encode((SimpleAnnotationMetadata) metadata);
+			if (content != null) {
+				this.index.put(key, new IndexEntry(lastModified, contentLength, content));
+				this.indexModified = true;
+			}
+		}
+		return metadataReader;
+	}
+
+	/**
+	 * Clear the local MetadataReader cache and release all decoded index entries,
+	 * writing the index file if it has been modified since it was last written.
+	 * @see #writeIndex()
+	 */
+	@Override
+	public void clearCache() {
+		super.clearCache();
+		for (IndexEntry entry : this.index.values()) {
+			entry.releaseMetadata();
+		}
+		writeIndex();
+	}
+
+	/**
+	 * Write the index file if entries have been added since it was loaded or
+	 * last written. Failures to write are logged but not propagated, since the
+	 * index is a pure optimization.
+	 */
+	public synchronized void writeIndex() {
+		if (!this.indexModified) {
+			return;
+		}
+		// Reset before taking the snapshot, so that entries added concurrently get written next time
+		this.indexModified = false;
+		Map<String, IndexEntry> entries = new HashMap<>(this.index);
+		Path target = this.indexFile.toPath().toAbsolutePath();
+		Path tempFile = null;
+		try {
+			Files.createDirectories(target.getParent());
+			tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+				writeIndex(out, entries);
+			}
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex) {
+			this.indexModified = true;
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to write metadata index to " + target, ex);
+			}
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				}
+				catch (IOException ex2) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private void writeIndex(DataOutputStream out, Map<String, IndexEntry> entries) throws IOException {
+		out.writeInt(INDEX_MAGIC);
+		out.writeInt(INDEX_VERSION);
+		out.writeInt(entries.size());
+		for (Map.Entry<String, IndexEntry> entry : entries.entrySet()) {
+			IndexEntry indexEntry = entry.getValue();
+			out.writeUTF(entry.getKey());
+			out.writeLong(indexEntry.lastModified);
+			out.writeLong(indexEntry.contentLength);
+			out.writeInt(indexEntry.content.length);
+			out.write(indexEntry.content);
+		}
+	}
+
+	private void loadIndexIfNecessary() {
+		if (!this.indexLoaded) {
+			synchronized (this.index) {
+				if (!this.indexLoaded) {
+					loadIndex();
+					this.indexLoaded = true;
+				}
+			}
+		}
+	}
+
+	private void loadIndex() {
+		if (!this.indexFile.isFile()) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(this.indexFile.toPath())))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring incompatible metadata index " + this.indexFile);
+				}
+				this.indexModified = true;
+				return;
+			}
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				String key = in.readUTF();
+				long lastModified = in.readLong();
+				long contentLength = in.readLong();
+				byte[] content = new byte[in.readInt()];
+				in.readFully(content);
+				this.index.put(key, new IndexEntry(lastModified, contentLength, content));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + size + " entries from metadata index " + this.indexFile);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable metadata index " + this.indexFile, ex);
+			}
+			this.index.clear();
+			this.indexModified = true;
+		}
+	}
+
+	@Nullable
+	private static byte[] encode(SimpleAnnotationMetadata metadata) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				SimpleAnnotationMetadataCodec.write(metadata, out);
+			}
+			return bytes.toByteArray();
+		}
+		catch (IOException | IllegalArgumentException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not indexing metadata for class [" + metadata.getClassName() + "]: " + ex);
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * A single index entry, holding the encoded metadata for a class file
+	 * together with the information required to detect changes to it.
+	 */
+	private static final class IndexEntry {
+
+		final long lastModified;
+
+		final long contentLength;
+
+		final byte[] content;
+
+		@Nullable
+		private volatile AnnotationMetadata metadata;
+
+		IndexEntry(long lastModified, long contentLength, byte[] content) {
+			this.lastModified = lastModified;
+			this.contentLength = contentLength;
+			this.content = content;
+		}
+
+		boolean matches(long lastModified, long contentLength) {
+			return (this.lastModified == lastModified && this.contentLength == contentLength);
+		}
+
+		@Nullable
+		AnnotationMetadata getMetadata(@Nullable ClassLoader classLoader) {
+			AnnotationMetadata metadata = this.metadata;
+			if (metadata == null) {
+				try {
+					metadata = SimpleAnnotationMetadataCodec.read(
+							new DataInputStream(new ByteArrayInputStream(this.content)), classLoader);
+					this.metadata = metadata;
+				}
+				catch (IOException | IllegalArgumentException | IllegalStateException ex) {
+					// Corrupt entry or types not resolvable any more -> parse class file
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to read indexed metadata: " + ex);
+					}
+					return null;
+				}
+			}
+			return metadata;
+		}
+
+		void releaseMetadata() {
+			this.metadata = null;
+		}
+	}
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotation.Adapt;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Binary codec for {@link SimpleAnnotationMetadata}, used by
+ * {@link PersistentMetadataReaderFactory} to store class metadata without
+ * having to parse the class file again on subsequent reads.
+ *
+ * <p>Annotation attributes are written in their "class name" form, i.e. class
+ * references are kept as strings, just like the {@link MergedAnnotation merged
+ * annotations} created by {@link MergedAnnotationReadingVisitor}.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+final class SimpleAnnotationMetadataCodec {
+
+	private static final byte STRING = 1;
+
+	private static final byte BOOLEAN = 2;
+
+	private static final byte BYTE = 3;
+
+	private static final byte CHAR = 4;
+
+	private static final byte SHORT = 5;
+
+	private static final byte INT = 6;
+
+	private static final byte LONG = 7;
+
+	private static final byte FLOAT = 8;
+
+	private static final byte DOUBLE = 9;
+
+	private static final byte ENUM = 10;
+
+	private static final byte ANNOTATION = 11;
+
+	private static final byte ARRAY = 12;
+
+	private static final String ANNOTATION_ARRAY = "@";
+
+
+	private SimpleAnnotationMetadataCodec() {
+	}
+
+
+	/**
+	 * Write the given metadata to the given output.
+	 * @param metadata the metadata to write
+	 * @param output the output to write to
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalArgumentException if an attribute value cannot be written
+	 */
+	static void write(SimpleAnnotationMetadata metadata, DataOutput output) throws IOException {
+		writeString(metadata.getClassName(), output);
+		output.writeInt(metadata.getAccess());
+		writeNullableString(metadata.getEnclosingClassName(), output);
+		writeNullableString(metadata.getSuperClassName(), output);
+		output.writeBoolean(metadata.isIndependent());
+		writeStrings(metadata.getInterfaceNames(), output);
+		writeStrings(metadata.getMemberClassNames(), output);
+		writeAnnotations(metadata.getAnnotations(), output);
+		MethodMetadata[] annotatedMethods = metadata.getAllAnnotatedMethods();
+		output.writeInt(annotatedMethods.length);
+		for (MethodMetadata annotatedMethod : annotatedMethods) {
+			writeMethod((SimpleMethodMetadata) annotatedMethod, output);
+		}
+	}
+
+	/**
+	 * Read metadata previously written via {@link #write}.
+	 * @param input the input to read from
+	 * @param classLoader the ClassLoader used to resolve annotation and enum types
+	 * @return the metadata
+	 * @throws IOException in case of I/O errors
+	 * @throws IllegalArgumentException if a referenced type cannot be resolved
+	 */
+	static SimpleAnnotationMetadata read(DataInput input, @Nullable ClassLoader classLoader) throws IOException {
+		String className = readString(input);
+		int access = input.readInt();
+		String enclosingClassName = readNullableString(input);
+		String superClassName = readNullableString(input);
+		boolean independentInnerClass = input.readBoolean();
+		String[] interfaceNames = readStrings(input);
+		String[] memberClassNames = readStrings(input);
+		MergedAnnotations annotations = readAnnotations(
+				input, classLoader, new SimpleAnnotationMetadataReadingVisitor.Source(className));
+		MethodMetadata[] annotatedMethods = new MethodMetadata[input.readInt()];
+		for (int i = 0; i < annotatedMethods.length; i++) {
+			annotatedMethods[i] = readMethod(input, classLoader);
+		}
+		return new SimpleAnnotationMetadata(className, access, enclosingClassName, superClassName,
+				independentInnerClass, interfaceNames, memberClassNames, annotatedMethods, annotations);
+	}
+
+
+	private static void writeMethod(SimpleMethodMetadata metadata, DataOutput output) throws IOException {
+		writeString(metadata.getMethodName(), output);
+		output.writeInt(metadata.getAccess());
+		writeString(metadata.getDeclaringClassName(), output);
+		writeString(metadata.getReturnTypeName(), output);
+		writeString(getDescriptor(metadata), output);
+		writeAnnotations(metadata.getAnnotations(), output);
+	}
+
+	private static String getDescriptor(SimpleMethodMetadata metadata) {
+		for (MergedAnnotation<Annotation> annotation : metadata.getAnnotations()) {
+			Object source = annotation.getSource();
+			if (source instanceof SimpleMethodMetadataReadingVisitor.Source) {
+				return ((SimpleMethodMetadataReadingVisitor.Source) source).getDescriptor();
+			}
+		}
+		throw new IllegalArgumentException("No method descriptor available for " + metadata);
+	}
+
+	private static SimpleMethodMetadata readMethod(DataInput input, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		String methodName = readString(input);
+		int access = input.readInt();
+		String declaringClassName = readString(input);
+		String returnTypeName = readString(input);
+		String descriptor = readString(input);
+		MergedAnnotations annotations = readAnnotations(input, classLoader,
+				new SimpleMethodMetadataReadingVisitor.Source(declaringClassName, methodName, descriptor));
+		return new SimpleMethodMetadata(methodName, access, declaringClassName, returnTypeName, annotations);
+	}
+
+	private static void writeAnnotations(MergedAnnotations annotations, DataOutput output) throws IOException {
+		List<MergedAnnotation<Annotation>> directAnnotations = new ArrayList<>();
+		for (MergedAnnotation<Annotation> annotation : annotations) {
+			if (annotation.isDirectlyPresent()) {
+				directAnnotations.add(annotation);
+			}
+		}
+		output.writeInt(directAnnotations.size());
+		for (MergedAnnotation<Annotation> annotation : directAnnotations) {
+			writeString(annotation.getType().getName(), output);
+			writeAttributes(annotation.asMap(
+					mergedAnnotation -> new AnnotationAttributes(mergedAnnotation.getType()),
+					Adapt.CLASS_TO_STRING, Adapt.ANNOTATION_TO_MAP), output);
+		}
+	}
+
+	private static MergedAnnotations readAnnotations(DataInput input, @Nullable ClassLoader classLoader,
+			Object source) throws IOException {
+
+		int size = input.readInt();
+		List<MergedAnnotation<?>> annotations = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			annotations.add(readAnnotation(input, classLoader, source));
+		}
+		return MergedAnnotations.of(annotations);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static MergedAnnotation<?> readAnnotation(DataInput input, @Nullable ClassLoader classLoader,
+			Object source) throws IOException {
+
+		Class<? extends Annotation> type =
+				(Class<? extends Annotation>) ClassUtils.resolveClassName(readString(input), classLoader);
+		int size = input.readInt();
+		Map<String, Object> attributes = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String name = readString(input);
+			attributes.put(name, readValue(input, classLoader, source));
+		}
+		return MergedAnnotation.of(classLoader, source, type, attributes);
+	}
+
+	private static void writeAttributes(Map<String, Object> attributes, DataOutput output) throws IOException {
+		output.writeInt(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			writeString(entry.getKey(), output);
+			writeValue(entry.getValue(), output);
+		}
+	}
+
+	private static void writeValue(Object value, DataOutput output) throws IOException {
+		if (value instanceof String) {
+			output.writeByte(STRING);
+			writeString((String) value, output);
+		}
+		else if (value instanceof Boolean) {
+			output.writeByte(BOOLEAN);
+			output.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			output.writeByte(BYTE);
+			output.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			output.writeByte(CHAR);
+			output.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			output.writeByte(SHORT);
+			output.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			output.writeByte(INT);
+			output.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			output.writeByte(LONG);
+			output.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			output.writeByte(FLOAT);
+			output.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			output.writeByte(DOUBLE);
+			output.writeDouble((Double) value);
+		}
+		else if (value instanceof Enum) {
+			output.writeByte(ENUM);
+			writeString(((Enum<?>) value).getDeclaringClass().getName(), output);
+			writeString(((Enum<?>) value).name(), output);
+		}
+		else if (value instanceof AnnotationAttributes) {
+			AnnotationAttributes attributes = (AnnotationAttributes) value;
+			Class<? extends Annotation> annotationType = attributes.annotationType();
+			if (annotationType == null) {
+				throw new IllegalArgumentException("Unknown annotation type for nested attributes " + attributes);
+			}
+			output.writeByte(ANNOTATION);
+			writeString(annotationType.getName(), output);
+			writeAttributes(attributes, output);
+		}
+		else if (value.getClass().isArray()) {
+			Class<?> componentType = value.getClass().getComponentType();
+			output.writeByte(ARRAY);
+			writeString((AnnotationAttributes.class == componentType ?
+					ANNOTATION_ARRAY : componentType.getName()), output);
+			int length = Array.getLength(value);
+			output.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(Array.get(value, i), output);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported attribute value type: " + value.getClass().getName());
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object readValue(DataInput input, @Nullable ClassLoader classLoader, Object source)
+			throws IOException {
+
+		byte tag = input.readByte();
+		switch (tag) {
+			case STRING:
+				return readString(input);
+			case BOOLEAN:
+				return input.readBoolean();
+			case BYTE:
+				return input.readByte();
+			case CHAR:
+				return input.readChar();
+			case SHORT:
+				return input.readShort();
+			case INT:
+				return input.readInt();
+			case LONG:
+				return input.readLong();
+			case FLOAT:
+				return input.readFloat();
+			case DOUBLE:
+				return input.readDouble();
+			case ENUM:
+				Class<? extends Enum> enumType = (Class<? extends Enum>) ClassUtils.resolveClassName(
+						readString(input), classLoader);
+				return Enum.valueOf(enumType, readString(input));
+			case ANNOTATION:
+				return readAnnotation(input, classLoader, source);
+			case ARRAY:
+				String componentTypeName = readString(input);
+				Class<?> componentType = (ANNOTATION_ARRAY.equals(componentTypeName) ?
+						MergedAnnotation.class : ClassUtils.resolveClassName(componentTypeName, classLoader));
+				int length = input.readInt();
+				Object array = Array.newInstance(componentType, length);
+				for (int i = 0; i < length; i++) {
+					Array.set(array, i, readValue(input, classLoader, source));
+				}
+				return array;
+			default:
+				throw new IllegalArgumentException("Unknown attribute value tag: " + tag);
+		}
+	}
+
+	private static void writeStrings(String[] values, DataOutput output) throws IOException {
+		output.writeInt(values.length);
+		for (String value : values) {
+			writeString(value, output);
+		}
+	}
+
+	private static String[] readStrings(DataInput input) throws IOException {
+		String[] values = new String[input.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readString(input);
+		}
+		return values;
+	}
+
+	private static void writeNullableString(@Nullable String value, DataOutput output) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) {
+			writeString(value, output);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInput input) throws IOException {
+		return (input.readBoolean() ? readString(input) : null);
+	}
+
+	private static void writeString(String value, DataOutput output) throws IOException {
+		// Length-prefixed UTF-8 rather than writeUTF, which is limited to 64K
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(DataInput input) throws IOException {
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
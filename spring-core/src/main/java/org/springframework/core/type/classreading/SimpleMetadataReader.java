@@ -52,6 +52,11 @@ final class SimpleMetadataReader implements MetadataReader {
 		this.annotationMetadata = visitor.getMetadata();
 	}
 
+	SimpleMetadataReader(Resource resource, AnnotationMetadata annotationMetadata) {
+		this.resource = resource;
+		this.annotationMetadata = annotationMetadata;
+	}
+
 	private static ClassReader getClassReader(Resource resource) throws IOException {
 		try (InputStream is = new BufferedInputStream(resource.getInputStream())) {
 			try {
@@ -29,6 +29,7 @@ import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 
@@ -175,6 +176,26 @@ class StringDecoderTests extends AbstractDecoderTests<StringDecoder> {
 
 	}
 
+	@Test
+	void split() {
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r\nde"),
+				stringBuffer("f\ng\r"),
+				stringBuffer("\nhi"));
+
+		Flux<String> output = this.decoder.split(input, null)
+				.map(buffer -> {
+					String value = buffer.toString(UTF_8);
+					DataBufferUtils.release(buffer);
+					return value;
+				});
+
+		StepVerifier.create(output)
+				.expectNext("abc", "def", "g", "hi")
+				.expectComplete()
+				.verify();
+	}
+
 	@Override
 	@Test
 	public void decodeToMono() {
@@ -111,7 +111,11 @@ public abstract class AbstractDataBufferAllocatingTests {
 	}
 
 	private void verifyAllocations() {
-		if (this.bufferFactory instanceof NettyDataBufferFactory) {
+		if (this.bufferFactory instanceof PooledDataBufferFactory) {
+			long usedMemory = ((PooledDataBufferFactory) this.bufferFactory).getUsedMemory();
+			assertThat(usedMemory).as("DataBuffer Leak: " + usedMemory + " bytes unreleased").isEqualTo(0);
+		}
+		else if (this.bufferFactory instanceof NettyDataBufferFactory) {
 			ByteBufAllocator allocator = ((NettyDataBufferFactory) this.bufferFactory).getByteBufAllocator();
 			if (allocator instanceof PooledByteBufAllocator) {
 				Instant start = Instant.now();
@@ -162,7 +166,11 @@ public abstract class AbstractDataBufferAllocatingTests {
 			arguments("DefaultDataBufferFactory - preferDirect = true",
 					new DefaultDataBufferFactory(true)),
 			arguments("DefaultDataBufferFactory - preferDirect = false",
-					new DefaultDataBufferFactory(false))
+					new DefaultDataBufferFactory(false)),
+			arguments("PooledDataBufferFactory - preferDirect = true",
+					new PooledDataBufferFactory(true)),
+			arguments("PooledDataBufferFactory - preferDirect = false",
+					new PooledDataBufferFactory(false))
 		);
 	}
 
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author Agent
+ */
+class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory factory = new PooledDataBufferFactory();
+
+
+	@Test
+	void composeWithoutCopying() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		DataBuffer joined = this.factory.compose(Arrays.asList(foo, bar));
+
+		assertThat(joined).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(((CompositeDataBuffer) joined).getComponentCount()).isEqualTo(2);
+		assertThat(joined.readableByteCount()).isEqualTo(6);
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+
+		foo.asByteBuffer().put(0, (byte) 'F');
+		assertThat(joined.getByte(0)).isEqualTo((byte) 'F');
+
+		assertThat(DataBufferUtils.release(joined)).isTrue();
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void composeSingleBuffer() {
+		DataBuffer foo = stringBuffer("foo");
+		assertThat(this.factory.compose(Arrays.asList(foo))).isSameAs(foo);
+		DataBufferUtils.release(foo);
+	}
+
+	@Test
+	void joinCopies() {
+		DefaultDataBuffer joined = this.factory.join(Arrays.asList(stringBuffer("foo"), stringBuffer("bar")));
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void dataBufferUtilsJoinComposes() {
+		DataBuffer joined = DataBufferUtils.join(Flux.just(stringBuffer("foo"), stringBuffer("bar"))).block();
+		assertThat(joined).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void readAcrossComponents() {
+		DataBuffer joined = compose("ab", "", "cde", "f");
+		assertThat(joined.read()).isEqualTo((byte) 'a');
+		byte[] bytes = new byte[4];
+		joined.read(bytes);
+		assertThat(bytes).isEqualTo("bcde".getBytes(StandardCharsets.UTF_8));
+		assertThat(joined.readableByteCount()).isEqualTo(1);
+		assertThat(joined.getByte(5)).isEqualTo((byte) 'f');
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> joined.getByte(6));
+		DataBufferUtils.release(joined);
+	}
+
+	@Test
+	void indexOf() {
+		DataBuffer joined = compose("ab", "cd", "cd");
+		assertThat(joined.indexOf(b -> b == 'c', 0)).isEqualTo(2);
+		assertThat(joined.indexOf(b -> b == 'c', 3)).isEqualTo(4);
+		assertThat(joined.indexOf(b -> b == 'x', 0)).isEqualTo(-1);
+		assertThat(joined.lastIndexOf(b -> b == 'c', 5)).isEqualTo(4);
+		assertThat(joined.lastIndexOf(b -> b == 'c', 3)).isEqualTo(2);
+		assertThat(joined.lastIndexOf(b -> b == 'a', 5)).isEqualTo(0);
+
+		joined.writePosition(3);
+		assertThat(joined.indexOf(b -> b == 'd', 0)).isEqualTo(-1);
+		DataBufferUtils.release(joined);
+	}
+
+	@Test
+	void asByteBuffer() {
+		DataBuffer joined = compose("foo", "bar");
+
+		ByteBuffer shared = joined.asByteBuffer(3, 3);
+		shared.put(0, (byte) 'B');
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("fooBar");
+
+		ByteBuffer spanning = joined.asByteBuffer(2, 2);
+		assertThat(spanning.get(0)).isEqualTo((byte) 'o');
+		assertThat(spanning.get(1)).isEqualTo((byte) 'B');
+
+		joined.readPosition(1);
+		ByteBuffer[] byteBuffers = ((CompositeDataBuffer) joined).asByteBuffers();
+		assertThat(byteBuffers).hasSize(2);
+		assertThat(byteBuffers[0].remaining()).isEqualTo(2);
+		assertThat(byteBuffers[1].remaining()).isEqualTo(3);
+		DataBufferUtils.release(joined);
+	}
+
+	@Test
+	void asInputStream() throws Exception {
+		DataBuffer joined = compose("foo", "bar", "baz");
+		joined.read();
+		InputStream inputStream = joined.asInputStream(true);
+		assertThat(StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8)).isEqualTo("oobarbaz");
+		inputStream.close();
+		assertThat(((PooledDataBuffer) joined).isAllocated()).isFalse();
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void slice() {
+		DataBuffer joined = compose("foo", "bar", "baz");
+		DataBuffer slice = joined.retainedSlice(2, 5);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("obarb");
+		assertThat(slice.indexOf(b -> b == 'b', 2)).isEqualTo(4);
+
+		DataBuffer nested = slice.slice(1, 3);
+		assertThat(nested.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> nested.capacity(10));
+
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isGreaterThan(0);
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void writeExpandsWithComponent() {
+		DataBuffer joined = compose("foo", "bar");
+		joined.write(" and baz", StandardCharsets.UTF_8);
+		joined.write((byte) '!');
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar and baz!");
+		assertThat(((CompositeDataBuffer) joined).getComponentCount()).isEqualTo(4);
+
+		joined.writePosition(1);
+		joined.write("OOBA".getBytes(StandardCharsets.UTF_8));
+		joined.writePosition(15);
+		assertThat(joined.toString(0, 6, StandardCharsets.UTF_8)).isEqualTo("fOOBAr");
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void truncateCapacity() {
+		DataBuffer joined = compose("foo", "bar");
+		joined.capacity(4);
+		assertThat(joined.capacity()).isEqualTo(4);
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foob");
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void composeComposites() {
+		DataBuffer first = compose("a", "b");
+		first.read();
+		DataBuffer joined = this.factory.compose(Arrays.asList(first, compose("c", "d")));
+		assertThat(((CompositeDataBuffer) joined).getComponentCount()).isEqualTo(3);
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("bcd");
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+
+	private DataBuffer compose(String... values) {
+		return this.factory.compose(Arrays.stream(values).map(this::stringBuffer).collect(Collectors.toList()));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		DataBuffer buffer = this.factory.allocateBuffer(bytes.length);
+		buffer.write(bytes);
+		return buffer;
+	}
+
+}
@@ -31,6 +31,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
@@ -249,6 +250,104 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedPath(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), 0, super.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedResourcePosition(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource, 7, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("azq"))
+				.consumeNextWith(stringConsumer("ux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedByteArrayResource(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Resource resource = new ByteArrayResource("foobarbazqux" .getBytes());
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(resource, 6, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("baz"))
+				.consumeNextWith(stringConsumer("qux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedCancel(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource, 0, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("foo"))
+				.thenCancel()
+				.verify();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedRetainedSliceAfterRelease(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		List<DataBuffer> buffers = DataBufferUtils.readMapped(path, 0, super.bufferFactory, 6, true)
+				.collectList().block(Duration.ofSeconds(5));
+		assertThat(buffers).hasSize(2);
+
+		DataBuffer first = buffers.get(0);
+		DataBuffer slice = first.retainedSlice(3, 3);
+		assertThat(DataBufferUtils.release(first)).isTrue();
+		assertThat(DataBufferUtils.release(buffers.get(1))).isTrue();
+		assertThat(((PooledDataBuffer) first).isAllocated()).isFalse();
+
+		// the region is still mapped while the retained slice is in use
+		assertThat(DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8)).isEqualTo("bar");
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedSliceSharesReferenceCount(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		DataBuffer buffer = DataBufferUtils.readMapped(path, 0, super.bufferFactory, 6, true)
+				.blockFirst(Duration.ofSeconds(5));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+		assertThat(DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8)).isEqualTo("bar");
+
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedByteBufferAfterRelease(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		List<DataBuffer> buffers = DataBufferUtils.readMapped(this.resource, 0, super.bufferFactory, 6)
+				.collectList().block(Duration.ofSeconds(5));
+		ByteBuffer byteBuffer = buffers.get(0).asByteBuffer();
+		buffers.forEach(DataBufferUtils::release);
+
+		// without explicit unmapping, the region stays mapped while the view is in use
+		byte[] bytes = new byte[byteBuffer.remaining()];
+		byteBuffer.get(bytes);
+		assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("foobar");
+	}
+
 	private void verifyReadData(Flux<DataBuffer> buffers) {
 		StepVerifier.create(buffers)
 				.consumeNextWith(stringConsumer("foo"))
@@ -889,6 +988,58 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 	}
 
 
+	@ParameterizedDataBufferAllocatingTest
+	void matcherLongBuffer(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		char[] chars = new char[100];
+		Arrays.fill(chars, 'x');
+		chars[37] = '\n';
+		chars[90] = '\n';
+		DataBuffer buffer = stringBuffer(new String(chars));
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher("\n".getBytes(StandardCharsets.UTF_8));
+		assertThat(matcher.match(buffer)).isEqualTo(37);
+		buffer.readPosition(38);
+		assertThat(matcher.match(buffer)).isEqualTo(90);
+		buffer.readPosition(91);
+		assertThat(matcher.match(buffer)).isEqualTo(-1);
+
+		release(buffer);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void matcherNonAsciiDelimiter(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		DataBuffer buffer = stringBuffer("abcdefghijklmnopqrstuvwxy\u00fcz");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher("\u00fc".getBytes(StandardCharsets.UTF_8));
+		assertThat(matcher.match(buffer)).isEqualTo(26);
+
+		release(buffer);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void matcherMultipleDelimiters(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		DataBuffer foo = stringBuffer("foo\nbar\r");
+		DataBuffer baz = stringBuffer("\nbaz");
+
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(
+				"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8));
+		assertThat(matcher.match(foo)).isEqualTo(3);
+		assertThat(matcher.delimiter()).isEqualTo("\n".getBytes(StandardCharsets.UTF_8));
+		foo.readPosition(4);
+		assertThat(matcher.match(foo)).isEqualTo(-1);
+		assertThat(matcher.match(baz)).isEqualTo(0);
+		assertThat(matcher.delimiter()).isEqualTo("\r\n".getBytes(StandardCharsets.UTF_8));
+
+		release(foo, baz);
+	}
+
+
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
 		@Override
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link LeakTrackingDataBufferFactory}.
+ *
+ * @author Agent
+ */
+class LeakTrackingDataBufferFactoryTests {
+
+	private final LeakTrackingDataBufferFactory factory =
+			new LeakTrackingDataBufferFactory(new DefaultDataBufferFactory(), 1);
+
+
+	@Test
+	void allocateAndRelease() {
+		DataBuffer buffer = this.factory.allocateBuffer(100);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.factory()).isSameAs(this.factory);
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(1);
+		assertThat(this.factory.getOutstandingBytes()).isEqualTo(100);
+
+		assertThat(buffer.write("foo", StandardCharsets.UTF_8)).isSameAs(buffer);
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(0);
+		assertThat(this.factory.getOutstandingBytes()).isEqualTo(0);
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+	}
+
+	@Test
+	void retainAndRelease() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.factory.wrap(new byte[] {'a', 'b'});
+		buffer.retain();
+		assertThat(buffer.release()).isFalse();
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(1);
+		assertThat(buffer.release()).isTrue();
+		assertThatIllegalStateException().isThrownBy(buffer::release);
+	}
+
+	@Test
+	void slicesShareReferenceCount() {
+		DataBuffer buffer = this.factory.allocateBuffer(16);
+		buffer.write("foobar", StandardCharsets.UTF_8);
+
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+		DataBufferUtils.release(buffer);
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(1);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void joinTakesOverInputBuffers() {
+		DataBuffer foo = this.factory.wrap("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.factory.wrap("bar".getBytes(StandardCharsets.UTF_8));
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(2);
+
+		DataBuffer joined = DataBufferUtils.join(Flux.just(foo, bar)).block();
+		assertThat(joined).isInstanceOf(PooledDataBuffer.class);
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(1);
+
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void joinRetainedSliceKeepsParentAllocated() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.factory.allocateBuffer(16);
+		buffer.write("foobar", StandardCharsets.UTF_8);
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+
+		DataBuffer joined = this.factory.join(Collections.singletonList(slice));
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+		assertThat(buffer.isAllocated()).isTrue();
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(2);
+
+		assertThat(buffer.release()).isTrue();
+		DataBufferUtils.release(joined);
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(0);
+	}
+
+	@Test
+	void joinSlicesOfNettyBuffer() {
+		LeakTrackingDataBufferFactory factory = new LeakTrackingDataBufferFactory(
+				new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT), 1);
+		DataBuffer buffer = factory.allocateBuffer(16);
+		ByteBuf byteBuf = ((NettyDataBuffer) ((LeakTrackingDataBuffer) buffer).dataBuffer()).getNativeBuffer();
+		buffer.write("foobar", StandardCharsets.UTF_8);
+
+		DataBuffer foo = buffer.retainedSlice(0, 3);
+		DataBuffer bar = buffer.retainedSlice(3, 3);
+		DataBufferUtils.release(buffer);
+
+		DataBuffer joined = factory.join(Arrays.asList(foo, bar));
+		assertThat(joined.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(factory.getOutstandingBufferCount()).isEqualTo(1);
+		assertThat(byteBuf.refCnt()).isEqualTo(2);
+
+		assertThat(DataBufferUtils.release(joined)).isTrue();
+		assertThat(factory.getOutstandingBufferCount()).isEqualTo(0);
+		assertThat(byteBuf.refCnt()).isEqualTo(0);
+	}
+
+	@Test
+	void reportLeak() throws Exception {
+		DataBuffer buffer = this.factory.allocateBuffer(64);
+		DataBufferUtils.touch(buffer, "reportLeak");
+		buffer = null;
+
+		for (int i = 0; i < 50 && this.factory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			this.factory.reportLeaks();
+		}
+		assertThat(this.factory.getLeakCount()).isEqualTo(1);
+		assertThat(this.factory.getOutstandingBufferCount()).isEqualTo(0);
+		assertThat(this.factory.getOutstandingBytes()).isEqualTo(0);
+	}
+
+	@Test
+	void releasedBufferNotReportedAsLeak() throws Exception {
+		DataBufferUtils.release(this.factory.allocateBuffer(64));
+
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(10);
+			this.factory.reportLeaks();
+		}
+		assertThat(this.factory.getLeakCount()).isEqualTo(0);
+	}
+
+	@Test
+	void touchRecordsHint() {
+		LeakTrackingDataBuffer buffer = (LeakTrackingDataBuffer) this.factory.allocateBuffer(16);
+		for (int i = 0; i < 10; i++) {
+			DataBufferUtils.touch(buffer, "hint" + i);
+		}
+		Throwable record = buffer.tracker().getAllocationRecord();
+		assertThat(record).isNotNull();
+		assertThat(Arrays.stream(record.getSuppressed()).map(Throwable::getMessage))
+				.hasSize(8).startsWith("Touched: hint2").endsWith("Touched: hint9");
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	void touchNonPooledBuffer() {
+		DataBuffer buffer = new DefaultDataBufferFactory().allocateBuffer(16);
+		assertThat(DataBufferUtils.touch(buffer, "hint")).isSameAs(buffer);
+	}
+
+}
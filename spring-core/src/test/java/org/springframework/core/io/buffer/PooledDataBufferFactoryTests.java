@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @author Agent
+ */
+class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory factory = new PooledDataBufferFactory(false, 16384, 32768);
+
+
+	@Test
+	void allocateAndReuse() {
+		DataBuffer buffer = this.factory.allocateBuffer(100);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(100);
+		assertThat(buffer.factory()).isSameAs(this.factory);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(256);
+		buffer.write("foo", StandardCharsets.UTF_8);
+
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+
+		DataBuffer reused = this.factory.allocateBuffer(200);
+		assertThat(reused.capacity()).isEqualTo(200);
+		assertThat(reused.readableByteCount()).isEqualTo(0);
+		assertThat(this.factory.getHitCount()).isEqualTo(1);
+		assertThat(this.factory.getMissCount()).isEqualTo(1);
+		assertThat(this.factory.getHitRate()).isEqualTo(0.5);
+		DataBufferUtils.release(reused);
+	}
+
+	@Test
+	void sizeClasses() {
+		DataBuffer small = this.factory.allocateBuffer(300);
+		DataBuffer large = this.factory.allocateBuffer(4000);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(512 + 4096);
+		DataBufferUtils.release(small);
+		DataBufferUtils.release(large);
+
+		DataBufferUtils.release(this.factory.allocateBuffer(4096));
+		DataBufferUtils.release(this.factory.allocateBuffer(512));
+		DataBufferUtils.release(this.factory.allocateBuffer(1024));
+		assertThat(this.factory.getHitCount()).isEqualTo(2);
+		assertThat(this.factory.getMissCount()).isEqualTo(3);
+	}
+
+	@Test
+	void largeBufferNotPooled() {
+		DataBuffer buffer = this.factory.allocateBuffer(20000);
+		assertThat(buffer.capacity()).isEqualTo(20000);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(20000);
+		DataBufferUtils.release(buffer);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+
+		DataBufferUtils.release(this.factory.allocateBuffer(20000));
+		assertThat(this.factory.getHitCount()).isEqualTo(0);
+		assertThat(this.factory.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void largerSizeClassesGoToSharedArena() throws Exception {
+		DataBuffer buffer = this.factory.allocateBuffer(16384);
+		CompletableFuture.runAsync(() -> DataBufferUtils.release(buffer)).get();
+		assertThat(this.factory.getPooledMemory()).isEqualTo(16384);
+
+		DataBuffer reused = this.factory.allocateBuffer(10000);
+		assertThat(this.factory.getPooledMemory()).isEqualTo(0);
+		assertThat(this.factory.getHitCount()).isEqualTo(1);
+		DataBufferUtils.release(reused);
+	}
+
+	@Test
+	void maxPoolSize() {
+		DataBuffer buffer1 = this.factory.allocateBuffer(16384);
+		DataBuffer buffer2 = this.factory.allocateBuffer(16384);
+		DataBuffer buffer3 = this.factory.allocateBuffer(16384);
+		DataBufferUtils.release(buffer1);
+		DataBufferUtils.release(buffer2);
+		DataBufferUtils.release(buffer3);
+		assertThat(this.factory.getPooledMemory()).isEqualTo(32768);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void slicesShareReferenceCount() {
+		DataBuffer buffer = this.factory.allocateBuffer(16);
+		buffer.write("foobar", StandardCharsets.UTF_8);
+
+		DataBuffer slice = buffer.retainedSlice(3, 3);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+		DataBufferUtils.release(buffer);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(256);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+	}
+
+	@Test
+	void expandedBufferReturnsOriginalMemory() {
+		DataBuffer buffer = this.factory.allocateBuffer(16);
+		buffer.write(new byte[1000]);
+		assertThat(buffer.capacity()).isGreaterThanOrEqualTo(1000);
+		DataBufferUtils.release(buffer);
+		assertThat(this.factory.getUsedMemory()).isEqualTo(0);
+
+		DataBufferUtils.release(this.factory.allocateBuffer(16));
+		assertThat(this.factory.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void releaseTwice() {
+		DataBuffer buffer = this.factory.allocateBuffer(16);
+		PooledDataBuffer pooledBuffer = (PooledDataBuffer) buffer;
+		assertThat(pooledBuffer.release()).isTrue();
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThatIllegalStateException().isThrownBy(pooledBuffer::release);
+	}
+
+}
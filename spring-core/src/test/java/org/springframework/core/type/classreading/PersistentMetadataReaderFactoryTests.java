@@ -0,0 +1,299 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentMetadataReaderFactory} and
+ * {@link SimpleAnnotationMetadataCodec}.
+ *
+ * @author Agent
+ */
+class PersistentMetadataReaderFactoryTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@Test
+	void indexedMetadataMatchesParsedMetadata() throws IOException {
+		File indexFile = this.tempDir.resolve("metadata.idx").toFile();
+		CountingResource resource = new CountingResource(AnnotatedComponent.class);
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		AnnotationMetadata parsed = factory.getMetadataReader(resource).getAnnotationMetadata();
+		factory.clearCache();
+		assertThat(indexFile).exists();
+		assertThat(resource.reads.get()).isEqualTo(1);
+
+		PersistentMetadataReaderFactory indexed = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		MetadataReader metadataReader = indexed.getMetadataReader(resource);
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		assertThat(resource.reads.get()).isEqualTo(1);
+		assertThat(metadataReader.getResource()).isSameAs(resource);
+
+		assertThat(metadata.getClassName()).isEqualTo(parsed.getClassName());
+		assertThat(metadata.isAbstract()).isEqualTo(parsed.isAbstract());
+		assertThat(metadata.isIndependent()).isEqualTo(parsed.isIndependent());
+		assertThat(metadata.getEnclosingClassName()).isEqualTo(parsed.getEnclosingClassName());
+		assertThat(metadata.getSuperClassName()).isEqualTo(parsed.getSuperClassName());
+		assertThat(metadata.getInterfaceNames()).containsExactly(parsed.getInterfaceNames());
+		assertThat(metadata.getMemberClassNames()).containsExactly(parsed.getMemberClassNames());
+		assertThat(metadata.getAnnotationTypes()).isEqualTo(parsed.getAnnotationTypes());
+		assertThat(metadata.hasMetaAnnotation(Marker.class.getName())).isTrue();
+		assertAttributesEqual(metadata.getAnnotationAttributes(Settings.class.getName(), true),
+				parsed.getAnnotationAttributes(Settings.class.getName(), true));
+		assertAttributesEqual(metadata.getAnnotationAttributes(Settings.class.getName(), false),
+				parsed.getAnnotationAttributes(Settings.class.getName(), false));
+
+		Set<MethodMetadata> methods = metadata.getAnnotatedMethods(Settings.class.getName());
+		assertThat(methods).hasSize(1);
+		MethodMetadata method = methods.iterator().next();
+		MethodMetadata parsedMethod = parsed.getAnnotatedMethods(Settings.class.getName()).iterator().next();
+		assertThat(method.getMethodName()).isEqualTo("process");
+		assertThat(method.getReturnTypeName()).isEqualTo(parsedMethod.getReturnTypeName());
+		assertThat(method.isStatic()).isEqualTo(parsedMethod.isStatic());
+		assertThat(method.isFinal()).isEqualTo(parsedMethod.isFinal());
+		assertAttributesEqual(method.getAnnotationAttributes(Settings.class.getName(), true),
+				parsedMethod.getAnnotationAttributes(Settings.class.getName(), true));
+	}
+
+	@Test
+	void staleEntryIsParsedAgain() throws IOException {
+		File indexFile = this.tempDir.resolve("metadata.idx").toFile();
+		CountingResource resource = new CountingResource(AnnotatedComponent.class);
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		factory.getMetadataReader(resource);
+		factory.writeIndex();
+		long written = indexFile.lastModified();
+
+		resource.lastModifiedOffset = TimeUnit.SECONDS.toMillis(1);
+		PersistentMetadataReaderFactory stale = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		AnnotationMetadata metadata = stale.getMetadataReader(resource).getAnnotationMetadata();
+		assertThat(resource.reads.get()).isEqualTo(2);
+		assertThat(metadata.isAnnotated(Settings.class.getName())).isTrue();
+
+		stale.clearCache();
+		PersistentMetadataReaderFactory refreshed = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		refreshed.getMetadataReader(resource);
+		assertThat(resource.reads.get()).isEqualTo(2);
+		assertThat(indexFile.lastModified()).isGreaterThanOrEqualTo(written);
+	}
+
+	@Test
+	void unreadableIndexIsRebuilt() throws IOException {
+		File indexFile = this.tempDir.resolve("metadata.idx").toFile();
+		Files.write(indexFile.toPath(), new byte[] {1, 2, 3});
+		CountingResource resource = new CountingResource(AnnotatedComponent.class);
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		assertThat(factory.getMetadataReader(resource).getAnnotationMetadata().getClassName())
+				.isEqualTo(AnnotatedComponent.class.getName());
+		factory.clearCache();
+
+		PersistentMetadataReaderFactory indexed = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		indexed.getMetadataReader(resource);
+		assertThat(resource.reads.get()).isEqualTo(1);
+	}
+
+	@Test
+	void entriesAddedWhileWritingAreNotLost() throws Exception {
+		File indexFile = this.tempDir.resolve("metadata.idx").toFile();
+		List<CountingResource> resources = Stream.of(Assert.class, ClassUtils.class, CollectionUtils.class,
+				FileCopyUtils.class, ObjectUtils.class, ReflectionUtils.class, StreamUtils.class, StringUtils.class)
+				.map(CountingResource::new)
+				.collect(Collectors.toList());
+
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> reading = executor.submit(() -> {
+				for (CountingResource resource : resources) {
+					factory.getMetadataReader(resource);
+				}
+				return null;
+			});
+			while (!reading.isDone()) {
+				factory.writeIndex();
+			}
+			reading.get();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		factory.writeIndex();
+
+		PersistentMetadataReaderFactory indexed = new PersistentMetadataReaderFactory(indexFile, getClass().getClassLoader());
+		for (CountingResource resource : resources) {
+			indexed.getMetadataReader(resource);
+			assertThat(resource.reads.get()).as(resource.getPath()).isEqualTo(1);
+		}
+	}
+
+	private static void assertAttributesEqual(Map<String, Object> actual, Map<String, Object> expected) {
+		assertThat(actual).isNotNull();
+		assertThat(actual.keySet()).isEqualTo(expected.keySet());
+		actual.forEach((name, value) -> {
+			Object expectedValue = expected.get(name);
+			if (value instanceof Map[]) {
+				assertThat((Map<?, ?>[]) value).hasSameSizeAs((Map<?, ?>[]) expectedValue);
+				for (int i = 0; i < ((Map<?, ?>[]) value).length; i++) {
+					assertThat(((Map<?, ?>[]) value)[i].toString())
+							.isEqualTo(((Map<?, ?>[]) expectedValue)[i].toString());
+				}
+			}
+			else if (value instanceof Map) {
+				assertThat(value.toString()).isEqualTo(expectedValue.toString());
+			}
+			else if (value instanceof Object[]) {
+				assertThat(Arrays.deepEquals((Object[]) value, (Object[]) expectedValue)).isTrue();
+			}
+			else {
+				assertThat(value).isEqualTo(expectedValue);
+			}
+		});
+	}
+
+
+	private static class CountingResource extends ClassPathResource {
+
+		final AtomicInteger reads = new AtomicInteger();
+
+		long lastModifiedOffset;
+
+		CountingResource(Class<?> type) {
+			super(ClassUtils.convertClassNameToResourcePath(type.getName()) + ClassUtils.CLASS_FILE_SUFFIX,
+					type.getClassLoader());
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			this.reads.incrementAndGet();
+			return super.getInputStream();
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return super.lastModified() + this.lastModifiedOffset;
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+
+	enum Mode {
+
+		FAST, SAFE
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Marker {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Nested {
+
+		String value() default "";
+
+		Mode mode() default Mode.FAST;
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Marker
+	@interface Settings {
+
+		String name() default "";
+
+		int[] sizes() default {};
+
+		char separator() default ',';
+
+		double ratio() default 0.5;
+
+		Mode mode() default Mode.FAST;
+
+		Mode[] modes() default {};
+
+		Class<?> type() default Void.class;
+
+		Class<?>[] types() default {};
+
+		Nested nested() default @Nested;
+
+		Nested[] nestedArray() default {};
+	}
+
+
+	@Settings(name = "component", sizes = {1, 2}, separator = ';', ratio = 1.5, mode = Mode.SAFE,
+			modes = {Mode.SAFE, Mode.FAST}, type = String.class, types = {Integer.class, Long.class},
+			nested = @Nested(value = "n", mode = Mode.SAFE), nestedArray = {@Nested("a"), @Nested("b")})
+	static class AnnotatedComponent implements Runnable {
+
+		@Override
+		public void run() {
+		}
+
+		@Settings(name = "method", nestedArray = {})
+		public static final String process() {
+			return "";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.beans.factory.support.DefaultSingletonBeanRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
 import org.springframework.messaging.handler.annotation.support.MessageHandlerMethodFactory;
@@ -59,6 +60,9 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 
 	private Object mutex = this.endpointDescriptors;
 
+	/** Whether to resolve container factories outside of the mutex. */
+	private boolean concurrentSingletonCreation;
+
 
 	/**
 	 * Set the {@link JmsListenerEndpointRegistry} instance to use.
@@ -124,7 +128,13 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
-		if (beanFactory instanceof ConfigurableBeanFactory) {
+		if (beanFactory instanceof DefaultSingletonBeanRegistry &&
+				((DefaultSingletonBeanRegistry) beanFactory).isConcurrentSingletonCreation()) {
+			// The singleton mutex does not guard singleton creation then: keep our own
+			// mutex, never holding it while resolving a container factory bean...
+			this.concurrentSingletonCreation = true;
+		}
+		else if (beanFactory instanceof ConfigurableBeanFactory) {
 			this.mutex = ((ConfigurableBeanFactory) beanFactory).getSingletonMutex();
 		}
 	}
@@ -137,12 +147,26 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 
 	protected void registerAllEndpoints() {
 		Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
-		synchronized (this.mutex) {
-			for (JmsListenerEndpointDescriptor descriptor : this.endpointDescriptors) {
+		if (this.concurrentSingletonCreation) {
+			// Resolve container factories outside of the mutex, since they may have to be created
+			List<JmsListenerEndpointDescriptor> descriptors;
+			synchronized (this.mutex) {
+				descriptors = new ArrayList<>(this.endpointDescriptors);
+				this.startImmediately = true;  // trigger immediate startup
+			}
+			for (JmsListenerEndpointDescriptor descriptor : descriptors) {
 				this.endpointRegistry.registerListenerContainer(
 						descriptor.endpoint, resolveContainerFactory(descriptor));
 			}
-			this.startImmediately = true;  // trigger immediate startup
+		}
+		else {
+			synchronized (this.mutex) {
+				for (JmsListenerEndpointDescriptor descriptor : this.endpointDescriptors) {
+					this.endpointRegistry.registerListenerContainer(
+							descriptor.endpoint, resolveContainerFactory(descriptor));
+				}
+				this.startImmediately = true;  // trigger immediate startup
+			}
 		}
 	}
 
@@ -180,14 +204,30 @@ public class JmsListenerEndpointRegistrar implements BeanFactoryAware, Initializ
 		// Factory may be null, we defer the resolution right before actually creating the container
 		JmsListenerEndpointDescriptor descriptor = new JmsListenerEndpointDescriptor(endpoint, factory);
 
-		synchronized (this.mutex) {
-			if (this.startImmediately) {  // register and start immediately
+		if (this.concurrentSingletonCreation) {
+			boolean startImmediately;
+			synchronized (this.mutex) {
+				startImmediately = this.startImmediately;
+				if (!startImmediately) {
+					this.endpointDescriptors.add(descriptor);
+				}
+			}
+			if (startImmediately) {  // register and start immediately, outside of the mutex
 				Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
 				this.endpointRegistry.registerListenerContainer(descriptor.endpoint,
 						resolveContainerFactory(descriptor), true);
 			}
-			else {
-				this.endpointDescriptors.add(descriptor);
+		}
+		else {
+			synchronized (this.mutex) {
+				if (this.startImmediately) {  // register and start immediately
+					Assert.state(this.endpointRegistry != null, "No JmsListenerEndpointRegistry set");
+					this.endpointRegistry.registerListenerContainer(descriptor.endpoint,
+							resolveContainerFactory(descriptor), true);
+				}
+				else {
+					this.endpointDescriptors.add(descriptor);
+				}
 			}
 		}
 	}
@@ -16,9 +16,14 @@
 
 package org.springframework.jms.config;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.support.StaticListableBeanFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -100,4 +105,35 @@ public class JmsListenerEndpointRegistrarTests {
 		assertThat(this.registry.getListenerContainerIds().iterator().next()).isEqualTo("myEndpoint");
 	}
 
+	@Test
+	public void containerFactoryResolvedWithinSingletonMutex() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		assertThat(isContainerFactoryResolvedWithinSingletonMutex(beanFactory)).isTrue();
+	}
+
+	@Test
+	public void containerFactoryResolvedOutsideOfSingletonMutexWithConcurrentSingletonCreation() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setConcurrentSingletonCreation(true);
+		assertThat(isContainerFactoryResolvedWithinSingletonMutex(beanFactory)).isFalse();
+	}
+
+	private boolean isContainerFactoryResolvedWithinSingletonMutex(DefaultListableBeanFactory beanFactory) {
+		AtomicBoolean holdsMutex = new AtomicBoolean();
+		beanFactory.registerBeanDefinition("containerFactory", new RootBeanDefinition(
+				JmsListenerContainerTestFactory.class, BeanDefinition.SCOPE_PROTOTYPE, () -> {
+					holdsMutex.set(Thread.holdsLock(beanFactory.getSingletonMutex()));
+					return this.containerFactory;
+				}));
+		this.registrar.setBeanFactory(beanFactory);
+		this.registrar.setContainerFactoryBeanName("containerFactory");
+		SimpleJmsListenerEndpoint endpoint = new SimpleJmsListenerEndpoint();
+		endpoint.setId("some id");
+		this.registrar.registerEndpoint(endpoint);
+		this.registrar.afterPropertiesSet();
+
+		assertThat(this.registry.getListenerContainer("some id")).as("Container not created").isNotNull();
+		return holdsMutex.get();
+	}
+
 }
@@ -84,6 +84,15 @@ public class SimpMessageHeaderAccessor extends NativeMessageHeaderAccessor {
 	 */
 	public static final String IGNORE_ERROR = "simpIgnoreError";
 
+	/**
+	 * A header for internal use with broadcasts from the simple broker, through
+	 * which the messages for the individual subscriptions share a cache for the
+	 * encoded form of the content they have in common.
+	 * @since 5.2
+	 * @see org.springframework.messaging.simp.broker.BroadcastEncodingCache
+	 */
+	public static final String BROADCAST_ENCODING_CACHE = "simpBroadcastEncodingCache";
+
 
 	@Nullable
 	private Consumer<Principal> userCallback;
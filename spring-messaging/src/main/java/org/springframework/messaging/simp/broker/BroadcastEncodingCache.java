@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache for the encoded form of the content that the messages for the
+ * subscriptions of a single broadcast have in common, e.g. the payload and
+ * all headers other than the subscription id, so that an encoder such as
+ * {@link org.springframework.messaging.simp.stomp.StompEncoder StompEncoder}
+ * can encode it once rather than once per subscription.
+ *
+ * <p>{@link SimpleBrokerMessageHandler} shares an instance between the messages
+ * of a broadcast through the
+ * {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#BROADCAST_ENCODING_CACHE
+ * BROADCAST_ENCODING_CACHE} header. Encoders must still check that a message
+ * matches the cached encoding, since the messages may have been modified, e.g.
+ * by a {@link org.springframework.messaging.support.ChannelInterceptor
+ * ChannelInterceptor} on the client outbound channel.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+public final class BroadcastEncodingCache {
+
+	private final Map<Object, Object> encodings = new ConcurrentHashMap<>(2);
+
+
+	/**
+	 * Return the encoding for the given key, computing it on first access.
+	 * @param key the key for the encoding, typically the encoder itself
+	 * @param encodingFunction the function to compute the encoding with
+	 * @return the cached or computed encoding
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getEncoding(Object key, Function<Object, ? extends T> encodingFunction) {
+		return (T) this.encodings.computeIfAbsent(key, encodingFunction);
+	}
+
+
+	@Override
+	public String toString() {
+		return "BroadcastEncodingCache[" + this.encodings.size() + " encoding(s)]";
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,6 @@
 package org.springframework.messaging.simp.broker;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -51,6 +48,10 @@ import org.springframework.util.StringUtils;
  * in memory and uses a {@link org.springframework.util.PathMatcher PathMatcher}
  * for matching destinations.
  *
+ * <p>As of 5.2, destinations are resolved through an index of the registered
+ * destination patterns by path segment, rather than by matching every pattern
+ * and caching the result. See {@link SubscriptionIndex} for details.
+ *
  * <p>As of 4.2, this class supports a {@link #setSelectorHeaderName selector}
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
@@ -62,7 +63,10 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
-	/** Default maximum number of entries for the destination cache: 1024. */
+	/**
+	 * Default maximum number of entries for the destination cache: 1024.
+	 * <p>As of 5.2, no such cache is in use anymore.
+	 */
 	public static final int DEFAULT_CACHE_LIMIT = 1024;
 
 	/** Static evaluation context to reuse. */
@@ -81,7 +85,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final ExpressionParser expressionParser = new SpelExpressionParser();
 
-	private final DestinationCache destinationCache = new DestinationCache();
+	private volatile SubscriptionIndex subscriptionIndex = new SubscriptionIndex(this.pathMatcher);
 
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
@@ -91,6 +95,16 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		// Re-index existing subscriptions, if any, for the new PathMatcher
+		SubscriptionIndex subscriptionIndex = new SubscriptionIndex(pathMatcher);
+		for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+			for (String destination : info.getDestinations()) {
+				for (Subscription sub : info.getSubscriptions(destination)) {
+					subscriptionIndex.addSubscription(destination, info.getSessionId(), sub.getId());
+				}
+			}
+		}
+		this.subscriptionIndex = subscriptionIndex;
 	}
 
 	/**
@@ -103,6 +117,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/**
 	 * Specify the maximum number of entries for the resolved destination cache.
 	 * Default is 1024.
+	 * <p>As of 5.2, destinations are resolved through an index rather than
+	 * a cache, and this setting has no effect anymore. It is retained for
+	 * compatibility with existing configuration.
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
@@ -149,7 +166,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
 		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
-		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		this.subscriptionIndex.addSubscription(destination, sessionId, subsId);
 	}
 
 	@Nullable
@@ -181,7 +198,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
-				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
+				this.subscriptionIndex.removeSubscription(destination, sessionId, subsId);
 			}
 		}
 	}
@@ -190,13 +207,16 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
-			this.destinationCache.updateAfterRemovedSession(info);
+			SubscriptionIndex subscriptionIndex = this.subscriptionIndex;
+			for (String destination : info.getDestinations()) {
+				subscriptionIndex.removeSubscriptions(destination, sessionId);
+			}
 		}
 	}
 
 	@Override
 	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
-		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination, message);
+		MultiValueMap<String, String> result = this.subscriptionIndex.findSubscriptions(destination);
 		return filterSubscriptions(result, message);
 	}
 
@@ -242,124 +262,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
-	}
-
-
-	/**
-	 * A cache for destinations previously resolved via
-	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}.
-	 */
-	private class DestinationCache {
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} for fast look-ups. */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
-				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} with locking. */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-				};
-
-
-		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
-			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
-			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
-						}
-					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
-					}
-				}
-			}
-			return result;
-		}
-
-		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				this.updateCache.forEach((cachedDestination, subscriptions) -> {
-					if (getPathMatcher().match(destination, cachedDestination)) {
-						// Subscription id's may also be populated via getSubscriptions()
-						List<String> subsForSession = subscriptions.get(sessionId);
-						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subscriptions.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subscriptions.deepCopy());
-						}
-					}
-				});
-			}
-		}
-
-		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					List<String> subscriptions = sessionMap.get(sessionId);
-					if (subscriptions != null) {
-						subscriptions.remove(subsId);
-						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
-						}
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
-					}
-				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
-			}
-		}
-
-		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
-					}
-				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
-			}
-		}
-
-		@Override
-		public String toString() {
-			return "cache[" + this.accessCache.size() + " destination(s)]";
-		}
+		return "DefaultSubscriptionRegistry[" + this.subscriptionIndex + ", " + this.subscriptionRegistry + "]";
 	}
 
 
@@ -385,31 +385,32 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
 		long now = System.currentTimeMillis();
+		BroadcastEncodingCache encodingCache = new BroadcastEncodingCache();
 		subscriptions.forEach((sessionId, subscriptionIds) -> {
+			SessionInfo info = this.sessions.get(sessionId);
+			if (info == null) {
+				return;
+			}
 			for (String subscriptionId : subscriptionIds) {
 				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
 				initHeaders(headerAccessor);
 				headerAccessor.setSessionId(sessionId);
 				headerAccessor.setSubscriptionId(subscriptionId);
+				headerAccessor.setHeader(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE, encodingCache);
 				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
 				headerAccessor.setLeaveMutable(true);
 				Object payload = message.getPayload();
 				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
-				SessionInfo info = this.sessions.get(sessionId);
-				if (info != null) {
-					try {
-						info.getClientOutboundChannel().send(reply);
-					}
-					catch (Throwable ex) {
-						if (logger.isErrorEnabled()) {
-							logger.error("Failed to send " + message, ex);
-						}
-					}
-					finally {
-						info.setLastWriteTime(now);
+				try {
+					info.getClientOutboundChannel().send(reply);
+				}
+				catch (Throwable ex) {
+					if (logger.isErrorEnabled()) {
+						logger.error("Failed to send " + message, ex);
 					}
 				}
 			}
+			info.setLastWriteTime(now);
 		});
 	}
 
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index from destination patterns to the subscriptions registered for them,
+ * used by {@link DefaultSubscriptionRegistry} to resolve a destination without
+ * matching it against every registered pattern.
+ *
+ * <p>Patterns are kept in a trie with one level per path segment, and with a
+ * separate branch for "*" segments. A pattern that consists of literal and
+ * "*" segments only is matched through its position in the trie alone. Any
+ * other pattern, e.g. with "**", "?", or wildcards within a segment, is kept
+ * at the node for its longest such prefix, and is matched through the
+ * {@link PathMatcher} for destinations that reach that node. Resolving a
+ * destination therefore takes time proportional to the number of segments,
+ * the number of wildcard branches taken, and the number of subscriptions found.
+ *
+ * <p>Look-ups are lock-free. Adding or removing a subscription locks the trie
+ * nodes along the pattern, one at a time, and nodes that become empty are
+ * removed again.
+ *
+ * <p>Segments are indexed for an {@link AntPathMatcher} with "/" or "." as
+ * path separator and with case-sensitive, untrimmed matching. For any other
+ * {@code PathMatcher}, all patterns are kept at the root of the trie and are
+ * matched through the {@code PathMatcher}.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+final class SubscriptionIndex {
+
+	private static final String WILDCARD_SEGMENT = "*";
+
+
+	private final PathMatcher pathMatcher;
+
+	@Nullable
+	private final String pathSeparator;
+
+	private final Node root = new Node();
+
+	private final AtomicInteger patternCount = new AtomicInteger();
+
+
+	SubscriptionIndex(PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+		this.pathSeparator = determinePathSeparator(pathMatcher);
+	}
+
+	/**
+	 * Determine the separator to index segments by, or {@code null} if the
+	 * given {@code PathMatcher} cannot be assumed to match segment by segment.
+	 */
+	@Nullable
+	private static String determinePathSeparator(PathMatcher pathMatcher) {
+		if (pathMatcher.getClass() != AntPathMatcher.class ||
+				pathMatcher.match("/A", "/a") || pathMatcher.match("/a", "/ a")) {
+			return null;
+		}
+		boolean slash = pathMatcher.match("*", "a/b");
+		boolean dot = pathMatcher.match("*", "a.b");
+		if (dot && !slash) {
+			return "/";
+		}
+		else if (slash && !dot) {
+			return ".";
+		}
+		return null;
+	}
+
+
+	/**
+	 * Add a subscription for the given destination pattern.
+	 */
+	public void addSubscription(String pattern, String sessionId, String subscriptionId) {
+		String[] segments = tokenize(pattern);
+		int depth = getIndexedDepth(segments);
+		boolean matchedByPath = (this.pathSeparator != null && depth == segments.length);
+		while (true) {
+			Node node = this.root;
+			for (int i = 0; i < depth && node != null; i++) {
+				node = node.getOrCreateChild(segments[i]);
+			}
+			// Retry if a node on the way has been removed concurrently
+			if (node != null && node.addSubscription(pattern, matchedByPath, sessionId, subscriptionId)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Remove a subscription for the given destination pattern.
+	 */
+	public void removeSubscription(String pattern, String sessionId, String subscriptionId) {
+		removeSubscriptions(pattern, sessionId, subscriptionId);
+	}
+
+	/**
+	 * Remove all subscriptions of a session for the given destination pattern.
+	 */
+	public void removeSubscriptions(String pattern, String sessionId) {
+		removeSubscriptions(pattern, sessionId, null);
+	}
+
+	private void removeSubscriptions(String pattern, String sessionId, @Nullable String subscriptionId) {
+		String[] segments = tokenize(pattern);
+		int depth = getIndexedDepth(segments);
+		Node[] path = new Node[depth + 1];
+		path[0] = this.root;
+		for (int i = 0; i < depth; i++) {
+			Node child = path[i].getChild(segments[i]);
+			if (child == null) {
+				return;
+			}
+			path[i + 1] = child;
+		}
+		if (path[depth].removeSubscriptions(pattern, sessionId, subscriptionId)) {
+			for (int i = depth; i > 0; i--) {
+				if (!path[i - 1].removeChildIfEmpty(segments[i - 1], path[i])) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the subscriptions for the given destination.
+	 * @return a new map from session id to subscription ids
+	 */
+	public MultiValueMap<String, String> findSubscriptions(String destination) {
+		MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+		collectSubscriptions(this.root, tokenize(destination), 0, destination, result);
+		return result;
+	}
+
+	private void collectSubscriptions(Node node, String[] segments, int index,
+			String destination, MultiValueMap<String, String> result) {
+
+		for (PatternSubscriptions subscriptions : node.subscriptions.values()) {
+			if (subscriptions.isMatchedByPath() ?
+					(index == segments.length && hasSameBoundaries(subscriptions.getPattern(), destination)) :
+					this.pathMatcher.match(subscriptions.getPattern(), destination)) {
+				subscriptions.addTo(result);
+			}
+		}
+		Node wildcardChild = node.wildcardChild;
+		if (index < segments.length) {
+			Node child = node.children.get(segments[index]);
+			if (child != null) {
+				collectSubscriptions(child, segments, index + 1, destination, result);
+			}
+			if (wildcardChild != null && matchesWildcard(segments[index])) {
+				collectSubscriptions(wildcardChild, segments, index + 1, destination, result);
+			}
+		}
+		else if (wildcardChild != null && this.pathSeparator != null && destination.endsWith(this.pathSeparator)) {
+			// AntPathMatcher: a trailing "*" segment also matches a trailing separator
+			for (PatternSubscriptions subscriptions : wildcardChild.subscriptions.values()) {
+				if (subscriptions.isMatchedByPath() &&
+						subscriptions.getPattern().startsWith(this.pathSeparator) ==
+								destination.startsWith(this.pathSeparator)) {
+					subscriptions.addTo(result);
+				}
+			}
+		}
+	}
+
+	private String[] tokenize(String path) {
+		if (this.pathSeparator == null) {
+			return new String[0];
+		}
+		return StringUtils.tokenizeToStringArray(path, this.pathSeparator, false, true);
+	}
+
+	/**
+	 * Return the number of leading segments that can be represented in the
+	 * trie, i.e. literal segments and "*" segments.
+	 */
+	private static int getIndexedDepth(String[] segments) {
+		for (int i = 0; i < segments.length; i++) {
+			String segment = segments[i];
+			if (!WILDCARD_SEGMENT.equals(segment) &&
+					(segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1)) {
+				return i;
+			}
+		}
+		return segments.length;
+	}
+
+	/**
+	 * Whether pattern and destination agree on a leading and on a trailing
+	 * separator, which AntPathMatcher takes into account for a full match.
+	 */
+	private boolean hasSameBoundaries(String pattern, String destination) {
+		return (this.pathSeparator == null ||
+				(pattern.startsWith(this.pathSeparator) == destination.startsWith(this.pathSeparator) &&
+						pattern.endsWith(this.pathSeparator) == destination.endsWith(this.pathSeparator)));
+	}
+
+	/**
+	 * Whether a "*" segment matches the given segment: AntPathMatcher matches
+	 * "*" against a regular expression ".*", which excludes line terminators.
+	 */
+	private static boolean matchesWildcard(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	@Override
+	public String toString() {
+		return "index[" + this.patternCount.get() + " destination pattern(s)]";
+	}
+
+
+	/**
+	 * Trie node for a path segment. Modifications are synchronized on the node,
+	 * while look-ups only read the concurrent maps and the volatile fields.
+	 */
+	private final class Node {
+
+		private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>(4);
+
+		@Nullable
+		private volatile Node wildcardChild;
+
+		/** Subscriptions by the pattern they were registered with. */
+		private final ConcurrentMap<String, PatternSubscriptions> subscriptions = new ConcurrentHashMap<>(4);
+
+		/** Whether this node has been detached from its parent, guarded by this node. */
+		private boolean removed;
+
+		@Nullable
+		Node getChild(String segment) {
+			return (WILDCARD_SEGMENT.equals(segment) ? this.wildcardChild : this.children.get(segment));
+		}
+
+		@Nullable
+		synchronized Node getOrCreateChild(String segment) {
+			if (this.removed) {
+				return null;
+			}
+			if (WILDCARD_SEGMENT.equals(segment)) {
+				Node child = this.wildcardChild;
+				if (child == null) {
+					child = new Node();
+					this.wildcardChild = child;
+				}
+				return child;
+			}
+			return this.children.computeIfAbsent(segment, key -> new Node());
+		}
+
+		synchronized boolean addSubscription(
+				String pattern, boolean matchedByPath, String sessionId, String subscriptionId) {
+
+			if (this.removed) {
+				return false;
+			}
+			PatternSubscriptions patternSubscriptions = this.subscriptions.get(pattern);
+			if (patternSubscriptions == null) {
+				patternSubscriptions = new PatternSubscriptions(pattern, matchedByPath);
+				this.subscriptions.put(pattern, patternSubscriptions);
+				patternCount.incrementAndGet();
+			}
+			patternSubscriptions.add(sessionId, subscriptionId);
+			return true;
+		}
+
+		/**
+		 * Remove the given subscription, or all subscriptions of the session.
+		 * @return whether this node has become empty
+		 */
+		synchronized boolean removeSubscriptions(String pattern, String sessionId, @Nullable String subscriptionId) {
+			PatternSubscriptions patternSubscriptions = this.subscriptions.get(pattern);
+			if (patternSubscriptions != null && patternSubscriptions.remove(sessionId, subscriptionId)) {
+				this.subscriptions.remove(pattern);
+				patternCount.decrementAndGet();
+			}
+			return isEmpty();
+		}
+
+		/**
+		 * Detach the given child if it is empty.
+		 * @return whether the child has been detached
+		 */
+		synchronized boolean removeChildIfEmpty(String segment, Node child) {
+			synchronized (child) {
+				if (child.removed || !child.isEmpty()) {
+					return false;
+				}
+				child.removed = true;
+				if (WILDCARD_SEGMENT.equals(segment)) {
+					if (this.wildcardChild == child) {
+						this.wildcardChild = null;
+					}
+				}
+				else {
+					this.children.remove(segment, child);
+				}
+				return true;
+			}
+		}
+
+		private boolean isEmpty() {
+			return (this.subscriptions.isEmpty() && this.children.isEmpty() && this.wildcardChild == null);
+		}
+	}
+
+
+	/**
+	 * The subscriptions registered with the same destination pattern,
+	 * modified under the lock of the containing node.
+	 */
+	private static final class PatternSubscriptions {
+
+		private final String pattern;
+
+		private final boolean matchedByPath;
+
+		/** Subscription ids by session id. */
+		private final ConcurrentMap<String, Set<String>> sessions = new ConcurrentHashMap<>(4);
+
+		PatternSubscriptions(String pattern, boolean matchedByPath) {
+			this.pattern = pattern;
+			this.matchedByPath = matchedByPath;
+		}
+
+		String getPattern() {
+			return this.pattern;
+		}
+
+		boolean isMatchedByPath() {
+			return this.matchedByPath;
+		}
+
+		void add(String sessionId, String subscriptionId) {
+			this.sessions.computeIfAbsent(sessionId, key -> new CopyOnWriteArraySet<>()).add(subscriptionId);
+		}
+
+		/**
+		 * Remove the given subscription, or all subscriptions of the session.
+		 * @return whether there are no subscriptions left
+		 */
+		boolean remove(String sessionId, @Nullable String subscriptionId) {
+			if (subscriptionId != null) {
+				Set<String> subscriptionIds = this.sessions.get(sessionId);
+				if (subscriptionIds != null && subscriptionIds.remove(subscriptionId) && subscriptionIds.isEmpty()) {
+					this.sessions.remove(sessionId);
+				}
+			}
+			else {
+				this.sessions.remove(sessionId);
+			}
+			return this.sessions.isEmpty();
+		}
+
+		void addTo(MultiValueMap<String, String> result) {
+			this.sessions.forEach((sessionId, subscriptionIds) -> {
+				for (String subscriptionId : subscriptionIds) {
+					result.add(sessionId, subscriptionId);
+				}
+			});
+		}
+	}
+
+}
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -43,6 +42,10 @@ import org.springframework.util.MultiValueMap;
  * partial content. The caller is then responsible for dealing with that
  * incomplete content by buffering until there is more input available.
  *
+ * <p>As of 5.2, commands, header lines, and bodies are read directly from the
+ * given buffer rather than byte by byte through an intermediate stream, and the
+ * names of standard STOMP headers are matched against pre-encoded bytes.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -51,6 +54,24 @@ public class StompDecoder {
 
 	static final byte[] HEARTBEAT_PAYLOAD = new byte[] {'\n'};
 
+	private static final String[] KNOWN_HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_HEADER, StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+			StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER, StompHeaderAccessor.STOMP_HOST_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+			StompHeaderAccessor.STOMP_VERSION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER};
+
+	private static final byte[][] KNOWN_HEADER_NAME_BYTES = new byte[KNOWN_HEADER_NAMES.length][];
+
+	static {
+		for (int i = 0; i < KNOWN_HEADER_NAMES.length; i++) {
+			KNOWN_HEADER_NAME_BYTES[i] = KNOWN_HEADER_NAMES[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
 	private static final Log logger = SimpLogging.forLogName(StompDecoder.class);
 
 	@Nullable
@@ -207,50 +228,124 @@ public class StompDecoder {
 	}
 
 	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
-		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+		int start = byteBuffer.position();
+		int end = findEndOfLine(byteBuffer);
+		String command = toString(byteBuffer, start, (end != -1 ? end : byteBuffer.limit()));
+		consumeLine(byteBuffer, end);
+		return command;
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
-			while (byteBuffer.hasRemaining()) {
-				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
-					break;
+			int start = byteBuffer.position();
+			int end = findEndOfLine(byteBuffer);
+			consumeLine(byteBuffer, end);
+			if (end == -1 || end == start) {
+				break;
+			}
+			int colonIndex = indexOf(byteBuffer, (byte) ':', start, end);
+			if (colonIndex <= start) {
+				if (byteBuffer.remaining() > 0) {
+					throw new StompConversionException("Illegal header: '" + toString(byteBuffer, start, end) +
+							"'. A header must be of the form <name>:[<value>].");
 				}
-				headerStream.write(byteBuffer.get());
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
+			else {
+				String headerName = readHeaderName(byteBuffer, start, colonIndex);
+				String headerValue = unescape(toString(byteBuffer, colonIndex + 1, end));
+				try {
+					headerAccessor.addNativeHeader(headerName, headerValue);
+				}
+				catch (InvalidMimeTypeException ex) {
 					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
-								"'. A header must be of the form <name>:[<value>].");
+						throw ex;
 					}
 				}
-				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
-					try {
-						headerAccessor.addNativeHeader(headerName, headerValue);
-					}
-					catch (InvalidMimeTypeException ex) {
-						if (byteBuffer.remaining() > 0) {
-							throw ex;
-						}
-					}
+			}
+		}
+	}
+
+	/**
+	 * Read a header name, reusing the name of a standard STOMP header if
+	 * the given bytes match it.
+	 */
+	private String readHeaderName(ByteBuffer byteBuffer, int start, int end) {
+		int length = end - start;
+		for (int i = 0; i < KNOWN_HEADER_NAME_BYTES.length; i++) {
+			byte[] nameBytes = KNOWN_HEADER_NAME_BYTES[i];
+			if (nameBytes.length == length && regionMatches(byteBuffer, start, nameBytes)) {
+				return KNOWN_HEADER_NAMES[i];
+			}
+		}
+		return unescape(toString(byteBuffer, start, end));
+	}
+
+	private static boolean regionMatches(ByteBuffer byteBuffer, int start, byte[] bytes) {
+		for (int i = 0; i < bytes.length; i++) {
+			if (byteBuffer.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the end of the line that starts at the current position.
+	 * @return the index of the "\n", or of the "\r" of a "\r\n", or -1 if
+	 * the remaining content does not contain a line end
+	 */
+	private static int findEndOfLine(ByteBuffer byteBuffer) {
+		int limit = byteBuffer.limit();
+		for (int i = byteBuffer.position(); i < limit; i++) {
+			byte b = byteBuffer.get(i);
+			if (b == '\n') {
+				return i;
+			}
+			else if (b == '\r') {
+				if (i + 1 < limit && byteBuffer.get(i + 1) == '\n') {
+					return i;
 				}
+				throw new StompConversionException("'\\r' must be followed by '\\n'");
 			}
-			else {
-				break;
+		}
+		return -1;
+	}
+
+	/**
+	 * Move the position past the given line end, or to the limit if -1.
+	 */
+	private static void consumeLine(ByteBuffer byteBuffer, int end) {
+		int position = (end == -1 ? byteBuffer.limit() : end + (byteBuffer.get(end) == '\r' ? 2 : 1));
+		// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+		((Buffer) byteBuffer).position(position);
+	}
+
+	private static int indexOf(ByteBuffer byteBuffer, byte value, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (byteBuffer.get(i) == value) {
+				return i;
 			}
 		}
+		return -1;
+	}
+
+	private static String toString(ByteBuffer byteBuffer, int start, int end) {
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+		}
+		return new String(getBytes(byteBuffer, start, end), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] getBytes(ByteBuffer byteBuffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		if (byteBuffer.hasArray()) {
+			System.arraycopy(byteBuffer.array(), byteBuffer.arrayOffset() + start, bytes, 0, bytes.length);
+			return bytes;
+		}
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = byteBuffer.get(start + i);
+		}
+		return bytes;
 	}
 
 	/**
@@ -258,9 +353,12 @@ public class StompDecoder {
 	 * <a href="https://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
 	 */
 	private String unescape(String inString) {
+		int index = inString.indexOf('\\');
+		if (index == -1) {
+			return inString;
+		}
 		StringBuilder sb = new StringBuilder(inString.length());
 		int pos = 0;  // position in the old string
-		int index = inString.indexOf('\\');
 
 		while (index >= 0) {
 			sb.append(inString.substring(pos, index));
@@ -319,15 +417,13 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
-				}
+			int start = byteBuffer.position();
+			int end = indexOf(byteBuffer, (byte) 0, start, byteBuffer.limit());
+			if (end != -1) {
+				byte[] payload = getBytes(byteBuffer, start, end);
+				// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+				((Buffer) byteBuffer).position(end + 1);
+				return payload;
 			}
 		}
 		return null;
@@ -16,15 +16,17 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
@@ -34,12 +36,17 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpLogging;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.BroadcastEncodingCache;
 import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.util.Assert;
 
 /**
  * An encoder for STOMP frames.
  *
+ * <p>As of 5.2, frames are assembled from their encoded parts, including
+ * pre-encoded command lines and header names, and copied once into a byte
+ * array of the exact frame size.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -47,14 +54,30 @@ import org.springframework.util.Assert;
  */
 public class StompEncoder  {
 
-	private static final byte LF = '\n';
+	private static final byte[] LF = new byte[] {'\n'};
+
+	private static final byte[] COLON = new byte[] {':'};
+
+	private static final byte[] NULL_OCTET = new byte[] {0};
+
+	private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.UTF_8);
 
-	private static final byte COLON = ':';
+	private static final Map<StompCommand, byte[]> COMMAND_LINES = new EnumMap<>(StompCommand.class);
 
 	private static final Log logger = SimpLogging.forLogName(StompEncoder.class);
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
 
+	/** Headers that differ between the MESSAGE frames of a broadcast. */
+	private static final Set<String> SUBSCRIPTION_HEADERS = new HashSet<>(Arrays.asList(
+			StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER));
+
+	static {
+		for (StompCommand command : StompCommand.values()) {
+			COMMAND_LINES.put(command, (command.name() + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
 
 	private final Map<String, byte[]> headerKeyAccessCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
 
@@ -85,6 +108,10 @@ public class StompEncoder  {
 
 	/**
 	 * Encodes the given payload and headers into a {@code byte[]}.
+	 * <p>As of 5.2, for a MESSAGE frame with a
+	 * {@link SimpMessageHeaderAccessor#BROADCAST_ENCODING_CACHE} header, the
+	 * command, the payload, and the headers other than "subscription" and
+	 * "message-id" are encoded once for all frames of the broadcast.
 	 * @param headers the headers
 	 * @param payload the payload
 	 * @return the encoded message
@@ -93,42 +120,76 @@ public class StompEncoder  {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			logger.trace("Encoding heartbeat");
+			return StompDecoder.HEARTBEAT_PAYLOAD.clone();
+		}
 
-			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
-				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
-			}
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		if (command == null) {
+			throw new IllegalStateException("Missing STOMP command: " + headers);
+		}
 
-			else {
-				StompCommand command = StompHeaderAccessor.getCommand(headers);
-				if (command == null) {
-					throw new IllegalStateException("Missing STOMP command: " + headers);
+		if (StompCommand.MESSAGE.equals(command)) {
+			Object encodingCache = headers.get(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE);
+			if (encodingCache instanceof BroadcastEncodingCache) {
+				byte[] bytes = encodeBroadcastMessage((BroadcastEncodingCache) encodingCache, headers, payload);
+				if (bytes != null) {
+					return bytes;
 				}
-
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
 			}
+		}
+
+		Result result = new Result();
+		result.add(COMMAND_LINES.get(command));
+		writeHeaders(command, headers, payload, result);
+		result.add(LF);
+		result.add(payload);
+		result.add(NULL_OCTET);
+		return result.toByteArray();
+	}
+
+	/**
+	 * Encode a MESSAGE frame of a broadcast from a template for the content
+	 * that all frames of the broadcast have in common.
+	 * @return the encoded message, or {@code null} if the message does not
+	 * match the template, e.g. after a modification of its headers
+	 */
+	@Nullable
+	private byte[] encodeBroadcastMessage(BroadcastEncodingCache encodingCache,
+			Map<String, Object> headers, byte[] payload) {
 
-			return baos.toByteArray();
+		Map<String, List<String>> nativeHeaders = getNativeHeaders(headers);
+		if (nativeHeaders == null) {
+			return null;
+		}
+		MessageFrameTemplate template = encodingCache.getEncoding(this,
+				key -> new MessageFrameTemplate(nativeHeaders, payload));
+		if (!template.matches(nativeHeaders, payload)) {
+			return null;
 		}
-		catch (IOException ex) {
-			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Encoding STOMP MESSAGE from broadcast template, headers=" + nativeHeaders);
+		}
+		Result result = new Result();
+		result.add(template.prefix);
+		for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+			if (SUBSCRIPTION_HEADERS.contains(entry.getKey())) {
+				writeHeader(entry.getKey(), entry.getValue(), true, result);
+			}
 		}
+		result.add(template.suffix);
+		return result.toByteArray();
 	}
 
-	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static Map<String, List<String>> getNativeHeaders(Map<String, Object> headers) {
+		return (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+	}
 
-		@SuppressWarnings("unchecked")
-		Map<String,List<String>> nativeHeaders =
-				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload, Result result) {
+		Map<String,List<String>> nativeHeaders = getNativeHeaders(headers);
 
 		if (logger.isTraceEnabled()) {
 			logger.trace("Encoding STOMP " + command + ", headers=" + nativeHeaders);
@@ -152,23 +213,30 @@ public class StompEncoder  {
 				values = Collections.singletonList(StompHeaderAccessor.getPasscode(headers));
 			}
 
-			byte[] encodedKey = encodeHeaderKey(entry.getKey(), shouldEscape);
-			for (String value : values) {
-				output.write(encodedKey);
-				output.write(COLON);
-				output.write(encodeHeaderValue(value, shouldEscape));
-				output.write(LF);
-			}
+			writeHeader(entry.getKey(), values, shouldEscape, result);
 		}
 
 		if (command.requiresContentLength()) {
-			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
-			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
-			output.write(LF);
+			writeContentLength(payload, result);
+		}
+	}
+
+	private void writeHeader(String name, List<String> values, boolean escape, Result result) {
+		byte[] encodedKey = encodeHeaderKey(name, escape);
+		for (String value : values) {
+			result.add(encodedKey);
+			result.add(COLON);
+			result.add(encodeHeaderValue(value, escape));
+			result.add(LF);
 		}
 	}
 
+	private void writeContentLength(byte[] payload, Result result) {
+		result.add(CONTENT_LENGTH);
+		result.add(Integer.toString(payload.length).getBytes(StandardCharsets.UTF_8));
+		result.add(LF);
+	}
+
 	private byte[] encodeHeaderKey(String input, boolean escape) {
 		String inputToUse = (escape ? escape(input) : input);
 		if (this.headerKeyAccessCache.containsKey(inputToUse)) {
@@ -229,8 +297,96 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
-		output.write(payload);
+
+	/**
+	 * The encoded content that the MESSAGE frames of a broadcast have in common:
+	 * the command and the headers other than "subscription" and "message-id"
+	 * as prefix, and the content length and the body as suffix.
+	 */
+	private class MessageFrameTemplate {
+
+		private final Map<String, List<String>> commonHeaders = new LinkedHashMap<>();
+
+		private final byte[] payload;
+
+		private final byte[] prefix;
+
+		private final byte[] suffix;
+
+		MessageFrameTemplate(Map<String, List<String>> nativeHeaders, byte[] payload) {
+			nativeHeaders.forEach((name, values) -> {
+				if (isCommonHeader(name)) {
+					this.commonHeaders.put(name, new ArrayList<>(values));
+				}
+			});
+			this.payload = payload;
+
+			Result result = new Result();
+			result.add(COMMAND_LINES.get(StompCommand.MESSAGE));
+			for (Entry<String, List<String>> entry : this.commonHeaders.entrySet()) {
+				writeHeader(entry.getKey(), entry.getValue(), true, result);
+			}
+			this.prefix = result.toByteArray();
+
+			result = new Result();
+			writeContentLength(payload, result);
+			result.add(LF);
+			result.add(payload);
+			result.add(NULL_OCTET);
+			this.suffix = result.toByteArray();
+		}
+
+		/**
+		 * Whether the given frame content matches this template, apart from
+		 * the "subscription" and "message-id" headers.
+		 */
+		boolean matches(Map<String, List<String>> nativeHeaders, byte[] payload) {
+			if (payload != this.payload) {
+				return false;
+			}
+			int count = 0;
+			for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
+				if (!isCommonHeader(entry.getKey())) {
+					continue;
+				}
+				if (!entry.getValue().equals(this.commonHeaders.get(entry.getKey()))) {
+					return false;
+				}
+				count++;
+			}
+			return (count == this.commonHeaders.size());
+		}
+
+		private boolean isCommonHeader(String name) {
+			return (!SUBSCRIPTION_HEADERS.contains(name) && !StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER.equals(name));
+		}
+	}
+
+
+	/**
+	 * Encoded parts of a frame, copied once into a byte array of the exact
+	 * frame size.
+	 */
+	private static class Result {
+
+		private final List<byte[]> parts = new ArrayList<>(32);
+
+		private int size;
+
+		public void add(byte[] bytes) {
+			this.parts.add(bytes);
+			this.size += bytes.length;
+		}
+
+		public byte[] toByteArray() {
+			byte[] result = new byte[this.size];
+			int position = 0;
+			for (byte[] bytes : this.parts) {
+				System.arraycopy(bytes, 0, result, position, bytes.length);
+				position += bytes.length;
+			}
+			return result;
+		}
 	}
 
 }
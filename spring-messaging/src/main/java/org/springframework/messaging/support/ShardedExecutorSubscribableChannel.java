@@ -0,0 +1,310 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ExecutorSubscribableChannel} that handles messages with the same
+ * value for a given header, e.g. the session id, one at a time and in the
+ * order they were sent, while messages with different values are handled in
+ * parallel.
+ *
+ * <p>Messages are dispatched to one of a fixed number of lanes, each of which
+ * runs its tasks one after the other on the given {@link Executor}, so that
+ * at most one thread per lane is in use at any time. A header value stays on
+ * the same lane for as long as it has messages waiting or in progress. When
+ * a value has no messages in flight, it is assigned again by its hash code,
+ * or to the least busy lane if the queue of its hashed lane exceeds the
+ * {@link #setSpillThreshold spill threshold}. Messages without the header
+ * are not ordered, and go to the least busy lane.
+ *
+ * <p>For example, to preserve the order of messages per WebSocket session on
+ * the {@code "clientInboundChannel"} or {@code "clientOutboundChannel"}, use
+ * {@link org.springframework.messaging.simp.SimpMessageHeaderAccessor#SESSION_ID_HEADER}
+ * as header name.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+public class ShardedExecutorSubscribableChannel extends ExecutorSubscribableChannel {
+
+	private final LaneExecutor laneExecutor;
+
+
+	/**
+	 * Create a new channel with the given number of lanes.
+	 * @param executor the executor to run the tasks of each lane on
+	 * @param laneCount the number of lanes, typically no more than the
+	 * number of threads of the executor
+	 * @param headerName the name of the header to order messages by
+	 */
+	public ShardedExecutorSubscribableChannel(Executor executor, int laneCount, String headerName) {
+		this(new LaneExecutor(executor, laneCount, headerName));
+	}
+
+	private ShardedExecutorSubscribableChannel(LaneExecutor laneExecutor) {
+		super(laneExecutor);
+		this.laneExecutor = laneExecutor;
+	}
+
+
+	/**
+	 * Return the name of the header that messages are ordered by.
+	 */
+	public String getHeaderName() {
+		return this.laneExecutor.headerName;
+	}
+
+	/**
+	 * Configure the number of queued tasks above which a lane is considered
+	 * busy, in which case header values without messages in flight are moved
+	 * to the least busy lane rather than to the lane of their hash code.
+	 * <p>By default this is set to 100. A value of 0 or less turns moving off.
+	 */
+	public void setSpillThreshold(int spillThreshold) {
+		this.laneExecutor.spillThreshold = spillThreshold;
+	}
+
+	/**
+	 * Return the configured spill threshold.
+	 */
+	public int getSpillThreshold() {
+		return this.laneExecutor.spillThreshold;
+	}
+
+	/**
+	 * Return the number of lanes.
+	 */
+	public int getLaneCount() {
+		return this.laneExecutor.lanes.length;
+	}
+
+	/**
+	 * Return the number of tasks waiting or in progress for each lane.
+	 */
+	public int[] getLaneQueueDepths() {
+		Lane[] lanes = this.laneExecutor.lanes;
+		int[] depths = new int[lanes.length];
+		for (int i = 0; i < lanes.length; i++) {
+			depths[i] = lanes[i].depth.get();
+		}
+		return depths;
+	}
+
+	/**
+	 * Return the number of times a header value was assigned to the least
+	 * busy lane instead of the lane of its hash code.
+	 */
+	public long getSpillCount() {
+		return this.laneExecutor.spillCount.get();
+	}
+
+
+	/**
+	 * Executor that dispatches the tasks of {@link ExecutorSubscribableChannel}
+	 * to lanes by the header value of the message they handle.
+	 */
+	private static final class LaneExecutor implements Executor {
+
+		private final Lane[] lanes;
+
+		private final String headerName;
+
+		private volatile int spillThreshold = 100;
+
+		/** Lane assignments of the header values with tasks in flight. */
+		private final ConcurrentMap<Object, Assignment> assignments = new ConcurrentHashMap<>();
+
+		private final AtomicLong spillCount = new AtomicLong();
+
+		LaneExecutor(Executor executor, int laneCount, String headerName) {
+			Assert.notNull(executor, "Executor must not be null");
+			Assert.isTrue(laneCount > 0, "Lane count must be greater than 0");
+			Assert.hasText(headerName, "Header name must not be empty");
+			this.lanes = new Lane[laneCount];
+			for (int i = 0; i < laneCount; i++) {
+				this.lanes[i] = new Lane(executor);
+			}
+			this.headerName = headerName;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			Object key = (task instanceof MessageHandlingRunnable ?
+					((MessageHandlingRunnable) task).getMessage().getHeaders().get(this.headerName) : null);
+			if (key == null) {
+				getLeastBusyLane().execute(task);
+				return;
+			}
+			Assignment assignment = this.assignments.compute(key, (k, existing) -> {
+				Assignment result = (existing != null ? existing : new Assignment(selectLane(k)));
+				result.pending++;
+				return result;
+			});
+			try {
+				assignment.lane.execute(() -> {
+					try {
+						task.run();
+					}
+					finally {
+						release(key);
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				release(key);
+				throw ex;
+			}
+		}
+
+		private Lane selectLane(Object key) {
+			int hash = key.hashCode();
+			Lane lane = this.lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.lanes.length];
+			int threshold = this.spillThreshold;
+			if (threshold > 0 && lane.depth.get() > threshold) {
+				Lane leastBusyLane = getLeastBusyLane();
+				if (leastBusyLane != lane) {
+					this.spillCount.incrementAndGet();
+					return leastBusyLane;
+				}
+			}
+			return lane;
+		}
+
+		private Lane getLeastBusyLane() {
+			Lane result = this.lanes[0];
+			for (int i = 1; i < this.lanes.length; i++) {
+				if (this.lanes[i].depth.get() < result.depth.get()) {
+					result = this.lanes[i];
+				}
+			}
+			return result;
+		}
+
+		private void release(Object key) {
+			this.assignments.computeIfPresent(key, (k, assignment) -> (--assignment.pending > 0 ? assignment : null));
+		}
+	}
+
+
+	/**
+	 * The lane of a header value, and the number of its tasks in flight,
+	 * modified within the compute functions of the assignment map.
+	 */
+	private static final class Assignment {
+
+		final Lane lane;
+
+		int pending;
+
+		Assignment(Lane lane) {
+			this.lane = lane;
+		}
+	}
+
+
+	/**
+	 * Runs its tasks one at a time, in the order they were added, on the
+	 * underlying executor.
+	 */
+	private static final class Lane implements Runnable {
+
+		private static final Log logger = LogFactory.getLog(ShardedExecutorSubscribableChannel.class);
+
+		private final Executor executor;
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger depth = new AtomicInteger();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		Lane(Executor executor) {
+			this.executor = executor;
+		}
+
+		void execute(Runnable task) {
+			this.tasks.add(task);
+			this.depth.incrementAndGet();
+			try {
+				schedule();
+			}
+			catch (RuntimeException ex) {
+				if (this.tasks.remove(task)) {
+					this.depth.decrementAndGet();
+				}
+				throw ex;
+			}
+		}
+
+		private void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				try {
+					this.executor.execute(this);
+				}
+				catch (RuntimeException ex) {
+					this.scheduled.set(false);
+					throw ex;
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				Runnable task;
+				while ((task = this.tasks.poll()) != null) {
+					try {
+						task.run();
+					}
+					catch (Throwable ex) {
+						logger.error("Failed to run " + task, ex);
+					}
+					finally {
+						this.depth.decrementAndGet();
+					}
+				}
+			}
+			finally {
+				this.scheduled.set(false);
+				// Tasks added after the last poll may have seen the flag still set
+				if (!this.tasks.isEmpty()) {
+					try {
+						schedule();
+					}
+					catch (RuntimeException ex) {
+						logger.error("Failed to schedule remaining tasks of " + this, ex);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -148,7 +148,7 @@ public class DefaultSubscriptionRegistryTests {
 		MultiValueMap<String, String> actual = this.registry.findSubscriptions(destNasdaqIbmMessage);
 		assertThat(actual).isNotNull();
 		assertThat(actual.size()).isEqualTo(1);
-		assertThat(actual.get(sess1)).isEqualTo(Arrays.asList(subs2, subs1));
+		assertThat(actual.get(sess1)).containsExactlyInAnyOrder(subs2, subs1);
 
 		this.registry.registerSubscription(subscribeMessage(sess2, subs1, destNasdaqIbm));
 		this.registry.registerSubscription(subscribeMessage(sess2, subs2, "/topic/PRICE.STOCK.NYSE.IBM"));
@@ -157,7 +157,7 @@ public class DefaultSubscriptionRegistryTests {
 		actual = this.registry.findSubscriptions(destNasdaqIbmMessage);
 		assertThat(actual).isNotNull();
 		assertThat(actual.size()).isEqualTo(2);
-		assertThat(actual.get(sess1)).isEqualTo(Arrays.asList(subs2, subs1));
+		assertThat(actual.get(sess1)).containsExactlyInAnyOrder(subs2, subs1);
 		assertThat(actual.get(sess2)).isEqualTo(Collections.singletonList(subs1));
 
 		this.registry.unregisterAllSubscriptions(sess1);
@@ -173,7 +173,7 @@ public class DefaultSubscriptionRegistryTests {
 		actual = this.registry.findSubscriptions(destNasdaqIbmMessage);
 		assertThat(actual).isNotNull();
 		assertThat(actual.size()).isEqualTo(2);
-		assertThat(actual.get(sess1)).isEqualTo(Arrays.asList(subs1, subs2));
+		assertThat(actual.get(sess1)).containsExactlyInAnyOrder(subs1, subs2);
 		assertThat(actual.get(sess2)).isEqualTo(Collections.singletonList(subs1));
 
 		this.registry.unregisterSubscription(unsubscribeMessage(sess1, subs2));
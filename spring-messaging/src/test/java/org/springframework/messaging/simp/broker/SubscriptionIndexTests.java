@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SubscriptionIndex}.
+ *
+ * @author Agent
+ */
+public class SubscriptionIndexTests {
+
+	private static final List<String> SLASH_PATTERNS = Arrays.asList(
+			"/topic/a", "topic/a", "/topic/a/", "/topic/*", "/topic/*/", "/*/a", "/topic/*/b", "/*/*",
+			"/topic/**", "/**", "/topic/a*", "/topic/?", "/topic/**/b", "/topic/{id}", "/topic//a", "/", "*");
+
+	private static final List<String> SLASH_DESTINATIONS = Arrays.asList(
+			"/topic/a", "topic/a", "/topic/a/", "/topic/", "/topic", "/topic/b", "/topic/a/b", "/topic/ab",
+			"/queue/a", "/topic//a", "/topic/*", "/topic/a\nb", "/", "", "/topic/x/y/b");
+
+	private static final List<String> DOT_PATTERNS = Arrays.asList(
+			"topic.a", ".topic.a", "topic.*", "topic.*.b", "*.a", "topic.**", "topic.a*", "topic/a", "*");
+
+	private static final List<String> DOT_DESTINATIONS = Arrays.asList(
+			"topic.a", ".topic.a", "topic.a.", "topic.b", "topic.a.b", "topic.ab", "topic/a", "topic", "queue.a");
+
+
+	@Test
+	public void matchesLikeAntPathMatcher() {
+		assertMatchesLikePathMatcher(new AntPathMatcher(), SLASH_PATTERNS, SLASH_DESTINATIONS);
+	}
+
+	@Test
+	public void matchesLikeAntPathMatcherWithDotSeparator() {
+		assertMatchesLikePathMatcher(new AntPathMatcher("."), DOT_PATTERNS, DOT_DESTINATIONS);
+	}
+
+	@Test
+	public void matchesLikeCaseInsensitiveAntPathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		assertMatchesLikePathMatcher(pathMatcher, Arrays.asList("/topic/A", "/topic/*"),
+				Arrays.asList("/topic/a", "/TOPIC/b"));
+	}
+
+	@Test
+	public void matchesLikeCustomPathMatcher() {
+		PathMatcher pathMatcher = new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return super.match(pattern, path.toLowerCase());
+			}
+		};
+		assertMatchesLikePathMatcher(pathMatcher, Arrays.asList("/topic/a", "/topic/*"),
+				Arrays.asList("/topic/a", "/TOPIC/A"));
+	}
+
+	@Test
+	public void removeSubscriptions() {
+		SubscriptionIndex index = new SubscriptionIndex(new AntPathMatcher());
+		index.addSubscription("/topic/a", "sess1", "sub1");
+		index.addSubscription("/topic/a", "sess1", "sub2");
+		index.addSubscription("/topic/a", "sess2", "sub1");
+		index.addSubscription("/topic/*", "sess2", "sub2");
+
+		index.removeSubscription("/topic/a", "sess1", "sub1");
+		MultiValueMap<String, String> actual = index.findSubscriptions("/topic/a");
+		assertThat(actual.get("sess1")).containsExactly("sub2");
+		assertThat(actual.get("sess2")).containsExactly("sub1", "sub2");
+
+		index.removeSubscriptions("/topic/a", "sess2");
+		actual = index.findSubscriptions("/topic/a");
+		assertThat(actual.get("sess1")).containsExactly("sub2");
+		assertThat(actual.get("sess2")).containsExactly("sub2");
+
+		index.removeSubscription("/topic/a", "sess1", "sub2");
+		index.removeSubscription("/topic/*", "sess2", "sub2");
+		assertThat(index.findSubscriptions("/topic/a")).isEmpty();
+		assertThat(index.toString()).isEqualTo("index[0 destination pattern(s)]");
+
+		index.addSubscription("/topic/a", "sess3", "sub1");
+		assertThat(index.findSubscriptions("/topic/a")).isEqualTo(Collections.singletonMap(
+				"sess3", Collections.singletonList("sub1")));
+	}
+
+
+	private void assertMatchesLikePathMatcher(PathMatcher pathMatcher, List<String> patterns, List<String> destinations) {
+		SubscriptionIndex index = new SubscriptionIndex(pathMatcher);
+		for (String pattern : patterns) {
+			index.addSubscription(pattern, "sess1", pattern);
+		}
+		for (String destination : destinations) {
+			MultiValueMap<String, String> actual = index.findSubscriptions(destination);
+			List<String> matched = (actual.isEmpty() ? Collections.emptyList() : actual.get("sess1"));
+			for (String pattern : patterns) {
+				assertThat(matched.contains(pattern))
+						.as("'" + pattern + "' matching '" + destination + "'")
+						.isEqualTo(pathMatcher.match(pattern, destination));
+			}
+			for (Map.Entry<String, List<String>> entry : actual.entrySet()) {
+				assertThat(entry.getValue()).doesNotHaveDuplicates();
+			}
+		}
+	}
+
+}
@@ -251,6 +251,22 @@ public class StompDecoderTests {
 		assertThat(StompHeaderAccessor.wrap(messages.get(0)).getMessageType()).isEqualTo(SimpMessageType.HEARTBEAT);
 	}
 
+	@Test
+	public void decodeFrameFromDirectBufferWithOffset() {
+		byte[] bytes = "xxSEND\ndestination:/a\nmy\\cheader:value\\n\n\nbody\0".getBytes();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.position(2);
+		Message<byte[]> frame = decode(buffer);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+
+		assertThat(headers.getCommand()).isEqualTo(StompCommand.SEND);
+		assertThat(headers.getDestination()).isEqualTo("/a");
+		assertThat(headers.getFirstNativeHeader("my:header")).isEqualTo("value\n");
+		assertThat(new String(frame.getPayload())).isEqualTo("body");
+		assertThat(buffer.hasRemaining()).isFalse();
+	}
+
 	private void assertIncompleteDecode(String partialFrame) {
 		ByteBuffer buffer = ByteBuffer.wrap(partialFrame.getBytes());
 		assertThat(decode(buffer)).isNull();
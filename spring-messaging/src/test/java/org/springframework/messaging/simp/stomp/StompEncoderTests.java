@@ -19,6 +19,8 @@ package org.springframework.messaging.simp.stomp;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.BroadcastEncodingCache;
 import org.springframework.messaging.support.MessageBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -83,4 +85,45 @@ public class StompEncoderTests {
 		assertThat(new String(encoder.encode(frame))).isEqualTo("SEND\ncontent-length:12\n\nMessage body\0");
 	}
 
+	@Test
+	public void encodeBroadcastFrames() {
+		BroadcastEncodingCache encodingCache = new BroadcastEncodingCache();
+		byte[] payload = "Message body".getBytes();
+
+		assertThat(new String(encoder.encode(broadcastFrame(encodingCache, "s1", "1", payload))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\\cb\nsubscription:s1\nmessage-id:1\n" +
+						"content-length:12\n\nMessage body\0");
+		assertThat(new String(encoder.encode(broadcastFrame(encodingCache, "s2", "2", payload))))
+				.isEqualTo("MESSAGE\ndestination:/topic/a\\cb\nsubscription:s2\nmessage-id:2\n" +
+						"content-length:12\n\nMessage body\0");
+	}
+
+	@Test
+	public void encodeBroadcastFrameWithModifiedContent() {
+		BroadcastEncodingCache encodingCache = new BroadcastEncodingCache();
+		byte[] payload = "Message body".getBytes();
+		encoder.encode(broadcastFrame(encodingCache, "s1", "1", payload));
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(broadcastFrame(encodingCache, "s2", "2", payload));
+		headers.addNativeHeader("a", "alpha");
+		Message<byte[]> frame = MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+		assertThat(new String(encoder.encode(frame))).isEqualTo("MESSAGE\ndestination:/topic/a\\cb\n" +
+				"subscription:s2\nmessage-id:2\na:alpha\ncontent-length:12\n\nMessage body\0");
+
+		frame = broadcastFrame(encodingCache, "s3", "3", "Other body".getBytes());
+		assertThat(new String(encoder.encode(frame))).isEqualTo("MESSAGE\ndestination:/topic/a\\cb\n" +
+				"subscription:s3\nmessage-id:3\ncontent-length:10\n\nOther body\0");
+	}
+
+	private Message<byte[]> broadcastFrame(
+			BroadcastEncodingCache encodingCache, String subscriptionId, String messageId, byte[] payload) {
+
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setDestination("/topic/a:b");
+		headers.setSubscriptionId(subscriptionId);
+		headers.setMessageId(messageId);
+		headers.setHeader(SimpMessageHeaderAccessor.BROADCAST_ENCODING_CACHE, encodingCache);
+		return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+	}
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.messaging.Message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ShardedExecutorSubscribableChannel}.
+ *
+ * @author Agent
+ */
+public class ShardedExecutorSubscribableChannelTests {
+
+	private static final String HEADER_NAME = "sessionId";
+
+
+	@Test
+	public void preserveOrderPerHeaderValue() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ShardedExecutorSubscribableChannel channel = new ShardedExecutorSubscribableChannel(executor, 4, HEADER_NAME);
+			Map<Object, List<Integer>> received = new ConcurrentHashMap<>();
+			Map<Object, AtomicInteger> active = new ConcurrentHashMap<>();
+			AtomicInteger overlaps = new AtomicInteger();
+			CountDownLatch latch = new CountDownLatch(1000);
+			channel.subscribe(message -> {
+				Object key = message.getHeaders().get(HEADER_NAME);
+				AtomicInteger count = active.computeIfAbsent(key, k -> new AtomicInteger());
+				if (count.incrementAndGet() > 1) {
+					overlaps.incrementAndGet();
+				}
+				received.computeIfAbsent(key, k -> new ArrayList<>()).add((Integer) message.getPayload());
+				count.decrementAndGet();
+				latch.countDown();
+			});
+
+			for (int i = 0; i < 1000; i++) {
+				channel.send(message(i, "session" + (i % 10)));
+			}
+
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(overlaps.get()).isEqualTo(0);
+			assertThat(received).hasSize(10);
+			received.values().forEach(payloads -> assertThat(payloads).hasSize(100).isSorted());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void spillToLeastBusyLane() {
+		List<Runnable> tasks = new ArrayList<>();
+		ShardedExecutorSubscribableChannel channel = new ShardedExecutorSubscribableChannel(tasks::add, 2, HEADER_NAME);
+		channel.setSpillThreshold(1);
+		List<Object> handled = new ArrayList<>();
+		channel.subscribe(message -> handled.add(message.getPayload()));
+
+		// Integer header values 0 and 2 hash to the first lane
+		channel.send(message(1, 0));
+		channel.send(message(2, 0));
+		channel.send(message(3, 2));
+		channel.send(message(4, 0));
+
+		assertThat(channel.getLaneQueueDepths()).containsExactly(3, 1);
+		assertThat(channel.getSpillCount()).isEqualTo(1);
+		assertThat(tasks).hasSize(2);
+
+		tasks.forEach(Runnable::run);
+
+		assertThat(handled).containsExactlyInAnyOrder(1, 2, 3, 4);
+		assertThat(handled.indexOf(1)).isLessThan(handled.indexOf(2));
+		assertThat(handled.indexOf(2)).isLessThan(handled.indexOf(4));
+		assertThat(channel.getLaneQueueDepths()).containsExactly(0, 0);
+
+		// Without messages in flight, the header value is hashed again
+		tasks.clear();
+		channel.send(message(5, 2));
+		assertThat(channel.getLaneQueueDepths()).containsExactly(1, 0);
+	}
+
+	@Test
+	public void messageWithoutHeader() {
+		List<Runnable> tasks = new ArrayList<>();
+		ShardedExecutorSubscribableChannel channel = new ShardedExecutorSubscribableChannel(tasks::add, 2, HEADER_NAME);
+		List<Object> handled = new ArrayList<>();
+		channel.subscribe(message -> handled.add(message.getPayload()));
+
+		channel.send(MessageBuilder.withPayload(1).build());
+		channel.send(MessageBuilder.withPayload(2).build());
+
+		assertThat(channel.getLaneQueueDepths()).containsExactly(1, 1);
+		tasks.forEach(Runnable::run);
+		assertThat(handled).containsExactly(1, 2);
+	}
+
+	@Test
+	public void continueAfterHandlerFailure() {
+		List<Runnable> tasks = new ArrayList<>();
+		ShardedExecutorSubscribableChannel channel = new ShardedExecutorSubscribableChannel(tasks::add, 1, HEADER_NAME);
+		List<Object> handled = new ArrayList<>();
+		channel.subscribe(message -> {
+			if (message.getPayload().equals(1)) {
+				throw new IllegalStateException("Expected failure");
+			}
+			handled.add(message.getPayload());
+		});
+
+		channel.send(message(1, "session1"));
+		channel.send(message(2, "session1"));
+		tasks.forEach(Runnable::run);
+
+		assertThat(handled).containsExactly(2);
+		assertThat(channel.getLaneQueueDepths()).containsExactly(0);
+	}
+
+
+	private static Message<Integer> message(int payload, Object headerValue) {
+		return MessageBuilder.withPayload(payload).setHeader(HEADER_NAME, headerValue).build();
+	}
+
+}
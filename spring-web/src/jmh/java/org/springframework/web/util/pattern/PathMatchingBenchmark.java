@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+
+/**
+ * Benchmarks comparing {@link AntPathMatcher} with pre-parsed {@link PathPattern}s
+ * for matching a set of request paths against a typical set of route patterns,
+ * including the extraction of URI variables.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PathMatchingBenchmark {
+
+	private static final String[] PATTERNS = {
+			"/", "/about", "/login", "/logout", "/static/**", "/favicon.ico",
+			"/api/users", "/api/users/{id}", "/api/users/{id}/orders", "/api/users/{id}/orders/{orderId}",
+			"/api/products", "/api/products/{id:[0-9]+}", "/api/products/search",
+			"/api/*/health", "/admin/**", "/docs/{*path}"};
+
+	private static final String[] PATHS = {
+			"/", "/about", "/static/css/main.css", "/api/users/42", "/api/users/42/orders/7",
+			"/api/products/123", "/api/products/search", "/api/v1/health", "/docs/guide/intro.html",
+			"/unknown/path"};
+
+	private static final PathPatternParser PARSER = new PathPatternParser();
+
+
+	@Benchmark
+	public void antPathMatcher(AntPathMatcherState state, Blackhole bh) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				bh.consume(state.matcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void antPathMatcherExtractVariables(AntPathMatcherState state, Blackhole bh) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				if (state.matcher.match(pattern, path)) {
+					bh.consume(state.matcher.extractUriTemplateVariables(pattern, path));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void pathPattern(PathPatternState state, Blackhole bh) {
+		for (PathContainer path : state.paths) {
+			for (PathPattern pattern : state.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void pathPatternExtractVariables(PathPatternState state, Blackhole bh) {
+		for (PathContainer path : state.paths) {
+			for (PathPattern pattern : state.patterns) {
+				bh.consume(pattern.matchAndExtract(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void pathPatternIncludingParsing(Blackhole bh) {
+		for (String path : PATHS) {
+			PathContainer container = PathContainer.parsePath(path);
+			for (String pattern : PATTERNS) {
+				bh.consume(PARSER.parse(pattern).matches(container));
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class AntPathMatcherState {
+
+		public AntPathMatcher matcher;
+
+		public String[] patterns;
+
+		public String[] paths;
+
+		@Setup
+		public void setup() {
+			this.matcher = new AntPathMatcher();
+			this.patterns = new String[PATTERNS.length];
+			for (int i = 0; i < PATTERNS.length; i++) {
+				this.patterns[i] = PATTERNS[i].replace("{*path}", "**");
+			}
+			this.paths = PATHS.clone();
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PathPatternState {
+
+		public List<PathPattern> patterns;
+
+		public List<PathContainer> paths;
+
+		@Setup
+		public void setup() {
+			this.patterns = new ArrayList<>(PATTERNS.length);
+			for (String pattern : PATTERNS) {
+				this.patterns.add(PARSER.parse(pattern));
+			}
+			this.paths = new ArrayList<>(PATHS.length);
+			for (String path : PATHS) {
+				this.paths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sub-interface of {@code HttpOutputMessage} that has support for transferring
+ * file content without copying it through the body {@code OutputStream},
+ * e.g. through "sendfile" support of the underlying server.
+ * This is the blocking counterpart of {@link ZeroCopyHttpOutputMessage}.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see <a href="https://en.wikipedia.org/wiki/Zero-copy">Zero-copy</a>
+ */
+public interface FileTransferHttpOutputMessage extends HttpOutputMessage {
+
+	/**
+	 * Transfer the given region of the given file to the body of the message.
+	 * <p>The {@code Content-Length} header is expected to be set before, and
+	 * to match the given count unless other content is written to the body
+	 * as well. Implementations fall back on copying the file region to the
+	 * {@link #getBody() body} if zero-copy transfer is not available.
+	 * @param file the file to transfer
+	 * @param position the position within the file from which the transfer is to begin
+	 * @param count the number of bytes to be transferred
+	 * @throws IOException in case of I/O errors
+	 */
+	void transferFile(Path file, long position, long count) throws IOException;
+
+}
@@ -30,6 +30,7 @@ import org.springframework.core.codec.Encoder;
 import org.springframework.core.codec.Hints;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.PooledDataBuffer;
 import org.springframework.http.HttpLogging;
 import org.springframework.http.MediaType;
@@ -123,6 +124,7 @@ public class EncoderHttpMessageWriter<T> implements HttpMessageWriter<T> {
 					.flatMap(value -> {
 						DataBufferFactory factory = message.bufferFactory();
 						DataBuffer buffer = this.encoder.encodeValue(value, factory, elementType, contentType, hints);
+						DataBufferUtils.touch(buffer, this.encoder);
 						message.getHeaders().setContentLength(buffer.readableByteCount());
 						return message.writeWith(Mono.just(buffer)
 								.doOnDiscard(PooledDataBuffer.class, PooledDataBuffer::release));
@@ -130,7 +132,8 @@ public class EncoderHttpMessageWriter<T> implements HttpMessageWriter<T> {
 		}
 
 		Flux<DataBuffer> body = this.encoder.encode(
-				inputStream, message.bufferFactory(), elementType, contentType, hints);
+				inputStream, message.bufferFactory(), elementType, contentType, hints)
+				.map(buffer -> DataBufferUtils.touch(buffer, this.encoder));
 
 		if (isStreamingMediaType(contentType)) {
 			return message.writeAndFlushWith(body.map(buffer ->
@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -36,6 +37,7 @@ import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ResolvableType;
@@ -67,6 +69,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 	private static final byte[] NEWLINE_SEPARATOR = {'\n'};
 
+	private static final int DEFAULT_BUFFER_SIZE_HINT = 256;
+
+	private static final int MAX_BUFFER_SIZE_HINT = 64 * 1024;
+
 	private static final Map<MediaType, byte[]> STREAM_SEPARATORS;
 
 	static {
@@ -78,6 +84,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private int chunkSize = -1;
+
+	private volatile int bufferSizeHint = DEFAULT_BUFFER_SIZE_HINT;
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -99,6 +109,34 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		this.streamingMediaTypes.addAll(mediaTypes);
 	}
 
+	/**
+	 * Configure the maximum size of the buffers that {@link #encode encode}
+	 * serializes values into.
+	 * <p>By default, each value is serialized into a single buffer which grows
+	 * as needed, copying its content on every expansion. If a chunk size is set,
+	 * a value is instead written to a sequence of buffers of at most the given
+	 * size, obtained from the {@link DataBufferFactory} as the previous one fills
+	 * up, and emitted one by one as requested downstream. This avoids copies of
+	 * large values, in particular with a pooling factory such as the one of the
+	 * underlying server, and applies to both single values and the elements of
+	 * a {@link #setStreamingMediaTypes streaming} response.
+	 * <p>Note that {@link #encodeValue} always returns a single buffer.
+	 * @param chunkSize the maximum buffer size in bytes, or -1 for no chunking
+	 * @since 5.2
+	 */
+	public void setChunkSize(int chunkSize) {
+		Assert.isTrue(chunkSize == -1 || chunkSize > 0, "'chunkSize' must be -1 or a positive number");
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Return the configured {@link #setChunkSize chunk size}, if any.
+	 * @since 5.2
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
 
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
@@ -117,6 +155,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 		JsonEncoding encoding = getJsonEncoding(mimeType);
 
+		if (this.chunkSize > 0) {
+			return encodeChunks(inputStream, bufferFactory, elementType, mimeType, hints, encoding);
+		}
+
 		if (inputStream instanceof Mono) {
 			return Mono.from(inputStream).map(value ->
 					encodeValue(value, bufferFactory, elementType, mimeType, hints, encoding)).flux();
@@ -144,6 +186,37 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		}
 	}
 
+	private Flux<DataBuffer> encodeChunks(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+			ResolvableType elementType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints,
+			JsonEncoding encoding) {
+
+		if (inputStream instanceof Mono) {
+			return Mono.from(inputStream).flatMapMany(value -> emitChunks(
+					encodeValueChunks(value, bufferFactory, elementType, mimeType, hints, encoding, null)));
+		}
+		MediaType streamingMediaType = this.streamingMediaTypes.stream()
+				.filter(mediaType -> mediaType.isCompatibleWith(mimeType))
+				.findFirst()
+				.orElse(null);
+		if (streamingMediaType != null) {
+			byte[] separator = STREAM_SEPARATORS.getOrDefault(streamingMediaType, NEWLINE_SEPARATOR);
+			return Flux.from(inputStream).concatMap(value -> emitChunks(
+					encodeValueChunks(value, bufferFactory, elementType, mimeType, hints, encoding, separator)));
+		}
+		ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+		return Flux.from(inputStream).collectList().flatMapMany(list -> emitChunks(
+				encodeValueChunks(list, bufferFactory, listType, mimeType, hints, encoding, null)));
+	}
+
+	/**
+	 * Emit the given chunks as requested, releasing those which have not been
+	 * emitted yet if the subscription is cancelled.
+	 */
+	private static Flux<DataBuffer> emitChunks(List<DataBuffer> chunks) {
+		ChunkEmitter emitter = new ChunkEmitter(chunks);
+		return Flux.generate(emitter).doOnCancel(emitter::cancel);
+	}
+
 	@Override
 	public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory,
 			ResolvableType valueType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
@@ -154,6 +227,50 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	private DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints, JsonEncoding encoding) {
 
+		DataBuffer buffer = bufferFactory.allocateBuffer(this.bufferSizeHint);
+		boolean release = true;
+		try {
+			writeValue(value, buffer.asOutputStream(), valueType, mimeType, hints, encoding);
+			release = false;
+		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+		updateBufferSizeHint(buffer.readableByteCount());
+		return buffer;
+	}
+
+	private List<DataBuffer> encodeValueChunks(Object value, DataBufferFactory bufferFactory,
+			ResolvableType valueType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints,
+			JsonEncoding encoding, @Nullable byte[] separator) {
+
+		ChunkedOutputStream outputStream = new ChunkedOutputStream(
+				bufferFactory, Math.min(this.bufferSizeHint, this.chunkSize), this.chunkSize);
+		boolean release = true;
+		try {
+			writeValue(value, outputStream, valueType, mimeType, hints, encoding);
+			if (separator != null) {
+				outputStream.write(separator);
+			}
+			release = false;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+		}
+		finally {
+			if (release) {
+				outputStream.release();
+			}
+		}
+		updateBufferSizeHint(outputStream.getSize());
+		return outputStream.getBuffers();
+	}
+
+	private void writeValue(Object value, OutputStream outputStream, ResolvableType valueType,
+			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints, JsonEncoding encoding) {
+
 		if (!Hints.isLoggingSuppressed(hints)) {
 			LogFormatUtils.traceDebug(logger, traceOn -> {
 				String formatted = LogFormatUtils.formatValue(value, !traceOn);
@@ -172,15 +289,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 		writer = customizeWriter(writer, mimeType, valueType, hints);
 
-		DataBuffer buffer = bufferFactory.allocateBuffer();
-		boolean release = true;
-		OutputStream outputStream = buffer.asOutputStream();
-
 		try {
 			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
 			writer.writeValue(generator, value);
 			generator.flush();
-			release = false;
 		}
 		catch (InvalidDefinitionException ex) {
 			throw new CodecException("Type definition error: " + ex.getType(), ex);
@@ -192,13 +304,17 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			throw new IllegalStateException("Unexpected I/O error while writing to data buffer",
 					ex);
 		}
-		finally {
-			if (release) {
-				DataBufferUtils.release(buffer);
-			}
-		}
+	}
 
-		return buffer;
+	/**
+	 * Adapt the initial buffer size to the size of recently encoded values,
+	 * as a moving average within fixed bounds. Concurrent updates may get lost,
+	 * which is acceptable for a hint.
+	 */
+	private void updateBufferSizeHint(int size) {
+		int hint = this.bufferSizeHint;
+		int newHint = hint + (Math.min(size, MAX_BUFFER_SIZE_HINT) - hint) / 4;
+		this.bufferSizeHint = Math.max(newHint, DEFAULT_BUFFER_SIZE_HINT);
 	}
 
 	protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
@@ -252,4 +368,109 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return parameter.getMethodAnnotation(annotType);
 	}
 
+
+	/**
+	 * Emits a list of chunks one per request. Emitting a chunk and releasing the
+	 * remaining chunks on cancellation happen under the same lock, so that each
+	 * chunk is either emitted or released, even if a cancel signal arrives on a
+	 * different thread while a chunk is being emitted.
+	 */
+	private static class ChunkEmitter implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final List<DataBuffer> chunks;
+
+		private int index;
+
+		private boolean cancelled;
+
+		public ChunkEmitter(List<DataBuffer> chunks) {
+			this.chunks = chunks;
+		}
+
+		@Override
+		public synchronized void accept(SynchronousSink<DataBuffer> sink) {
+			if (this.cancelled || this.index >= this.chunks.size()) {
+				sink.complete();
+				return;
+			}
+			sink.next(this.chunks.get(this.index++));
+			if (this.index == this.chunks.size()) {
+				sink.complete();
+			}
+		}
+
+		public synchronized void cancel() {
+			if (!this.cancelled) {
+				this.cancelled = true;
+				for (int i = this.index; i < this.chunks.size(); i++) {
+					DataBufferUtils.release(this.chunks.get(i));
+				}
+				this.index = this.chunks.size();
+			}
+		}
+	}
+
+
+	/**
+	 * {@link OutputStream} that writes to a sequence of data buffers of limited
+	 * size, allocating the next buffer once the current one is full.
+	 */
+	private static class ChunkedOutputStream extends OutputStream {
+
+		private final DataBufferFactory bufferFactory;
+
+		private final int chunkSize;
+
+		private final List<DataBuffer> buffers = new ArrayList<>(1);
+
+		private DataBuffer current;
+
+		private int size;
+
+		ChunkedOutputStream(DataBufferFactory bufferFactory, int initialSize, int chunkSize) {
+			this.bufferFactory = bufferFactory;
+			this.chunkSize = chunkSize;
+			this.current = bufferFactory.allocateBuffer(initialSize);
+			this.buffers.add(this.current);
+		}
+
+		@Override
+		public void write(int b) {
+			nextBufferIfFull();
+			this.current.write((byte) b);
+			this.size++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			while (len > 0) {
+				nextBufferIfFull();
+				int count = Math.min(len, this.current.writableByteCount());
+				this.current.write(bytes, off, count);
+				this.size += count;
+				off += count;
+				len -= count;
+			}
+		}
+
+		private void nextBufferIfFull() {
+			if (this.current.writableByteCount() == 0) {
+				this.current = this.bufferFactory.allocateBuffer(this.chunkSize);
+				this.buffers.add(this.current);
+			}
+		}
+
+		int getSize() {
+			return this.size;
+		}
+
+		List<DataBuffer> getBuffers() {
+			return this.buffers;
+		}
+
+		void release() {
+			this.buffers.forEach(DataBufferUtils::release);
+		}
+	}
+
 }
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -65,6 +66,10 @@ final class Jackson2Tokenizer {
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
+	// Reusable copy target for buffers without an accessible backing array:
+	// the parser consumes all input fed to it before the next chunk arrives
+	private byte[] inputBuffer = new byte[0];
+
 
 	private Jackson2Tokenizer(
 			JsonParser parser, DeserializationContext deserializationContext, boolean tokenizeArrayElements) {
@@ -78,12 +83,8 @@ final class Jackson2Tokenizer {
 
 
 	private List<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		byte[] bytes = new byte[dataBuffer.readableByteCount()];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			feedInput(dataBuffer);
 			return parseTokenBufferFlux();
 		}
 		catch (JsonProcessingException ex) {
@@ -92,6 +93,31 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			throw Exceptions.propagate(ex);
 		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+	/**
+	 * Feed the readable bytes of the given buffer to the parser, directly from
+	 * its backing array if accessible, or through the reusable input buffer
+	 * otherwise (e.g. for direct or pooled memory). In both cases the buffer
+	 * must not be released before the fed input has been parsed.
+	 */
+	private void feedInput(DataBuffer dataBuffer) throws IOException {
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+		int length = byteBuffer.remaining();
+		if (byteBuffer.hasArray()) {
+			int start = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.inputFeeder.feedInput(byteBuffer.array(), start, start + length);
+		}
+		else {
+			if (this.inputBuffer.length < length) {
+				this.inputBuffer = new byte[length];
+			}
+			byteBuffer.get(this.inputBuffer, 0, length);
+			this.inputFeeder.feedInput(this.inputBuffer, 0, length);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
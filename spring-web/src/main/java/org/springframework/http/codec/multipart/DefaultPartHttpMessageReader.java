@@ -0,0 +1,823 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.http.codec.multipart.MultipartParser.BodyToken;
+import org.springframework.http.codec.multipart.MultipartParser.HeadersToken;
+import org.springframework.http.codec.multipart.MultipartParser.Token;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}'s, without depending on a third-party
+ * multipart library.
+ *
+ * <p>The request body is parsed in a non-blocking fashion as it arrives. The
+ * content of each part is kept in memory up to {@link #setMaxInMemorySize
+ * maxInMemorySize}; beyond that, the content of file and other non form field
+ * parts is written to a temporary file on the
+ * {@link #setBlockingOperationScheduler blocking operation scheduler}, while
+ * form fields exceeding the limit are rejected. Reading of the request body
+ * follows the speed at which parts are written, and the content of file-backed
+ * parts is read back with back-pressure, so that large uploads do not need to
+ * be held in memory.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in order
+ * to aggregate all parts into a Map.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see MultipartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+	private static final String FILE_STORAGE_DIRECTORY_PREFIX = "spring-multipart-";
+
+	private static final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = -1;
+
+	private int maxParts = -1;
+
+	private Scheduler blockingOperationScheduler = Schedulers.boundedElastic();
+
+	@Nullable
+	private volatile Path fileStorageDirectory;
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+
+	/**
+	 * Configure the maximum amount of memory allowed per part.
+	 * When the limit is exceeded, file parts and other non form field parts are
+	 * written to a temporary file, while form fields are rejected with a
+	 * {@link DecodingException}.
+	 * <p>By default this is set to 256K.
+	 * @param maxInMemorySize the in-memory limit in bytes
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} maximum in-memory size.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum amount of memory that is allowed for the headers
+	 * section of each part.
+	 * <p>By default this is set to 8K.
+	 * @param byteCount the maximum amount of memory for the headers of a part
+	 */
+	public void setMaxHeadersSize(int byteCount) {
+		this.maxHeadersSize = byteCount;
+	}
+
+	/**
+	 * Configure the maximum amount of disk space allowed for a file part.
+	 * When the limit is exceeded, reading fails with a {@link DecodingException}.
+	 * <p>By default this is set to -1, meaning that there is no limit.
+	 * @param maxDiskUsagePerPart the disk limit in bytes, or -1 for unlimited
+	 */
+	public void setMaxDiskUsagePerPart(long maxDiskUsagePerPart) {
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Return the {@link #setMaxDiskUsagePerPart configured} disk limit per part.
+	 */
+	public long getMaxDiskUsagePerPart() {
+		return this.maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Specify the maximum number of parts allowed in a given multipart request.
+	 * When the limit is exceeded, reading fails with a {@link DecodingException}.
+	 * <p>By default this is set to -1, meaning that there is no limit.
+	 * @param maxParts the maximum number of parts, or -1 for unlimited
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Return the {@link #setMaxParts configured} limit on the number of parts.
+	 */
+	public int getMaxParts() {
+		return this.maxParts;
+	}
+
+	/**
+	 * Set the Reactor {@link Scheduler} to be used for creating files and
+	 * directories, and writing to files.
+	 * <p>By default, {@link Schedulers#boundedElastic()} is used, which bounds
+	 * the number of threads blocked on disk I/O.
+	 * @param blockingOperationScheduler the scheduler to use for blocking operations
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "Scheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+	/**
+	 * Set the directory used to store parts larger than
+	 * {@link #setMaxInMemorySize maxInMemorySize}.
+	 * <p>By default, a new temporary directory is created lazily.
+	 * @param fileStorageDirectory the directory to store temporary files in
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Set the character set used to decode part headers.
+	 * <p>By default this is set to UTF-8.
+	 * @param headersCharset the charset to use for decoding headers
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "HeadersCharset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.toClass()) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			byte[] boundary = getBoundary(message);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						message.getHeaders().getContentType() + "\""));
+			}
+			PartGenerator generator = new PartGenerator(this.maxInMemorySize, this.maxDiskUsagePerPart,
+					this.maxParts, this.blockingOperationScheduler, this::getFileStorageDirectory);
+			return MultipartParser.parse(readBody(message), boundary, this.maxHeadersSize, this.headersCharset)
+					// No prefetching, so tokens are not left unreleased on error
+					.flatMap(generator::handle, 1)
+					.concatWith(Mono.defer(generator::complete))
+					.doFinally(signalType -> generator.dispose())
+					.doOnDiscard(BodyToken.class, BodyToken::release)
+					.doOnDiscard(Part.class, part -> part.delete().subscribe());
+		}).doOnNext(part -> {
+			if (!Hints.isLoggingSuppressed(hints)) {
+				LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+						(isEnableLoggingRequestDetails() ?
+								LogFormatUtils.formatValue(part, !traceOn) :
+								"parts '" + part.name() + "' (content masked)"));
+			}
+		});
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+	/**
+	 * Read the request body with back-pressure, consuming the remainder if
+	 * parsing stops early, since not all servers complete the exchange
+	 * properly if reading of the request body is cancelled.
+	 */
+	private static Flux<DataBuffer> readBody(ReactiveHttpInputMessage message) {
+		return Flux.create(sink -> {
+			BodySubscriber subscriber = new BodySubscriber(sink);
+			message.getBody().subscribe(subscriber);
+			sink.onRequest(subscriber::request);
+			sink.onDispose(subscriber::drain);
+		});
+	}
+
+	@Nullable
+	private static byte[] getBoundary(ReactiveHttpInputMessage message) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter("boundary");
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(StandardCharsets.ISO_8859_1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the file storage directory, creating a temporary one if none was
+	 * configured. Invoked on the blocking operation scheduler.
+	 */
+	private Path getFileStorageDirectory() throws IOException {
+		Path directory = this.fileStorageDirectory;
+		if (directory == null) {
+			synchronized (this) {
+				directory = this.fileStorageDirectory;
+				if (directory == null) {
+					directory = Files.createTempDirectory(FILE_STORAGE_DIRECTORY_PREFIX);
+					this.fileStorageDirectory = directory;
+				}
+			}
+		}
+		else if (!Files.exists(directory)) {
+			Files.createDirectories(directory);
+		}
+		return directory;
+	}
+
+	private static void closeQuietly(@Nullable FileChannel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+	private static void deleteQuietly(@Nullable Path file) {
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			}
+			catch (IOException ex) {
+				// ignore
+			}
+		}
+	}
+
+
+	/**
+	 * Subscriber to the request body that passes buffers on as requested by
+	 * the parser, or releases them once the parser is done.
+	 */
+	private static class BodySubscriber extends BaseSubscriber<DataBuffer> {
+
+		private final FluxSink<DataBuffer> sink;
+
+		private volatile boolean draining;
+
+		BodySubscriber(FluxSink<DataBuffer> sink) {
+			this.sink = sink;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			// Demand comes from the sink
+		}
+
+		@Override
+		protected void hookOnNext(DataBuffer buffer) {
+			if (this.draining) {
+				DataBufferUtils.release(buffer);
+			}
+			else {
+				this.sink.next(buffer);
+			}
+		}
+
+		@Override
+		protected void hookOnError(Throwable throwable) {
+			if (!this.draining) {
+				this.sink.error(throwable);
+			}
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			if (!this.draining) {
+				this.sink.complete();
+			}
+		}
+
+		public void drain() {
+			if (!isDisposed()) {
+				this.draining = true;
+				requestUnbounded();
+			}
+		}
+	}
+
+
+	/**
+	 * Callback for obtaining the directory to store temporary files in.
+	 */
+	@FunctionalInterface
+	private interface DirectorySupplier {
+
+		Path get() throws IOException;
+	}
+
+
+	/**
+	 * Turns parser tokens into parts, one part at a time: content is collected
+	 * in memory up to the in-memory limit, and written to a temporary file
+	 * beyond that.
+	 * <p>The temporary file of the current part is created and written on the
+	 * blocking operation scheduler, possibly while the generator is disposed
+	 * on another thread: the file state is therefore guarded by the generator,
+	 * and writes check whether it has been disposed in the meantime, deleting
+	 * any file of their own that the generator no longer refers to.
+	 */
+	private static class PartGenerator {
+
+		private final int maxInMemorySize;
+
+		private final long maxDiskUsagePerPart;
+
+		private final int maxParts;
+
+		private final Scheduler scheduler;
+
+		private final DirectorySupplier directorySupplier;
+
+		private int partCount;
+
+		@Nullable
+		private HttpHeaders headers;
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private long size;
+
+		@Nullable
+		private Path file;
+
+		@Nullable
+		private FileChannel channel;
+
+		private boolean disposed;
+
+		PartGenerator(int maxInMemorySize, long maxDiskUsagePerPart, int maxParts,
+				Scheduler scheduler, DirectorySupplier directorySupplier) {
+
+			this.maxInMemorySize = maxInMemorySize;
+			this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+			this.maxParts = maxParts;
+			this.scheduler = scheduler;
+			this.directorySupplier = directorySupplier;
+		}
+
+		public Mono<Part> handle(Token token) {
+			if (token instanceof HeadersToken) {
+				if (this.maxParts != -1 && ++this.partCount > this.maxParts) {
+					return Mono.error(new DecodingException("Too many parts: the limit is " + this.maxParts));
+				}
+				Mono<Part> previous = complete();
+				this.headers = ((HeadersToken) token).headers();
+				return previous;
+			}
+			return write(((BodyToken) token).buffer());
+		}
+
+		private Mono<Part> write(DataBuffer buffer) {
+			HttpHeaders headers = this.headers;
+			Assert.state(headers != null, "No part headers");
+			int count = buffer.readableByteCount();
+			synchronized (this) {
+				if (this.disposed) {
+					DataBufferUtils.release(buffer);
+					return Mono.empty();
+				}
+				if (this.channel == null && this.size + count <= this.maxInMemorySize) {
+					this.content.add(buffer);
+					this.size += count;
+					return Mono.empty();
+				}
+			}
+			if (isFormField(headers)) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new DecodingException("Form field part '" + getName(headers) +
+						"' exceeded the in-memory limit of " + this.maxInMemorySize + " bytes"));
+			}
+			if (this.maxDiskUsagePerPart != -1 && this.size + count > this.maxDiskUsagePerPart) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new DecodingException("Part '" + getName(headers) +
+						"' exceeded the disk usage limit of " + this.maxDiskUsagePerPart + " bytes"));
+			}
+			this.size += count;
+			return Mono.<Part>fromCallable(() -> {
+				try {
+					FileChannel channel = getOrCreateChannel();
+					if (channel != null) {
+						writeFully(channel, buffer);
+					}
+					return null;
+				}
+				finally {
+					DataBufferUtils.release(buffer);
+				}
+			}).subscribeOn(this.scheduler);
+		}
+
+		/**
+		 * Return the channel of the current part, creating the temporary file
+		 * and moving the in-memory content into it on first access.
+		 * @return the channel, or {@code null} if the generator has been disposed
+		 */
+		@Nullable
+		private FileChannel getOrCreateChannel() throws IOException {
+			List<DataBuffer> inMemoryContent;
+			synchronized (this) {
+				if (this.disposed || this.channel != null) {
+					return this.channel;
+				}
+				inMemoryContent = new ArrayList<>(this.content);
+				this.content.clear();
+			}
+			Path file = null;
+			FileChannel channel = null;
+			try {
+				file = Files.createTempFile(this.directorySupplier.get(), null, ".multipart");
+				channel = FileChannel.open(file, StandardOpenOption.WRITE);
+				for (DataBuffer inMemory : inMemoryContent) {
+					writeFully(channel, inMemory);
+				}
+				synchronized (this) {
+					if (!this.disposed) {
+						this.file = file;
+						this.channel = channel;
+						return channel;
+					}
+				}
+				closeQuietly(channel);
+				deleteQuietly(file);
+				return null;
+			}
+			catch (IOException | RuntimeException ex) {
+				closeQuietly(channel);
+				deleteQuietly(file);
+				throw ex;
+			}
+			finally {
+				inMemoryContent.forEach(DataBufferUtils::release);
+			}
+		}
+
+		private static void writeFully(FileChannel channel, DataBuffer buffer) throws IOException {
+			ByteBuffer byteBuffer = buffer.asByteBuffer();
+			while (byteBuffer.hasRemaining()) {
+				channel.write(byteBuffer);
+			}
+		}
+
+		/**
+		 * Complete the current part, if any.
+		 */
+		public Mono<Part> complete() {
+			HttpHeaders headers = this.headers;
+			if (headers == null) {
+				return Mono.empty();
+			}
+			this.headers = null;
+			FileChannel channel;
+			Path file;
+			List<DataBuffer> content;
+			synchronized (this) {
+				channel = this.channel;
+				file = this.file;
+				content = new ArrayList<>(this.content);
+				this.channel = null;
+				this.file = null;
+				this.content.clear();
+			}
+			if (channel == null) {
+				byte[] bytes = new byte[(int) this.size];
+				int position = 0;
+				for (DataBuffer buffer : content) {
+					int count = buffer.readableByteCount();
+					buffer.read(bytes, position, count);
+					position += count;
+					DataBufferUtils.release(buffer);
+				}
+				this.size = 0;
+				return Mono.fromCallable(() -> createPart(headers, bytes, this.scheduler));
+			}
+			Assert.state(file != null, "No file");
+			this.size = 0;
+			return Mono.fromCallable(() -> {
+				try {
+					channel.close();
+				}
+				catch (IOException ex) {
+					deleteQuietly(file);
+					throw ex;
+				}
+				synchronized (this) {
+					if (!this.disposed) {
+						return createPart(headers, file, this.scheduler);
+					}
+				}
+				// Nobody left to consume the part
+				deleteQuietly(file);
+				return null;
+			}).subscribeOn(this.scheduler);
+		}
+
+		/**
+		 * Release the resources of the current part, if any, and stop writes
+		 * still in progress from holding on to a temporary file.
+		 */
+		public void dispose() {
+			FileChannel channel;
+			Path file;
+			synchronized (this) {
+				this.disposed = true;
+				this.content.forEach(DataBufferUtils::release);
+				this.content.clear();
+				channel = this.channel;
+				file = this.file;
+				this.channel = null;
+				this.file = null;
+			}
+			closeQuietly(channel);
+			deleteQuietly(file);
+			this.size = 0;
+		}
+
+		private static boolean isFormField(HttpHeaders headers) {
+			MediaType contentType = headers.getContentType();
+			return (headers.getContentDisposition().getFilename() == null &&
+					(contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)));
+		}
+	}
+
+
+	private static String getName(HttpHeaders headers) {
+		String name = headers.getContentDisposition().getName();
+		if (name == null) {
+			throw new DecodingException("Part has no name in Content-Disposition: \"" +
+					headers.getFirst(HttpHeaders.CONTENT_DISPOSITION) + "\"");
+		}
+		return name;
+	}
+
+	private static Part createPart(HttpHeaders headers, byte[] content, Scheduler scheduler) {
+		ContentDisposition contentDisposition = headers.getContentDisposition();
+		String filename = contentDisposition.getFilename();
+		if (filename != null) {
+			return new InMemoryFilePart(headers, content, filename, scheduler);
+		}
+		else if (PartGenerator.isFormField(headers)) {
+			return new DefaultFormFieldPart(headers, content);
+		}
+		else {
+			return new InMemoryPart(headers, content);
+		}
+	}
+
+	private static Part createPart(HttpHeaders headers, Path file, Scheduler scheduler) {
+		String filename = headers.getContentDisposition().getFilename();
+		if (filename != null) {
+			return new FileContentFilePart(headers, file, filename, scheduler);
+		}
+		else {
+			return new FileContentPart(headers, file, scheduler);
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final String name;
+
+		private final HttpHeaders headers;
+
+		AbstractPart(HttpHeaders headers) {
+			this.name = getName(headers);
+			this.headers = headers;
+		}
+
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + this.name + "', headers=" + this.headers;
+		}
+	}
+
+
+	private static class InMemoryPart extends AbstractPart {
+
+		private final byte[] content;
+
+		InMemoryPart(HttpHeaders headers, byte[] content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return Flux.defer(() -> Flux.just(bufferFactory.wrap(this.content)));
+		}
+
+		protected byte[] getContent() {
+			return this.content;
+		}
+	}
+
+
+	private static class InMemoryFilePart extends InMemoryPart implements FilePart {
+
+		private final String filename;
+
+		private final Scheduler scheduler;
+
+		InMemoryFilePart(HttpHeaders headers, byte[] content, String filename, Scheduler scheduler) {
+			super(headers, content);
+			this.filename = filename;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.fromCallable(() -> Files.write(dest, getContent()))
+					.subscribeOn(this.scheduler)
+					.then();
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+
+	private static class DefaultFormFieldPart extends InMemoryPart implements FormFieldPart {
+
+		private final String value;
+
+		DefaultFormFieldPart(HttpHeaders headers, byte[] content) {
+			super(headers, content);
+			MediaType contentType = headers.getContentType();
+			Charset charset = (contentType != null && contentType.getCharset() != null ?
+					contentType.getCharset() : StandardCharsets.UTF_8);
+			this.value = new String(content, charset);
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "=" + this.value + "'";
+		}
+	}
+
+
+	/**
+	 * Part whose content is stored in a temporary file. The content can be
+	 * consumed once, either through {@link #content()} or by transferring the
+	 * file, after which the temporary file is removed. The file of a part that
+	 * is not consumed is removed through {@link #delete()}, e.g. when the
+	 * exchange completes.
+	 */
+	private static class FileContentPart extends AbstractPart {
+
+		private static final int BUFFER_SIZE = 4096;
+
+		private final Path file;
+
+		private final Scheduler scheduler;
+
+		FileContentPart(HttpHeaders headers, Path file, Scheduler scheduler) {
+			super(headers);
+			this.file = file;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return DataBufferUtils.read(this.file, bufferFactory, BUFFER_SIZE, StandardOpenOption.READ)
+					.doFinally(signalType -> this.scheduler.schedule(() -> deleteQuietly(this.file)));
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return Mono.<Void>fromRunnable(() -> deleteQuietly(this.file)).subscribeOn(this.scheduler);
+		}
+
+		protected Path getFile() {
+			return this.file;
+		}
+
+		protected Scheduler getScheduler() {
+			return this.scheduler;
+		}
+	}
+
+
+	private static class FileContentFilePart extends FileContentPart implements FilePart {
+
+		private final String filename;
+
+		FileContentFilePart(HttpHeaders headers, Path file, String filename, Scheduler scheduler) {
+			super(headers, file, scheduler);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.fromCallable(() -> Files.move(getFile(), dest, StandardCopyOption.REPLACE_EXISTING))
+					.subscribeOn(getScheduler())
+					.then();
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Non-blocking parser that turns a stream of {@code multipart/*} body buffers
+ * into a stream of {@link Token tokens}: a {@link HeadersToken} at the start of
+ * each part, followed by any number of {@link BodyToken BodyTokens} holding the
+ * content of that part.
+ *
+ * <p>The parser is a state machine driven by the incoming buffers, using
+ * {@link DataBufferUtils#matcher(byte[]) delimiter matchers} to find the
+ * boundaries. Body buffers are sliced rather than copied, and only the bytes
+ * that might belong to a boundary delimiter split across buffers are held back.
+ *
+ * @author Agent
+ * @since 5.2
+ * @see DefaultPartHttpMessageReader
+ */
+final class MultipartParser {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+	private static final byte[] CRLF = {CR, LF};
+
+	private static final byte[] HEADERS_END = {CR, LF, CR, LF};
+
+	private static final DataBuffer CRLF_BUFFER = new DefaultDataBufferFactory().wrap(CRLF);
+
+
+	private final int maxHeadersSize;
+
+	private final Charset headersCharset;
+
+	private final DataBufferUtils.Matcher firstBoundaryMatcher;
+
+	private final DataBufferUtils.Matcher headersEndMatcher;
+
+	private final DataBufferUtils.Matcher boundaryMatcher;
+
+	private final int boundaryDelimiterLength;
+
+	private State state = State.PREAMBLE;
+
+	// AFTER_BOUNDARY state
+	private int afterBoundaryCount;
+
+	private boolean closeDelimiter;
+
+	// HEADERS state
+	private final List<DataBuffer> headerBuffers = new ArrayList<>(1);
+
+	private int headersSize;
+
+	// BODY state: buffers held back since they might contain the start of a boundary
+	private final Deque<DataBuffer> bodyBuffers = new ArrayDeque<>(2);
+
+	private int bodyBuffersSize;
+
+
+	private MultipartParser(byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		byte[] firstBoundary = concat(new byte[] {HYPHEN, HYPHEN}, boundary);
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+		this.firstBoundaryMatcher = DataBufferUtils.matcher(firstBoundary);
+		this.headersEndMatcher = DataBufferUtils.matcher(HEADERS_END);
+		this.boundaryMatcher = DataBufferUtils.matcher(concat(CRLF, firstBoundary));
+		this.boundaryDelimiterLength = CRLF.length + firstBoundary.length;
+	}
+
+
+	/**
+	 * Parse the given stream of multipart body buffers into tokens.
+	 * @param buffers the body of a multipart message
+	 * @param boundary the multipart boundary, without leading hyphens
+	 * @param maxHeadersSize the maximum size of the headers section of each part
+	 * @param headersCharset the charset to decode part headers with
+	 * @return the stream of tokens, failing with a {@link DecodingException}
+	 * if the input is not a complete multipart body
+	 */
+	public static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary,
+			int maxHeadersSize, Charset headersCharset) {
+
+		return Flux.defer(() -> {
+			MultipartParser parser = new MultipartParser(boundary, maxHeadersSize, headersCharset);
+			// flatMap with a concurrency of 1, unlike concatMap, does not prefetch
+			// buffers that would be left unreleased when parsing fails
+			return buffers
+					.flatMap(buffer -> emit(parser.parse(buffer)), 1)
+					.concatWith(Flux.defer(parser::complete))
+					.doFinally(signalType -> parser.dispose())
+					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+		});
+	}
+
+	/**
+	 * Emit the given tokens, releasing the buffers of those not emitted yet if
+	 * the subscription is cancelled.
+	 */
+	private static Flux<Token> emit(List<Token> tokens) {
+		if (tokens.isEmpty()) {
+			return Flux.empty();
+		}
+		AtomicInteger emitted = new AtomicInteger();
+		return Flux.fromIterable(tokens)
+				.doOnNext(token -> emitted.incrementAndGet())
+				.doOnCancel(() -> tokens.subList(emitted.get(), tokens.size()).forEach(Token::release));
+	}
+
+
+	private List<Token> parse(DataBuffer buffer) {
+		List<Token> tokens = new ArrayList<>(2);
+		DataBuffer remainder = buffer;
+		try {
+			while (remainder != null) {
+				switch (this.state) {
+					case PREAMBLE:
+						remainder = parsePreamble(remainder);
+						break;
+					case AFTER_BOUNDARY:
+						remainder = parseAfterBoundary(remainder);
+						break;
+					case HEADERS:
+						remainder = parseHeaders(remainder, tokens);
+						break;
+					case BODY:
+						remainder = parseBody(remainder, tokens);
+						break;
+					default:
+						// Epilogue: ignore
+						DataBufferUtils.release(remainder);
+						remainder = null;
+				}
+			}
+			return tokens;
+		}
+		catch (RuntimeException ex) {
+			tokens.forEach(Token::release);
+			throw ex;
+		}
+	}
+
+	private Flux<Token> complete() {
+		if (this.state != State.EPILOGUE) {
+			return Flux.error(new DecodingException("Could not find end of multipart body in state " + this.state));
+		}
+		return Flux.empty();
+	}
+
+	private void dispose() {
+		this.headerBuffers.forEach(DataBufferUtils::release);
+		this.headerBuffers.clear();
+		this.bodyBuffers.forEach(DataBufferUtils::release);
+		this.bodyBuffers.clear();
+	}
+
+
+	@Nullable
+	private DataBuffer parsePreamble(DataBuffer buffer) {
+		int end = this.firstBoundaryMatcher.match(buffer);
+		if (end == -1) {
+			DataBufferUtils.release(buffer);
+			return null;
+		}
+		this.state = State.AFTER_BOUNDARY;
+		return remainder(buffer, end + 1);
+	}
+
+	/**
+	 * Handle the bytes following a boundary: either "--" for the end of the
+	 * multipart body, or optional whitespace followed by CRLF for the next part.
+	 */
+	@Nullable
+	private DataBuffer parseAfterBoundary(DataBuffer buffer) {
+		for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+			byte b = buffer.getByte(i);
+			if (this.afterBoundaryCount++ == 0 && b == HYPHEN) {
+				this.closeDelimiter = true;
+			}
+			else if (this.closeDelimiter) {
+				if (b != HYPHEN) {
+					DataBufferUtils.release(buffer);
+					throw new DecodingException("Invalid multipart close delimiter");
+				}
+				this.state = State.EPILOGUE;
+				DataBufferUtils.release(buffer);
+				return null;
+			}
+			else if (b == LF) {
+				this.afterBoundaryCount = 0;
+				this.state = State.HEADERS;
+				// An empty headers section consists of a single CRLF
+				this.headersEndMatcher.reset();
+				this.headersEndMatcher.match(CRLF_BUFFER);
+				return remainder(buffer, i + 1);
+			}
+		}
+		DataBufferUtils.release(buffer);
+		return null;
+	}
+
+	@Nullable
+	private DataBuffer parseHeaders(DataBuffer buffer, List<Token> tokens) {
+		int end = this.headersEndMatcher.match(buffer);
+		int length = (end != -1 ? end + 1 : buffer.writePosition()) - buffer.readPosition();
+		if (this.headersSize + length > this.maxHeadersSize) {
+			DataBufferUtils.release(buffer);
+			throw new DecodingException("Part headers exceeded the limit of " + this.maxHeadersSize + " bytes");
+		}
+		this.headersSize += length;
+		if (end == -1) {
+			this.headerBuffers.add(buffer);
+			return null;
+		}
+		this.headerBuffers.add(buffer.retainedSlice(buffer.readPosition(), length));
+		tokens.add(new HeadersToken(parseHeaders()));
+		this.state = State.BODY;
+		return remainder(buffer, end + 1);
+	}
+
+	private HttpHeaders parseHeaders() {
+		byte[] bytes = new byte[this.headersSize];
+		int position = 0;
+		for (DataBuffer headerBuffer : this.headerBuffers) {
+			int count = headerBuffer.readableByteCount();
+			headerBuffer.read(bytes, position, count);
+			position += count;
+			DataBufferUtils.release(headerBuffer);
+		}
+		this.headerBuffers.clear();
+		this.headersSize = 0;
+
+		HttpHeaders headers = new HttpHeaders();
+		String previousName = null;
+		for (String line : StringUtils.delimitedListToStringArray(new String(bytes, this.headersCharset), "\r\n")) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			if (previousName != null && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+				// Obsolete line folding: continuation of the previous header value
+				List<String> values = headers.get(previousName);
+				int last = values.size() - 1;
+				values.set(last, values.get(last) + ' ' + line.trim());
+				continue;
+			}
+			int index = line.indexOf(':');
+			if (index <= 0) {
+				throw new DecodingException("Invalid part header: \"" + line + "\"");
+			}
+			previousName = line.substring(0, index).trim();
+			headers.add(previousName, line.substring(index + 1).trim());
+		}
+		return headers;
+	}
+
+	@Nullable
+	private DataBuffer parseBody(DataBuffer buffer, List<Token> tokens) {
+		int end = this.boundaryMatcher.match(buffer);
+		if (end == -1) {
+			this.bodyBuffers.add(buffer);
+			this.bodyBuffersSize += buffer.readableByteCount();
+			flushBody(tokens, this.boundaryDelimiterLength - 1);
+			return null;
+		}
+
+		int bodyLength = end + 1 - buffer.readPosition() - this.boundaryDelimiterLength;
+		if (bodyLength < 0) {
+			// The delimiter started in one of the held back buffers
+			trimBody(-bodyLength);
+		}
+		flushBody(tokens, 0);
+		if (bodyLength > 0) {
+			tokens.add(new BodyToken(buffer.retainedSlice(buffer.readPosition(), bodyLength)));
+		}
+		this.state = State.AFTER_BOUNDARY;
+		return remainder(buffer, end + 1);
+	}
+
+	/**
+	 * Emit held back body buffers as long as the given number of bytes remains.
+	 */
+	private void flushBody(List<Token> tokens, int bytesToKeep) {
+		while (!this.bodyBuffers.isEmpty()) {
+			DataBuffer first = this.bodyBuffers.peekFirst();
+			int count = first.readableByteCount();
+			if (this.bodyBuffersSize - count < bytesToKeep) {
+				break;
+			}
+			this.bodyBuffers.removeFirst();
+			this.bodyBuffersSize -= count;
+			if (count > 0) {
+				tokens.add(new BodyToken(first));
+			}
+			else {
+				DataBufferUtils.release(first);
+			}
+		}
+	}
+
+	/**
+	 * Remove the given number of bytes from the end of the held back body buffers.
+	 */
+	private void trimBody(int bytesToRemove) {
+		int remaining = bytesToRemove;
+		while (remaining > 0) {
+			DataBuffer last = this.bodyBuffers.removeLast();
+			int count = last.readableByteCount();
+			if (count <= remaining) {
+				DataBufferUtils.release(last);
+				this.bodyBuffersSize -= count;
+				remaining -= count;
+			}
+			else {
+				this.bodyBuffers.addLast(last.retainedSlice(last.readPosition(), count - remaining));
+				DataBufferUtils.release(last);
+				this.bodyBuffersSize -= remaining;
+				remaining = 0;
+			}
+		}
+	}
+
+	/**
+	 * Return a slice of the given buffer starting at the given index,
+	 * releasing the given buffer itself.
+	 */
+	@Nullable
+	private static DataBuffer remainder(DataBuffer buffer, int index) {
+		DataBuffer remainder = null;
+		if (index < buffer.writePosition()) {
+			remainder = buffer.retainedSlice(index, buffer.writePosition() - index);
+		}
+		DataBufferUtils.release(buffer);
+		return remainder;
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] result = new byte[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+
+	private enum State {
+
+		PREAMBLE, AFTER_BOUNDARY, HEADERS, BODY, EPILOGUE
+	}
+
+
+	/**
+	 * Output of the parser.
+	 */
+	abstract static class Token {
+
+		void release() {
+		}
+	}
+
+
+	/**
+	 * Token for the start of a part, holding its headers.
+	 */
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+	}
+
+
+	/**
+	 * Token holding content of the current part.
+	 */
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+
+		@Override
+		void release() {
+			DataBufferUtils.release(this.buffer);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.multipart;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
@@ -57,4 +58,16 @@ public interface Part {
 	 */
 	Flux<DataBuffer> content();
 
+	/**
+	 * Delete the underlying storage of this part, if any, e.g. a temporary
+	 * file that holds the content of a large part. To be used for parts
+	 * whose content has not been consumed.
+	 * <p>The default implementation does nothing.
+	 * @return completion signal for the deletion
+	 * @since 5.2
+	 */
+	default Mono<Void> delete() {
+		return Mono.empty();
+	}
+
 }
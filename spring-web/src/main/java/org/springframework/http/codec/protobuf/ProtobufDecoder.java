@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
@@ -35,10 +36,14 @@ import reactor.core.publisher.Mono;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.Decoder;
 import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.CompositeDataBuffer;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.MimeType;
 
@@ -77,6 +82,10 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 
 	private static final ConcurrentMap<Class<?>, Method> methodCache = new ConcurrentReferenceHashMap<>();
 
+	/** Whether {@code CodedInputStream} can read a sequence of byte buffers (Protobuf 3.6+). */
+	private static final boolean byteBuffersInputPresent =
+			ClassUtils.hasMethod(CodedInputStream.class, "newInstance", Iterable.class);
+
 
 	private final ExtensionRegistry extensionRegistry;
 
@@ -137,8 +146,7 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 
 		try {
 			Message.Builder builder = getMessageBuilder(targetType.toClass());
-			ByteBuffer buffer = dataBuffer.asByteBuffer();
-			builder.mergeFrom(CodedInputStream.newInstance(buffer), this.extensionRegistry);
+			builder.mergeFrom(newCodedInputStream(dataBuffer), this.extensionRegistry);
 			return builder.build();
 		}
 		catch (IOException ex) {
@@ -153,6 +161,28 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 	}
 
 
+	/**
+	 * Combine the given buffers into one without copying where possible:
+	 * as a {@link CompositeDataBuffer} in case of a {@link DefaultDataBufferFactory},
+	 * analogous to {@link DataBufferUtils#join}.
+	 */
+	private static DataBuffer composeChunks(List<DataBuffer> dataBuffers) {
+		DataBufferFactory bufferFactory = dataBuffers.get(0).factory();
+		return (bufferFactory instanceof DefaultDataBufferFactory ?
+				((DefaultDataBufferFactory) bufferFactory).compose(dataBuffers) : bufferFactory.join(dataBuffers));
+	}
+
+	/**
+	 * Create a {@code CodedInputStream} that reads the given buffer in place:
+	 * over the component byte buffers in case of a {@link CompositeDataBuffer}.
+	 */
+	private static CodedInputStream newCodedInputStream(DataBuffer dataBuffer) {
+		if (dataBuffer instanceof CompositeDataBuffer && byteBuffersInputPresent) {
+			return CodedInputStream.newInstance(Arrays.asList(((CompositeDataBuffer) dataBuffer).asByteBuffers()));
+		}
+		return CodedInputStream.newInstance(dataBuffer.asByteBuffer());
+	}
+
 	/**
 	 * Create a new {@code Message.Builder} instance for the given class.
 	 * <p>This method uses a ConcurrentHashMap for caching method lookups.
@@ -178,8 +208,9 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 
 		private final int maxMessageSize;
 
+		/** Retained slices of the input with the message read so far, if it spans input buffers */
 		@Nullable
-		private DataBuffer output;
+		private List<DataBuffer> chunks;
 
 		private int messageBytesToRead;
 
@@ -196,11 +227,8 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 		public Iterable<? extends Message> apply(DataBuffer input) {
 			try {
 				List<Message> messages = new ArrayList<>();
-				int remainingBytesToRead;
-				int chunkBytesToRead;
-
 				do {
-					if (this.output == null) {
+					if (this.chunks == null) {
 						if (!readMessageSize(input)) {
 							return messages;
 						}
@@ -210,28 +238,35 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 											"(" + this.messageBytesToRead + ") exceeds " +
 											"the configured limit (" + this.maxMessageSize + ")");
 						}
-						this.output = input.factory().allocateBuffer(this.messageBytesToRead);
+						int readPosition = input.readPosition();
+						if (this.messageBytesToRead <= input.readableByteCount()) {
+							// Entire message in this buffer: parse it in place
+							ByteBuffer message = input.asByteBuffer(readPosition, this.messageBytesToRead);
+							messages.add(parseMessage(CodedInputStream.newInstance(message)));
+							input.readPosition(readPosition + this.messageBytesToRead);
+							continue;
+						}
+						this.chunks = new ArrayList<>();
 					}
 
-					chunkBytesToRead = this.messageBytesToRead >= input.readableByteCount() ?
-							input.readableByteCount() : this.messageBytesToRead;
-					remainingBytesToRead = input.readableByteCount() - chunkBytesToRead;
-
-					byte[] bytesToWrite = new byte[chunkBytesToRead];
-					input.read(bytesToWrite, 0, chunkBytesToRead);
-					this.output.write(bytesToWrite);
+					int readPosition = input.readPosition();
+					int chunkBytesToRead = Math.min(this.messageBytesToRead, input.readableByteCount());
+					this.chunks.add(input.retainedSlice(readPosition, chunkBytesToRead));
+					input.readPosition(readPosition + chunkBytesToRead);
 					this.messageBytesToRead -= chunkBytesToRead;
 
 					if (this.messageBytesToRead == 0) {
-						CodedInputStream stream = CodedInputStream.newInstance(this.output.asByteBuffer());
-						DataBufferUtils.release(this.output);
-						this.output = null;
-						Message message = getMessageBuilder(this.elementType.toClass())
-								.mergeFrom(stream, extensionRegistry)
-								.build();
-						messages.add(message);
+						DataBuffer message = composeChunks(this.chunks);
+						this.chunks = null;
+						try {
+							messages.add(parseMessage(newCodedInputStream(message)));
+						}
+						finally {
+							DataBufferUtils.release(message);
+						}
 					}
-				} while (remainingBytesToRead > 0);
+				}
+				while (input.readableByteCount() > 0);
 				return messages;
 			}
 			catch (DecodingException ex) {
@@ -248,6 +283,12 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 			}
 		}
 
+		private Message parseMessage(CodedInputStream stream) throws Exception {
+			return getMessageBuilder(this.elementType.toClass())
+					.mergeFrom(stream, extensionRegistry)
+					.build();
+		}
+
 		/**
 		 * Parse message size as a varint from the input stream, updating {@code messageBytesToRead} and
 		 * {@code offset} fields if needed to allow processing of upcoming chunks.
@@ -300,8 +341,9 @@ public class ProtobufDecoder extends ProtobufCodecSupport implements Decoder<Mes
 		}
 
 		public void discard() {
-			if (this.output != null) {
-				DataBufferUtils.release(this.output);
+			if (this.chunks != null) {
+				this.chunks.forEach(DataBufferUtils::release);
+				this.chunks = null;
 			}
 		}
 	}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
@@ -85,16 +86,20 @@ public class ProtobufEncoder extends ProtobufCodecSupport implements HttpMessage
 	}
 
 	private DataBuffer encodeValue(Message message, DataBufferFactory bufferFactory, boolean delimited) {
-
-		DataBuffer buffer = bufferFactory.allocateBuffer();
+		// Allocate the exact size upfront, and write straight into the buffer
+		int messageSize = message.getSerializedSize();
+		int length = (delimited ? CodedOutputStream.computeUInt32SizeNoTag(messageSize) + messageSize : messageSize);
+		DataBuffer buffer = bufferFactory.allocateBuffer(length);
 		boolean release = true;
 		try {
+			int writePosition = buffer.writePosition();
+			CodedOutputStream output = CodedOutputStream.newInstance(buffer.asByteBuffer(writePosition, length));
 			if (delimited) {
-				message.writeDelimitedTo(buffer.asOutputStream());
-			}
-			else {
-				message.writeTo(buffer.asOutputStream());
+				output.writeUInt32NoTag(messageSize);
 			}
+			message.writeTo(output);
+			output.flush();
+			buffer.writePosition(writePosition + length);
 			release = false;
 			return buffer;
 		}
@@ -22,10 +22,9 @@ import org.springframework.http.codec.HttpMessageReader;
 import org.springframework.http.codec.HttpMessageWriter;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.http.codec.ServerSentEventHttpMessageWriter;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
 import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
-import org.springframework.http.codec.multipart.SynchronossPartHttpMessageReader;
 import org.springframework.lang.Nullable;
-import org.springframework.util.ClassUtils;
 
 /**
  * Default implementation of {@link ServerCodecConfigurer.ServerDefaultCodecs}.
@@ -34,11 +33,6 @@ import org.springframework.util.ClassUtils;
  */
 class ServerDefaultCodecsImpl extends BaseDefaultCodecs implements ServerCodecConfigurer.ServerDefaultCodecs {
 
-	private static final boolean synchronossMultipartPresent =
-			ClassUtils.isPresent("org.synchronoss.cloud.nio.multipart.NioMultipartParser",
-					DefaultServerCodecConfigurer.class.getClassLoader());
-
-
 	@Nullable
 	private Encoder<?> sseEncoder;
 
@@ -51,17 +45,15 @@ class ServerDefaultCodecsImpl extends BaseDefaultCodecs implements ServerCodecCo
 
 	@Override
 	protected void extendTypedReaders(List<HttpMessageReader<?>> typedReaders) {
-		if (synchronossMultipartPresent) {
-			boolean enable = isEnableLoggingRequestDetails();
+		boolean enable = isEnableLoggingRequestDetails();
 
-			SynchronossPartHttpMessageReader partReader = new SynchronossPartHttpMessageReader();
-			partReader.setEnableLoggingRequestDetails(enable);
-			typedReaders.add(partReader);
+		DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+		partReader.setEnableLoggingRequestDetails(enable);
+		typedReaders.add(partReader);
 
-			MultipartHttpMessageReader reader = new MultipartHttpMessageReader(partReader);
-			reader.setEnableLoggingRequestDetails(enable);
-			typedReaders.add(reader);
-		}
+		MultipartHttpMessageReader reader = new MultipartHttpMessageReader(partReader);
+		reader.setEnableLoggingRequestDetails(enable);
+		typedReaders.add(reader);
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -127,6 +128,11 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 	protected void writeContent(Resource resource, HttpOutputMessage outputMessage)
 			throws IOException, HttpMessageNotWritableException {
 		try {
+			if (outputMessage instanceof FileTransferHttpOutputMessage && resource.isFile()) {
+				((FileTransferHttpOutputMessage) outputMessage).transferFile(
+						resource.getFile().toPath(), 0, resource.contentLength());
+				return;
+			}
 			InputStream in = resource.getInputStream();
 			try {
 				StreamUtils.copy(in, outputMessage.getBody());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import java.util.Collection;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
@@ -154,6 +155,11 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		responseHeaders.add("Content-Range", "bytes " + start + '-' + end + '/' + resourceLength);
 		responseHeaders.setContentLength(rangeLength);
 
+		if (outputMessage instanceof FileTransferHttpOutputMessage && region.getResource().isFile()) {
+			((FileTransferHttpOutputMessage) outputMessage).transferFile(
+					region.getResource().getFile().toPath(), start, rangeLength);
+			return;
+		}
 		InputStream in = region.getResource().getInputStream();
 		try {
 			StreamUtils.copyRange(in, outputMessage.getBody(), start, end);
@@ -182,21 +188,15 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		for (ResourceRegion region : resourceRegions) {
 			long start = region.getPosition();
 			long end = start + region.getCount() - 1;
+			if (outputMessage instanceof FileTransferHttpOutputMessage && region.getResource().isFile()) {
+				end = writeResourceRegionHeader(region, start, end, contentType, boundaryString, out);
+				((FileTransferHttpOutputMessage) outputMessage).transferFile(
+						region.getResource().getFile().toPath(), start, end - start + 1);
+				continue;
+			}
 			InputStream in = region.getResource().getInputStream();
 			try {
-				// Writing MIME header.
-				println(out);
-				print(out, "--" + boundaryString);
-				println(out);
-				if (contentType != null) {
-					print(out, "Content-Type: " + contentType.toString());
-					println(out);
-				}
-				Long resourceLength = region.getResource().contentLength();
-				end = Math.min(end, resourceLength - 1);
-				print(out, "Content-Range: bytes " + start + '-' + end + '/' + resourceLength);
-				println(out);
-				println(out);
+				end = writeResourceRegionHeader(region, start, end, contentType, boundaryString, out);
 				// Printing content
 				StreamUtils.copyRange(in, out, start, end);
 			}
@@ -214,6 +214,25 @@ public class ResourceRegionHttpMessageConverter extends AbstractGenericHttpMessa
 		print(out, "--" + boundaryString + "--");
 	}
 
+	private static long writeResourceRegionHeader(ResourceRegion region, long start, long end,
+			@Nullable MediaType contentType, String boundaryString, OutputStream out) throws IOException {
+
+		// Writing MIME header.
+		println(out);
+		print(out, "--" + boundaryString);
+		println(out);
+		if (contentType != null) {
+			print(out, "Content-Type: " + contentType.toString());
+			println(out);
+		}
+		Long resourceLength = region.getResource().contentLength();
+		long lastPosition = Math.min(end, resourceLength - 1);
+		print(out, "Content-Range: bytes " + start + '-' + lastPosition + '/' + resourceLength);
+		println(out);
+		println(out);
+		return lastPosition;
+	}
+
 	private static void println(OutputStream os) throws IOException {
 		os.write('\r');
 		os.write('\n');
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,19 @@ package org.springframework.http.server;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.http.FileTransferHttpOutputMessage;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
@@ -33,14 +40,35 @@ import org.springframework.util.CollectionUtils;
 /**
  * {@link ServerHttpResponse} implementation that is based on a {@link HttpServletResponse}.
  *
+ * <p>As of 5.2, file transfers use the "sendfile" support of Tomcat if the
+ * response was created with the corresponding {@link HttpServletRequest},
+ * or otherwise copy from a {@link FileChannel} with a large buffer.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 3.0
  */
-public class ServletServerHttpResponse implements ServerHttpResponse {
+public class ServletServerHttpResponse implements ServerHttpResponse, FileTransferHttpOutputMessage {
+
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	/** Below this size, copying is cheaper than setting up sendfile (Tomcat's default threshold). */
+	private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
 
 	private final HttpServletResponse servletResponse;
 
+	@Nullable
+	private final HttpServletRequest servletRequest;
+
 	private final HttpHeaders headers;
 
 	private boolean headersWritten = false;
@@ -53,8 +81,21 @@ public class ServletServerHttpResponse implements ServerHttpResponse {
 	 * @param servletResponse the servlet response
 	 */
 	public ServletServerHttpResponse(HttpServletResponse servletResponse) {
+		this(servletResponse, null);
+	}
+
+	/**
+	 * Construct a new instance of the ServletServerHttpResponse based on the given
+	 * {@link HttpServletResponse}, with access to the corresponding request for
+	 * server-specific optimizations such as "sendfile" support.
+	 * @param servletResponse the servlet response
+	 * @param servletRequest the servlet request that the response is for
+	 * @since 5.2
+	 */
+	public ServletServerHttpResponse(HttpServletResponse servletResponse, @Nullable HttpServletRequest servletRequest) {
 		Assert.notNull(servletResponse, "HttpServletResponse must not be null");
 		this.servletResponse = servletResponse;
+		this.servletRequest = servletRequest;
 		this.headers = new ServletResponseHttpHeaders();
 	}
 
@@ -84,6 +125,49 @@ public class ServletServerHttpResponse implements ServerHttpResponse {
 		return this.servletResponse.getOutputStream();
 	}
 
+	/**
+	 * This implementation hands the file region to Tomcat's "sendfile" support
+	 * if available, as long as nothing has been written to the body yet and
+	 * the response is not wrapped. Otherwise it reads the file region through
+	 * a {@link FileChannel} and writes it to the body.
+	 */
+	@Override
+	public void transferFile(Path file, long position, long count) throws IOException {
+		if (this.servletRequest != null && isSendfileSupported(this.servletRequest, count)) {
+			writeHeaders();
+			this.servletRequest.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toFile().getCanonicalPath());
+			this.servletRequest.setAttribute(SENDFILE_START_ATTRIBUTE, position);
+			this.servletRequest.setAttribute(SENDFILE_END_ATTRIBUTE, position + count);
+			this.bodyUsed = true;
+			return;
+		}
+		OutputStream body = getBody();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, TRANSFER_BUFFER_SIZE));
+			long current = position;
+			long remaining = count;
+			while (remaining > 0) {
+				buffer.clear();
+				buffer.limit((int) Math.min(remaining, buffer.capacity()));
+				int read = channel.read(buffer, current);
+				if (read == -1) {
+					break;
+				}
+				body.write(buffer.array(), 0, read);
+				current += read;
+				remaining -= read;
+			}
+		}
+	}
+
+	private boolean isSendfileSupported(HttpServletRequest request, long count) {
+		return (!this.bodyUsed && count >= SENDFILE_MIN_SIZE &&
+				!(this.servletResponse instanceof ServletResponseWrapper) &&
+				!this.servletResponse.isCommitted() &&
+				getHeaders().getContentLength() == count &&
+				Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)));
+	}
+
 	@Override
 	public void flush() throws IOException {
 		writeHeaders();
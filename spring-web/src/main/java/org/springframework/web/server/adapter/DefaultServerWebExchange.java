@@ -91,6 +91,8 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 
 	private final Mono<MultiValueMap<String, Part>> multipartDataMono;
 
+	private volatile boolean multipartRead = false;
+
 	@Nullable
 	private final ApplicationContext applicationContext;
 
@@ -218,7 +220,25 @@ public class DefaultServerWebExchange implements ServerWebExchange {
 
 	@Override
 	public Mono<MultiValueMap<String, Part>> getMultipartData() {
-		return this.multipartDataMono;
+		return this.multipartDataMono.doOnSubscribe(subscription -> this.multipartRead = true);
+	}
+
+	/**
+	 * Delete the underlying storage of the multipart data, if it has been
+	 * read, e.g. temporary files of parts whose content was not consumed.
+	 * @since 5.2
+	 * @see Part#delete()
+	 */
+	Mono<Void> cleanupMultipart() {
+		if (!this.multipartRead) {
+			return Mono.empty();
+		}
+		return this.multipartDataMono
+				.onErrorResume(ex -> Mono.empty())
+				.flatMapIterable(Map::values)
+				.flatMapIterable(Function.identity())
+				.concatMap(part -> part.delete().onErrorResume(ex -> Mono.empty()))
+				.then();
 	}
 
 	@Override
@@ -235,6 +235,7 @@ public class HttpWebHandlerAdapter extends WebHandlerDecorator implements HttpHa
 		return getDelegate().handle(exchange)
 				.doOnSuccess(aVoid -> logResponse(exchange))
 				.onErrorResume(ex -> handleUnresolvedError(exchange, ex))
+				.then(Mono.defer(() -> cleanupMultipart(exchange)))
 				.then(Mono.defer(response::setComplete));
 	}
 
@@ -243,6 +244,11 @@ public class HttpWebHandlerAdapter extends WebHandlerDecorator implements HttpHa
 				getCodecConfigurer(), getLocaleContextResolver(), this.applicationContext);
 	}
 
+	private Mono<Void> cleanupMultipart(ServerWebExchange exchange) {
+		return (exchange instanceof DefaultServerWebExchange ?
+				((DefaultServerWebExchange) exchange).cleanupMultipart() : Mono.empty());
+	}
+
 	private String formatRequest(ServerHttpRequest request) {
 		String rawQuery = request.getURI().getRawQuery();
 		String query = StringUtils.hasText(rawQuery) ? "?" + rawQuery : "";
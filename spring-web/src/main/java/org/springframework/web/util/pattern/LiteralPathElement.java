@@ -118,6 +118,10 @@ class LiteralPathElement extends PathElement {
 		return this.text;
 	}
 
+	boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
 
 	@Override
 	public String toString() {
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.Assert;
+
+/**
+ * Segment-indexed routing table for values registered against {@link PathPattern}s.
+ *
+ * <p>Each pattern is compiled into the sequence of its leading literal
+ * segments, i.e. the segments that the pattern requires to be present
+ * verbatim, and its value is stored at the node reached by those segments
+ * in a prefix trie. For example {@code "/api/users/{id}"} is stored under
+ * {@code [api, users]}, while {@code "/{*path}"} is stored at the root.
+ * {@link #getCandidates(PathContainer)} then walks the trie along the
+ * segments of a path and returns the values of all nodes on the way: a
+ * superset of the values whose patterns match the path, typically much
+ * smaller than the full set of registered values, and in registration order.
+ *
+ * <p>The structure of the table can be inspected through a {@link Visitor},
+ * and {@link #toString()} renders it as an indented tree.
+ *
+ * <p>This class is not thread-safe: modifications must be guarded by the
+ * caller, or the table built up front and treated as read-only afterwards.
+ *
+ * @author Agent
+ * @since 5.2
+ * @param <T> the type of value registered against patterns
+ */
+public class PathPatternIndex<T> {
+
+	private final Node<T> root = new Node<>();
+
+	private final Map<T, Registration> registrations = new HashMap<>();
+
+	private long counter;
+
+
+	/**
+	 * Register the given value under the given pattern.
+	 * <p>A value may be registered under several patterns, in which case
+	 * its position in the candidate order is that of its first registration.
+	 * Registering the same value under the same pattern again has no effect.
+	 * @param pattern the pattern that the value is routed by
+	 * @param value the value to register
+	 */
+	public void add(PathPattern pattern, T value) {
+		Assert.notNull(pattern, "PathPattern must not be null");
+		Assert.notNull(value, "Value must not be null");
+		Node<T> node = this.root;
+		for (LiteralPathElement literal : getLiteralPrefix(pattern)) {
+			node = node.getOrCreateChild(literal);
+		}
+		for (Entry<T> entry : node.entries) {
+			if (entry.pattern.equals(pattern) && entry.value.equals(value)) {
+				return;
+			}
+		}
+		node.entries.add(new Entry<>(pattern, value));
+		this.registrations.computeIfAbsent(value, key -> new Registration(this.counter++)).count++;
+	}
+
+	/**
+	 * Remove the registration of the given value under the given pattern.
+	 * @param pattern the pattern the value was registered with
+	 * @param value the value to remove
+	 * @return {@code true} if the registration was found and removed
+	 */
+	public boolean remove(PathPattern pattern, T value) {
+		List<LiteralPathElement> literals = getLiteralPrefix(pattern);
+		if (!remove(this.root, literals, 0, pattern, value)) {
+			return false;
+		}
+		Registration registration = this.registrations.get(value);
+		if (registration != null && --registration.count == 0) {
+			this.registrations.remove(value);
+		}
+		return true;
+	}
+
+	private boolean remove(Node<T> node, List<LiteralPathElement> literals, int index, PathPattern pattern, T value) {
+		if (index == literals.size()) {
+			return node.entries.removeIf(entry -> entry.pattern.equals(pattern) && entry.value.equals(value));
+		}
+		LiteralPathElement literal = literals.get(index);
+		Map<String, Node<T>> children = node.getChildren(literal.isCaseSensitive());
+		String key = getKey(literal);
+		Node<T> child = children.get(key);
+		if (child == null || !remove(child, literals, index + 1, pattern, value)) {
+			return false;
+		}
+		if (child.isEmpty()) {
+			children.remove(key);
+		}
+		return true;
+	}
+
+	/**
+	 * Return the values whose patterns may match the given path, in
+	 * registration order and without duplicates. The values must still be
+	 * matched against the path, since only literal segments are checked here.
+	 * @param path the path to find candidates for
+	 * @return the candidate values, possibly empty
+	 */
+	public List<T> getCandidates(PathContainer path) {
+		Set<T> candidates = new LinkedHashSet<>();
+		collect(this.root, path.elements(), 0, candidates);
+		if (candidates.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<T> result = new ArrayList<>(candidates);
+		if (result.size() > 1) {
+			result.sort(Comparator.comparingLong(value -> this.registrations.get(value).order));
+		}
+		return result;
+	}
+
+	private void collect(Node<T> node, List<PathContainer.Element> elements, int index, Set<T> candidates) {
+		for (Entry<T> entry : node.entries) {
+			candidates.add(entry.value);
+		}
+		if (index + 1 >= elements.size() || !(elements.get(index) instanceof PathContainer.Separator) ||
+				!(elements.get(index + 1) instanceof PathContainer.PathSegment)) {
+			return;
+		}
+		String segment = ((PathContainer.PathSegment) elements.get(index + 1)).valueToMatch();
+		Node<T> child = node.children.get(segment);
+		if (child != null) {
+			collect(child, elements, index + 2, candidates);
+		}
+		if (!node.caseInsensitiveChildren.isEmpty()) {
+			child = node.caseInsensitiveChildren.get(segment.toLowerCase(Locale.ROOT));
+			if (child != null) {
+				collect(child, elements, index + 2, candidates);
+			}
+		}
+	}
+
+	/**
+	 * Return the number of distinct values in this index.
+	 */
+	public int size() {
+		return this.registrations.size();
+	}
+
+	/**
+	 * Whether this index contains any values.
+	 */
+	public boolean isEmpty() {
+		return this.registrations.isEmpty();
+	}
+
+	/**
+	 * Accept the given visitor, which is notified of the nodes of the
+	 * underlying trie depth-first and of the entries at each node.
+	 * @param visitor the visitor to accept
+	 */
+	public void accept(Visitor<T> visitor) {
+		accept(this.root, visitor);
+	}
+
+	private void accept(Node<T> node, Visitor<T> visitor) {
+		for (Entry<T> entry : node.entries) {
+			visitor.entry(entry.pattern, entry.value);
+		}
+		for (Map.Entry<String, Node<T>> child : node.children.entrySet()) {
+			visitor.startSegment(child.getKey(), true);
+			accept(child.getValue(), visitor);
+			visitor.endSegment(child.getKey(), true);
+		}
+		for (Map.Entry<String, Node<T>> child : node.caseInsensitiveChildren.entrySet()) {
+			visitor.startSegment(child.getKey(), false);
+			accept(child.getValue(), visitor);
+			visitor.endSegment(child.getKey(), false);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		accept(new Visitor<T>() {
+			private int indent = 0;
+			@Override
+			public void startSegment(String segment, boolean caseSensitive) {
+				appendIndent().append('/').append(segment).append(caseSensitive ? "" : " (ignore case)").append('\n');
+				this.indent++;
+			}
+			@Override
+			public void entry(PathPattern pattern, T value) {
+				appendIndent().append(pattern).append(" -> ").append(value).append('\n');
+			}
+			@Override
+			public void endSegment(String segment, boolean caseSensitive) {
+				this.indent--;
+			}
+			private StringBuilder appendIndent() {
+				for (int i = 0; i < this.indent; i++) {
+					builder.append('\t');
+				}
+				return builder;
+			}
+		});
+		return builder.toString();
+	}
+
+
+	/**
+	 * Return the literal segments at the start of the given pattern: those
+	 * preceded by a separator and followed by a separator or the end of the pattern.
+	 */
+	private static List<LiteralPathElement> getLiteralPrefix(PathPattern pattern) {
+		List<LiteralPathElement> result = null;
+		PathElement element = pattern.getHeadSection();
+		while (element instanceof SeparatorPathElement && element.next instanceof LiteralPathElement) {
+			LiteralPathElement literal = (LiteralPathElement) element.next;
+			if (literal.next != null && !(literal.next instanceof SeparatorPathElement)) {
+				break;
+			}
+			if (result == null) {
+				result = new ArrayList<>();
+			}
+			result.add(literal);
+			element = literal.next;
+		}
+		return (result != null ? result : Collections.emptyList());
+	}
+
+	/**
+	 * Return the key for the given literal segment among the children of a node:
+	 * lower-cased independent of the default locale if matched case-insensitively,
+	 * consistent with the lookup of path segments.
+	 */
+	private static String getKey(LiteralPathElement literal) {
+		String key = String.valueOf(literal.getChars());
+		return (literal.isCaseSensitive() ? key : key.toLowerCase(Locale.ROOT));
+	}
+
+
+	/**
+	 * Receives notifications from the structure of a {@link PathPatternIndex}.
+	 * @param <T> the type of value registered against patterns
+	 */
+	public interface Visitor<T> {
+
+		/**
+		 * Receive notification of the start of a literal segment node.
+		 * @param segment the literal segment, in lower case if matched case-insensitively
+		 * @param caseSensitive whether the segment is matched case-sensitively
+		 */
+		void startSegment(String segment, boolean caseSensitive);
+
+		/**
+		 * Receive notification of a value registered at the current node.
+		 * @param pattern the pattern the value was registered with
+		 * @param value the registered value
+		 */
+		void entry(PathPattern pattern, T value);
+
+		/**
+		 * Receive notification of the end of a literal segment node.
+		 * @param segment the literal segment, in lower case if matched case-insensitively
+		 * @param caseSensitive whether the segment is matched case-sensitively
+		 */
+		void endSegment(String segment, boolean caseSensitive);
+	}
+
+
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> children = new LinkedHashMap<>(4);
+
+		private final Map<String, Node<T>> caseInsensitiveChildren = new LinkedHashMap<>(0);
+
+		private final List<Entry<T>> entries = new ArrayList<>(1);
+
+		Map<String, Node<T>> getChildren(boolean caseSensitive) {
+			return (caseSensitive ? this.children : this.caseInsensitiveChildren);
+		}
+
+		Node<T> getOrCreateChild(LiteralPathElement literal) {
+			return getChildren(literal.isCaseSensitive()).computeIfAbsent(getKey(literal), key -> new Node<>());
+		}
+
+		boolean isEmpty() {
+			return (this.entries.isEmpty() && this.children.isEmpty() && this.caseInsensitiveChildren.isEmpty());
+		}
+	}
+
+
+	private static final class Entry<T> {
+
+		final PathPattern pattern;
+
+		final T value;
+
+		Entry(PathPattern pattern, T value) {
+			this.pattern = pattern;
+			this.value = value;
+		}
+	}
+
+
+	private static final class Registration {
+
+		final long order;
+
+		int count;
+
+		Registration(long order) {
+			this.order = order;
+		}
+	}
+
+}
@@ -21,15 +21,19 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.test.util.RaceTestUtils;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.AbstractEncoderTests;
@@ -219,6 +223,88 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTests<Jackson2JsonE
 	}
 
 
+	@Test
+	public void encodeStreamInChunks() {
+		this.encoder.setChunkSize(16);
+		Flux<Object> input = Flux.just(new Pojo("foo", "bar"),
+				new Pojo("foofoo", "barbar"),
+				new Pojo("foofoofoo", "barbarbar"));
+
+		testEncode(input, ResolvableType.forClass(Pojo.class), step -> step
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"ba"))
+				.consumeNextWith(expectString("r\":\"bar\"}\n"))
+				.consumeNextWith(expectString("{\"foo\":\"foofoo\","))
+				.consumeNextWith(expectString("\"bar\":\"barbar\"}\n"))
+				.consumeNextWith(expectString("{\"foo\":\"foofoofo"))
+				.consumeNextWith(expectString("o\",\"bar\":\"barbar"))
+				.consumeNextWith(expectString("bar\"}\n"))
+				.verifyComplete(),
+				APPLICATION_STREAM_JSON, null);
+	}
+
+	@Test
+	public void cancelEncodingInChunks() {
+		this.encoder.setChunkSize(16);
+		Flux<Object> input = Flux.just(new Pojo("foofoofoo", "barbarbar"), new Pojo("foo", "bar"));
+
+		Flux<DataBuffer> result = this.encoder.encode(input, this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, null);
+
+		StepVerifier.create(result, 1)
+				.consumeNextWith(expectString("{\"foo\":\"foofoofo"))
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	public void cancelEncodingInChunksWhileEmitting() {
+		this.encoder.setChunkSize(4);
+		for (int i = 0; i < 100; i++) {
+			Flux<DataBuffer> result = this.encoder.encode(Mono.just(new Pojo("foofoofoo", "barbarbar")),
+					this.bufferFactory, ResolvableType.forClass(Pojo.class), APPLICATION_JSON, null);
+			BaseSubscriber<DataBuffer> subscriber = new BaseSubscriber<DataBuffer>() {
+				@Override
+				protected void hookOnSubscribe(Subscription subscription) {
+				}
+				@Override
+				protected void hookOnNext(DataBuffer buffer) {
+					DataBufferUtils.release(buffer);
+				}
+			};
+			result.subscribe(subscriber);
+			RaceTestUtils.race(() -> {
+				for (int j = 0; j < 10; j++) {
+					subscriber.request(1);
+				}
+			}, subscriber::cancel);
+		}
+	}
+
+	@Test
+	public void encodeNonStreamInChunks() {
+		this.encoder.setChunkSize(32);
+		Flux<Pojo> input = Flux.range(1, 100).map(i -> new Pojo("foo" + i, "bar" + i));
+
+		Mono<String> result = this.encoder.encode(input, this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_JSON, null)
+				.map(buffer -> {
+					assertThat(buffer.readableByteCount()).isLessThanOrEqualTo(32);
+					String chunk = buffer.toString(StandardCharsets.UTF_8);
+					DataBufferUtils.release(buffer);
+					return chunk;
+				})
+				.collect(Collectors.joining());
+
+		StepVerifier.create(result)
+				.assertNext(json -> {
+					assertThat(json).startsWith("[{\"foo\":\"foo1\",\"bar\":\"bar1\"},");
+					assertThat(json).endsWith(",{\"foo\":\"foo100\",\"bar\":\"bar100\"}]");
+					assertThat(json.split("\\},\\{")).hasSize(100);
+				})
+				.verifyComplete();
+	}
+
+
 	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 	private static class ParentClass {
 	}
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +37,7 @@ import reactor.test.StepVerifier;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.AbstractLeakCheckingTests;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
@@ -181,6 +183,34 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTests {
 		testTokenize(asList("[1", ",2,", "3]"), asList("1", "2", "3"), true);
 	}
 
+	@Test
+	public void tokenizeDirectAndOffsetBuffers() {
+		NettyDataBufferFactory nettyBufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+		List<String> chunks = asList("[{\"foo\": \"foofoo\", \"bar\"", ": \"barbar\"},{\"foo\": \"fo",
+				"ofoofoo\", \"bar\": \"barbarbar\"}", ",{\"foo\": \"x\"}]");
+		Flux<DataBuffer> source = Flux.fromIterable(chunks).index().map(chunk -> {
+			byte[] bytes = chunk.getT2().getBytes(StandardCharsets.UTF_8);
+			if (chunk.getT1() % 2 == 0) {
+				DataBuffer buffer = nettyBufferFactory.allocateBuffer(bytes.length);
+				return buffer.write(bytes);
+			}
+			// Heap buffer whose readable bytes start at an offset into its array
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length + 3);
+			buffer.write(new byte[3]).write(bytes);
+			buffer.readPosition(3);
+			return buffer;
+		});
+
+		Flux<String> result = Jackson2Tokenizer.tokenize(source, this.jsonFactory, this.objectMapper, true)
+				.map(this::writeTree);
+
+		StepVerifier.create(result)
+				.assertNext(new JSONAssertConsumer("{\"foo\": \"foofoo\", \"bar\": \"barbar\"}"))
+				.assertNext(new JSONAssertConsumer("{\"foo\": \"foofoofoo\", \"bar\": \"barbarbar\"}"))
+				.assertNext(new JSONAssertConsumer("{\"foo\": \"x\"}"))
+				.verifyComplete();
+	}
+
 	@Test
 	public void errorInStream() {
 		DataBuffer buffer = stringBuffer("{\"id\":1,\"name\":");
@@ -208,22 +238,23 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTests {
 				Flux.fromIterable(source).map(this::stringBuffer),
 				this.jsonFactory, this.objectMapper, tokenizeArrayElements);
 
-		Flux<String> result = tokens
-				.map(tokenBuffer -> {
-					try {
-						TreeNode root = this.objectMapper.readTree(tokenBuffer.asParser());
-						return this.objectMapper.writeValueAsString(root);
-					}
-					catch (IOException ex) {
-						throw new UncheckedIOException(ex);
-					}
-				});
+		Flux<String> result = tokens.map(this::writeTree);
 
 		StepVerifier.FirstStep<String> builder = StepVerifier.create(result);
 		expected.forEach(s -> builder.assertNext(new JSONAssertConsumer(s)));
 		builder.verifyComplete();
 	}
 
+	private String writeTree(TokenBuffer tokenBuffer) {
+		try {
+			TreeNode root = this.objectMapper.readTree(tokenBuffer.asParser());
+			return this.objectMapper.writeValueAsString(root);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
 	private DataBuffer stringBuffer(String value) {
 		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
 		DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.buffer.AbstractLeakCheckingTests;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DataBufferWrapper;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.core.ResolvableType.forClassWithGenerics;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ *
+ * @author Agent
+ */
+public class DefaultPartHttpMessageReaderTests extends AbstractLeakCheckingTests {
+
+	private static final ResolvableType PART_TYPE = ResolvableType.forClass(Part.class);
+
+	private static final String BOUNDARY = "b6ac8d1d0cbf4b6db0e0ab20fe8bde2b";
+
+	private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+	private Path storageDirectory;
+
+
+	@BeforeEach
+	public void setup() throws IOException {
+		this.storageDirectory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.partReader.setFileStorageDirectory(this.storageDirectory);
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(this.storageDirectory);
+	}
+
+
+	@Test
+	public void canRead() {
+		assertThat(this.partReader.canRead(PART_TYPE, MediaType.MULTIPART_FORM_DATA)).isTrue();
+		assertThat(this.partReader.canRead(PART_TYPE, null)).isTrue();
+		assertThat(this.partReader.canRead(PART_TYPE, MediaType.APPLICATION_FORM_URLENCODED)).isFalse();
+		assertThat(this.partReader.canRead(ResolvableType.forClass(String.class), MediaType.MULTIPART_FORM_DATA)).isFalse();
+	}
+
+	@Test
+	public void resolveParts() {
+		MultipartHttpMessageReader reader = new MultipartHttpMessageReader(this.partReader);
+		ResolvableType elementType = forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+		MultiValueMap<String, Part> parts = reader.readMono(elementType, createRequest(1024), emptyMap()).block();
+		assertThat(parts).containsOnlyKeys("filePart", "fieldPart", "jsonPart");
+
+		FilePart filePart = (FilePart) parts.getFirst("filePart");
+		assertThat(filePart.filename()).isEqualTo("file.txt");
+		assertThat(content(filePart)).isEqualTo("Lorem Ipsum.");
+
+		FormFieldPart fieldPart = (FormFieldPart) parts.getFirst("fieldPart");
+		assertThat(fieldPart.value()).isEqualTo("field value");
+		assertThat(content(fieldPart)).isEqualTo("field value");
+
+		Part jsonPart = parts.getFirst("jsonPart");
+		assertThat(jsonPart).isNotInstanceOf(FormFieldPart.class);
+		assertThat(jsonPart.headers().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(content(jsonPart)).isEqualTo("{\"foo\":\"bar\"}");
+	}
+
+	@Test
+	public void boundarySplitAcrossBuffers() {
+		for (int chunkSize : new int[] {1, 2, 3, 7, 61}) {
+			List<Part> parts = this.partReader.read(PART_TYPE, createRequest(chunkSize), emptyMap())
+					.collectList()
+					.block(Duration.ofSeconds(5));
+			assertThat(parts).as("chunk size " + chunkSize).hasSize(3);
+			assertThat(content(parts.get(0))).isEqualTo("Lorem Ipsum.");
+			assertThat(((FormFieldPart) parts.get(1)).value()).isEqualTo("field value");
+			assertThat(content(parts.get(2))).isEqualTo("{\"foo\":\"bar\"}");
+		}
+	}
+
+	@Test
+	public void largeFilePartIsStoredOnDisk() throws Exception {
+		this.partReader.setMaxInMemorySize(100);
+		byte[] bytes = new byte[10000];
+		Arrays.fill(bytes, (byte) 'a');
+		MultipartBodyBuilder builder = new MultipartBodyBuilder();
+		builder.part("file", new ByteArrayResource(bytes) {
+			@Override
+			public String getFilename() {
+				return "large.txt";
+			}
+		});
+		builder.part("other", new ByteArrayResource(bytes), MediaType.APPLICATION_OCTET_STREAM);
+
+		List<Part> parts = this.partReader.read(PART_TYPE, createRequest(builder, 1000), emptyMap())
+				.collectList()
+				.block(Duration.ofSeconds(5));
+		assertThat(parts).hasSize(2);
+		assertThat(storedFiles()).hasSize(2);
+
+		FilePart filePart = (FilePart) parts.get(0);
+		Path dest = this.storageDirectory.resolve("dest.txt");
+		filePart.transferTo(dest).block(Duration.ofSeconds(5));
+		assertThat(Files.readAllBytes(dest)).isEqualTo(bytes);
+		Files.delete(dest);
+
+		assertThat(content(parts.get(1))).isEqualTo(new String(bytes, StandardCharsets.US_ASCII));
+		awaitNoStoredFiles();
+	}
+
+	@Test
+	public void formFieldExceedsMaxInMemorySize() {
+		this.partReader.setMaxInMemorySize(5);
+		StepVerifier.create(this.partReader.read(PART_TYPE, createRequest(7), emptyMap()))
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void maxDiskUsagePerPartExceeded() {
+		this.partReader.setMaxInMemorySize(10);
+		this.partReader.setMaxDiskUsagePerPart(11);
+		StepVerifier.create(this.partReader.read(PART_TYPE, createRequest(3), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+		assertThat(storedFiles()).isEmpty();
+	}
+
+	@Test
+	public void maxPartsExceeded() {
+		this.partReader.setMaxParts(2);
+		StepVerifier.create(this.partReader.read(PART_TYPE, createRequest(16), emptyMap()))
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void cancel() {
+		StepVerifier.create(this.partReader.read(PART_TYPE, createRequest(5), emptyMap()), 1)
+				.expectNextCount(1)
+				.thenCancel()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void cancelWhileWritingToDisk() throws Exception {
+		this.partReader.setMaxInMemorySize(100);
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		byte[] body = createBody(createLargeFileParts(1000));
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		Flux<DataBuffer> buffers = Flux.range(0, (body.length + 49) / 50)
+				.map(index -> new DataBufferWrapper(bufferFactory.wrap(
+						Arrays.copyOfRange(body, index * 50, Math.min(body.length, (index + 1) * 50)))) {
+					@Override
+					public DataBuffer retainedSlice(int index, int length) {
+						DataBuffer slice = super.retainedSlice(index, length);
+						return new DataBufferWrapper(slice) {
+							@Override
+							public ByteBuffer asByteBuffer() {
+								// Block the first write to disk until the reader has been cancelled
+								writing.countDown();
+								try {
+									cancelled.await(5, TimeUnit.SECONDS);
+								}
+								catch (InterruptedException ex) {
+									Thread.currentThread().interrupt();
+								}
+								return super.asByteBuffer();
+							}
+						};
+					}
+				});
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.body(buffers);
+
+		Disposable subscription = this.partReader.read(PART_TYPE, request, emptyMap()).subscribe();
+		assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+		subscription.dispose();
+		cancelled.countDown();
+
+		awaitNoStoredFiles();
+	}
+
+	@Test
+	public void deleteUnconsumedPart() throws Exception {
+		this.partReader.setMaxInMemorySize(100);
+		List<Part> parts = this.partReader.read(PART_TYPE, createRequest(createLargeFileParts(1000), 100), emptyMap())
+				.collectList()
+				.block(Duration.ofSeconds(5));
+		assertThat(parts).hasSize(1);
+		assertThat(storedFiles()).hasSize(1);
+
+		parts.get(0).delete().block(Duration.ofSeconds(5));
+		assertThat(storedFiles()).isEmpty();
+	}
+
+	@Test
+	public void incompleteBody() {
+		byte[] body = ("--boundary\r\nContent-Disposition: form-data; name=\"foo\"\r\n\r\nbar\r\n--bound")
+				.getBytes(StandardCharsets.US_ASCII);
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=boundary")
+				.body(Flux.just(this.bufferFactory.wrap(body)));
+		StepVerifier.create(this.partReader.read(PART_TYPE, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void preambleAndEpilogue() {
+		byte[] body = ("preamble\r\n--boundary\r\nContent-Disposition: form-data; name=\"foo\"\r\n" +
+				"X-Folded: one\r\n two\r\n\r\nbar\r\n--boundary--\r\nepilogue").getBytes(StandardCharsets.US_ASCII);
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=\"boundary\"")
+				.body(Flux.just(this.bufferFactory.wrap(body)));
+		List<Part> parts = this.partReader.read(PART_TYPE, request, emptyMap()).collectList().block();
+		assertThat(parts).hasSize(1);
+		assertThat(((FormFieldPart) parts.get(0)).value()).isEqualTo("bar");
+		assertThat(parts.get(0).headers().getFirst("X-Folded")).isEqualTo("one two");
+	}
+
+	@Test
+	public void noBoundary() {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(Flux.empty());
+		StepVerifier.create(this.partReader.read(PART_TYPE, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+
+	private ServerHttpRequest createRequest(int chunkSize) {
+		MultipartBodyBuilder builder = new MultipartBodyBuilder();
+		builder.part("filePart", new ByteArrayResource("Lorem Ipsum.".getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public String getFilename() {
+				return "file.txt";
+			}
+		});
+		builder.part("fieldPart", "field value");
+		builder.part("jsonPart", new ByteArrayResource("{\"foo\":\"bar\"}".getBytes(StandardCharsets.UTF_8)),
+				MediaType.APPLICATION_JSON);
+		return createRequest(builder, chunkSize);
+	}
+
+	private static MultipartBodyBuilder createLargeFileParts(int size) {
+		byte[] bytes = new byte[size];
+		Arrays.fill(bytes, (byte) 'a');
+		MultipartBodyBuilder builder = new MultipartBodyBuilder();
+		builder.part("file", new ByteArrayResource(bytes) {
+			@Override
+			public String getFilename() {
+				return "large.txt";
+			}
+		});
+		return builder;
+	}
+
+	private static byte[] createBody(MultipartBodyBuilder builder) {
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		MultipartHttpMessageWriter writer = new MultipartHttpMessageWriter() {
+			@Override
+			protected byte[] generateMultipartBoundary() {
+				return BOUNDARY.getBytes(StandardCharsets.US_ASCII);
+			}
+		};
+		writer.write(Mono.just(builder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+		return outputMessage.getBodyAsString()
+				.map(content -> content.getBytes(StandardCharsets.UTF_8))
+				.block(Duration.ofSeconds(5));
+	}
+
+	private ServerHttpRequest createRequest(MultipartBodyBuilder builder, int chunkSize) {
+		byte[] body = createBody(builder);
+
+		// Allocate on demand, so that no buffers are left behind on cancellation
+		Flux<DataBuffer> buffers = Flux.range(0, (body.length + chunkSize - 1) / chunkSize)
+				.map(index -> {
+					int offset = index * chunkSize;
+					int length = Math.min(chunkSize, body.length - offset);
+					DataBuffer buffer = this.bufferFactory.allocateBuffer(length);
+					buffer.write(body, offset, length);
+					return buffer;
+				});
+		return MockServerHttpRequest.post("/")
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.body(buffers);
+	}
+
+	private static String content(Part part) {
+		return DataBufferUtils.join(part.content())
+				.map(buffer -> {
+					String content = buffer.toString(StandardCharsets.UTF_8);
+					DataBufferUtils.release(buffer);
+					return content;
+				})
+				.block(Duration.ofSeconds(5));
+	}
+
+	private void awaitNoStoredFiles() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!storedFiles().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(storedFiles()).isEmpty();
+	}
+
+	private List<Path> storedFiles() {
+		try (Stream<Path> files = Files.list(this.storageDirectory)) {
+			List<Path> result = new ArrayList<>();
+			files.forEach(result::add);
+			return result;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -18,6 +18,8 @@ package org.springframework.http.codec.protobuf;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.protobuf.Message;
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,8 @@ import org.springframework.core.codec.AbstractDecoderTests;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.protobuf.Msg;
 import org.springframework.protobuf.SecondMsg;
@@ -162,6 +166,28 @@ public class ProtobufDecoderTests extends AbstractDecoderTests<ProtobufDecoder>
 				.verifyComplete());
 	}
 
+	@Test
+	public void decodeSplitMessageWithoutCopy() throws IOException {
+		AtomicBoolean joined = new AtomicBoolean();
+		DefaultDataBufferFactory factory = new DefaultDataBufferFactory() {
+			@Override
+			public DefaultDataBuffer join(List<? extends DataBuffer> dataBuffers) {
+				joined.set(true);
+				return super.join(dataBuffers);
+			}
+		};
+		DataBuffer buffer = factory.allocateBuffer();
+		this.testMsg1.writeDelimitedTo(buffer.asOutputStream());
+		int len = buffer.readableByteCount() / 2;
+		Flux<DataBuffer> input = Flux.just(buffer.slice(0, len),
+				buffer.slice(len, buffer.readableByteCount() - len));
+
+		StepVerifier.create(this.decoder.decode(input, forClass(Msg.class), null, emptyMap()))
+				.expectNext(this.testMsg1)
+				.verifyComplete();
+		assertThat(joined).isFalse();
+	}
+
 	@Test  // SPR-17429
 	public void decodeSplitMessageSize() {
 		this.decoder.setMaxMessageSize(100009);
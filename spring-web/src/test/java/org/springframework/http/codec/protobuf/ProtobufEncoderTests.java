@@ -97,6 +97,19 @@ public class ProtobufEncoderTests extends AbstractEncoderTests<ProtobufEncoder>
 				.verifyComplete());
 	}
 
+	@Test
+	public void encodeValueWithExactSize() throws IOException {
+		DataBuffer dataBuffer = this.encoder.encodeValue(this.msg1, this.bufferFactory, forClass(Msg.class), null, null);
+		try {
+			assertThat(dataBuffer.readableByteCount()).isEqualTo(this.msg1.getSerializedSize());
+			assertThat(dataBuffer.capacity()).isEqualTo(this.msg1.getSerializedSize());
+			assertThat(Msg.parseFrom(dataBuffer.asInputStream())).isEqualTo(this.msg1);
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
 	protected final Consumer<DataBuffer> expect(Msg msg) {
 		return dataBuffer -> {
 			try {
@@ -35,6 +35,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpOutputMessage;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.util.StringUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -144,6 +146,35 @@ public class ResourceRegionHttpMessageConverterTests {
 		assertThat(ranges[15]).isEqualTo("resource content.");
 	}
 
+	@Test
+	public void partialContentMultipleByteRangesFromFile() throws Exception {
+		MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(servletResponse);
+		Resource body = new ClassPathResource("byterangeresource.txt", getClass());
+		assertThat(body.isFile()).isTrue();
+		List<HttpRange> rangeList = HttpRange.parseRanges("bytes=0-5,22-38");
+		List<ResourceRegion> regions = new ArrayList<>();
+		for(HttpRange range : rangeList) {
+			regions.add(range.toResourceRegion(body));
+		}
+
+		converter.write(regions, MediaType.TEXT_PLAIN, outputMessage);
+		outputMessage.flush();
+
+		String contentType = outputMessage.getHeaders().getContentType().toString();
+		assertThat(contentType).startsWith("multipart/byteranges;boundary=");
+		String boundary = "--" + contentType.substring(30);
+		String content = servletResponse.getContentAsString();
+		String[] ranges = StringUtils.tokenizeToStringArray(content, "\r\n", false, true);
+
+		assertThat(ranges[0]).isEqualTo(boundary);
+		assertThat(ranges[2]).isEqualTo("Content-Range: bytes 0-5/39");
+		assertThat(ranges[3]).isEqualTo("Spring");
+		assertThat(ranges[4]).isEqualTo(boundary);
+		assertThat(ranges[6]).isEqualTo("Content-Range: bytes 22-38/39");
+		assertThat(ranges[7]).isEqualTo("resource content.");
+	}
+
 	@Test // SPR-15041
 	public void applicationOctetStreamDefaultContentType() throws Exception {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
@@ -16,16 +16,22 @@
 
 package org.springframework.http.server;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.util.FileCopyUtils;
 
@@ -99,4 +105,56 @@ public class ServletServerHttpResponseTests {
 		assertThat(mockResponse.getContentAsByteArray()).as("Invalid content written").isEqualTo(content);
 	}
 
+	@Test
+	public void transferFileRegion(@TempDir Path tempDir) throws Exception {
+		Path file = createFile(tempDir, 200 * 1024);
+		response.getHeaders().setContentLength(100 * 1024);
+		response.transferFile(file, 1000, 100 * 1024);
+
+		byte[] expected = Arrays.copyOfRange(Files.readAllBytes(file), 1000, 1000 + 100 * 1024);
+		assertThat(mockResponse.getContentAsByteArray()).isEqualTo(expected);
+	}
+
+	@Test
+	public void transferFileWithSendfile(@TempDir Path tempDir) throws Exception {
+		Path file = createFile(tempDir, 100 * 1024);
+		MockHttpServletRequest mockRequest = new MockHttpServletRequest();
+		mockRequest.setAttribute("org.apache.tomcat.sendfile.support", true);
+		response = new ServletServerHttpResponse(mockResponse, mockRequest);
+		response.getHeaders().setContentLength(90 * 1024);
+		response.transferFile(file, 10 * 1024, 90 * 1024);
+		response.getBody().flush();
+
+		assertThat(mockRequest.getAttribute("org.apache.tomcat.sendfile.filename"))
+				.isEqualTo(file.toFile().getCanonicalPath());
+		assertThat(mockRequest.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(10 * 1024L);
+		assertThat(mockRequest.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(100 * 1024L);
+		assertThat(mockResponse.getContentLengthLong()).isEqualTo(90 * 1024);
+		assertThat(mockResponse.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	public void transferFileWithoutSendfile(@TempDir Path tempDir) throws Exception {
+		Path file = createFile(tempDir, 100 * 1024);
+		MockHttpServletRequest mockRequest = new MockHttpServletRequest();
+		mockRequest.setAttribute("org.apache.tomcat.sendfile.support", true);
+		response = new ServletServerHttpResponse(mockResponse, mockRequest);
+
+		// Part of the body already written
+		response.getHeaders().setContentLength(100 * 1024 + 1);
+		response.getBody().write('-');
+		response.transferFile(file, 0, 100 * 1024);
+
+		assertThat(mockRequest.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+		assertThat(mockResponse.getContentAsByteArray()).hasSize(100 * 1024 + 1);
+	}
+
+	private static Path createFile(Path directory, int size) throws IOException {
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			content[i] = (byte) i;
+		}
+		return Files.write(directory.resolve("content.bin"), content);
+	}
+
 }
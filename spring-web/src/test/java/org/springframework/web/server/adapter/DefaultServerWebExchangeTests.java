@@ -16,11 +16,18 @@
 
 package org.springframework.web.server.adapter;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
 import org.springframework.mock.http.server.reactive.test.MockServerHttpResponse;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
 import org.springframework.web.server.session.DefaultWebSessionManager;
@@ -56,6 +63,40 @@ public class DefaultServerWebExchangeTests {
 		assertThat(exchange.transformUrl("/foo")).isEqualTo("/foo;p=abc?q=123");
 	}
 
+	@Test
+	public void cleanupMultipart() throws Exception {
+		Path directory = Files.createTempDirectory("DefaultServerWebExchangeTests");
+		try {
+			DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+			partReader.setMaxInMemorySize(10);
+			partReader.setFileStorageDirectory(directory);
+			ServerCodecConfigurer codecConfigurer = ServerCodecConfigurer.create();
+			codecConfigurer.registerDefaults(false);
+			codecConfigurer.customCodecs().reader(new MultipartHttpMessageReader(partReader));
+
+			String body = "--boundary\r\n" +
+					"Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n\r\n" +
+					"Lorem ipsum dolor sit amet\r\n--boundary--\r\n";
+			MockServerHttpRequest request = MockServerHttpRequest.post("https://example.com")
+					.header("Content-Type", "multipart/form-data; boundary=boundary")
+					.body(body);
+			DefaultServerWebExchange exchange = new DefaultServerWebExchange(request, new MockServerHttpResponse(),
+					new DefaultWebSessionManager(), codecConfigurer, new AcceptHeaderLocaleContextResolver());
+
+			exchange.cleanupMultipart().block(Duration.ofSeconds(5));
+			assertThat(directory.toFile().list()).isEmpty();
+
+			assertThat(exchange.getMultipartData().block(Duration.ofSeconds(5))).containsOnlyKeys("file");
+			assertThat(directory.toFile().list()).hasSize(1);
+
+			exchange.cleanupMultipart().block(Duration.ofSeconds(5));
+			assertThat(directory.toFile().list()).isEmpty();
+		}
+		finally {
+			FileSystemUtils.deleteRecursively(directory);
+		}
+	}
+
 
 	private DefaultServerWebExchange createExchange() {
 		MockServerHttpRequest request = MockServerHttpRequest.get("https://example.com").build();
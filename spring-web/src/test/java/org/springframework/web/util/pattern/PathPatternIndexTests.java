@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.server.PathContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PathPatternIndex}.
+ *
+ * @author Agent
+ */
+public class PathPatternIndexTests {
+
+	private final PathPatternParser parser = new PathPatternParser();
+
+	private final PathPatternIndex<String> index = new PathPatternIndex<>();
+
+
+	@BeforeEach
+	public void setup() {
+		add("/api/users", "users");
+		add("/api/users/{id}", "user");
+		add("/api/users/{id}/orders", "userOrders");
+		add("/api/orders/{id}", "orders");
+		add("/api/foo*", "foo");
+		add("/{*path}", "all");
+	}
+
+
+	@Test
+	public void candidatesNarrowedByLiteralPrefix() {
+		assertThat(candidates("/api/users/42")).containsExactly("users", "user", "userOrders", "foo", "all");
+		assertThat(candidates("/api/orders/42")).containsExactly("orders", "foo", "all");
+		assertThat(candidates("/other")).containsExactly("all");
+		assertThat(candidates("")).containsExactly("all");
+	}
+
+	@Test
+	public void candidatesWithTrailingSlashAndMatrixVariables() {
+		assertThat(candidates("/api/users/")).contains("users");
+		assertThat(candidates("/api;a=b/users;c=d")).contains("users");
+	}
+
+	@Test
+	public void candidatesInRegistrationOrder() {
+		add("/api/{name}", "user");
+		assertThat(candidates("/api/users/42")).containsExactly("users", "user", "userOrders", "foo", "all");
+		assertThat(this.index.size()).isEqualTo(6);
+	}
+
+	@Test
+	public void caseInsensitivePatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		this.index.add(parser.parse("/Admin/{id}"), "admin");
+
+		assertThat(candidates("/ADMIN/1")).containsExactly("all", "admin");
+		assertThat(candidates("/admin/1")).containsExactly("all", "admin");
+	}
+
+	@Test
+	public void caseInsensitivePatternsWithTurkishDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			PathPatternParser parser = new PathPatternParser();
+			parser.setCaseSensitive(false);
+			this.index.add(parser.parse("/Items/{id}"), "items");
+
+			assertThat(candidates("/ITEMS/1")).containsExactly("all", "items");
+			assertThat(candidates("/items/1")).containsExactly("all", "items");
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	@Test
+	public void remove() {
+		assertThat(this.index.remove(this.parser.parse("/api/users/{id}"), "user")).isTrue();
+		assertThat(this.index.remove(this.parser.parse("/api/users/{id}"), "user")).isFalse();
+		assertThat(this.index.remove(this.parser.parse("/api/orders/{id}"), "orders")).isTrue();
+
+		assertThat(candidates("/api/users/42")).containsExactly("users", "userOrders", "foo", "all");
+		assertThat(this.index.size()).isEqualTo(4);
+		assertThat(this.index.toString()).doesNotContain("orders/{id}").doesNotContain("/orders\n");
+	}
+
+	@Test
+	public void toStringRendersTree() {
+		assertThat(this.index.toString()).isEqualTo(
+				"/{*path} -> all\n" +
+				"/api\n" +
+				"\t/api/foo* -> foo\n" +
+				"\t/users\n" +
+				"\t\t/api/users -> users\n" +
+				"\t\t/api/users/{id} -> user\n" +
+				"\t\t/api/users/{id}/orders -> userOrders\n" +
+				"\t/orders\n" +
+				"\t\t/api/orders/{id} -> orders\n");
+	}
+
+
+	private void add(String pattern, String value) {
+		this.index.add(this.parser.parse(pattern), value);
+	}
+
+	private List<String> candidates(String path) {
+		return this.index.getCandidates(PathContainer.parsePath(path));
+	}
+
+}
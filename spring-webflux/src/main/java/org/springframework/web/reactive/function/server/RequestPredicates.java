@@ -432,6 +432,34 @@ public abstract class RequestPredicates {
 	}
 
 
+	/**
+	 * Return the path pattern that the given predicate requires the request
+	 * path to match, or {@code null} if none can be determined. Used to index
+	 * routes by path, see {@link RouterFunctions#indexed(RouterFunction)}.
+	 * @param predicate the predicate to introspect
+	 * @param nested whether the predicate is used for a nested route, in which
+	 * case the right-hand side of an AND-predicate applies to the path remaining
+	 * after the left-hand side, unless the latter is known not to consume the path
+	 * @return the required path pattern, or {@code null}
+	 */
+	@Nullable
+	static PathPattern getRequiredPathPattern(RequestPredicate predicate, boolean nested) {
+		if (predicate instanceof PathPatternPredicate) {
+			return ((PathPatternPredicate) predicate).pattern;
+		}
+		else if (predicate instanceof AndRequestPredicate) {
+			AndRequestPredicate and = (AndRequestPredicate) predicate;
+			PathPattern pattern = getRequiredPathPattern(and.left, nested);
+			if (pattern == null && (!nested || and.left instanceof HttpMethodPredicate ||
+					and.left instanceof HeadersPredicate || and.left instanceof QueryParamPredicate)) {
+				pattern = getRequiredPathPattern(and.right, nested);
+			}
+			return pattern;
+		}
+		return null;
+	}
+
+
 	private static class HttpMethodPredicate implements RequestPredicate {
 
 		private final Set<HttpMethod> httpMethods;
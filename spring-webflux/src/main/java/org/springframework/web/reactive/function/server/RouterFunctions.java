@@ -16,6 +16,7 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -26,16 +27,21 @@ import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.Resource;
 import org.springframework.http.codec.HttpMessageWriter;
 import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.web.reactive.result.view.ViewResolver;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebHandler;
 import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternIndex;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * <strong>Central entry point to Spring's functional web framework.</strong>
@@ -183,6 +189,71 @@ public abstract class RouterFunctions {
 		return new ResourcesRouterFunction(lookupFunction);
 	}
 
+	/**
+	 * Return a router function that routes exactly like the given one, but in
+	 * which the routes {@linkplain RouterFunction#and(RouterFunction) composed}
+	 * at each nesting level are looked up in a {@link PathPatternIndex} built
+	 * from their path predicates, rather than tested one after the other.
+	 * <p>For each request, only the routes whose path predicates can possibly
+	 * match the request path are tested, still in the order in which they were
+	 * composed, so that the first matching route wins as before. Routes whose
+	 * path cannot be determined, such as routes with OR-predicates, resource
+	 * routes, or custom router functions, are tested for every request.
+	 * <p>This is intended for large router function trees, and should be
+	 * applied once to the fully composed router function.
+	 * @param routerFunction the router function to index
+	 * @param <T> the type of response returned by the handler functions
+	 * @return the indexed router function
+	 * @since 5.2
+	 */
+	public static <T extends ServerResponse> RouterFunction<T> indexed(RouterFunction<T> routerFunction) {
+		Assert.notNull(routerFunction, "RouterFunction must not be null");
+		return index(routerFunction);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends ServerResponse> RouterFunction<T> index(RouterFunction<T> routerFunction) {
+		List<RouterFunction<?>> routes = new ArrayList<>();
+		collectComposedRoutes(routerFunction, routes);
+		if (routes.size() == 1) {
+			return (RouterFunction<T>) indexNested(routes.get(0));
+		}
+		List<RouterFunction<?>> indexedRoutes = new ArrayList<>(routes.size());
+		for (RouterFunction<?> route : routes) {
+			indexedRoutes.add(indexNested(route));
+		}
+		return new IndexedRouterFunction<>(indexedRoutes);
+	}
+
+	private static void collectComposedRoutes(RouterFunction<?> routerFunction, List<RouterFunction<?>> routes) {
+		if (routerFunction instanceof SameComposedRouterFunction) {
+			SameComposedRouterFunction<?> composed = (SameComposedRouterFunction<?>) routerFunction;
+			collectComposedRoutes(composed.first, routes);
+			collectComposedRoutes(composed.second, routes);
+		}
+		else if (routerFunction instanceof DifferentComposedRouterFunction) {
+			DifferentComposedRouterFunction composed = (DifferentComposedRouterFunction) routerFunction;
+			collectComposedRoutes(composed.first, routes);
+			collectComposedRoutes(composed.second, routes);
+		}
+		else {
+			routes.add(routerFunction);
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static RouterFunction<?> indexNested(RouterFunction<?> routerFunction) {
+		if (routerFunction instanceof DefaultNestedRouterFunction) {
+			DefaultNestedRouterFunction<?> nested = (DefaultNestedRouterFunction<?>) routerFunction;
+			return new DefaultNestedRouterFunction(nested.predicate, index(nested.routerFunction));
+		}
+		else if (routerFunction instanceof FilteredRouterFunction) {
+			FilteredRouterFunction<?, ?> filtered = (FilteredRouterFunction<?, ?>) routerFunction;
+			return new FilteredRouterFunction(index(filtered.routerFunction), filtered.filterFunction);
+		}
+		return routerFunction;
+	}
+
 	/**
 	 * Convert the given {@linkplain RouterFunction router function} into a {@link HttpHandler}.
 	 * This conversion uses {@linkplain HandlerStrategies#builder() default strategies}.
@@ -826,6 +897,71 @@ public abstract class RouterFunctions {
 	}
 
 
+	/**
+	 * A composition of router functions that are tested in order, looking up
+	 * the candidates for a request in an index of their path patterns.
+	 * @param <T> the server response type
+	 * @see #indexed(RouterFunction)
+	 */
+	static final class IndexedRouterFunction<T extends ServerResponse> extends AbstractRouterFunction<T> {
+
+		/** Pattern under which routes without a known path pattern are indexed. */
+		private static final PathPattern MATCH_ALL_PATTERN = new PathPatternParser().parse("/**");
+
+		private final List<RouterFunction<?>> routes;
+
+		private final PathPatternIndex<Integer> index = new PathPatternIndex<>();
+
+		public IndexedRouterFunction(List<RouterFunction<?>> routes) {
+			this.routes = routes;
+			for (int i = 0; i < routes.size(); i++) {
+				PathPattern pattern = getRequiredPathPattern(routes.get(i));
+				this.index.add(pattern != null ? pattern : MATCH_ALL_PATTERN, i);
+			}
+		}
+
+		@Nullable
+		private static PathPattern getRequiredPathPattern(RouterFunction<?> routerFunction) {
+			if (routerFunction instanceof DefaultRouterFunction) {
+				return RequestPredicates.getRequiredPathPattern(
+						((DefaultRouterFunction<?>) routerFunction).predicate, false);
+			}
+			else if (routerFunction instanceof DefaultNestedRouterFunction) {
+				return RequestPredicates.getRequiredPathPattern(
+						((DefaultNestedRouterFunction<?>) routerFunction).predicate, true);
+			}
+			return null;
+		}
+
+		@Override
+		public Mono<HandlerFunction<T>> route(ServerRequest request) {
+			List<Integer> candidates = this.index.getCandidates(request.pathContainer());
+			return Flux.fromIterable(candidates)
+					.<HandlerFunction<?>>concatMap(i -> this.routes.get(i).route(request))
+					.next()
+					.map(this::cast);
+		}
+
+		@SuppressWarnings("unchecked")
+		private HandlerFunction<T> cast(HandlerFunction<?> handlerFunction) {
+			return (HandlerFunction<T>) handlerFunction;
+		}
+
+		@Override
+		public void accept(Visitor visitor) {
+			this.routes.forEach(route -> route.accept(visitor));
+		}
+
+		/**
+		 * Return the index of route positions by path pattern, for inspection
+		 * through a {@link PathPatternIndex.Visitor}.
+		 */
+		PathPatternIndex<Integer> getIndex() {
+			return this.index;
+		}
+	}
+
+
 	/**
 	 * Filter the specified {@linkplain HandlerFunction handler functions} with the given
 	 * {@linkplain HandlerFilterFunction filter function}.
@@ -37,6 +37,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -47,6 +48,9 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternIndex;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -84,6 +88,12 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			new HandlerMethod(new PreFlightAmbiguousMatchHandler(),
 					ClassUtils.getMethod(PreFlightAmbiguousMatchHandler.class, "handle"));
 
+	/**
+	 * Pattern under which mappings without path patterns, which match any
+	 * path, are registered in the mapping path index.
+	 */
+	private static final PathPattern MATCH_ALL_PATTERN = new PathPatternParser().parse("/**");
+
 	private static final CorsConfiguration ALLOW_CORS_CONFIG = new CorsConfiguration();
 
 	static {
@@ -99,6 +109,32 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	// TODO: handlerMethodMappingNamingStrategy
 
+	/**
+	 * Whether to index registered mappings by the leading literal segments
+	 * of their {@link PathPattern PathPatterns}, so that a request is only
+	 * checked against mappings that can possibly match its path, rather
+	 * than against all registered mappings.
+	 * <p>The default is "false". Consider switching this on for applications
+	 * with a large number of mappings. This may be switched on or off at any
+	 * time, including after initialization, in which case the index is rebuilt
+	 * from the currently registered mappings.
+	 * @since 5.2
+	 * @see #getMappingPathPatterns
+	 * @see PathPatternIndex
+	 */
+	public void setUseMappingPathIndex(boolean useMappingPathIndex) {
+		this.mappingRegistry.setUsePathIndex(useMappingPathIndex);
+	}
+
+	/**
+	 * Whether mapping path patterns are indexed for lookups.
+	 * @since 5.2
+	 * @see #setUseMappingPathIndex
+	 */
+	public boolean useMappingPathIndex() {
+		return this.mappingRegistry.getPathIndex() != null;
+	}
+
 	/**
 	 * Return a (read-only) map with all mappings and HandlerMethod's.
 	 */
@@ -311,7 +347,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected HandlerMethod lookupHandlerMethod(ServerWebExchange exchange) throws Exception {
 		List<Match> matches = new ArrayList<>();
-		addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		PathPatternIndex<T> pathIndex = this.mappingRegistry.getPathIndex();
+		if (pathIndex != null) {
+			PathContainer lookupPath = exchange.getRequest().getPath().pathWithinApplication();
+			addMatchingMappings(pathIndex.getCandidates(lookupPath), matches, exchange);
+		}
+		else {
+			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		}
 
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -431,6 +474,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	protected abstract Comparator<T> getMappingComparator(ServerWebExchange exchange);
 
+	/**
+	 * Extract and return the path patterns contained in the supplied mapping,
+	 * used to register the mapping in the mapping path index.
+	 * <p>An empty set indicates that the mapping may match any path. This is
+	 * the default, which effectively turns the index into a pass-through.
+	 * @param mapping the mapping to extract the path patterns from
+	 * @since 5.2
+	 * @see #setUseMappingPathIndex
+	 */
+	protected Set<PathPattern> getMappingPathPatterns(T mapping) {
+		return Collections.emptySet();
+	}
+
 
 	/**
 	 * A registry that maintains all mappings to handler methods, exposing methods
@@ -446,6 +502,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
+		@Nullable
+		private PathPatternIndex<T> pathIndex;
+
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
 		/**
@@ -456,6 +515,38 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.mappingLookup;
 		}
 
+		/**
+		 * Return the mapping path index, or {@code null} if not in use. Not thread-safe.
+		 * @see #acquireReadLock()
+		 */
+		@Nullable
+		public PathPatternIndex<T> getPathIndex() {
+			return this.pathIndex;
+		}
+
+		/**
+		 * Switch the path index on or off, (re-)building it from the currently
+		 * registered mappings as necessary.
+		 */
+		public void setUsePathIndex(boolean usePathIndex) {
+			this.readWriteLock.writeLock().lock();
+			try {
+				if (!usePathIndex) {
+					this.pathIndex = null;
+				}
+				else if (this.pathIndex == null) {
+					PathPatternIndex<T> index = new PathPatternIndex<>();
+					for (T mapping : this.mappingLookup.keySet()) {
+						addToPathIndex(index, mapping);
+					}
+					this.pathIndex = index;
+				}
+			}
+			finally {
+				this.readWriteLock.writeLock().unlock();
+			}
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -486,6 +577,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				validateMethodMapping(handlerMethod, mapping);
 				this.mappingLookup.put(mapping, handlerMethod);
 
+				if (this.pathIndex != null) {
+					addToPathIndex(this.pathIndex, mapping);
+				}
+
 				CorsConfiguration corsConfig = initCorsConfiguration(handler, method, mapping);
 				if (corsConfig != null) {
 					this.corsLookup.put(handlerMethod, corsConfig);
@@ -519,11 +614,35 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 				this.mappingLookup.remove(definition.getMapping());
 				this.corsLookup.remove(definition.getHandlerMethod());
+
+				if (this.pathIndex != null) {
+					removeFromPathIndex(this.pathIndex, definition.getMapping());
+				}
 			}
 			finally {
 				this.readWriteLock.writeLock().unlock();
 			}
 		}
+
+		private void addToPathIndex(PathPatternIndex<T> index, T mapping) {
+			Set<PathPattern> patterns = getMappingPathPatterns(mapping);
+			if (patterns.isEmpty()) {
+				index.add(MATCH_ALL_PATTERN, mapping);
+			}
+			for (PathPattern pattern : patterns) {
+				index.add(pattern, mapping);
+			}
+		}
+
+		private void removeFromPathIndex(PathPatternIndex<T> index, T mapping) {
+			Set<PathPattern> patterns = getMappingPathPatterns(mapping);
+			if (patterns.isEmpty()) {
+				index.remove(MATCH_ALL_PATTERN, mapping);
+			}
+			for (PathPattern pattern : patterns) {
+				index.remove(pattern, mapping);
+			}
+		}
 	}
 
 
@@ -16,6 +16,9 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -24,6 +27,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.server.reactive.HttpHandler;
@@ -35,6 +39,8 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternIndex;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
@@ -291,4 +297,87 @@ public class RouterFunctionsTests {
 		assertThat(filterInvoked.get()).isTrue();
 	}
 
+	@Test
+	public void indexedRouteMatch() {
+		HandlerFunction<ServerResponse> users = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> user = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> orders = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> fallback = request -> ServerResponse.notFound().build();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.indexed(
+				RouterFunctions.nest(RequestPredicates.path("/api"),
+						RouterFunctions.route(RequestPredicates.GET("/users"), users)
+								.andRoute(RequestPredicates.GET("/users/{id}"), user)
+								.andRoute(RequestPredicates.path("/orders/**"), orders))
+						.andRoute(RequestPredicates.all(), fallback));
+
+		StepVerifier.create(routerFunction.route(request(HttpMethod.GET, "/api/users")))
+				.expectNext(users).verifyComplete();
+		StepVerifier.create(routerFunction.route(request(HttpMethod.GET, "/api/users/42")))
+				.expectNext(user).verifyComplete();
+		StepVerifier.create(routerFunction.route(request(HttpMethod.POST, "/api/orders/42/items")))
+				.expectNext(orders).verifyComplete();
+		StepVerifier.create(routerFunction.route(request(HttpMethod.POST, "/api/users")))
+				.expectNext(fallback).verifyComplete();
+		StepVerifier.create(routerFunction.route(request(HttpMethod.GET, "/other")))
+				.expectNext(fallback).verifyComplete();
+	}
+
+	@Test
+	public void indexedRouteKeepsOrder() {
+		HandlerFunction<ServerResponse> first = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> second = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.indexed(
+				RouterFunctions.route(RequestPredicates.path("/api/**"), first)
+						.andRoute(RequestPredicates.path("/api/users"), second));
+
+		StepVerifier.create(routerFunction.route(request(HttpMethod.GET, "/api/users")))
+				.expectNext(first).verifyComplete();
+	}
+
+	@Test
+	public void indexedRouteNoMatch() {
+		HandlerFunction<ServerResponse> handlerFunction = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.indexed(
+				RouterFunctions.route(RequestPredicates.path("/foo"), handlerFunction)
+						.andRoute(RequestPredicates.path("/bar"), handlerFunction));
+
+		StepVerifier.create(routerFunction.route(request(HttpMethod.GET, "/baz")))
+				.verifyComplete();
+	}
+
+	@Test
+	public void indexedRouteIndexVisitor() {
+		HandlerFunction<ServerResponse> handlerFunction = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.indexed(
+				RouterFunctions.route(RequestPredicates.GET("/foo/{id}"), handlerFunction)
+						.andRoute(RequestPredicates.path("/bar").or(RequestPredicates.path("/baz")), handlerFunction));
+
+		assertThat(routerFunction).isInstanceOf(RouterFunctions.IndexedRouterFunction.class);
+		List<String> events = new ArrayList<>();
+		((RouterFunctions.IndexedRouterFunction<?>) routerFunction).getIndex().accept(
+				new PathPatternIndex.Visitor<Integer>() {
+					@Override
+					public void startSegment(String segment, boolean caseSensitive) {
+						events.add("start " + segment);
+					}
+					@Override
+					public void entry(PathPattern pattern, Integer value) {
+						events.add(pattern + " -> " + value);
+					}
+					@Override
+					public void endSegment(String segment, boolean caseSensitive) {
+						events.add("end " + segment);
+					}
+				});
+		assertThat(events).containsExactly("/** -> 1", "start foo", "/foo/{id} -> 0", "end foo");
+	}
+
+	private static MockServerRequest request(HttpMethod method, String path) {
+		return MockServerRequest.builder().method(method).uri(URI.create("https://localhost" + path)).build();
+	}
+
 }
@@ -17,7 +17,9 @@
 package org.springframework.web.reactive.result.method;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -90,6 +92,33 @@ public class HandlerMethodMappingTests {
 		assertThat(((HandlerMethod) result.block()).getMethod()).isEqualTo(this.method1);
 	}
 
+	@Test
+	public void patternMatchWithMappingPathIndex() throws Exception {
+		this.mapping.setUseMappingPathIndex(true);
+		this.mapping.registerMapping("/foo/*", this.handler, this.method1);
+		this.mapping.registerMapping("/bar/*", this.handler, this.method2);
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/bar/1"));
+		Mono<Object> result = this.mapping.getHandler(exchange);
+		assertThat(((HandlerMethod) result.block()).getMethod()).isEqualTo(this.method2);
+
+		this.mapping.unregisterMapping("/bar/*");
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/bar/1"));
+		assertThat(this.mapping.getHandler(exchange).block()).isNull();
+	}
+
+	@Test
+	public void mappingPathIndexEnabledAfterRegistration() throws Exception {
+		this.mapping.registerMapping("/foo/*", this.handler, this.method1);
+		this.mapping.registerMapping("/bar/*", this.handler, this.method2);
+		this.mapping.setUseMappingPathIndex(true);
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/foo/1"));
+		Mono<Object> result = this.mapping.getHandler(exchange);
+		assertThat(((HandlerMethod) result.block()).getMethod()).isEqualTo(this.method1);
+		assertThat(this.mapping.getMappingRegistry().getPathIndex().size()).isEqualTo(2);
+	}
+
 	@Test
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
@@ -167,6 +196,11 @@ public class HandlerMethodMappingTests {
 			return (o1, o2) -> PathPattern.SPECIFICITY_COMPARATOR.compare(parser.parse(o1), parser.parse(o2));
 		}
 
+		@Override
+		protected Set<PathPattern> getMappingPathPatterns(String pattern) {
+			return Collections.singleton(this.parser.parse(pattern));
+		}
+
 	}
 
 	@Controller
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet;
+
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+/**
+ * End-to-end benchmarks for the {@link DispatcherServlet} processing requests
+ * against annotated controllers in an {@code @EnableWebMvc} configuration,
+ * using {@link MockHttpServletRequest} and {@link MockHttpServletResponse}.
+ *
+ * @author Agent
+ * @since 5.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DispatcherServletBenchmark {
+
+	@Benchmark
+	public MockHttpServletResponse staticPath(BenchmarkState state) throws Exception {
+		return state.perform(new MockHttpServletRequest("GET", "/persons"));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse pathVariable(BenchmarkState state) throws Exception {
+		return state.perform(new MockHttpServletRequest("GET", "/persons/42"));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse requestParameter(BenchmarkState state) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/search");
+		request.addParameter("q", "spring");
+		return state.perform(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse requestBody(BenchmarkState state) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/persons");
+		request.setContentType("text/plain");
+		request.setContent("Jane".getBytes());
+		return state.perform(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse notFound(BenchmarkState state) throws Exception {
+		return state.perform(new MockHttpServletRequest("GET", "/unknown"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public AnnotationConfigWebApplicationContext context;
+
+		public DispatcherServlet servlet;
+
+		@Setup
+		public void setup() throws ServletException {
+			MockServletContext servletContext = new MockServletContext();
+			this.context = new AnnotationConfigWebApplicationContext();
+			this.context.setServletContext(servletContext);
+			this.context.register(WebConfig.class, PersonController.class);
+			this.context.refresh();
+			this.servlet = new DispatcherServlet(this.context);
+			this.servlet.init(new MockServletConfig(servletContext));
+		}
+
+		@TearDown
+		public void tearDown() {
+			this.servlet.destroy();
+			this.context.close();
+		}
+
+		public MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			this.servlet.service(request, response);
+			return response;
+		}
+	}
+
+
+	@Configuration
+	@EnableWebMvc
+	static class WebConfig {
+	}
+
+
+	@RestController
+	static class PersonController {
+
+		@GetMapping("/persons")
+		public String list() {
+			return "persons";
+		}
+
+		@GetMapping("/persons/{id}")
+		public String get(@PathVariable("id") long id) {
+			return "person " + id;
+		}
+
+		@PostMapping("/persons")
+		public String create(@RequestBody String name) {
+			return "created " + name;
+		}
+
+		@GetMapping("/search")
+		public String search(@RequestParam("q") String q) {
+			return "results for " + q;
+		}
+	}
+
+}
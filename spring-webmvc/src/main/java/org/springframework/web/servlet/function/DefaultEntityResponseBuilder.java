@@ -264,7 +264,7 @@ final class DefaultEntityResponseBuilder<T> implements EntityResponse.Builder<T>
 				HttpServletResponse response, ServerResponse.Context context)
 				throws ServletException, IOException {
 
-			ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response);
+			ServletServerHttpResponse serverResponse = new ServletServerHttpResponse(response, request);
 			MediaType contentType = getContentType(response);
 			Class<?> entityClass = entity.getClass();
 
@@ -116,6 +116,33 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to index the path patterns of registered mappings by their
+	 * leading literal segments, so that a request that does not match any
+	 * direct URL is only checked against mappings that can possibly match
+	 * its lookup path, rather than against all registered mappings.
+	 * <p>The default is "false". Consider switching this on for applications
+	 * with a large number of pattern-based mappings. The index assumes that
+	 * literal pattern segments are matched case-sensitively and without
+	 * trimming, as is the default for {@link org.springframework.util.AntPathMatcher}.
+	 * <p>This may be switched on or off at any time, including after
+	 * initialization, in which case the index is rebuilt from the currently
+	 * registered mappings.
+	 * @since 5.2
+	 */
+	public void setUseMappingPathIndex(boolean useMappingPathIndex) {
+		this.mappingRegistry.setUsePathIndex(useMappingPathIndex);
+	}
+
+	/**
+	 * Whether mapping path patterns are indexed for lookups.
+	 * @since 5.2
+	 * @see #setUseMappingPathIndex
+	 */
+	public boolean useMappingPathIndex() {
+		return this.mappingRegistry.isUsePathIndex();
+	}
+
 	/**
 	 * Configure the naming strategy to use for assigning a default name to every
 	 * mapped handler method.
@@ -389,8 +416,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			List<T> candidates = this.mappingRegistry.getMappingsByPathIndex(lookupPath);
+			if (candidates != null) {
+				addMatchingMappings(candidates, matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -540,6 +573,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
+		@Nullable
+		private MappingPathIndex<T> pathIndex;
+
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
 		/**
@@ -559,6 +595,43 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings that may match the given lookup path according to
+		 * the path index, or {@code null} if the index is not in use. Not thread-safe.
+		 * @see #acquireReadLock()
+		 */
+		@Nullable
+		public List<T> getMappingsByPathIndex(String lookupPath) {
+			return (this.pathIndex != null ? this.pathIndex.getCandidates(lookupPath) : null);
+		}
+
+		/**
+		 * Switch the path index on or off, (re-)building it from the currently
+		 * registered mappings as necessary.
+		 */
+		public void setUsePathIndex(boolean usePathIndex) {
+			this.readWriteLock.writeLock().lock();
+			try {
+				if (!usePathIndex) {
+					this.pathIndex = null;
+				}
+				else if (this.pathIndex == null) {
+					MappingPathIndex<T> index = new MappingPathIndex<>(getPathMatcher());
+					for (T mapping : this.mappingLookup.keySet()) {
+						index.add(mapping, getMappingPathPatterns(mapping));
+					}
+					this.pathIndex = index;
+				}
+			}
+			finally {
+				this.readWriteLock.writeLock().unlock();
+			}
+		}
+
+		public boolean isUsePathIndex() {
+			return (this.pathIndex != null);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -605,6 +678,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.urlLookup.add(url, mapping);
 				}
 
+				if (this.pathIndex != null) {
+					this.pathIndex.add(mapping, getMappingPathPatterns(mapping));
+				}
+
 				String name = null;
 				if (getNamingStrategy() != null) {
 					name = getNamingStrategy().getName(handlerMethod, mapping);
@@ -682,6 +759,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				if (this.pathIndex != null) {
+					this.pathIndex.remove(definition.getMapping(), getMappingPathPatterns(definition.getMapping()));
+				}
+
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
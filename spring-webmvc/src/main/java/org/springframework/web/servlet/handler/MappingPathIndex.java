@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Prefix trie over the leading literal segments of mapping path patterns,
+ * used to narrow down the candidate mappings for a lookup path before
+ * running the full (and comparatively expensive) mapping conditions.
+ *
+ * <p>Each pattern is registered under the node reached by walking its
+ * leading segments for which {@link PathMatcher#isPattern} returns
+ * {@code false}. The last segment of a pattern is never used as a key,
+ * since suffix pattern and trailing slash matching may extend it, so a
+ * pattern such as {@code "/api/users/{id}"} is indexed under
+ * {@code [api, users]} and {@code "/api/users"} under {@code [api]}.
+ * Mappings without any patterns are kept at the root and are therefore
+ * candidates for every lookup path.
+ *
+ * <p>The index relies on literal segments being compared case-sensitively
+ * and without trimming, as is the default for
+ * {@link org.springframework.util.AntPathMatcher}. Not thread-safe: access
+ * is guarded by the lock of the enclosing mapping registry.
+ *
+ * @author Agent
+ * @since 5.2
+ * @param <T> the mapping type
+ * @see AbstractHandlerMethodMapping#setUseMappingPathIndex
+ */
+final class MappingPathIndex<T> {
+
+	private static final String PATH_SEPARATOR = "/";
+
+
+	private final PathMatcher pathMatcher;
+
+	private final Node<T> root = new Node<>();
+
+	private final Map<T, Long> registrationOrder = new HashMap<>();
+
+	private long counter;
+
+
+	MappingPathIndex(PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+	}
+
+
+	/**
+	 * Add the given mapping under each of its path patterns.
+	 * @param mapping the mapping to add
+	 * @param patterns the path patterns of the mapping, possibly empty
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		this.registrationOrder.put(mapping, this.counter++);
+		if (patterns.isEmpty()) {
+			this.root.mappings.add(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			String[] segments = tokenize(pattern);
+			for (int i = 0; i < segments.length - 1 && !this.pathMatcher.isPattern(segments[i]); i++) {
+				node = node.children.computeIfAbsent(segments[i], key -> new Node<>());
+			}
+			node.mappings.add(mapping);
+		}
+	}
+
+	/**
+	 * Remove the given mapping, pruning nodes that are left empty.
+	 * @param mapping the mapping to remove
+	 * @param patterns the path patterns the mapping was added with
+	 */
+	public void remove(T mapping, Collection<String> patterns) {
+		if (this.registrationOrder.remove(mapping) == null) {
+			return;
+		}
+		if (patterns.isEmpty()) {
+			this.root.mappings.remove(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			String[] segments = tokenize(pattern);
+			remove(this.root, mapping, segments, 0);
+		}
+	}
+
+	private boolean remove(Node<T> node, T mapping, String[] segments, int index) {
+		if (index < segments.length - 1 && !this.pathMatcher.isPattern(segments[index])) {
+			Node<T> child = node.children.get(segments[index]);
+			if (child != null && remove(child, mapping, segments, index + 1)) {
+				node.children.remove(segments[index]);
+			}
+		}
+		else {
+			node.mappings.remove(mapping);
+		}
+		return node.isEmpty();
+	}
+
+	/**
+	 * Return the mappings whose patterns may match the given lookup path,
+	 * in registration order. The result is a superset of the actual matches.
+	 * @param lookupPath the lookup path of the current request
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		Set<T> candidates = new LinkedHashSet<>(this.root.mappings);
+		Node<T> node = this.root;
+		for (String segment : tokenize(lookupPath)) {
+			node = node.children.get(segment);
+			if (node == null) {
+				break;
+			}
+			candidates.addAll(node.mappings);
+		}
+		List<T> result = new ArrayList<>(candidates);
+		if (result.size() > 1) {
+			result.sort(Comparator.comparing(this.registrationOrder::get));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of indexed mappings.
+	 */
+	public int size() {
+		return this.registrationOrder.size();
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+	}
+
+
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> children = new HashMap<>();
+
+		private final Set<T> mappings = new HashSet<>();
+
+		boolean isEmpty() {
+			return (this.children.isEmpty() && this.mappings.isEmpty());
+		}
+	}
+
+}
@@ -153,7 +153,7 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	protected ServletServerHttpResponse createOutputMessage(NativeWebRequest webRequest) {
 		HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
 		Assert.state(response != null, "No HttpServletResponse");
-		return new ServletServerHttpResponse(response);
+		return new ServletServerHttpResponse(response, webRequest.getNativeRequest(HttpServletRequest.class));
 	}
 
 	/**
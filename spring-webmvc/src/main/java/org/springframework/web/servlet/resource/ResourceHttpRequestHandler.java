@@ -482,7 +482,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 			return;
 		}
 
-		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response, request);
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
 			setHeaders(response, resource, mediaType);
@@ -99,6 +99,21 @@ public class HandlerMethodMappingTests {
 		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE)).isEqualTo(result);
 	}
 
+	@Test
+	public void patternMatchWithMappingPathIndex() throws Exception {
+		this.mapping.setUseMappingPathIndex(true);
+		this.mapping.registerMapping("/fo*", this.handler, this.method1);
+		this.mapping.registerMapping("/f*", this.handler, this.method2);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		HandlerMethod result = this.mapping.getHandlerInternal(request);
+		assertThat(result.getMethod()).isEqualTo(method1);
+
+		this.mapping.unregisterMapping("/fo*");
+		result = this.mapping.getHandlerInternal(new MockHttpServletRequest("GET", "/foo"));
+		assertThat(result.getMethod()).isEqualTo(method2);
+	}
+
 	@Test
 	public void ambiguousMatch() throws Exception {
 		this.mapping.registerMapping("/f?o", this.handler, this.method1);
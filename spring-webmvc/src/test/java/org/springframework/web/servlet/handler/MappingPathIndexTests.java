@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.AntPathMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappingPathIndex}.
+ *
+ * @author Agent
+ */
+public class MappingPathIndexTests {
+
+	private MappingPathIndex<String> index;
+
+
+	@BeforeEach
+	public void setup() {
+		this.index = new MappingPathIndex<>(new AntPathMatcher());
+		add("users", "/api/users");
+		add("user", "/api/users/{id}");
+		add("userOrders", "/api/users/{id}/orders");
+		add("orders", "/api/orders/{id}");
+		add("files", "/files/**");
+		add("wildcard", "/*/info");
+		add("any");
+	}
+
+
+	@Test
+	public void candidatesNarrowedByLiteralPrefix() {
+		assertThat(this.index.getCandidates("/api/users/42"))
+				.containsExactly("users", "user", "userOrders", "wildcard", "any");
+		assertThat(this.index.getCandidates("/api/orders/42"))
+				.containsExactly("users", "orders", "wildcard", "any");
+		assertThat(this.index.getCandidates("/files/a/b/c.txt"))
+				.containsExactly("files", "wildcard", "any");
+		assertThat(this.index.getCandidates("/other"))
+				.containsExactly("wildcard", "any");
+	}
+
+	@Test
+	public void lastSegmentNotIndexed() {
+		// Suffix pattern and trailing slash matching may extend the last segment
+		assertThat(this.index.getCandidates("/api/users.json")).contains("users");
+		assertThat(this.index.getCandidates("/api/users/")).contains("users");
+	}
+
+	@Test
+	public void emptySegmentsIgnored() {
+		assertThat(this.index.getCandidates("//api//users//42")).contains("user");
+	}
+
+	@Test
+	public void candidatesDeduplicated() {
+		add("multi", "/api/users/{id}", "/api/{name}");
+		assertThat(this.index.getCandidates("/api/users/42")).containsOnlyOnce("multi");
+	}
+
+	@Test
+	public void remove() {
+		this.index.remove("user", Collections.singleton("/api/users/{id}"));
+		this.index.remove("userOrders", Collections.singleton("/api/users/{id}/orders"));
+		this.index.remove("any", Collections.emptySet());
+
+		assertThat(this.index.getCandidates("/api/users/42")).containsExactly("users", "wildcard");
+		assertThat(this.index.size()).isEqualTo(4);
+	}
+
+
+	private void add(String mapping, String... patterns) {
+		this.index.add(mapping, Arrays.asList(patterns));
+	}
+
+}
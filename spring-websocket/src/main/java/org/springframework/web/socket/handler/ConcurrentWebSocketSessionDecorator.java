@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,14 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,7 +32,10 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -39,6 +48,11 @@ import org.springframework.web.socket.WebSocketSession;
  * At that time, the specified buffer-size limit and send-time limit will be checked
  * and the session will be closed if the limits are exceeded.
  *
+ * <p>Optionally, buffered messages can be {@link #setMessageCoalescingLimit
+ * coalesced} into fewer writes to the underlying session, and the buffer can be
+ * flushed on a {@link #setFlushExecutor flush executor} rather than by the thread
+ * that sends a message.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0.3
@@ -68,6 +82,21 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final Lock closeLock = new ReentrantLock();
 
+	private int messageCoalescingLimit;
+
+	@Nullable
+	private Executor flushExecutor;
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	/** A message taken from the buffer that did not fit into the last write, guarded by the flush lock. */
+	@Nullable
+	private WebSocketMessage<?> pendingMessage;
+
+	private volatile long lastFlushLatency;
+
+	private volatile long maxFlushLatency;
+
 
 	/**
 	 * Basic constructor.
@@ -114,6 +143,55 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSizeLimit;
 	}
 
+	/**
+	 * Configure the maximum number of bytes to send in a single write when
+	 * buffered messages are flushed. Consecutive complete text messages, or
+	 * consecutive complete binary messages, are then joined into one message
+	 * of up to the given size, while partial, ping, and pong messages are
+	 * always sent on their own.
+	 * <p>Coalescing changes the message boundaries seen by the client, and is
+	 * therefore only suitable for sub-protocols that delimit messages within
+	 * the payload, such as STOMP with its NULL octet frame terminator.
+	 * <p>By default this is set to 0, in which case messages are not coalesced.
+	 * @param messageCoalescingLimit the coalescing limit (number of bytes)
+	 * @since 5.2
+	 */
+	public void setMessageCoalescingLimit(int messageCoalescingLimit) {
+		this.messageCoalescingLimit = messageCoalescingLimit;
+	}
+
+	/**
+	 * Return the configured coalescing limit (number of bytes).
+	 * @since 5.2
+	 */
+	public int getMessageCoalescingLimit() {
+		return this.messageCoalescingLimit;
+	}
+
+	/**
+	 * Configure an executor to flush buffered messages with. Threads that send
+	 * a message then only add it to the buffer, and check the session limits
+	 * if a flush is pending already, so that they are not held up by a slow
+	 * write. Should the executor reject a flush, messages are flushed by the
+	 * sending thread instead.
+	 * <p>By default this is not set, and messages are flushed by the thread
+	 * that acquires the flush lock.
+	 * @param flushExecutor the executor to use, or {@code null} for none
+	 * @since 5.2
+	 */
+	public void setFlushExecutor(@Nullable Executor flushExecutor) {
+		this.flushExecutor = flushExecutor;
+	}
+
+	/**
+	 * Return the configured flush executor, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getFlushExecutor() {
+		return this.flushExecutor;
+	}
+
 	/**
 	 * Return the current buffer size (number of bytes).
 	 */
@@ -130,6 +208,32 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return (start > 0 ? (System.currentTimeMillis() - start) : 0);
 	}
 
+	/**
+	 * Return the number of messages currently waiting in the buffer.
+	 * @since 5.2
+	 */
+	public int getBufferedMessageCount() {
+		return this.buffer.size();
+	}
+
+	/**
+	 * Return the time (milliseconds) the most recent write to the underlying
+	 * session took, or 0 if nothing has been sent yet.
+	 * @since 5.2
+	 */
+	public long getLastFlushLatency() {
+		return this.lastFlushLatency;
+	}
+
+	/**
+	 * Return the longest time (milliseconds) a write to the underlying session
+	 * has taken so far.
+	 * @since 5.2
+	 */
+	public long getMaxFlushLatency() {
+		return this.maxFlushLatency;
+	}
+
 
 	@Override
 	public void sendMessage(WebSocketMessage<?> message) throws IOException {
@@ -140,6 +244,11 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		this.buffer.add(message);
 		this.bufferSize.addAndGet(message.getPayloadLength());
 
+		Executor executor = this.flushExecutor;
+		if (executor != null && scheduleFlush(executor)) {
+			return;
+		}
+
 		do {
 			if (!tryFlushMessageBuffer()) {
 				if (logger.isTraceEnabled()) {
@@ -158,18 +267,75 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return (this.limitExceeded || this.closeInProgress);
 	}
 
+	/**
+	 * Schedule a flush on the given executor unless one is pending already,
+	 * in which case the session limits are checked instead.
+	 * @return {@code false} if the executor rejected the flush
+	 */
+	private boolean scheduleFlush(Executor executor) {
+		if (!this.flushScheduled.compareAndSet(false, true)) {
+			checkSessionLimits();
+			return true;
+		}
+		try {
+			executor.execute(this::flushMessageBuffer);
+			return true;
+		}
+		catch (RejectedExecutionException ex) {
+			this.flushScheduled.set(false);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Flush rejected for session '" + getId() + "', sending on the calling thread", ex);
+			}
+			return false;
+		}
+	}
+
+	private void flushMessageBuffer() {
+		try {
+			while (true) {
+				boolean flushed = tryFlushMessageBuffer();
+				this.flushScheduled.set(false);
+				// Messages added after the last poll may have seen the flag still set
+				if (!flushed || this.buffer.isEmpty() || shouldNotSend() ||
+						!this.flushScheduled.compareAndSet(false, true)) {
+					return;
+				}
+			}
+		}
+		catch (Throwable ex) {
+			this.flushScheduled.set(false);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to flush messages for session '" + getId() + "'", ex);
+			}
+			try {
+				close(CloseStatus.SESSION_NOT_RELIABLE);
+			}
+			catch (IOException ex2) {
+				// Ignore
+			}
+		}
+	}
+
 	private boolean tryFlushMessageBuffer() throws IOException {
 		if (this.flushLock.tryLock()) {
 			try {
 				while (true) {
-					WebSocketMessage<?> message = this.buffer.poll();
+					WebSocketMessage<?> message = pollMessage();
 					if (message == null || shouldNotSend()) {
 						break;
 					}
-					this.bufferSize.addAndGet(-message.getPayloadLength());
-					this.sendStartTime = System.currentTimeMillis();
+					if (this.messageCoalescingLimit > 0) {
+						message = coalesce(message);
+					}
+					long startTime = System.currentTimeMillis();
+					this.sendStartTime = startTime;
 					getDelegate().sendMessage(message);
 					this.sendStartTime = 0;
+					long latency = System.currentTimeMillis() - startTime;
+					this.lastFlushLatency = latency;
+					if (latency > this.maxFlushLatency) {
+						this.maxFlushLatency = latency;
+					}
 				}
 			}
 			finally {
@@ -181,6 +347,75 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	@Nullable
+	private WebSocketMessage<?> pollMessage() {
+		WebSocketMessage<?> message = this.pendingMessage;
+		if (message != null) {
+			this.pendingMessage = null;
+			return message;
+		}
+		message = this.buffer.poll();
+		if (message != null) {
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+		}
+		return message;
+	}
+
+	/**
+	 * Join the given message with the messages that follow it in the buffer,
+	 * as long as they are of the same type and within the coalescing limit.
+	 * A message taken from the buffer that does not fit is sent next.
+	 */
+	private WebSocketMessage<?> coalesce(WebSocketMessage<?> message) {
+		if (!isCoalescable(message)) {
+			return message;
+		}
+		List<WebSocketMessage<?>> messages = null;
+		int size = message.getPayloadLength();
+		while (true) {
+			WebSocketMessage<?> next = pollMessage();
+			if (next == null) {
+				break;
+			}
+			if (next.getClass() != message.getClass() || !isCoalescable(next) ||
+					size + next.getPayloadLength() > this.messageCoalescingLimit) {
+				this.pendingMessage = next;
+				break;
+			}
+			if (messages == null) {
+				messages = new ArrayList<>();
+				messages.add(message);
+			}
+			messages.add(next);
+			size += next.getPayloadLength();
+		}
+		if (messages == null) {
+			return message;
+		}
+		if (message instanceof TextMessage) {
+			byte[] bytes = new byte[size];
+			int offset = 0;
+			for (WebSocketMessage<?> textMessage : messages) {
+				byte[] payload = ((TextMessage) textMessage).asBytes();
+				System.arraycopy(payload, 0, bytes, offset, payload.length);
+				offset += payload.length;
+			}
+			return new TextMessage(bytes);
+		}
+		else {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(size);
+			for (WebSocketMessage<?> binaryMessage : messages) {
+				byteBuffer.put(((BinaryMessage) binaryMessage).getPayload().duplicate());
+			}
+			byteBuffer.flip();
+			return new BinaryMessage(byteBuffer);
+		}
+	}
+
+	private static boolean isCoalescable(WebSocketMessage<?> message) {
+		return ((message instanceof TextMessage || message instanceof BinaryMessage) && message.isLast());
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
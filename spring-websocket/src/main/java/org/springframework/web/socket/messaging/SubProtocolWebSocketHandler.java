@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -93,6 +94,11 @@ public class SubProtocolWebSocketHandler
 
 	private int sendBufferSizeLimit = 512 * 1024;
 
+	private int sendCoalescingLimit;
+
+	@Nullable
+	private Executor sendFlushExecutor;
+
 	private int timeToFirstMessage = DEFAULT_TIME_TO_FIRST_MESSAGE;
 
 	private volatile long lastSessionCheckTime = System.currentTimeMillis();
@@ -222,6 +228,45 @@ public class SubProtocolWebSocketHandler
 		return this.sendBufferSizeLimit;
 	}
 
+	/**
+	 * Specify the maximum number of bytes to coalesce buffered messages into
+	 * for a single write, or 0 (the default) to send messages one by one.
+	 * <p>Only enable this if all configured sub-protocols delimit messages
+	 * within the payload, as STOMP does.
+	 * @since 5.2
+	 * @see ConcurrentWebSocketSessionDecorator#setMessageCoalescingLimit
+	 */
+	public void setSendCoalescingLimit(int sendCoalescingLimit) {
+		this.sendCoalescingLimit = sendCoalescingLimit;
+	}
+
+	/**
+	 * Return the coalescing limit (number of bytes).
+	 * @since 5.2
+	 */
+	public int getSendCoalescingLimit() {
+		return this.sendCoalescingLimit;
+	}
+
+	/**
+	 * Specify an executor to flush buffered messages with, instead of the
+	 * thread that sends a message.
+	 * @since 5.2
+	 * @see ConcurrentWebSocketSessionDecorator#setFlushExecutor
+	 */
+	public void setSendFlushExecutor(@Nullable Executor sendFlushExecutor) {
+		this.sendFlushExecutor = sendFlushExecutor;
+	}
+
+	/**
+	 * Return the executor to flush buffered messages with, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getSendFlushExecutor() {
+		return this.sendFlushExecutor;
+	}
+
 	/**
 	 * Set the maximum time allowed in milliseconds after the WebSocket connection
 	 * is established and before the first sub-protocol message is received.
@@ -409,13 +454,19 @@ public class SubProtocolWebSocketHandler
 	 * Decorate the given {@link WebSocketSession}, if desired.
 	 * <p>The default implementation builds a {@link ConcurrentWebSocketSessionDecorator}
 	 * with the configured {@link #getSendTimeLimit() send-time limit} and
-	 * {@link #getSendBufferSizeLimit() buffer-size limit}.
+	 * {@link #getSendBufferSizeLimit() buffer-size limit}, as well as the
+	 * {@link #getSendCoalescingLimit() coalescing limit} and
+	 * {@link #getSendFlushExecutor() flush executor}, if set.
 	 * @param session the original {@code WebSocketSession}
 	 * @return the decorated {@code WebSocketSession}, or potentially the given session as-is
 	 * @since 4.3.13
 	 */
 	protected WebSocketSession decorateSession(WebSocketSession session) {
-		return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit());
+		decorator.setMessageCoalescingLimit(getSendCoalescingLimit());
+		decorator.setFlushExecutor(getSendFlushExecutor());
+		return decorator;
 	}
 
 	/**
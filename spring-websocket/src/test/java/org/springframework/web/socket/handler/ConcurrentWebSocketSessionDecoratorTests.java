@@ -17,14 +17,20 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
@@ -202,6 +208,129 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		assertThat(session.getCloseStatus()).as("CloseStatus should have changed to SESSION_NOT_RELIABLE").isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
 	}
 
+	@Test
+	public void coalesceBufferedMessages() throws Exception {
+
+		ConcurrentWebSocketSessionDecorator[] decorator = new ConcurrentWebSocketSessionDecorator[1];
+		TestWebSocketSession session = new TestWebSocketSession() {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) throws IOException {
+				super.sendMessage(message);
+				if (getSentMessages().size() == 1) {
+					// Buffer more messages from another thread while the first send is in progress
+					Thread thread = new Thread(() -> {
+						try {
+							decorator[0].sendMessage(new TextMessage("b"));
+							decorator[0].sendMessage(new TextMessage("c"));
+							decorator[0].sendMessage(new BinaryMessage(new byte[] {1}));
+							decorator[0].sendMessage(new BinaryMessage(new byte[] {2}));
+							decorator[0].sendMessage(new PingMessage());
+							decorator[0].sendMessage(new TextMessage("d"));
+							decorator[0].sendMessage(new TextMessage("ef"));
+						}
+						catch (IOException ex) {
+							throw new IllegalStateException(ex);
+						}
+					});
+					thread.start();
+					try {
+						thread.join();
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+		};
+		session.setOpen(true);
+		decorator[0] = new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator[0].setMessageCoalescingLimit(2);
+
+		decorator[0].sendMessage(new TextMessage("a"));
+
+		List<WebSocketMessage<?>> sent = session.getSentMessages();
+		assertThat(sent).hasSize(6);
+		assertThat(sent.get(0)).isEqualTo(new TextMessage("a"));
+		assertThat(sent.get(1)).isEqualTo(new TextMessage("bc"));
+		assertThat(sent.get(2)).isEqualTo(new BinaryMessage(new byte[] {1, 2}));
+		assertThat(sent.get(3)).isInstanceOf(PingMessage.class);
+		assertThat(sent.get(4)).isEqualTo(new TextMessage("d"));
+		assertThat(sent.get(5)).isEqualTo(new TextMessage("ef"));
+		assertThat(((BinaryMessage) sent.get(2)).getPayload()).isEqualTo(ByteBuffer.wrap(new byte[] {1, 2}));
+		assertThat(decorator[0].getBufferSize()).isEqualTo(0);
+		assertThat(decorator[0].getBufferedMessageCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void flushOnExecutor() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession();
+		session.setOpen(true);
+
+		List<Runnable> tasks = new ArrayList<>();
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setMessageCoalescingLimit(1024);
+		decorator.setFlushExecutor(tasks::add);
+
+		decorator.sendMessage(new TextMessage("foo"));
+		decorator.sendMessage(new TextMessage("bar"));
+
+		assertThat(session.getSentMessages()).isEmpty();
+		assertThat(decorator.getBufferedMessageCount()).isEqualTo(2);
+		assertThat(decorator.getBufferSize()).isEqualTo(6);
+		assertThat(tasks).hasSize(1);
+
+		tasks.remove(0).run();
+
+		assertThat(session.getSentMessages()).containsExactly(new TextMessage("foobar"));
+		assertThat(decorator.getBufferedMessageCount()).isEqualTo(0);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+		assertThat(decorator.getMaxFlushLatency()).isGreaterThanOrEqualTo(decorator.getLastFlushLatency());
+
+		decorator.sendMessage(new TextMessage("baz"));
+		assertThat(tasks).hasSize(1);
+	}
+
+	@Test
+	public void flushOnCallingThreadWhenExecutorRejects() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession();
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setFlushExecutor(task -> {
+			throw new RejectedExecutionException();
+		});
+
+		TextMessage message = new TextMessage("payload");
+		decorator.sendMessage(message);
+
+		assertThat(session.getSentMessages()).containsExactly(message);
+		assertThat(decorator.getBufferSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void closeWhenFlushOnExecutorFails() throws IOException {
+
+		TestWebSocketSession session = new TestWebSocketSession() {
+			@Override
+			public void sendMessage(WebSocketMessage<?> message) throws IOException {
+				throw new IOException("Connection reset");
+			}
+		};
+		session.setOpen(true);
+
+		ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 1000, 1024);
+		decorator.setFlushExecutor(Runnable::run);
+
+		decorator.sendMessage(new TextMessage("payload"));
+
+		assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE);
+	}
+
 	private void sendBlockingMessage(ConcurrentWebSocketSessionDecorator session) throws InterruptedException {
 		BlockingSession delegate = (BlockingSession) session.getDelegate();
 		CountDownLatch sentMessageLatch = delegate.getSentMessageLatch();